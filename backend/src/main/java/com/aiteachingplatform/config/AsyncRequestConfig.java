@@ -0,0 +1,42 @@
+package com.aiteachingplatform.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timeout of asynchronous requests such as synchronous /execute and /grade, which complete from
+ * the job pipeline
+ * Derived from the execution limits so a request outlives the longest queue wait plus the longest
+ * run, rather than timing out while its job keeps running
+ */
+@Configuration
+public class AsyncRequestConfig implements WebMvcConfigurer {
+    
+    @Value("${code.execution.timeout.seconds:10}")
+    private long runTimeoutSeconds;
+    
+    @Value("${code.execution.tests.max-total-seconds:60}")
+    private long testsMaxTotalSeconds;
+    
+    @Value("${code.execution.queue.max-wait-seconds:120}")
+    private long queueMaxWaitSeconds;
+    
+    @Value("${code.execution.request-timeout-headroom-seconds:60}")
+    private long headroomSeconds;
+    
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(TimeUnit.SECONDS.toMillis(requestTimeoutSeconds()));
+    }
+    
+    /**
+     * Longest queue wait, then the longest run, then time for compiling, scheduling and the response
+     */
+    long requestTimeoutSeconds() {
+        return queueMaxWaitSeconds + Math.max(runTimeoutSeconds, testsMaxTotalSeconds) + headroomSeconds;
+    }
+}
@@ -2,6 +2,7 @@ package com.aiteachingplatform.config;
 
 import com.aiteachingplatform.security.JwtAuthenticationFilter;
 import com.aiteachingplatform.service.UserDetailsServiceImpl;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -60,9 +61,13 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(authz -> authz
+                // Async dispatches complete requests that were already authorized (execution jobs, SSE)
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/auth/register", "/api/auth/login", 
                                "/api/auth/check-username", "/api/auth/check-email").permitAll()
                 .requestMatchers("/h2-console/**").permitAll() // For testing with H2
+                // Load balancer probes; details are only shown to admins
+                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
                 .anyRequest().authenticated()
             )
             .authenticationProvider(authenticationProvider())
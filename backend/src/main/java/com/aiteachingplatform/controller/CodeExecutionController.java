@@ -1,17 +1,30 @@
 package com.aiteachingplatform.controller;
 
+import com.aiteachingplatform.dto.CodeExecutionJobResponse;
 import com.aiteachingplatform.dto.CodeExecutionRequest;
 import com.aiteachingplatform.dto.CodeExecutionResponse;
 import com.aiteachingplatform.dto.MessageResponse;
+import com.aiteachingplatform.service.CodeExecutionJobService;
 import com.aiteachingplatform.service.CodeExecutionService;
+import com.aiteachingplatform.service.LessonService;
+import com.aiteachingplatform.service.PracticeQuestionGradingService;
+import com.aiteachingplatform.service.execution.CodeExecutionJob;
+import com.aiteachingplatform.service.execution.ExecutionLane;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * REST Controller for code execution functionality
@@ -27,30 +40,38 @@ public class CodeExecutionController {
     @Autowired
     private CodeExecutionService codeExecutionService;
     
+    @Autowired
+    private CodeExecutionJobService codeExecutionJobService;
+    
+    @Autowired
+    private PracticeQuestionGradingService gradingService;
+    
+    @Autowired
+    private LessonService lessonService;
+    
+    @Value("${code.execution.jobs.stream-timeout-ms:120000}")
+    private long jobStreamTimeoutMs;
+    
     /**
      * Execute code in a secure container
+     * Thin synchronous wrapper over the job pipeline: the request thread is released
+     * while the code runs and the response is written once the job completes
      * Requirements: 6.1, 6.2, 6.3, 6.4
      */
     @PostMapping("/execute")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<?> executeCode(@Valid @RequestBody CodeExecutionRequest request) {
-        try {
-            logger.info("Executing {} code for user", request.getLanguage());
-            
-            // Validate request
-            if (request.getCode() == null || request.getCode().trim().isEmpty()) {
-                return ResponseEntity.badRequest()
-                        .body(new MessageResponse("Code cannot be empty"));
-            }
-            
-            if (request.getLanguage() == null) {
-                return ResponseEntity.badRequest()
-                        .body(new MessageResponse("Programming language must be specified"));
-            }
-            
-            // Execute code
-            CodeExecutionResponse response = codeExecutionService.executeCode(request);
-            
+    public CompletableFuture<ResponseEntity<?>> executeCode(@Valid @RequestBody CodeExecutionRequest request,
+                                                            Authentication auth) {
+        logger.info("Executing {} code for user", request.getLanguage());
+        
+        // Validate request
+        ResponseEntity<?> invalidRequest = validateExecutionRequest(request);
+        if (invalidRequest != null) {
+            return CompletableFuture.completedFuture(invalidRequest);
+        }
+        
+        CodeExecutionJob job = codeExecutionJobService.submit(request, auth.getName());
+        return job.getCompletion().thenApply(response -> {
             // Log execution result
             if (response.isSuccess()) {
                 logger.info("Code execution successful in {}ms", response.getExecutionTimeMs());
@@ -59,51 +80,103 @@ public class CodeExecutionController {
             }
             
             return ResponseEntity.ok(response);
-            
-        } catch (IllegalArgumentException e) {
-            logger.warn("Invalid code execution request: {}", e.getMessage());
+        });
+    }
+    
+    /**
+     * Submit code for asynchronous execution
+     * Returns immediately with a job id; poll the job or subscribe to its event stream
+     */
+    @PostMapping("/jobs")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<?> submitJob(@Valid @RequestBody CodeExecutionRequest request, Authentication auth) {
+        ResponseEntity<?> invalidRequest = validateExecutionRequest(request);
+        if (invalidRequest != null) {
+            return invalidRequest;
+        }
+        
+        CodeExecutionJob job = codeExecutionJobService.submit(request, auth.getName());
+        logger.info("Submitted {} code execution job {}", request.getLanguage(), job.getId());
+        
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(CodeExecutionJobResponse.from(job));
+    }
+    
+    /**
+     * Get the status, and once completed the result, of an execution job
+     */
+    @GetMapping("/jobs/{jobId}")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<CodeExecutionJobResponse> getJob(@PathVariable String jobId, Authentication auth) {
+        CodeExecutionJob job = codeExecutionJobService.getJob(jobId, auth.getName());
+        return ResponseEntity.ok(CodeExecutionJobResponse.from(job));
+    }
+    
+    /**
+     * Stream job progress as server-sent events
+     * Emits "status" events while the job is queued or running, "output" events with live
+     * program output, and a final "result" event
+     */
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public SseEmitter streamJob(@PathVariable String jobId, Authentication auth) {
+        CodeExecutionJob job = codeExecutionJobService.getJob(jobId, auth.getName());
+        
+        SseEmitter emitter = new SseEmitter(jobStreamTimeoutMs);
+        SseJobListener listener = new SseJobListener(emitter);
+        emitter.onCompletion(() -> job.unsubscribe(listener));
+        emitter.onTimeout(() -> job.unsubscribe(listener));
+        emitter.onError(error -> job.unsubscribe(listener));
+        
+        job.subscribe(listener);
+        return emitter;
+    }
+    
+    /**
+     * Basic request checks shared by the execution endpoints
+     */
+    private ResponseEntity<?> validateExecutionRequest(CodeExecutionRequest request) {
+        if (request.getCode() == null || request.getCode().trim().isEmpty()) {
             return ResponseEntity.badRequest()
-                    .body(new MessageResponse("Invalid request: " + e.getMessage()));
-        } catch (Exception e) {
-            logger.error("Error executing code", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new MessageResponse("Code execution failed: " + e.getMessage()));
+                    .body(new MessageResponse("Code cannot be empty"));
         }
+        
+        if (request.getLanguage() == null) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Programming language must be specified"));
+        }
+        
+        return null;
     }
     
     /**
-     * Validate code without executing it
-     * Performs security checks and basic syntax validation
+     * Validate code
+     * Performs security checks and a compile-only (or parse-only) pass that never runs the
+     * code, returning structured diagnostics; compiled artifacts are cached, so executing
+     * the validated code next skips compilation
      */
     @PostMapping("/validate")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<?> validateCode(@Valid @RequestBody CodeExecutionRequest request) {
-        try {
-            logger.info("Validating {} code", request.getLanguage());
-            
-            if (request.getCode() == null || request.getCode().trim().isEmpty()) {
-                return ResponseEntity.badRequest()
-                        .body(new MessageResponse("Code cannot be empty"));
-            }
-            
-            // For now, we'll use the execution service's security validation
-            // In a full implementation, this could include syntax parsing
-            CodeExecutionResponse dryRunResponse = codeExecutionService.executeCode(
-                new CodeExecutionRequest("System.out.println(\"validation\");", CodeExecutionRequest.Language.JAVA)
-            );
-            
-            if (dryRunResponse.getStatus() == CodeExecutionResponse.ExecutionStatus.SECURITY_VIOLATION) {
-                return ResponseEntity.badRequest()
-                        .body(new MessageResponse("Code validation failed: Security violation detected"));
-            }
-            
-            return ResponseEntity.ok(new MessageResponse("Code validation passed"));
-            
-        } catch (Exception e) {
-            logger.error("Error validating code", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new MessageResponse("Code validation failed: " + e.getMessage()));
+    public CompletableFuture<ResponseEntity<?>> validateCode(@Valid @RequestBody CodeExecutionRequest request,
+                                                             Authentication auth) {
+        logger.info("Validating {} code", request.getLanguage());
+        
+        ResponseEntity<?> invalidRequest = validateExecutionRequest(request);
+        if (invalidRequest != null) {
+            return CompletableFuture.completedFuture(invalidRequest);
         }
+        
+        return codeExecutionJobService.validate(request, auth.getName()).thenApply(response -> {
+            switch (response.getStatus()) {
+                case VALID:
+                    return ResponseEntity.ok(response);
+                case INVALID:
+                case TIMEOUT:
+                case SECURITY_VIOLATION:
+                    return ResponseEntity.badRequest().body(response);
+                default:
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            }
+        });
     }
     
     /**
@@ -139,15 +212,18 @@ public class CodeExecutionController {
      */
     @PostMapping("/execute/lesson/{lessonId}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<?> executeCodeForLesson(
+    public CompletableFuture<ResponseEntity<?>> executeCodeForLesson(
             @PathVariable Long lessonId,
-            @Valid @RequestBody CodeExecutionRequest request) {
-        try {
-            logger.info("Executing code for lesson {} in language {}", lessonId, request.getLanguage());
-            
-            // Execute the code
-            CodeExecutionResponse response = codeExecutionService.executeCode(request);
-            
+            @Valid @RequestBody CodeExecutionRequest request,
+            Authentication auth) {
+        logger.info("Executing code for lesson {} in language {}", lessonId, request.getLanguage());
+        
+        // The lesson's difficulty selects the compiler flags
+        lessonService.findById(lessonId).ifPresent(lesson -> request.setDifficulty(lesson.getDifficulty()));
+        
+        // Execute the code
+        CodeExecutionJob job = codeExecutionJobService.submit(request, auth.getName());
+        return job.getCompletion().thenApply(response -> {
             // Add lesson-specific context to response
             response.setLanguage(request.getLanguage().getValue());
             
@@ -158,12 +234,27 @@ public class CodeExecutionController {
             // - Progress tracking integration
             
             return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            logger.error("Error executing code for lesson {}", lessonId, e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new MessageResponse("Code execution failed: " + e.getMessage()));
+        });
+    }
+    
+    /**
+     * Grade code against a practice question's test cases
+     * Returns per-case pass/fail, actual output and timing
+     */
+    @PostMapping("/questions/{questionId}/grade")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public CompletableFuture<ResponseEntity<?>> gradePracticeQuestion(
+            @PathVariable Long questionId,
+            @Valid @RequestBody CodeExecutionRequest request,
+            @RequestParam(defaultValue = "false") boolean stopOnFirstFailure,
+            Authentication auth) {
+        ResponseEntity<?> invalidRequest = validateExecutionRequest(request);
+        if (invalidRequest != null) {
+            return CompletableFuture.completedFuture(invalidRequest);
         }
+        
+        return gradingService.grade(questionId, request, auth.getName(), stopOnFirstFailure)
+            .thenApply(ResponseEntity::ok);
     }
     
     /**
@@ -171,11 +262,12 @@ public class CodeExecutionController {
      */
     @PostMapping("/hints")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<?> getExecutionHints(@Valid @RequestBody CodeExecutionRequest request) {
-        try {
-            // Execute code to get error information
-            CodeExecutionResponse response = codeExecutionService.executeCode(request);
-            
+    public CompletableFuture<ResponseEntity<?>> getExecutionHints(@Valid @RequestBody CodeExecutionRequest request,
+                                                                  Authentication auth) {
+        // Usually the code the student just ran, whose result is reused rather than run again
+        CodeExecutionJob job = codeExecutionJobService.submit(request, auth.getName(), ExecutionLane.ASSIST);
+        
+        return job.getCompletion().thenApply(response -> {
             if (response.isSuccess()) {
                 return ResponseEntity.ok(new HintResponse("Code executed successfully! No hints needed."));
             }
@@ -183,12 +275,7 @@ public class CodeExecutionController {
             // Generate hints based on error type
             String hint = generateHintForError(response, request.getLanguage());
             return ResponseEntity.ok(new HintResponse(hint));
-            
-        } catch (Exception e) {
-            logger.error("Error generating hints", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new MessageResponse("Failed to generate hints: " + e.getMessage()));
-        }
+        });
     }
     
     /**
@@ -243,6 +330,46 @@ public class CodeExecutionController {
         return "Runtime error: " + error.substring(0, Math.min(error.length(), 100)) + "...";
     }
     
+    /**
+     * Forwards job events to a server-sent event stream
+     */
+    private static class SseJobListener implements CodeExecutionJob.JobListener {
+        
+        private final SseEmitter emitter;
+        
+        SseJobListener(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+        
+        @Override
+        public void onStatus(CodeExecutionJob job) {
+            send("status", CodeExecutionJobResponse.from(job));
+        }
+        
+        @Override
+        public void onOutput(CodeExecutionJob job, String stream, String chunk) {
+            send("output", new OutputChunkResponse(stream, chunk));
+        }
+        
+        @Override
+        public void onCompleted(CodeExecutionJob job) {
+            if (send("result", CodeExecutionJobResponse.from(job))) {
+                emitter.complete();
+            }
+        }
+        
+        private boolean send(String eventName, Object data) {
+            try {
+                emitter.send(SseEmitter.event().name(eventName).data(data, MediaType.APPLICATION_JSON));
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                // The client disconnected; the job keeps running and can still be polled
+                logger.debug("Dropping {} event for disconnected client: {}", eventName, e.getMessage());
+                return false;
+            }
+        }
+    }
+    
     /**
      * Response classes
      */
@@ -261,6 +388,21 @@ public class CodeExecutionController {
         public void setDockerAvailable(boolean dockerAvailable) { this.dockerAvailable = dockerAvailable; }
     }
     
+    public static class OutputChunkResponse {
+        private String stream;
+        private String chunk;
+        
+        public OutputChunkResponse(String stream, String chunk) {
+            this.stream = stream;
+            this.chunk = chunk;
+        }
+        
+        public String getStream() { return stream; }
+        public void setStream(String stream) { this.stream = stream; }
+        public String getChunk() { return chunk; }
+        public void setChunk(String chunk) { this.chunk = chunk; }
+    }
+    
     public static class HintResponse {
         private String hint;
         
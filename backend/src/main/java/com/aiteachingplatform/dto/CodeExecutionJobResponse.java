@@ -0,0 +1,82 @@
+package com.aiteachingplatform.dto;
+
+import com.aiteachingplatform.service.execution.CodeExecutionJob;
+
+import java.time.Instant;
+
+/**
+ * Response DTO describing an asynchronous code execution job
+ * The result is only present once the job has completed
+ */
+public class CodeExecutionJobResponse {
+    
+    private String jobId;
+    private CodeExecutionJob.Status status;
+    private Instant submittedAt;
+    private Instant startedAt;
+    private Instant completedAt;
+    private CodeExecutionResponse result;
+    
+    // Constructors
+    public CodeExecutionJobResponse() {}
+    
+    public static CodeExecutionJobResponse from(CodeExecutionJob job) {
+        CodeExecutionJobResponse response = new CodeExecutionJobResponse();
+        response.jobId = job.getId();
+        response.status = job.getStatus();
+        response.submittedAt = job.getSubmittedAt();
+        response.startedAt = job.getStartedAt();
+        response.completedAt = job.getCompletedAt();
+        response.result = job.getResult();
+        return response;
+    }
+    
+    // Getters and Setters
+    public String getJobId() {
+        return jobId;
+    }
+    
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+    
+    public CodeExecutionJob.Status getStatus() {
+        return status;
+    }
+    
+    public void setStatus(CodeExecutionJob.Status status) {
+        this.status = status;
+    }
+    
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+    
+    public void setSubmittedAt(Instant submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+    
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+    
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+    
+    public void setCompletedAt(Instant completedAt) {
+        this.completedAt = completedAt;
+    }
+    
+    public CodeExecutionResponse getResult() {
+        return result;
+    }
+    
+    public void setResult(CodeExecutionResponse result) {
+        this.result = result;
+    }
+}
@@ -1,5 +1,6 @@
 package com.aiteachingplatform.dto;
 
+import com.aiteachingplatform.model.Lesson;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -24,6 +25,8 @@ public class CodeExecutionRequest {
     
     private Integer timeoutSeconds = 10; // Default 10 seconds timeout
     
+    private Lesson.Difficulty difficulty; // Of the lesson or question; selects compiler flags
+    
     public enum Language {
         JAVA("java"),
         PYTHON("python"),
@@ -89,4 +92,12 @@ public class CodeExecutionRequest {
     public void setTimeoutSeconds(Integer timeoutSeconds) {
         this.timeoutSeconds = timeoutSeconds;
     }
+    
+    public Lesson.Difficulty getDifficulty() {
+        return difficulty;
+    }
+    
+    public void setDifficulty(Lesson.Difficulty difficulty) {
+        this.difficulty = difficulty;
+    }
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.aiteachingplatform.dto;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Response DTO for code execution results
@@ -12,9 +14,12 @@ public class CodeExecutionResponse {
     private String output;
     private String error;
     private String compilationError;
+    private List<CompilationDiagnostic> diagnostics = new ArrayList<>();
+    private boolean outputTruncated;
     private ExecutionStatus status;
     private long executionTimeMs;
     private int memoryUsageMB;
+    private ResourceUsage resourceUsage;
     private LocalDateTime executedAt;
     private String language;
     
@@ -24,6 +29,7 @@ public class CodeExecutionResponse {
         RUNTIME_ERROR,
         TIMEOUT,
         MEMORY_LIMIT_EXCEEDED,
+        OUTPUT_LIMIT_EXCEEDED,
         SECURITY_VIOLATION,
         SYSTEM_ERROR
     }
@@ -40,6 +46,28 @@ public class CodeExecutionResponse {
         this.status = status;
     }
     
+    /**
+     * An independent copy, for handing one stored result to several callers
+     */
+    public CodeExecutionResponse copy() {
+        CodeExecutionResponse copy = new CodeExecutionResponse(success, output, status);
+        copy.error = error;
+        copy.compilationError = compilationError;
+        copy.diagnostics = new ArrayList<>();
+        if (diagnostics != null) {
+            for (CompilationDiagnostic diagnostic : diagnostics) {
+                copy.diagnostics.add(diagnostic.copy());
+            }
+        }
+        copy.outputTruncated = outputTruncated;
+        copy.executionTimeMs = executionTimeMs;
+        copy.memoryUsageMB = memoryUsageMB;
+        copy.resourceUsage = resourceUsage != null ? resourceUsage.copy() : null;
+        copy.executedAt = executedAt;
+        copy.language = language;
+        return copy;
+    }
+    
     // Static factory methods for common responses
     public static CodeExecutionResponse success(String output, long executionTimeMs) {
         CodeExecutionResponse response = new CodeExecutionResponse();
@@ -58,6 +86,12 @@ public class CodeExecutionResponse {
         return response;
     }
     
+    public static CodeExecutionResponse compilationError(String error, List<CompilationDiagnostic> diagnostics) {
+        CodeExecutionResponse response = compilationError(error);
+        response.diagnostics = diagnostics;
+        return response;
+    }
+    
     public static CodeExecutionResponse runtimeError(String error) {
         CodeExecutionResponse response = new CodeExecutionResponse();
         response.success = false;
@@ -82,6 +116,16 @@ public class CodeExecutionResponse {
         return response;
     }
     
+    public static CodeExecutionResponse outputLimitExceeded(String output, long limitBytes) {
+        CodeExecutionResponse response = new CodeExecutionResponse();
+        response.success = false;
+        response.output = output;
+        response.error = "Output limit of " + limitBytes + " bytes exceeded";
+        response.status = ExecutionStatus.OUTPUT_LIMIT_EXCEEDED;
+        response.outputTruncated = true;
+        return response;
+    }
+    
     public static CodeExecutionResponse securityViolation(String details) {
         CodeExecutionResponse response = new CodeExecutionResponse();
         response.success = false;
@@ -131,6 +175,22 @@ public class CodeExecutionResponse {
         this.compilationError = compilationError;
     }
     
+    public List<CompilationDiagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+    
+    public void setDiagnostics(List<CompilationDiagnostic> diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+    
+    public boolean isOutputTruncated() {
+        return outputTruncated;
+    }
+    
+    public void setOutputTruncated(boolean outputTruncated) {
+        this.outputTruncated = outputTruncated;
+    }
+    
     public ExecutionStatus getStatus() {
         return status;
     }
@@ -155,6 +215,14 @@ public class CodeExecutionResponse {
         this.memoryUsageMB = memoryUsageMB;
     }
     
+    public ResourceUsage getResourceUsage() {
+        return resourceUsage;
+    }
+    
+    public void setResourceUsage(ResourceUsage resourceUsage) {
+        this.resourceUsage = resourceUsage;
+    }
+    
     public LocalDateTime getExecutedAt() {
         return executedAt;
     }
@@ -0,0 +1,121 @@
+package com.aiteachingplatform.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response DTO for compile-only code validation
+ * Carries the compiler's or parser's diagnostics; the code itself is never run
+ */
+public class CodeValidationResponse {
+
+    private boolean valid;
+    private ValidationStatus status;
+    private String message;
+    private List<CompilationDiagnostic> diagnostics = new ArrayList<>();
+    private long validationTimeMs;
+    private String language;
+
+    public enum ValidationStatus {
+        VALID,
+        INVALID,
+        TIMEOUT,
+        SECURITY_VIOLATION,
+        SYSTEM_ERROR
+    }
+
+    // Constructors
+    public CodeValidationResponse() {}
+
+    public CodeValidationResponse(boolean valid, ValidationStatus status, String message) {
+        this.valid = valid;
+        this.status = status;
+        this.message = message;
+    }
+
+    // Static factory methods for common responses
+    public static CodeValidationResponse valid() {
+        return new CodeValidationResponse(true, ValidationStatus.VALID, "Code validation passed");
+    }
+
+    public static CodeValidationResponse invalid(String compilerOutput, List<CompilationDiagnostic> diagnostics) {
+        CodeValidationResponse response = new CodeValidationResponse(
+            false, ValidationStatus.INVALID, "Code validation failed: " + compilerOutput
+        );
+        response.diagnostics = diagnostics;
+        return response;
+    }
+
+    public static CodeValidationResponse securityViolation(String details) {
+        return new CodeValidationResponse(
+            false, ValidationStatus.SECURITY_VIOLATION, "Code validation failed: Security violation detected: " + details
+        );
+    }
+
+    /**
+     * Map the outcome of the compile or syntax check step
+     */
+    public static CodeValidationResponse from(CodeExecutionResponse check) {
+        switch (check.getStatus()) {
+            case SUCCESS:
+                return valid();
+            case COMPILATION_ERROR:
+                return invalid(check.getCompilationError(), check.getDiagnostics());
+            case TIMEOUT:
+                return new CodeValidationResponse(false, ValidationStatus.TIMEOUT, "Code validation timed out");
+            case SECURITY_VIOLATION:
+                return new CodeValidationResponse(false, ValidationStatus.SECURITY_VIOLATION, check.getError());
+            default:
+                return new CodeValidationResponse(false, ValidationStatus.SYSTEM_ERROR, check.getError());
+        }
+    }
+
+    // Getters and Setters
+    public boolean isValid() {
+        return valid;
+    }
+
+    public void setValid(boolean valid) {
+        this.valid = valid;
+    }
+
+    public ValidationStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ValidationStatus status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public List<CompilationDiagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    public void setDiagnostics(List<CompilationDiagnostic> diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    public long getValidationTimeMs() {
+        return validationTimeMs;
+    }
+
+    public void setValidationTimeMs(long validationTimeMs) {
+        this.validationTimeMs = validationTimeMs;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language;
+    }
+}
@@ -0,0 +1,83 @@
+package com.aiteachingplatform.dto;
+
+/**
+ * DTO for a single compiler diagnostic
+ * Positions are 1-based; null when the compiler did not report one
+ */
+public class CompilationDiagnostic {
+
+    private Integer line;
+    private Integer column;
+    private String message;
+    private Severity severity;
+
+    public enum Severity {
+        ERROR,
+        WARNING,
+        INFO
+    }
+
+    // Constructors
+    public CompilationDiagnostic() {}
+
+    public CompilationDiagnostic(Integer line, Integer column, String message, Severity severity) {
+        this.line = line;
+        this.column = column;
+        this.message = message;
+        this.severity = severity;
+    }
+
+    /**
+     * An independent copy
+     */
+    public CompilationDiagnostic copy() {
+        return new CompilationDiagnostic(line, column, message, severity);
+    }
+
+    // Getters and Setters
+    public Integer getLine() {
+        return line;
+    }
+
+    public void setLine(Integer line) {
+        this.line = line;
+    }
+
+    public Integer getColumn() {
+        return column;
+    }
+
+    public void setColumn(Integer column) {
+        this.column = column;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Severity getSeverity() {
+        return severity;
+    }
+
+    public void setSeverity(Severity severity) {
+        this.severity = severity;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        if (line != null) {
+            text.append(line);
+            if (column != null) {
+                text.append(':').append(column);
+            }
+            text.append(": ");
+        }
+        text.append(severity.name().toLowerCase()).append(": ").append(message);
+        return text.toString();
+    }
+}
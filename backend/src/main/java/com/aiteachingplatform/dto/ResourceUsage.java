@@ -0,0 +1,81 @@
+package com.aiteachingplatform.dto;
+
+/**
+ * DTO for the resources one sandboxed run consumed
+ * CPU and memory come from the sandbox's cgroup and are null when it could not be read
+ */
+public class ResourceUsage {
+
+    private Long cpuUserMs;
+    private Long cpuSystemMs;
+    private Long peakMemoryBytes;
+    private long stdoutBytes;
+    private long stderrBytes;
+    private long sandboxStartupMs;
+
+    // Constructors
+    public ResourceUsage() {}
+
+    /**
+     * An independent copy
+     */
+    public ResourceUsage copy() {
+        ResourceUsage copy = new ResourceUsage();
+        copy.cpuUserMs = cpuUserMs;
+        copy.cpuSystemMs = cpuSystemMs;
+        copy.peakMemoryBytes = peakMemoryBytes;
+        copy.stdoutBytes = stdoutBytes;
+        copy.stderrBytes = stderrBytes;
+        copy.sandboxStartupMs = sandboxStartupMs;
+        return copy;
+    }
+
+    // Getters and Setters
+    public Long getCpuUserMs() {
+        return cpuUserMs;
+    }
+
+    public void setCpuUserMs(Long cpuUserMs) {
+        this.cpuUserMs = cpuUserMs;
+    }
+
+    public Long getCpuSystemMs() {
+        return cpuSystemMs;
+    }
+
+    public void setCpuSystemMs(Long cpuSystemMs) {
+        this.cpuSystemMs = cpuSystemMs;
+    }
+
+    public Long getPeakMemoryBytes() {
+        return peakMemoryBytes;
+    }
+
+    public void setPeakMemoryBytes(Long peakMemoryBytes) {
+        this.peakMemoryBytes = peakMemoryBytes;
+    }
+
+    public long getStdoutBytes() {
+        return stdoutBytes;
+    }
+
+    public void setStdoutBytes(long stdoutBytes) {
+        this.stdoutBytes = stdoutBytes;
+    }
+
+    public long getStderrBytes() {
+        return stderrBytes;
+    }
+
+    public void setStderrBytes(long stderrBytes) {
+        this.stderrBytes = stderrBytes;
+    }
+
+    public long getSandboxStartupMs() {
+        return sandboxStartupMs;
+    }
+
+    public void setSandboxStartupMs(long sandboxStartupMs) {
+        this.sandboxStartupMs = sandboxStartupMs;
+    }
+}
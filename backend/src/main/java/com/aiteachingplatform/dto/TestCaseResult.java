@@ -0,0 +1,95 @@
+package com.aiteachingplatform.dto;
+
+/**
+ * Outcome of running a submission against one test case
+ */
+public class TestCaseResult {
+
+    private int index;
+    private Status status;
+    private String input;
+    private String expectedOutput;
+    private String actualOutput;
+    private String error;
+    private long executionTimeMs;
+
+    public enum Status {
+        PASSED,
+        WRONG_ANSWER,
+        RUNTIME_ERROR,
+        TIMEOUT,
+        OUTPUT_LIMIT_EXCEEDED,
+        SKIPPED
+    }
+
+    // Constructors
+    public TestCaseResult() {}
+
+    public TestCaseResult(int index, Status status, String input, String expectedOutput) {
+        this.index = index;
+        this.status = status;
+        this.input = input;
+        this.expectedOutput = expectedOutput;
+    }
+
+    public boolean isPassed() {
+        return status == Status.PASSED;
+    }
+
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    public void setInput(String input) {
+        this.input = input;
+    }
+
+    public String getExpectedOutput() {
+        return expectedOutput;
+    }
+
+    public void setExpectedOutput(String expectedOutput) {
+        this.expectedOutput = expectedOutput;
+    }
+
+    public String getActualOutput() {
+        return actualOutput;
+    }
+
+    public void setActualOutput(String actualOutput) {
+        this.actualOutput = actualOutput;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public long getExecutionTimeMs() {
+        return executionTimeMs;
+    }
+
+    public void setExecutionTimeMs(long executionTimeMs) {
+        this.executionTimeMs = executionTimeMs;
+    }
+}
@@ -0,0 +1,121 @@
+package com.aiteachingplatform.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response DTO for grading a submission against a set of test cases
+ * When the submission could not be run at all (compilation error, security violation)
+ * the status and errors describe why and every case is reported as skipped
+ */
+public class TestRunResponse {
+
+    private boolean success;
+    private CodeExecutionResponse.ExecutionStatus status;
+    private String compilationError;
+    private List<CompilationDiagnostic> diagnostics = new ArrayList<>();
+    private String error;
+    private int passedCount;
+    private int totalCount;
+    private long executionTimeMs;
+    private List<TestCaseResult> results = new ArrayList<>();
+
+    // Constructors
+    public TestRunResponse() {}
+
+    // Static factory methods
+    public static TestRunResponse completed(List<TestCaseResult> results) {
+        TestRunResponse response = new TestRunResponse();
+        response.status = CodeExecutionResponse.ExecutionStatus.SUCCESS;
+        response.results = results;
+        response.totalCount = results.size();
+        response.passedCount = (int) results.stream().filter(TestCaseResult::isPassed).count();
+        response.success = response.passedCount == response.totalCount;
+        return response;
+    }
+
+    public static TestRunResponse notRun(CodeExecutionResponse failure, List<TestCaseResult> skipped) {
+        TestRunResponse response = new TestRunResponse();
+        response.success = false;
+        response.status = failure.getStatus();
+        response.compilationError = failure.getCompilationError();
+        response.diagnostics = failure.getDiagnostics();
+        response.error = failure.getError();
+        response.results = skipped;
+        response.totalCount = skipped.size();
+        return response;
+    }
+
+    // Getters and Setters
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public CodeExecutionResponse.ExecutionStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(CodeExecutionResponse.ExecutionStatus status) {
+        this.status = status;
+    }
+
+    public String getCompilationError() {
+        return compilationError;
+    }
+
+    public void setCompilationError(String compilationError) {
+        this.compilationError = compilationError;
+    }
+
+    public List<CompilationDiagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    public void setDiagnostics(List<CompilationDiagnostic> diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public int getPassedCount() {
+        return passedCount;
+    }
+
+    public void setPassedCount(int passedCount) {
+        this.passedCount = passedCount;
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public void setTotalCount(int totalCount) {
+        this.totalCount = totalCount;
+    }
+
+    public long getExecutionTimeMs() {
+        return executionTimeMs;
+    }
+
+    public void setExecutionTimeMs(long executionTimeMs) {
+        this.executionTimeMs = executionTimeMs;
+    }
+
+    public List<TestCaseResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<TestCaseResult> results) {
+        this.results = results;
+    }
+}
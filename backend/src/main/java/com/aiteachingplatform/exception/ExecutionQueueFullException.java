@@ -0,0 +1,24 @@
+package com.aiteachingplatform.exception;
+
+import org.springframework.http.HttpStatus;
+
+import java.util.Map;
+
+/**
+ * Thrown when the code execution queue cannot accept more work
+ * Mapped to 429 Too Many Requests with a Retry-After header
+ */
+public class ExecutionQueueFullException extends BusinessException {
+
+    private final long retryAfterSeconds;
+
+    public ExecutionQueueFullException(String message, long retryAfterSeconds) {
+        super("EXECUTION_QUEUE_FULL", message, HttpStatus.TOO_MANY_REQUESTS,
+              Map.of("retryAfterSeconds", retryAfterSeconds));
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -2,6 +2,7 @@ package com.aiteachingplatform.exception;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -137,6 +138,27 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, ex.getHttpStatus());
     }
     
+    /**
+     * Handle a full code execution queue, telling the client when to retry
+     */
+    @ExceptionHandler(ExecutionQueueFullException.class)
+    public ResponseEntity<ErrorResponse> handleExecutionQueueFullException(
+            ExecutionQueueFullException ex, WebRequest request) {
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+            ex.getErrorCode(),
+            ex.getMessage(),
+            ex.getDetails(),
+            request.getDescription(false),
+            LocalDateTime.now()
+        );
+        
+        logger.warn("Execution queue full, retry after {}s", ex.getRetryAfterSeconds());
+        return ResponseEntity.status(ex.getHttpStatus())
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+            .body(errorResponse);
+    }
+    
     /**
      * Handle AI API exceptions
      */
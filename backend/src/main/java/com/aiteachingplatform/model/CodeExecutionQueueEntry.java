@@ -0,0 +1,210 @@
+package com.aiteachingplatform.model;
+
+import com.aiteachingplatform.service.execution.ExecutionLane;
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * A code execution waiting in, or claimed from, the durable execution queue
+ * Request and result are stored as JSON; lease and heartbeat times are set by the database
+ */
+@Entity
+@Table(name = "code_execution_queue")
+public class CodeExecutionQueueEntry {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(nullable = false, length = 50)
+    private String owner;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private QueueKind kind = QueueKind.EXECUTION;
+
+    // The scheduler lane the job runs in on the worker
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ExecutionLane lane = ExecutionLane.INTERACTIVE;
+
+    @Column(nullable = false, length = 20)
+    private String language;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String request;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private QueueStatus status = QueueStatus.QUEUED;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "worker_id", length = 100)
+    private String workerId;
+
+    @Column(name = "lease_expires_at")
+    private Instant leaseExpiresAt;
+
+    @Column(name = "heartbeat_at")
+    private Instant heartbeatAt;
+
+    @Column(columnDefinition = "TEXT")
+    private String result;
+
+    @Column(name = "submitted_at", nullable = false, updatable = false)
+    private Instant submittedAt;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+
+    // Constructors
+    public CodeExecutionQueueEntry() {}
+
+    public CodeExecutionQueueEntry(String id, String owner, QueueKind kind, ExecutionLane lane, String language,
+                                   String request) {
+        this.id = id;
+        this.owner = owner;
+        this.kind = kind;
+        this.lane = lane;
+        this.language = language;
+        this.request = request;
+        this.status = QueueStatus.QUEUED;
+        this.attempts = 0;
+        this.submittedAt = Instant.now();
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public QueueKind getKind() {
+        return kind;
+    }
+
+    public void setKind(QueueKind kind) {
+        this.kind = kind;
+    }
+
+    public ExecutionLane getLane() {
+        return lane;
+    }
+
+    public void setLane(ExecutionLane lane) {
+        this.lane = lane;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language;
+    }
+
+    public String getRequest() {
+        return request;
+    }
+
+    public void setRequest(String request) {
+        this.request = request;
+    }
+
+    public QueueStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(QueueStatus status) {
+        this.status = status;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getWorkerId() {
+        return workerId;
+    }
+
+    public void setWorkerId(String workerId) {
+        this.workerId = workerId;
+    }
+
+    public Instant getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(Instant leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public Instant getHeartbeatAt() {
+        return heartbeatAt;
+    }
+
+    public void setHeartbeatAt(Instant heartbeatAt) {
+        this.heartbeatAt = heartbeatAt;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public void setResult(String result) {
+        this.result = result;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public void setSubmittedAt(Instant submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(Instant completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public enum QueueStatus {
+        QUEUED, RUNNING, COMPLETED
+    }
+
+    public enum QueueKind {
+        EXECUTION, VALIDATION, GRADING
+    }
+}
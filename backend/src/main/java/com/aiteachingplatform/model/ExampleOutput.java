@@ -0,0 +1,108 @@
+package com.aiteachingplatform.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * The stored result of running one example of a lesson, either a code block of its content
+ * or a practice question's starter code
+ * A null result records an example that was run but whose result cannot be reused
+ */
+@Entity
+@Table(name = "example_outputs", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"lesson_id", "code_hash"})
+})
+public class ExampleOutput {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "lesson_id", nullable = false)
+    private Long lessonId;
+
+    @Column(name = "lesson_version", nullable = false, length = 64)
+    private String lessonVersion;
+
+    @Column(name = "code_hash", nullable = false, length = 64)
+    private String codeHash;
+
+    @Column(nullable = false, length = 20)
+    private String language;
+
+    @Column(columnDefinition = "TEXT")
+    private String result;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    // Constructors
+    public ExampleOutput() {}
+
+    public ExampleOutput(Long lessonId, String lessonVersion, String codeHash, String language, String result) {
+        this.lessonId = lessonId;
+        this.lessonVersion = lessonVersion;
+        this.codeHash = codeHash;
+        this.language = language;
+        this.result = result;
+        this.createdAt = Instant.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getLessonId() {
+        return lessonId;
+    }
+
+    public void setLessonId(Long lessonId) {
+        this.lessonId = lessonId;
+    }
+
+    public String getLessonVersion() {
+        return lessonVersion;
+    }
+
+    public void setLessonVersion(String lessonVersion) {
+        this.lessonVersion = lessonVersion;
+    }
+
+    public String getCodeHash() {
+        return codeHash;
+    }
+
+    public void setCodeHash(String codeHash) {
+        this.codeHash = codeHash;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public void setResult(String result) {
+        this.result = result;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,129 @@
+package com.aiteachingplatform.repository;
+
+import com.aiteachingplatform.model.CodeExecutionQueueEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for the durable code execution queue
+ * Claiming relies on PostgreSQL row locks with SKIP LOCKED, so concurrent workers never
+ * block on or double-claim the same job; all lease arithmetic uses the database clock
+ */
+@Repository
+public interface CodeExecutionQueueRepository extends JpaRepository<CodeExecutionQueueEntry, String> {
+
+    /**
+     * Count jobs in a state, e.g. the global queue length
+     */
+    long countByStatus(CodeExecutionQueueEntry.QueueStatus status);
+
+    /**
+     * Count one user's jobs in a state
+     */
+    long countByOwnerAndStatus(String owner, CodeExecutionQueueEntry.QueueStatus status);
+
+    /**
+     * Lock the oldest claimable jobs: queued ones, and running ones whose lease expired because
+     * their worker died; rows locked by another claiming worker are skipped
+     * Must run in the same transaction as {@link #markClaimed}
+     */
+    @Query(value = "SELECT id FROM code_execution_queue "
+        + "WHERE (status = 'QUEUED' OR (status = 'RUNNING' AND lease_expires_at < CURRENT_TIMESTAMP)) "
+        + "AND attempts < :maxAttempts "
+        + "ORDER BY submitted_at "
+        + "LIMIT :limit "
+        + "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<String> lockClaimable(@Param("maxAttempts") int maxAttempts, @Param("limit") int limit);
+
+    /**
+     * Hand locked jobs to a worker with a fresh lease
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE code_execution_queue SET status = 'RUNNING', worker_id = :workerId, "
+        + "attempts = attempts + 1, started_at = CURRENT_TIMESTAMP, heartbeat_at = CURRENT_TIMESTAMP, "
+        + "lease_expires_at = CURRENT_TIMESTAMP + :leaseSeconds * INTERVAL '1 second' "
+        + "WHERE id IN (:ids)", nativeQuery = true)
+    int markClaimed(@Param("ids") Collection<String> ids, @Param("workerId") String workerId,
+                    @Param("leaseSeconds") int leaseSeconds);
+
+    /**
+     * Heartbeat: extend the leases of every job the worker is running
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE code_execution_queue SET heartbeat_at = CURRENT_TIMESTAMP, "
+        + "lease_expires_at = CURRENT_TIMESTAMP + :leaseSeconds * INTERVAL '1 second' "
+        + "WHERE worker_id = :workerId AND status = 'RUNNING'", nativeQuery = true)
+    int extendLeases(@Param("workerId") String workerId, @Param("leaseSeconds") int leaseSeconds);
+
+    /**
+     * Store a job's result, unless the worker lost the job to another worker in the meantime
+     *
+     * @return 1 if the result was stored
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE code_execution_queue SET status = 'COMPLETED', result = :result, "
+        + "completed_at = CURRENT_TIMESTAMP, lease_expires_at = NULL "
+        + "WHERE id = :id AND worker_id = :workerId AND status = 'RUNNING'", nativeQuery = true)
+    int complete(@Param("id") String id, @Param("workerId") String workerId, @Param("result") String result);
+
+    /**
+     * Put a claimed job that never started back in the queue without counting the attempt
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE code_execution_queue SET status = 'QUEUED', worker_id = NULL, "
+        + "lease_expires_at = NULL, attempts = attempts - 1 "
+        + "WHERE id = :id AND worker_id = :workerId AND status = 'RUNNING'", nativeQuery = true)
+    int release(@Param("id") String id, @Param("workerId") String workerId);
+
+    /**
+     * Put every job of a stopping worker back in the queue so it is retried without waiting
+     * for the lease to expire
+     * The attempt is given back: the job did not fail, and a job released during its last
+     * attempt could otherwise never be claimed again
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE code_execution_queue SET status = 'QUEUED', worker_id = NULL, lease_expires_at = NULL, "
+        + "attempts = attempts - 1 "
+        + "WHERE worker_id = :workerId AND status = 'RUNNING'", nativeQuery = true)
+    int releaseWorker(@Param("workerId") String workerId);
+
+    /**
+     * Fail abandoned jobs that have used up their attempts; a completed job without a result
+     * is one that was given up on
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE code_execution_queue SET status = 'COMPLETED', result = NULL, "
+        + "completed_at = CURRENT_TIMESTAMP, lease_expires_at = NULL "
+        + "WHERE status = 'RUNNING' AND lease_expires_at < CURRENT_TIMESTAMP "
+        + "AND attempts >= :maxAttempts", nativeQuery = true)
+    int failExhausted(@Param("maxAttempts") int maxAttempts);
+
+    /**
+     * Withdraw a job nobody has claimed yet
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM code_execution_queue WHERE id = :id AND status = 'QUEUED'", nativeQuery = true)
+    int withdraw(@Param("id") String id);
+
+    /**
+     * Delete results older than the retention period
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM code_execution_queue WHERE status = 'COMPLETED' "
+        + "AND completed_at < CURRENT_TIMESTAMP - :retentionSeconds * INTERVAL '1 second'", nativeQuery = true)
+    int purgeCompleted(@Param("retentionSeconds") long retentionSeconds);
+}
@@ -0,0 +1,44 @@
+package com.aiteachingplatform.repository;
+
+import com.aiteachingplatform.model.ExampleOutput;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Repository interface for precomputed outputs of lesson examples
+ */
+@Repository
+public interface ExampleOutputRepository extends JpaRepository<ExampleOutput, Long> {
+
+    /**
+     * A reusable result for the code, from whichever lesson contains it
+     */
+    Optional<ExampleOutput> findFirstByCodeHashAndResultIsNotNull(String codeHash);
+
+    /**
+     * Whether the lesson's example has been run already
+     */
+    boolean existsByLessonIdAndCodeHash(Long lessonId, String codeHash);
+
+    /**
+     * Drop all outputs of a lesson
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ExampleOutput e WHERE e.lessonId = :lessonId")
+    int deleteByLessonId(@Param("lessonId") Long lessonId);
+
+    /**
+     * Drop the outputs of a lesson's earlier versions
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ExampleOutput e WHERE e.lessonId = :lessonId AND e.lessonVersion <> :lessonVersion")
+    int deleteOtherVersions(@Param("lessonId") Long lessonId, @Param("lessonVersion") String lessonVersion);
+}
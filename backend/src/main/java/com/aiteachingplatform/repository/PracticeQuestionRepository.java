@@ -0,0 +1,19 @@
+package com.aiteachingplatform.repository;
+
+import com.aiteachingplatform.model.PracticeQuestion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for PracticeQuestion entity operations
+ */
+@Repository
+public interface PracticeQuestionRepository extends JpaRepository<PracticeQuestion, Long> {
+
+    /**
+     * Find the practice questions of a lesson in order
+     */
+    List<PracticeQuestion> findByLessonIdOrderBySequenceOrder(Long lessonId);
+}
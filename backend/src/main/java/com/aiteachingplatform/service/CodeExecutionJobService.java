@@ -0,0 +1,258 @@
+package com.aiteachingplatform.service;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import com.aiteachingplatform.dto.CodeExecutionResponse;
+import com.aiteachingplatform.dto.CodeValidationResponse;
+import com.aiteachingplatform.exception.BusinessException;
+import com.aiteachingplatform.exception.ResourceNotFoundException;
+import com.aiteachingplatform.service.execution.CodeExecutionJob;
+import com.aiteachingplatform.service.execution.DistributedExecutionQueue;
+import com.aiteachingplatform.service.execution.ExampleOutputStore;
+import com.aiteachingplatform.service.execution.ExecutionLane;
+import com.aiteachingplatform.service.execution.ExecutionResultCache;
+import com.aiteachingplatform.service.execution.ExecutionScheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service for asynchronous code execution jobs
+ * Submissions return a job immediately; the compile and run happen on the execution
+ * scheduler's workers instead of holding a request thread, and results are kept in a
+ * bounded job table
+ * Identical executions share one run: a submission whose result is still cached completes
+ * immediately, and one that matches a running job follows that job
+ * Unmodified lesson examples complete immediately from their precomputed outputs
+ * With the durable queue enabled, runs and validations go to the execution workers instead
+ * of this node
+ */
+@Service
+public class CodeExecutionJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CodeExecutionJobService.class);
+
+    @Value("${code.execution.jobs.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${code.execution.jobs.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Autowired
+    private CodeExecutionService codeExecutionService;
+
+    @Autowired
+    private ExecutionScheduler executionScheduler;
+
+    @Autowired
+    private ExecutionResultCache resultCache;
+
+    @Autowired
+    private DistributedExecutionQueue executionQueue;
+
+    @Autowired
+    private ExampleOutputStore exampleOutputs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, CodeExecutionJob> jobs = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService evictionScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "code-execution-job-eviction");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    void initialize() {
+        long sweepSeconds = Math.max(1, Math.min(ttlSeconds, 30));
+        evictionScheduler.scheduleWithFixedDelay(this::evictExpiredJobs, sweepSeconds, sweepSeconds, TimeUnit.SECONDS);
+
+        meterRegistry.gauge("code.execution.jobs.table.size", jobs, Map::size);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        evictionScheduler.shutdownNow();
+    }
+
+    /**
+     * Submit code for asynchronous execution in the interactive lane
+     *
+     * @throws com.aiteachingplatform.exception.ExecutionQueueFullException when the execution queue is full
+     */
+    public CodeExecutionJob submit(CodeExecutionRequest request, String owner) {
+        return submit(request, owner, ExecutionLane.INTERACTIVE);
+    }
+
+    /**
+     * Submit code for asynchronous execution in a scheduler lane
+     * Runs dispatched through the durable queue run in the same lane on the workers
+     *
+     * @throws com.aiteachingplatform.exception.ExecutionQueueFullException when the execution queue is full
+     */
+    public CodeExecutionJob submit(CodeExecutionRequest request, String owner, ExecutionLane lane) {
+        if (jobs.size() >= maxEntries) {
+            evictExpiredJobs();
+            if (jobs.size() >= maxEntries) {
+                meterRegistry.counter("code.execution.jobs.rejected").increment();
+                throw new BusinessException(
+                    "EXECUTION_CAPACITY_EXCEEDED",
+                    "Too many code executions in progress. Please try again shortly.",
+                    HttpStatus.SERVICE_UNAVAILABLE
+                );
+            }
+        }
+
+        CodeExecutionJob job = new CodeExecutionJob(UUID.randomUUID().toString(), owner, request);
+        meterRegistry.counter("code.execution.jobs.submitted", "language", request.getLanguage().getValue()).increment();
+
+        jobs.put(job.getId(), job);
+
+        String resultKey = resultCache.keyFor(request);
+        CodeExecutionResponse cached = resultCache.getCompleted(resultKey, request.getLanguage());
+        if (cached != null) {
+            job.complete(cached);
+            return job;
+        }
+
+        // Unmodified lesson examples were run ahead of time and never take a scheduler slot
+        CodeExecutionResponse precomputed = exampleOutputs.find(request);
+        if (precomputed != null) {
+            job.complete(precomputed);
+            return job;
+        }
+
+        CodeExecutionJob leader = resultCache.joinInFlight(resultKey, job);
+        if (leader != null) {
+            follow(job, leader);
+            return job;
+        }
+
+        try {
+            if (executionQueue.isEnabled()) {
+                executionQueue.enqueue(job, lane, response -> finish(job, resultKey, response));
+            } else {
+                executionScheduler.submit(lane, owner, () -> runJob(job, resultKey));
+            }
+        } catch (RuntimeException e) {
+            jobs.remove(job.getId());
+            resultCache.abandon(resultKey, job);
+            // Jobs that joined in the meantime must not wait forever
+            job.complete(CodeExecutionResponse.systemError(e.getMessage()));
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * Compile or parse code on the execution scheduler without running it
+     * Validations share the scheduler's slots and admission limits with runs, in the assist lane;
+     * with the durable queue enabled they go to the execution workers like runs do
+     *
+     * @throws com.aiteachingplatform.exception.ExecutionQueueFullException when the execution queue is full
+     */
+    public CompletableFuture<CodeValidationResponse> validate(CodeExecutionRequest request, String owner) {
+        CompletableFuture<CodeValidationResponse> result = new CompletableFuture<>();
+        if (executionQueue.isEnabled()) {
+            executionQueue.enqueueValidation(request, owner, result::complete);
+        } else {
+            executionScheduler.submit(ExecutionLane.ASSIST, owner, () -> {
+                try {
+                    result.complete(codeExecutionService.validateCode(request));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        }
+        meterRegistry.counter("code.execution.validations", "language", request.getLanguage().getValue()).increment();
+        return result;
+    }
+
+    /**
+     * Look up a job owned by the given user
+     */
+    public CodeExecutionJob getJob(String jobId, String owner) {
+        CodeExecutionJob job = jobs.get(jobId);
+        // Other users' jobs are reported as missing rather than forbidden
+        if (job == null || !job.getOwner().equals(owner)) {
+            throw new ResourceNotFoundException("CodeExecutionJob", jobId);
+        }
+        return job;
+    }
+
+    /**
+     * Subscribe to progress events of a job owned by the given user
+     */
+    public void subscribe(String jobId, String owner, CodeExecutionJob.JobListener listener) {
+        getJob(jobId, owner).subscribe(listener);
+    }
+
+    private void runJob(CodeExecutionJob job, String resultKey) {
+        job.markRunning();
+
+        CodeExecutionResponse response;
+        try {
+            response = codeExecutionService.executeCode(job.getRequest(), job::publishOutput);
+        } catch (Exception e) {
+            logger.error("Code execution job {} failed", job.getId(), e);
+            response = CodeExecutionResponse.systemError(e.getMessage());
+        }
+        finish(job, resultKey, response);
+    }
+
+    private void finish(CodeExecutionJob job, String resultKey, CodeExecutionResponse response) {
+        resultCache.complete(resultKey, job, response);
+        job.complete(response);
+    }
+
+    /**
+     * Mirror the progress of an identical job that is already queued or running
+     */
+    private void follow(CodeExecutionJob follower, CodeExecutionJob leader) {
+        leader.subscribe(new CodeExecutionJob.JobListener() {
+            @Override
+            public void onStatus(CodeExecutionJob job) {
+                if (job.getStatus() == CodeExecutionJob.Status.RUNNING
+                        && follower.getStatus() == CodeExecutionJob.Status.QUEUED) {
+                    follower.markRunning();
+                }
+            }
+
+            @Override
+            public void onOutput(CodeExecutionJob job, String stream, String chunk) {
+                follower.publishOutput(stream, chunk);
+            }
+
+            @Override
+            public void onCompleted(CodeExecutionJob job) {
+                // A copy, since the caller may change the response it receives
+                follower.complete(job.getResult().copy());
+            }
+        });
+    }
+
+    /**
+     * Drop completed jobs whose result has outlived the TTL
+     */
+    private void evictExpiredJobs() {
+        Instant cutoff = Instant.now().minus(Duration.ofSeconds(ttlSeconds));
+        jobs.values().removeIf(job -> job.isCompleted() && job.getCompletedAt().isBefore(cutoff));
+    }
+}
@@ -2,8 +2,40 @@ package com.aiteachingplatform.service;
 
 import com.aiteachingplatform.dto.CodeExecutionRequest;
 import com.aiteachingplatform.dto.CodeExecutionResponse;
+import com.aiteachingplatform.dto.CodeValidationResponse;
+import com.aiteachingplatform.dto.ResourceUsage;
+import com.aiteachingplatform.dto.TestCaseResult;
+import com.aiteachingplatform.dto.TestRunResponse;
 import com.aiteachingplatform.exception.CodeExecutionException;
+import com.aiteachingplatform.model.Lesson;
 import com.aiteachingplatform.service.LoggingService;
+import com.aiteachingplatform.service.execution.BoundedOutputCapture;
+import com.aiteachingplatform.service.execution.CodeSecurityScanner;
+import com.aiteachingplatform.service.execution.CompileOutcome;
+import com.aiteachingplatform.service.execution.CompiledArtifactCache;
+import com.aiteachingplatform.service.execution.CompilerDiagnostics;
+import com.aiteachingplatform.service.execution.ContainerLifecycleTracker;
+import com.aiteachingplatform.service.execution.CppToolchain;
+import com.aiteachingplatform.service.execution.DeadlineTimerWheel;
+import com.aiteachingplatform.service.execution.ExampleOutputStore;
+import com.aiteachingplatform.service.execution.ExecutionBackend;
+import com.aiteachingplatform.service.execution.ExecutionBackendSelector;
+import com.aiteachingplatform.service.execution.ExecutionThreads;
+import com.aiteachingplatform.service.execution.GraalJsRunner;
+import com.aiteachingplatform.service.execution.InMemoryJavaCompiler;
+import com.aiteachingplatform.service.execution.JavaCompilationResult;
+import com.aiteachingplatform.service.execution.OutputListener;
+import com.aiteachingplatform.service.execution.PooledSandbox;
+import com.aiteachingplatform.service.execution.ResourceAccounting;
+import com.aiteachingplatform.service.execution.SandboxContainerPool;
+import com.aiteachingplatform.service.execution.SandboxImages;
+import com.aiteachingplatform.service.execution.SandboxProcess;
+import com.aiteachingplatform.service.execution.SandboxSpec;
+import com.aiteachingplatform.service.execution.SubmissionFiles;
+import com.aiteachingplatform.service.execution.TestCase;
+import com.aiteachingplatform.service.execution.TestHarness;
+import com.aiteachingplatform.service.execution.WorkspaceManager;
+import com.aiteachingplatform.service.execution.ZygoteManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,11 +43,21 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
 /**
  * Service for executing code in secure Docker containers
@@ -26,198 +68,431 @@ public class CodeExecutionService {
     
     private static final Logger logger = LoggerFactory.getLogger(CodeExecutionService.class);
     
+    // How long a killed program gets to exit and close its output
+    private static final long KILL_GRACE_SECONDS = 1;
+    
     @Value("${code.execution.enabled:true}")
     private boolean executionEnabled;
     
     @Value("${code.execution.timeout.seconds:10}")
     private int defaultTimeoutSeconds;
     
-    @Value("${code.execution.memory.limit.mb:128}")
-    private int memoryLimitMB;
-    
-    @Value("${code.execution.temp.dir:/tmp/code-execution}")
-    private String tempDir;
-    
-    // Security patterns to detect potentially dangerous code
-    private static final Pattern[] SECURITY_PATTERNS = {
-        Pattern.compile("\\bRuntime\\b", Pattern.CASE_INSENSITIVE),
-        Pattern.compile("\\bProcess\\b", Pattern.CASE_INSENSITIVE),
-        Pattern.compile("\\bSystem\\.exit\\b", Pattern.CASE_INSENSITIVE),
-        Pattern.compile("\\bfile\\s*\\(", Pattern.CASE_INSENSITIVE),
-        Pattern.compile("\\bopen\\s*\\(", Pattern.CASE_INSENSITIVE),
-        Pattern.compile("\\b__import__\\b", Pattern.CASE_INSENSITIVE),
-        Pattern.compile("\\beval\\b", Pattern.CASE_INSENSITIVE),
-        Pattern.compile("\\bexec\\b", Pattern.CASE_INSENSITIVE),
-        Pattern.compile("\\bos\\.", Pattern.CASE_INSENSITIVE),
-        Pattern.compile("\\bsubprocess\\b", Pattern.CASE_INSENSITIVE),
-        Pattern.compile("\\bsocket\\b", Pattern.CASE_INSENSITIVE),
-        Pattern.compile("\\bhttp\\b", Pattern.CASE_INSENSITIVE),
-        Pattern.compile("\\burllib\\b", Pattern.CASE_INSENSITIVE),
-        Pattern.compile("\\brequests\\b", Pattern.CASE_INSENSITIVE)
-    };
-    
-    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    @Value("${code.execution.java.in-process-compile:true}")
+    private boolean inProcessJavaCompilation;
+    
+    @Value("${code.execution.output.max-bytes:1048576}")
+    private long maxOutputBytes;
+    
+    @Value("${code.execution.output.buffer-bytes:65536}")
+    private int outputBufferBytes;
+    
+    @Value("${code.execution.tests.max-total-seconds:60}")
+    private int maxTestRunSeconds;
+    
+    // Per-language scan for potentially dangerous code
+    private final CodeSecurityScanner securityScanner = new CodeSecurityScanner();
     
     @Autowired
     private LoggingService loggingService;
     
+    @Autowired
+    private SandboxContainerPool sandboxPool;
+    
+    @Autowired
+    private SandboxImages sandboxImages;
+    
+    @Autowired
+    private ExecutionBackendSelector backendSelector;
+    
+    @Autowired
+    private InMemoryJavaCompiler javaCompiler;
+    
+    @Autowired
+    private CompiledArtifactCache artifactCache;
+    
+    @Autowired
+    private WorkspaceManager workspaceManager;
+    
+    @Autowired
+    private ZygoteManager zygoteManager;
+    
+    @Autowired
+    private ResourceAccounting resourceAccounting;
+    
+    @Autowired
+    private ExecutionThreads executionThreads;
+    
+    @Autowired
+    private ContainerLifecycleTracker containerTracker;
+    
+    @Autowired
+    private CppToolchain cppToolchain;
+    
+    @Autowired
+    private GraalJsRunner graalJsRunner;
+    
+    @Autowired
+    private ExampleOutputStore exampleOutputs;
+    
     /**
      * Execute code in a secure Docker container
      */
     public CodeExecutionResponse executeCode(CodeExecutionRequest request) {
+        return executeCode(request, null);
+    }
+    
+    /**
+     * Execute code in a secure Docker container, streaming program output to the listener as it is produced
+     */
+    public CodeExecutionResponse executeCode(CodeExecutionRequest request, OutputListener outputListener) {
         if (!executionEnabled) {
             return CodeExecutionResponse.systemError("Code execution is disabled");
         }
         
         // Security validation
-        String securityViolation = validateCodeSecurity(request.getCode());
+        String securityViolation = validateCodeSecurity(request.getCode(), request.getLanguage());
         if (securityViolation != null) {
             return CodeExecutionResponse.securityViolation(securityViolation);
         }
         
+        // Unmodified lesson examples were run ahead of time
+        CodeExecutionResponse precomputed = exampleOutputs.find(request);
+        if (precomputed != null) {
+            return precomputed;
+        }
+        
         long startTime = System.currentTimeMillis();
+        CodeExecutionResponse response = null;
         
         try {
-            // Create temporary directory for this execution
-            String executionId = generateExecutionId();
-            Path executionDir = createExecutionDirectory(executionId);
-            
-            try {
-                // Write code to file
-                Path codeFile = writeCodeToFile(executionDir, request.getCode(), request.getLanguage());
-                
-                // Execute code in Docker container
-                CodeExecutionResponse response = executeInDocker(
-                    executionDir, 
-                    codeFile, 
-                    request.getLanguage(), 
-                    request.getStdin(),
-                    request.getTimeoutSeconds() != null ? request.getTimeoutSeconds() : defaultTimeoutSeconds
-                );
-                
-                response.setExecutionTimeMs(System.currentTimeMillis() - startTime);
-                response.setLanguage(request.getLanguage().getValue());
-                
-                return response;
-                
-            } finally {
-                // Clean up temporary files
-                cleanupExecutionDirectory(executionDir);
-                
-                // Log code execution
-                long executionTime = System.currentTimeMillis() - startTime;
-                loggingService.logCodeExecution(
-                    request.getLanguage().toString(),
-                    response != null && response.isSuccess(),
-                    executionTime,
-                    response != null ? response.getStatus().toString() : "UNKNOWN",
-                    null, // userId not available in this context
-                    response != null && !response.isSuccess() ? response.getError() : null
+            int timeoutSeconds = resolveTimeout(request);
+            // Short JavaScript programs run in a pooled GraalJS context; the rest fall back to a container
+            if (request.getLanguage() == CodeExecutionRequest.Language.JAVASCRIPT && graalJsRunner.isEnabled()) {
+                response = graalJsRunner.run(
+                    SubmissionFiles.prepareSource(request.getCode(), request.getLanguage()), timeoutSeconds, outputListener
                 );
             }
+            if (response == null) {
+                response = runExecutionPipeline(request, timeoutSeconds, (executionDir, image, sandbox) ->
+                    runInSandbox(executionDir, image, getRunCommand(request.getLanguage()), request.getStdin(),
+                                     timeoutSeconds, sandbox, outputListener));
+            }
+            response.setExecutionTimeMs(System.currentTimeMillis() - startTime);
+            response.setLanguage(request.getLanguage().getValue());
+            resourceAccounting.record(request.getLanguage().getValue(), response.getResourceUsage());
+            return response;
             
         } catch (Exception e) {
             logger.error("Error executing code", e);
-            return CodeExecutionResponse.systemError(e.getMessage());
+            response = CodeExecutionResponse.systemError(e.getMessage());
+            return response;
+            
+        } finally {
+            // Log code execution
+            long executionTime = System.currentTimeMillis() - startTime;
+            loggingService.logCodeExecution(
+                request.getLanguage().toString(),
+                response != null && response.isSuccess(),
+                executionTime,
+                response != null ? response.getStatus().toString() : "UNKNOWN",
+                null, // userId not available in this context
+                response != null && !response.isSuccess() ? response.getError() : null
+            );
         }
     }
     
     /**
-     * Validate code for security violations
+     * Check that code compiles, or for interpreted languages parses, without running it
+     * Compiled artifacts go into the artifact cache, so executing the same code next skips
+     * compilation
      */
-    private String validateCodeSecurity(String code) {
-        for (Pattern pattern : SECURITY_PATTERNS) {
-            if (pattern.matcher(code).find()) {
-                return "Potentially unsafe code detected: " + pattern.pattern();
-            }
+    public CodeValidationResponse validateCode(CodeExecutionRequest request) {
+        if (!executionEnabled) {
+            return CodeValidationResponse.from(CodeExecutionResponse.systemError("Code execution is disabled"));
         }
         
-        // Check for excessive length
-        if (code.length() > 10000) {
-            return "Code exceeds maximum length limit";
+        // Security validation
+        String securityViolation = validateCodeSecurity(request.getCode(), request.getLanguage());
+        if (securityViolation != null) {
+            return CodeValidationResponse.securityViolation(securityViolation);
         }
         
-        return null; // No violations found
+        long startTime = System.currentTimeMillis();
+        CodeExecutionRequest.Language language = request.getLanguage();
+        CodeValidationResponse response;
+        
+        try {
+            int timeoutSeconds = resolveTimeout(request);
+            String source = SubmissionFiles.prepareSource(request.getCode(), language);
+            
+            CompileOutcome javaBuild = compileJavaCached(language, source, timeoutSeconds);
+            CodeExecutionResponse check;
+            if (javaBuild != null) {
+                check = javaBuild.isSuccess() ? CodeExecutionResponse.success("", 0) : javaBuild.getFailure();
+            } else {
+                // Compiled languages are checked by the pipeline's compile step; interpreters parse the file
+                String[] syntaxCheck = CompilerDiagnostics.syntaxCheckCommand(language);
+                check = runExecutionPipeline(request, timeoutSeconds, (executionDir, image, sandbox) -> {
+                    if (syntaxCheck == null) {
+                        return CodeExecutionResponse.success("", 0);
+                    }
+                    CodeExecutionResponse result = runInSandbox(
+                        executionDir, image, syntaxCheck, null, timeoutSeconds, sandbox, null
+                    );
+                    if (result.getStatus() != CodeExecutionResponse.ExecutionStatus.RUNTIME_ERROR) {
+                        return result;
+                    }
+                    return CodeExecutionResponse.compilationError(
+                        result.getError(), CompilerDiagnostics.parse(result.getError(), SubmissionFiles.sourceFileName(language))
+                    );
+                });
+            }
+            response = CodeValidationResponse.from(check);
+            
+        } catch (Exception e) {
+            logger.error("Error validating code", e);
+            response = CodeValidationResponse.from(CodeExecutionResponse.systemError(e.getMessage()));
+        }
+        
+        response.setValidationTimeMs(System.currentTimeMillis() - startTime);
+        response.setLanguage(language.getValue());
+        return response;
     }
     
     /**
-     * Generate unique execution ID
+     * Run a submission against a list of test cases
+     * The code is compiled once and every case runs inside a single sandbox invocation
      */
-    private String generateExecutionId() {
-        return "exec_" + System.currentTimeMillis() + "_" + Thread.currentThread().getId();
+    public TestRunResponse executeTestCases(CodeExecutionRequest request, List<TestCase> testCases,
+                                            boolean stopOnFirstFailure) {
+        if (!executionEnabled) {
+            return TestRunResponse.notRun(CodeExecutionResponse.systemError("Code execution is disabled"),
+                                          skippedResults(testCases));
+        }
+        
+        // Security validation
+        String securityViolation = validateCodeSecurity(request.getCode(), request.getLanguage());
+        if (securityViolation != null) {
+            return TestRunResponse.notRun(CodeExecutionResponse.securityViolation(securityViolation),
+                                          skippedResults(testCases));
+        }
+        
+        long startTime = System.currentTimeMillis();
+        int caseTimeoutSeconds = resolveTimeout(request);
+        int batchTimeoutSeconds = Math.min(caseTimeoutSeconds * testCases.size() + 1, maxTestRunSeconds);
+        AtomicReference<List<TestCaseResult>> results = new AtomicReference<>();
+        CodeExecutionResponse harnessResponse = null;
+        
+        try {
+            harnessResponse = runExecutionPipeline(request, caseTimeoutSeconds, (executionDir, image, sandbox) -> {
+                TestHarness.write(executionDir, testCases, getRunCommand(request.getLanguage()),
+                                  caseTimeoutSeconds, maxOutputBytes, stopOnFirstFailure);
+                CodeExecutionResponse run = runInSandbox(
+                    executionDir, image, TestHarness.COMMAND, null, batchTimeoutSeconds, sandbox, null
+                );
+                results.set(TestHarness.readResults(
+                    executionDir, testCases, maxOutputBytes, outputBufferBytes,
+                    run.getStatus() == CodeExecutionResponse.ExecutionStatus.TIMEOUT
+                ));
+                return run;
+            });
+            
+            TestRunResponse response = results.get() != null
+                ? TestRunResponse.completed(results.get())
+                : TestRunResponse.notRun(harnessResponse, skippedResults(testCases));
+            response.setExecutionTimeMs(System.currentTimeMillis() - startTime);
+            return response;
+            
+        } catch (Exception e) {
+            logger.error("Error running test cases", e);
+            harnessResponse = CodeExecutionResponse.systemError(e.getMessage());
+            return TestRunResponse.notRun(harnessResponse, skippedResults(testCases));
+            
+        } finally {
+            loggingService.logCodeExecution(
+                request.getLanguage().toString(),
+                results.get() != null,
+                System.currentTimeMillis() - startTime,
+                harnessResponse != null ? harnessResponse.getStatus().toString() : "UNKNOWN",
+                null, // userId not available in this context
+                harnessResponse != null && !harnessResponse.isSuccess() ? harnessResponse.getError() : null
+            );
+        }
+    }
+    
+    private List<TestCaseResult> skippedResults(List<TestCase> testCases) {
+        List<TestCaseResult> skipped = new ArrayList<>();
+        for (int i = 0; i < testCases.size(); i++) {
+            TestCase testCase = testCases.get(i);
+            skipped.add(new TestCaseResult(
+                i, TestCaseResult.Status.SKIPPED, testCase.getInput(), testCase.getExpectedOutput()
+            ));
+        }
+        return skipped;
+    }
+    
+    private int resolveTimeout(CodeExecutionRequest request) {
+        return request.getTimeoutSeconds() != null ? request.getTimeoutSeconds() : defaultTimeoutSeconds;
     }
     
     /**
-     * Create temporary directory for code execution
+     * Compile (in-process where possible) and hand the prepared sandbox to the run step
      */
-    private Path createExecutionDirectory(String executionId) throws IOException {
-        Path baseDir = Paths.get(tempDir);
-        if (!Files.exists(baseDir)) {
-            Files.createDirectories(baseDir);
+    private CodeExecutionResponse runExecutionPipeline(CodeExecutionRequest request, int timeoutSeconds,
+                                                       RunStep runStep) throws IOException {
+        CodeExecutionRequest.Language language = request.getLanguage();
+        String source = SubmissionFiles.prepareSource(request.getCode(), language);
+        
+        // Compile Java inside the backend JVM so compilation errors never reach Docker
+        CompileOutcome javaBuild = compileJavaCached(language, source, timeoutSeconds);
+        if (javaBuild != null && !javaBuild.isSuccess()) {
+            return javaBuild.getFailure();
         }
         
-        Path executionDir = baseDir.resolve(executionId);
-        Files.createDirectories(executionDir);
-        return executionDir;
+        // Lease a warm sandbox if one is available, otherwise use a cold container
+        PooledSandbox sandbox = sandboxPool.lease(language);
+        Path executionDir = sandbox != null
+            ? sandbox.getWorkspace()
+            : workspaceManager.lease();
+        CodeExecutionResponse response = null;
+        
+        try {
+            // Write code to file
+            Path codeFile = SubmissionFiles.write(executionDir, source, language);
+            if (javaBuild != null) {
+                javaBuild.writeTo(executionDir);
+            }
+            
+            // Execute code in Docker container
+            response = executeInDocker(
+                executionDir, codeFile, request, source, timeoutSeconds, sandbox, javaBuild != null, runStep
+            );
+            return response;
+            
+        } finally {
+            if (sandbox != null) {
+                // Recycle the sandbox unless the run left it in an unknown state
+                sandboxPool.release(sandbox, isSandboxReusable(response));
+            } else {
+                // Wiped in the background and recycled for a later run
+                workspaceManager.release(executionDir);
+            }
+        }
+    }
+    
+    /**
+     * Compile Java in-process through the artifact cache
+     *
+     * @return the outcome, or null when the language is not Java or in-process compilation is unavailable
+     */
+    private CompileOutcome compileJavaCached(CodeExecutionRequest.Language language, String source,
+                                             int timeoutSeconds) throws IOException {
+        if (language != CodeExecutionRequest.Language.JAVA || !inProcessJavaCompilation || !javaCompiler.isAvailable()) {
+            return null;
+        }
+        String cacheKey = artifactCache.keyFor(language, source, javaCompiler.getCompilerFlags());
+        return artifactCache.getOrCompile(language, cacheKey, () -> compileJavaInProcess(source, timeoutSeconds));
     }
     
     /**
-     * Write code to appropriate file based on language
+     * Run javac in-process and package the class files as compile artifacts
      */
-    private Path writeCodeToFile(Path executionDir, String code, CodeExecutionRequest.Language language) throws IOException {
-        String fileName;
-        String fileContent = code;
+    private CompileOutcome compileJavaInProcess(String source, int timeoutSeconds) {
+        JavaCompilationResult result = javaCompiler.compile(SubmissionFiles.JAVA_MAIN_CLASS, source, timeoutSeconds);
+        if (result.isTimedOut()) {
+            return CompileOutcome.failure(CodeExecutionResponse.timeout());
+        }
+        if (!result.isSuccess()) {
+            return CompileOutcome.failure(CodeExecutionResponse.compilationError(
+                result.formatErrors(SubmissionFiles.sourceFileName(CodeExecutionRequest.Language.JAVA)), result.getDiagnostics()
+            ));
+        }
         
-        switch (language) {
-            case JAVA:
-                fileName = "Main.java";
-                // Ensure the class name is Main for Java
-                if (!code.contains("class Main")) {
-                    fileContent = code.replaceFirst("class\\s+\\w+", "class Main");
-                }
-                break;
-            case PYTHON:
-                fileName = "main.py";
-                break;
-            case JAVASCRIPT:
-                fileName = "main.js";
-                break;
-            case CPP:
-                fileName = "main.cpp";
-                break;
+        Map<String, byte[]> classFiles = new LinkedHashMap<>();
+        result.getClassFiles().forEach((className, bytes) ->
+            classFiles.put(className.replace('.', '/') + ".class", bytes));
+        return CompileOutcome.success(classFiles, Collections.emptySet());
+    }
+    
+    /**
+     * A sandbox can be reused only if the run ended on its own; after a timeout the
+     * program may still be running inside the container
+     */
+    private boolean isSandboxReusable(CodeExecutionResponse response) {
+        if (response == null) {
+            return false;
+        }
+        switch (response.getStatus()) {
+            case TIMEOUT:
+            case MEMORY_LIMIT_EXCEEDED:
+            case OUTPUT_LIMIT_EXCEEDED:
+            case SYSTEM_ERROR:
+                return false;
             default:
-                throw new CodeExecutionException("Unsupported language: " + language, language);
+                return true;
+        }
+    }
+    
+    /**
+     * Validate code for security violations
+     */
+    private String validateCodeSecurity(String code, CodeExecutionRequest.Language language) {
+        // Check for excessive length first so oversized submissions are never scanned
+        if (code.length() > 10000) {
+            return "Code exceeds maximum length limit";
+        }
+        
+        String violation = securityScanner.findViolation(code, language);
+        if (violation != null) {
+            return "Potentially unsafe code detected: " + violation;
         }
         
-        Path codeFile = executionDir.resolve(fileName);
-        Files.write(codeFile, fileContent.getBytes());
-        return codeFile;
+        return null; // No violations found
     }
     
     /**
      * Execute code in Docker container with security restrictions
      */
     private CodeExecutionResponse executeInDocker(Path executionDir, Path codeFile, 
-                                                 CodeExecutionRequest.Language language, 
-                                                 String stdin, int timeoutSeconds) {
+                                                 CodeExecutionRequest request, String source,
+                                                 int timeoutSeconds, PooledSandbox sandbox,
+                                                 boolean alreadyCompiled, RunStep runStep) {
+        CodeExecutionRequest.Language language = request.getLanguage();
         try {
-            String dockerImage = getDockerImage(language);
-            String[] compileCommand = getCompileCommand(language, codeFile.getFileName().toString());
-            String[] runCommand = getRunCommand(language);
+            String dockerImage = sandboxImages.imageFor(language);
+            String[] compileCommand = getCompileCommand(
+                language, codeFile.getFileName().toString(), request.getDifficulty()
+            );
             
-            // Compile if necessary
-            if (compileCommand != null) {
-                CodeExecutionResponse compileResult = runDockerCommand(
-                    executionDir, dockerImage, compileCommand, null, timeoutSeconds
-                );
+            // Compile if necessary, skipping the compiler entirely when the artifacts are cached
+            if (compileCommand != null && !alreadyCompiled) {
+                String cacheKey = artifactCache.keyFor(language, source, Arrays.asList(compileCommand));
+                // The compiler cache is shared by all submissions, so it is only mounted on a cold
+                // compile container and never on the sandbox the program then runs in
+                boolean compilerCache = language == CodeExecutionRequest.Language.CPP && cppToolchain.isEnabled();
+                CompileOutcome build = artifactCache.getOrCompile(language, cacheKey, () -> {
+                    CodeExecutionResponse compileResult = runInSandbox(
+                        executionDir, dockerImage, compileCommand, null, timeoutSeconds,
+                        compilerCache ? null : sandbox, null, compilerCache
+                    );
+                    
+                    if (!compileResult.isSuccess()) {
+                        String compilerOutput = compileResult.getError();
+                        return CompileOutcome.failure(CodeExecutionResponse.compilationError(
+                            compilerOutput, CompilerDiagnostics.parse(compilerOutput, codeFile.getFileName().toString())
+                        ));
+                    }
+                    return collectArtifacts(executionDir, codeFile);
+                });
                 
-                if (!compileResult.isSuccess()) {
-                    return CodeExecutionResponse.compilationError(compileResult.getError());
+                if (!build.isSuccess()) {
+                    return build.getFailure();
                 }
+                build.writeTo(executionDir);
             }
             
             // Execute the code
-            return runDockerCommand(executionDir, dockerImage, runCommand, stdin, timeoutSeconds);
+            return runStep.run(executionDir, dockerImage, sandbox);
             
         } catch (Exception e) {
             logger.error("Error executing code in Docker", e);
@@ -226,32 +501,36 @@ public class CodeExecutionService {
     }
     
     /**
-     * Get Docker image for language
+     * Collect everything the compiler wrote next to the source file
      */
-    private String getDockerImage(CodeExecutionRequest.Language language) {
-        switch (language) {
-            case JAVA:
-                return "openjdk:21-slim";
-            case PYTHON:
-                return "python:3.11-slim";
-            case JAVASCRIPT:
-                return "node:18-slim";
-            case CPP:
-                return "gcc:latest";
-            default:
-                throw new CodeExecutionException("Unsupported language: " + language, language);
+    private CompileOutcome collectArtifacts(Path executionDir, Path codeFile) throws IOException {
+        Map<String, byte[]> artifacts = new LinkedHashMap<>();
+        Set<String> executables = new HashSet<>();
+        try (Stream<Path> files = Files.walk(executionDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!Files.isRegularFile(file) || file.equals(codeFile)) {
+                    continue;
+                }
+                String name = executionDir.relativize(file).toString();
+                artifacts.put(name, Files.readAllBytes(file));
+                if (Files.isExecutable(file) && !name.endsWith(".class")) {
+                    executables.add(name);
+                }
+            }
         }
+        return CompileOutcome.success(artifacts, executables);
     }
     
     /**
      * Get compile command for language (null if no compilation needed)
      */
-    private String[] getCompileCommand(CodeExecutionRequest.Language language, String fileName) {
+    private String[] getCompileCommand(CodeExecutionRequest.Language language, String fileName,
+                                       Lesson.Difficulty difficulty) {
         switch (language) {
             case JAVA:
                 return new String[]{"javac", fileName};
             case CPP:
-                return new String[]{"g++", "-o", "main", fileName};
+                return cppToolchain.compileCommand(difficulty, fileName);
             case PYTHON:
             case JAVASCRIPT:
                 return null; // No compilation needed
@@ -274,126 +553,153 @@ public class CodeExecutionService {
             case CPP:
                 return new String[]{"./main"};
             default:
-                throw new CodeExecutionException("Unsupported language: " + language, language);
+                throw new CodeExecutionException("Unsupported language: " + language, language.getValue());
         }
     }
     
     /**
-     * Run Docker command with security restrictions
+     * Run a command in the sandbox on the selected execution backend
+     * Output is captured in bounded buffers; a program that exceeds the output cap is killed
      */
-    private CodeExecutionResponse runDockerCommand(Path executionDir, String image, 
-                                                  String[] command, String stdin, int timeoutSeconds) {
-        try {
-            // Build Docker command with security restrictions
-            ProcessBuilder pb = new ProcessBuilder();
-            pb.command(
-                "docker", "run",
-                "--rm",
-                "--network=none", // No network access
-                "--memory=" + memoryLimitMB + "m", // Memory limit
-                "--cpus=0.5", // CPU limit
-                "--user=nobody", // Run as non-root user
-                "--read-only", // Read-only filesystem
-                "--tmpfs=/tmp", // Temporary filesystem
-                "-v", executionDir.toString() + ":/workspace",
-                "-w", "/workspace",
-                image
-            );
-            
-            // Add the actual command
-            for (String arg : command) {
-                pb.command().add(arg);
-            }
-            
-            pb.directory(executionDir.toFile());
-            
-            Process process = pb.start();
+    private CodeExecutionResponse runInSandbox(Path executionDir, String image, 
+                                              String[] command, String stdin, int timeoutSeconds,
+                                              PooledSandbox sandbox, OutputListener outputListener) {
+        return runInSandbox(executionDir, image, command, stdin, timeoutSeconds, sandbox, outputListener, false);
+    }
+    
+    /**
+     * Run a command in the sandbox, giving a cold container the shared C++ compiler cache if asked to
+     */
+    private CodeExecutionResponse runInSandbox(Path executionDir, String image, 
+                                              String[] command, String stdin, int timeoutSeconds,
+                                              PooledSandbox sandbox, OutputListener outputListener,
+                                              boolean compilerCache) {
+        // Cold containers are named and labelled so they can be killed; the CLI client dying does not stop them
+        ContainerLifecycleTracker.TrackedContainer container = sandbox == null
+            ? containerTracker.track(timeoutSeconds + KILL_GRACE_SECONDS)
+            : null;
+        SandboxSpec spec = sandbox != null
+            ? SandboxSpec.pooledRun(sandbox, command)
+            : SandboxSpec.coldRun(image, executionDir, command, container.getName(), container.getLabels());
+        if (compilerCache && sandbox == null) {
+            spec = cppToolchain.withCompilerCache(spec);
+        }
+        AtomicBoolean timedOut = new AtomicBoolean();
+        try (ResourceAccounting.Measurement measurement = resourceAccounting.begin(sandbox)) {
+            long launchStart = System.nanoTime();
+            // Interpreted languages start from their sandbox's warm zygote when there is one
+            SandboxProcess fromZygote = sandbox != null
+                ? zygoteManager.launch(sandbox, command, timeoutSeconds + 1)
+                : null;
+            SandboxProcess process = fromZygote != null ? fromZygote : backendSelector.select().launch(spec);
+            long startupMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - launchStart);
             
             // Handle stdin if provided
             if (stdin != null && !stdin.isEmpty()) {
-                try (PrintWriter writer = new PrintWriter(process.getOutputStream())) {
+                try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(process.getStdin(), StandardCharsets.UTF_8))) {
                     writer.println(stdin);
                     writer.flush();
                 }
+            } else {
+                // Signal EOF so programs reading input don't block until the timeout
+                process.getStdin().close();
             }
             
-            // Capture output with timeout
-            Future<String> outputFuture = executorService.submit(() -> {
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                    StringBuilder output = new StringBuilder();
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        output.append(line).append("\n");
-                    }
-                    return output.toString();
+            // Capture output into bounded buffers, killing the program if it prints too much
+            BoundedOutputCapture capture = new BoundedOutputCapture(
+                outputBufferBytes, maxOutputBytes, outputListener, () -> {
+                    logger.warn("Output limit of {} bytes exceeded, killing the program", maxOutputBytes);
+                    process.destroy();
                 }
+            );
+            Future<?> outputFuture = executionThreads.submitIo(() -> {
+                capture.drain(process.getStdout(), OutputListener.STDOUT);
+                return null;
             });
-            
-            Future<String> errorFuture = executorService.submit(() -> {
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
-                    StringBuilder error = new StringBuilder();
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        error.append(line).append("\n");
-                    }
-                    return error.toString();
-                }
+            Future<?> errorFuture = executionThreads.submitIo(() -> {
+                capture.drain(process.getStderr(), OutputListener.STDERR);
+                return null;
             });
             
-            // Wait for process completion with timeout
-            boolean finished = process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
+            // The shared deadline wheel kills the program when its time is up
+            long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+            DeadlineTimerWheel.Deadline deadline = executionThreads.deadline(timeoutSeconds, TimeUnit.SECONDS, () -> {
+                timedOut.set(true);
+                process.destroy();
+            });
+            try {
+                // Output ends once the program exits or is killed
+                outputFuture.get(timeoutSeconds + KILL_GRACE_SECONDS, TimeUnit.SECONDS);
+                errorFuture.get(KILL_GRACE_SECONDS, TimeUnit.SECONDS);
+                long remainingNanos = Math.max(0, deadlineNanos - System.nanoTime());
+                if (!process.waitFor(remainingNanos + TimeUnit.SECONDS.toNanos(KILL_GRACE_SECONDS), TimeUnit.NANOSECONDS)) {
+                    timedOut.set(true);
+                }
+            } catch (TimeoutException e) {
+                timedOut.set(true);
+            } finally {
+                // The expiry task may still be on its way; a deadline that already fired is a timeout
+                if (!deadline.cancel()) {
+                    timedOut.set(true);
+                }
+            }
             
-            if (!finished) {
-                process.destroyForcibly();
-                return CodeExecutionResponse.timeout();
+            if (timedOut.get()) {
+                process.destroy();
+                CodeExecutionResponse response = CodeExecutionResponse.timeout();
+                response.setResourceUsage(measureUsage(measurement, capture, startupMs));
+                return response;
             }
             
-            String output = outputFuture.get(1, TimeUnit.SECONDS);
-            String error = errorFuture.get(1, TimeUnit.SECONDS);
+            String output = capture.getText(OutputListener.STDOUT);
+            String error = capture.getText(OutputListener.STDERR);
             
-            if (process.exitValue() == 0) {
-                return CodeExecutionResponse.success(output, 0);
+            CodeExecutionResponse response;
+            if (capture.isLimitExceeded()) {
+                response = CodeExecutionResponse.outputLimitExceeded(output, maxOutputBytes);
+            } else if (process.exitValue() == 0) {
+                response = CodeExecutionResponse.success(output, 0);
             } else {
-                return CodeExecutionResponse.runtimeError(error.isEmpty() ? output : error);
+                response = CodeExecutionResponse.runtimeError(error.isEmpty() ? output : error);
+            }
+            response.setOutputTruncated(capture.isTruncated());
+            ResourceUsage usage = measureUsage(measurement, capture, startupMs);
+            response.setResourceUsage(usage);
+            if (usage.getPeakMemoryBytes() != null) {
+                response.setMemoryUsageMB((int) (usage.getPeakMemoryBytes() / (1024 * 1024)));
             }
+            return response;
             
-        } catch (TimeoutException e) {
-            return CodeExecutionResponse.timeout();
         } catch (Exception e) {
-            logger.error("Error running Docker command", e);
+            logger.error("Error running sandboxed command", e);
             return CodeExecutionResponse.systemError(e.getMessage());
+            
+        } finally {
+            if (container != null) {
+                // A timed-out container is force-removed; the reaper catches any that still escape
+                containerTracker.finished(container, timedOut.get());
+            }
         }
     }
     
     /**
-     * Clean up execution directory
+     * What the run consumed; CPU and memory are only known for pooled sandboxes
      */
-    private void cleanupExecutionDirectory(Path executionDir) {
-        try {
-            Files.walk(executionDir)
-                .sorted((a, b) -> b.compareTo(a)) // Delete files before directories
-                .forEach(path -> {
-                    try {
-                        Files.delete(path);
-                    } catch (IOException e) {
-                        logger.warn("Failed to delete temporary file: " + path, e);
-                    }
-                });
-        } catch (IOException e) {
-            logger.warn("Failed to clean up execution directory: " + executionDir, e);
-        }
+    private ResourceUsage measureUsage(ResourceAccounting.Measurement measurement, BoundedOutputCapture capture,
+                                       long startupMs) {
+        ResourceUsage usage = new ResourceUsage();
+        usage.setSandboxStartupMs(startupMs);
+        usage.setStdoutBytes(capture.getBytes(OutputListener.STDOUT));
+        usage.setStderrBytes(capture.getBytes(OutputListener.STDERR));
+        measurement.finish(usage);
+        return usage;
     }
     
     /**
-     * Check if Docker is available
+     * Check if the selected execution backend is available; the backend caches the answer
      */
     public boolean isDockerAvailable() {
-        try {
-            Process process = new ProcessBuilder("docker", "--version").start();
-            return process.waitFor(5, TimeUnit.SECONDS) && process.exitValue() == 0;
-        } catch (Exception e) {
-            return false;
-        }
+        return backendSelector.select().isAvailable();
     }
     
     /**
@@ -404,10 +710,21 @@ public class CodeExecutionService {
             return "Code execution is disabled";
         }
         
-        if (!isDockerAvailable()) {
-            return "Docker is not available";
+        ExecutionBackend backend = backendSelector.select();
+        if (!backend.isAvailable()) {
+            return "local".equals(backend.getName())
+                ? "Local execution backend is not available"
+                : "Docker is not available";
         }
         
         return "Code execution service is ready";
     }
-}
\ No newline at end of file
+    
+    /**
+     * Runs the prepared, compiled submission inside the sandbox
+     */
+    @FunctionalInterface
+    private interface RunStep {
+        CodeExecutionResponse run(Path executionDir, String image, PooledSandbox sandbox) throws IOException;
+    }
+}
@@ -69,6 +69,7 @@ public class LessonDataInitializationService implements CommandLineRunner {
         practice1.setHints("Use System.out.println() to print to console");
         practice1.setSequenceOrder(1);
         practice1.setStarterCode("public class HelloWorld {\n    public static void main(String[] args) {\n        // Write your code here\n    }\n}");
+        practice1.setTestCases("[{\"input\": \"\", \"expectedOutput\": \"Hello, World!\"}]");
         javaIntro.getPracticeQuestions().add(practice1);
         
         PracticeQuestion practice2 = new PracticeQuestion(
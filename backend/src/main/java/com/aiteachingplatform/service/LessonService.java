@@ -6,6 +6,7 @@ import com.aiteachingplatform.model.User;
 import com.aiteachingplatform.exception.BusinessException;
 import com.aiteachingplatform.exception.ResourceNotFoundException;
 import com.aiteachingplatform.repository.LessonRepository;
+import com.aiteachingplatform.service.execution.ExampleOutputPrecomputer;
 import org.springframework.http.HttpStatus;
 import com.aiteachingplatform.repository.ProgressRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,6 +32,9 @@ public class LessonService {
     @Autowired
     private ProgressRepository progressRepository;
     
+    @Autowired
+    private ExampleOutputPrecomputer exampleOutputPrecomputer;
+    
     /**
      * Create a new lesson
      */
@@ -58,7 +62,10 @@ public class LessonService {
         lesson.setPrerequisiteLessonIds(lessonDetails.getPrerequisiteLessonIds());
         
         validateLessonStructure(lesson);
-        return lessonRepository.save(lesson);
+        Lesson saved = lessonRepository.save(lesson);
+        // Stored outputs of the old examples no longer describe the lesson
+        exampleOutputPrecomputer.lessonChanged(saved.getId());
+        return saved;
     }
     
     /**
@@ -0,0 +1,109 @@
+package com.aiteachingplatform.service;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import com.aiteachingplatform.dto.TestRunResponse;
+import com.aiteachingplatform.exception.BusinessException;
+import com.aiteachingplatform.exception.ResourceNotFoundException;
+import com.aiteachingplatform.model.Lesson;
+import com.aiteachingplatform.model.PracticeQuestion;
+import com.aiteachingplatform.repository.PracticeQuestionRepository;
+import com.aiteachingplatform.service.execution.DistributedExecutionQueue;
+import com.aiteachingplatform.service.execution.ExecutionLane;
+import com.aiteachingplatform.service.execution.ExecutionScheduler;
+import com.aiteachingplatform.service.execution.GradingRequest;
+import com.aiteachingplatform.service.execution.TestCase;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Service for grading practice question submissions against their test cases
+ */
+@Service
+public class PracticeQuestionGradingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PracticeQuestionGradingService.class);
+
+    @Autowired
+    private PracticeQuestionRepository practiceQuestionRepository;
+
+    @Autowired
+    private CodeExecutionService codeExecutionService;
+
+    @Autowired
+    private ExecutionScheduler executionScheduler;
+
+    @Autowired
+    private DistributedExecutionQueue executionQueue;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Grade a submission; the batch runs on the execution scheduler in the grading lane, or on
+     * the execution workers when the durable queue is enabled
+     */
+    public CompletableFuture<TestRunResponse> grade(Long questionId, CodeExecutionRequest request, String owner,
+                                                    boolean stopOnFirstFailure) {
+        PracticeQuestion question = practiceQuestionRepository.findById(questionId)
+            .orElseThrow(() -> new ResourceNotFoundException("PracticeQuestion", questionId.toString()));
+        List<TestCase> testCases = parseTestCases(question);
+        if (question.getDifficulty() != null) {
+            // The question's difficulty selects the compiler flags
+            request.setDifficulty(Lesson.Difficulty.valueOf(question.getDifficulty().name()));
+        }
+
+        CompletableFuture<TestRunResponse> result = new CompletableFuture<>();
+        if (executionQueue.isEnabled()) {
+            executionQueue.enqueueGrading(new GradingRequest(request, testCases, stopOnFirstFailure), owner,
+                                          result::complete);
+        } else {
+            executionScheduler.submit(ExecutionLane.GRADING, owner, () -> {
+                try {
+                    result.complete(codeExecutionService.executeTestCases(request, testCases, stopOnFirstFailure));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        }
+
+        logger.info("Grading question {} against {} test cases", questionId, testCases.size());
+        return result;
+    }
+
+    /**
+     * Parse the question's test cases from their JSON column
+     */
+    List<TestCase> parseTestCases(PracticeQuestion question) {
+        if (question.getTestCases() == null || question.getTestCases().isBlank()) {
+            throw new BusinessException(
+                "NO_TEST_CASES", "This question has no test cases to grade against", HttpStatus.BAD_REQUEST
+            );
+        }
+
+        List<TestCase> testCases;
+        try {
+            testCases = objectMapper.readValue(question.getTestCases(), new TypeReference<List<TestCase>>() {});
+        } catch (JsonProcessingException e) {
+            logger.error("Invalid test cases for practice question {}", question.getId(), e);
+            throw new BusinessException(
+                "INVALID_TEST_CASES", "This question's test cases could not be read", HttpStatus.INTERNAL_SERVER_ERROR, e
+            );
+        }
+
+        if (testCases.isEmpty()) {
+            throw new BusinessException(
+                "NO_TEST_CASES", "This question has no test cases to grade against", HttpStatus.BAD_REQUEST
+            );
+        }
+        return testCases;
+    }
+}
@@ -0,0 +1,259 @@
+package com.aiteachingplatform.service.execution;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Captures the stdout and stderr of a sandboxed program in fixed-size ring buffers
+ * Memory use is bounded no matter how much the program prints: each stream keeps only its
+ * most recent bytes, and once the combined output passes a hard cap the limit callback
+ * fires (to kill the program) and further output is read and discarded
+ */
+public class BoundedOutputCapture {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoundedOutputCapture.class);
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final int bufferBytes;
+    private final long maxTotalBytes;
+    private final OutputListener listener;
+    private final Runnable onLimitExceeded;
+
+    private final Map<String, ByteRingBuffer> buffers = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> streamBytes = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicBoolean limitExceeded = new AtomicBoolean();
+
+    public BoundedOutputCapture(int bufferBytes, long maxTotalBytes, OutputListener listener, Runnable onLimitExceeded) {
+        this.bufferBytes = bufferBytes;
+        this.maxTotalBytes = maxTotalBytes;
+        this.listener = listener;
+        this.onLimitExceeded = onLimitExceeded;
+    }
+
+    /**
+     * Read a stream until EOF; blocks, so call it from a capture thread
+     */
+    public void drain(InputStream input, String stream) throws IOException {
+        ByteRingBuffer buffer = buffers.computeIfAbsent(stream, name -> new ByteRingBuffer(bufferBytes));
+        AtomicLong produced = streamBytes.computeIfAbsent(stream, name -> new AtomicLong());
+        byte[] chunk = new byte[CHUNK_SIZE];
+        // Bytes of a multi-byte character split across reads, held back from the listener
+        int carried = 0;
+
+        try (InputStream in = input) {
+            int read;
+            while ((read = in.read(chunk, carried, chunk.length - carried)) != -1) {
+                produced.addAndGet(read);
+                int accepted = accept(read);
+                if (accepted == 0) {
+                    // Over the limit: keep draining so the program can't block on a full pipe
+                    carried = 0;
+                    continue;
+                }
+
+                buffer.write(chunk, carried, accepted);
+                if (listener == null) {
+                    continue;
+                }
+
+                int available = carried + accepted;
+                int complete = completeUtf8Length(chunk, available);
+                publish(stream, new String(chunk, 0, complete, StandardCharsets.UTF_8));
+                carried = available - complete;
+                System.arraycopy(chunk, complete, chunk, 0, carried);
+            }
+        }
+    }
+
+    /**
+     * Stream for a program running in this JVM; writes are captured like drained output
+     * Text is published to the listener as written, so a writer should not split characters
+     */
+    public OutputStream sink(String stream) {
+        ByteRingBuffer buffer = buffers.computeIfAbsent(stream, name -> new ByteRingBuffer(bufferBytes));
+        AtomicLong produced = streamBytes.computeIfAbsent(stream, name -> new AtomicLong());
+        return new OutputStream() {
+            @Override
+            public void write(int value) {
+                write(new byte[] {(byte) value}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                produced.addAndGet(length);
+                int accepted = accept(length);
+                if (accepted == 0) {
+                    return;
+                }
+                buffer.write(bytes, offset, accepted);
+                if (listener != null) {
+                    publish(stream, new String(bytes, offset, accepted, StandardCharsets.UTF_8));
+                }
+            }
+        };
+    }
+
+    /**
+     * Captured text of a stream; when the ring buffer wrapped this is its tail
+     */
+    public String getText(String stream) {
+        ByteRingBuffer buffer = buffers.get(stream);
+        if (buffer == null) {
+            return "";
+        }
+        byte[] bytes = buffer.toByteArray();
+        int start = 0;
+        if (buffer.isWrapped()) {
+            // Don't start in the middle of a multi-byte character
+            while (start < bytes.length && start < 3 && isContinuationByte(bytes[start])) {
+                start++;
+            }
+        }
+        return new String(bytes, start, bytes.length - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Whether any output was dropped, either by a wrapped buffer or the hard cap
+     */
+    public boolean isTruncated() {
+        return limitExceeded.get() || buffers.values().stream().anyMatch(ByteRingBuffer::isWrapped);
+    }
+
+    public boolean isLimitExceeded() {
+        return limitExceeded.get();
+    }
+
+    public long getTotalBytes() {
+        return Math.min(totalBytes.get(), maxTotalBytes);
+    }
+
+    /**
+     * Bytes the program wrote to a stream, including any dropped over the cap
+     */
+    public long getBytes(String stream) {
+        AtomicLong produced = streamBytes.get(stream);
+        return produced != null ? produced.get() : 0;
+    }
+
+    /**
+     * Account for newly read bytes and return how many of them fit under the cap
+     */
+    private int accept(int read) {
+        long total = totalBytes.addAndGet(read);
+        if (total <= maxTotalBytes) {
+            return read;
+        }
+
+        if (limitExceeded.compareAndSet(false, true)) {
+            onLimitExceeded.run();
+        }
+        long overflow = total - maxTotalBytes;
+        return (int) Math.max(0, read - overflow);
+    }
+
+    private void publish(String stream, String text) {
+        if (text.isEmpty()) {
+            return;
+        }
+        try {
+            listener.onOutput(stream, text);
+        } catch (RuntimeException e) {
+            // A broken subscriber must not stop the capture
+            logger.debug("Output listener failed", e);
+        }
+    }
+
+    /**
+     * Length of the prefix that ends on a UTF-8 character boundary
+     */
+    static int completeUtf8Length(byte[] bytes, int length) {
+        for (int i = length - 1; i >= Math.max(0, length - 3); i--) {
+            int value = bytes[i] & 0xFF;
+            if (value < 0x80) {
+                return length;
+            }
+            if (value >= 0xC0) {
+                int sequenceLength = value >= 0xF0 ? 4 : value >= 0xE0 ? 3 : 2;
+                return i + sequenceLength <= length ? length : i;
+            }
+        }
+        return length;
+    }
+
+    private static boolean isContinuationByte(byte value) {
+        return (value & 0xC0) == 0x80;
+    }
+
+    /**
+     * Fixed-capacity buffer that keeps the most recently written bytes
+     */
+    static class ByteRingBuffer {
+
+        private final byte[] data;
+        private long written;
+
+        ByteRingBuffer(int capacity) {
+            this.data = new byte[Math.max(1, capacity)];
+        }
+
+        synchronized void write(byte[] bytes, int offset, int length) {
+            int capacity = data.length;
+            if (length >= capacity) {
+                // Only the last capacity bytes can survive
+                System.arraycopy(bytes, offset + length - capacity, data, 0, capacity);
+                written += length;
+                // Realign so the next write position is the start of the array
+                long shift = written % capacity;
+                if (shift != 0) {
+                    rotate((int) shift);
+                }
+                return;
+            }
+
+            int position = (int) (written % capacity);
+            int firstPart = Math.min(length, capacity - position);
+            System.arraycopy(bytes, offset, data, position, firstPart);
+            System.arraycopy(bytes, offset + firstPart, data, 0, length - firstPart);
+            written += length;
+        }
+
+        synchronized byte[] toByteArray() {
+            int capacity = data.length;
+            if (written <= capacity) {
+                byte[] result = new byte[(int) written];
+                System.arraycopy(data, 0, result, 0, result.length);
+                return result;
+            }
+
+            int position = (int) (written % capacity);
+            byte[] result = new byte[capacity];
+            System.arraycopy(data, position, result, 0, capacity - position);
+            System.arraycopy(data, 0, result, capacity - position, position);
+            return result;
+        }
+
+        synchronized boolean isWrapped() {
+            return written > data.length;
+        }
+
+        private void rotate(int shift) {
+            // data holds the tail in order; place it so that the oldest byte sits at shift
+            byte[] ordered = data.clone();
+            int capacity = data.length;
+            for (int i = 0; i < capacity; i++) {
+                data[(shift + i) % capacity] = ordered[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import com.aiteachingplatform.dto.CodeExecutionResponse;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * An asynchronous code execution tracked in the job table
+ * Completion is published through the future alone: the job reads as completed only once its
+ * result is there, and listeners hear of it from the future
+ */
+public class CodeExecutionJob {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED
+    }
+
+    private final String id;
+    private final String owner;
+    private final CodeExecutionRequest request;
+    private final Instant submittedAt;
+    private final CompletableFuture<CodeExecutionResponse> completion = new CompletableFuture<>();
+    private final List<JobListener> listeners = new CopyOnWriteArrayList<>();
+
+    // QUEUED or RUNNING; completion is read from the future
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant completedAt;
+
+    public CodeExecutionJob(String id, String owner, CodeExecutionRequest request) {
+        this.id = id;
+        this.owner = owner;
+        this.request = request;
+        this.submittedAt = Instant.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public CodeExecutionRequest getRequest() {
+        return request;
+    }
+
+    public Status getStatus() {
+        return completion.isDone() ? Status.COMPLETED : status;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    /**
+     * Result of the job, completed exactly once
+     */
+    public CompletableFuture<CodeExecutionResponse> getCompletion() {
+        return completion;
+    }
+
+    public CodeExecutionResponse getResult() {
+        return completion.getNow(null);
+    }
+
+    public boolean isCompleted() {
+        return completion.isDone();
+    }
+
+    /**
+     * Register a listener; a listener added after completion is notified immediately
+     */
+    public void subscribe(JobListener listener) {
+        listeners.add(listener);
+        if (!isCompleted()) {
+            listener.onStatus(this);
+        }
+        completion.thenRun(() -> {
+            // Unless it unsubscribed meanwhile
+            if (listeners.remove(listener)) {
+                listener.onCompleted(this);
+            }
+        });
+    }
+
+    public void unsubscribe(JobListener listener) {
+        listeners.remove(listener);
+    }
+
+    public void markRunning() {
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+        listeners.forEach(listener -> listener.onStatus(this));
+    }
+
+    /**
+     * Forward a chunk of live program output to subscribers
+     */
+    public void publishOutput(String stream, String chunk) {
+        listeners.forEach(listener -> listener.onOutput(this, stream, chunk));
+    }
+
+    /**
+     * Publish the result; only the first call counts
+     */
+    public void complete(CodeExecutionResponse response) {
+        synchronized (this) {
+            if (completedAt != null) {
+                return;
+            }
+            // Set before the result is visible, so a completed job always has it
+            completedAt = Instant.now();
+        }
+        completion.complete(response);
+    }
+
+    /**
+     * Observer for job progress, e.g. a server-sent event stream
+     */
+    public interface JobListener {
+
+        void onStatus(CodeExecutionJob job);
+
+        void onCompleted(CodeExecutionJob job);
+
+        /**
+         * Program output produced while the job runs; only delivered to live subscribers
+         */
+        default void onOutput(CodeExecutionJob job, String stream, String chunk) {
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Single-pass static screen of submitted code for operations the sandbox should never see
+ * Each language has its own rule set, matched as token sequences over the output of
+ * {@link SourceTokenizer}, so names mentioned in strings or comments are not violations
+ * and a rule like "System.exit" still matches "System . exit" spread over lines.
+ * Matching is case-sensitive like the languages themselves.
+ * The container remains the actual security boundary; this only rejects obvious attempts early
+ */
+public class CodeSecurityScanner {
+
+    private static final String[] JAVA_RULES = {
+        // Processes and the JVM
+        "Runtime", "Process", "ProcessBuilder", "ProcessHandle", "System.exit", "System.load",
+        "System.loadLibrary",
+        // Files
+        "java.io.File", "File(", "Files", "FileInputStream", "FileOutputStream", "FileReader",
+        "FileWriter", "RandomAccessFile", "java.nio.file", "java.nio.channels",
+        // Network
+        "java.net", "Socket", "ServerSocket", "DatagramSocket", "URL", "URLConnection",
+        "HttpURLConnection", "HttpClient",
+        // Reflection and class loading
+        "Class.forName", "ClassLoader", "java.lang.reflect", "MethodHandles", "Unsafe"
+    };
+
+    private static final String[] PYTHON_RULES = {
+        // Dynamic code and imports
+        "__import__", "__builtins__", "__subclasses__", "importlib", "eval", "exec", "compile(",
+        "globals(",
+        // Files
+        "open(", "file(",
+        // Modules reaching the system or the network
+        "os", "sys.modules", "subprocess", "shutil", "ctypes", "pty", "signal", "multiprocessing",
+        "socket", "http", "urllib", "requests"
+    };
+
+    private static final String[] JAVASCRIPT_RULES = {
+        "require", "import", "process", "eval", "Function", "globalThis", "fetch",
+        "XMLHttpRequest", "WebSocket"
+    };
+
+    private static final String[] CPP_RULES = {
+        "system(", "popen", "fork", "vfork", "execl", "execlp", "execle", "execv", "execvp",
+        "execvpe", "execve", "socket", "connect(", "dlopen", "ptrace", "kill(", "fopen", "ofstream",
+        "ifstream", "fstream", "unistd.h"
+    };
+
+    // Header names are plain relative paths; computed includes (#include MACRO) are not allowed.
+    // Matched against directiveText(), where comments are blanked and digraphs spelled out
+    private static final Pattern CPP_INCLUDE =
+        Pattern.compile("^[ \\t]*#[ \\t]*(?:include\\w*|embed)[ \\t]*(.*)$", Pattern.MULTILINE);
+    private static final Set<String> RAW_STRING_PREFIXES = Set.of("R", "LR", "uR", "UR", "u8R");
+    private static final Pattern CPP_HEADER_NAME = Pattern.compile("(<[\\w.+/-]+>|\"[\\w.+/-]+\").*");
+
+    private final Map<CodeExecutionRequest.Language, TokenSequenceMatcher> matchers =
+        new EnumMap<>(CodeExecutionRequest.Language.class);
+
+    public CodeSecurityScanner() {
+        matchers.put(CodeExecutionRequest.Language.JAVA, compile(JAVA_RULES, CodeExecutionRequest.Language.JAVA));
+        matchers.put(CodeExecutionRequest.Language.PYTHON, compile(PYTHON_RULES, CodeExecutionRequest.Language.PYTHON));
+        matchers.put(CodeExecutionRequest.Language.JAVASCRIPT,
+            compile(JAVASCRIPT_RULES, CodeExecutionRequest.Language.JAVASCRIPT));
+        matchers.put(CodeExecutionRequest.Language.CPP, compile(CPP_RULES, CodeExecutionRequest.Language.CPP));
+    }
+
+    /**
+     * Scan code written in the given language
+     *
+     * @return the first rule the code violates, or null if none
+     */
+    public String findViolation(String code, CodeExecutionRequest.Language language) {
+        TokenSequenceMatcher matcher = matchers.get(language);
+        if (matcher == null || code == null) {
+            return null;
+        }
+
+        if (language == CodeExecutionRequest.Language.CPP) {
+            String include = findUnsafeInclude(code);
+            if (include != null) {
+                return include;
+            }
+        }
+
+        TokenSequenceMatcher.Cursor cursor = matcher.cursor();
+        String[] violation = new String[1];
+        SourceTokenizer.tokenize(code, language, token -> {
+            violation[0] = cursor.advance(token);
+            return violation[0] == null;
+        });
+        return violation[0];
+    }
+
+    /**
+     * Includes must name a header relative to the include path, so compiling cannot read
+     * arbitrary files of the compile container
+     */
+    private static String findUnsafeInclude(String code) {
+        Matcher directive = CPP_INCLUDE.matcher(directiveText(code));
+        while (directive.find()) {
+            String header = directive.group(1).trim();
+            if (!CPP_HEADER_NAME.matcher(header).matches() || header.charAt(1) == '/' || header.contains("..")) {
+                return "#include " + header;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * C++ source as the preprocessor sees its directives: line splices undone, the %: digraph
+     * and ??= trigraph spelled #, and every comment blanked out with its line breaks kept.
+     * Literals and numbers are skipped whole, so a comment opener inside one cannot hide the
+     * lines after it
+     */
+    private static String directiveText(String code) {
+        String source = code.replace("\\\r\n", "").replace("\\\n", "").replace("%:", "#").replace("??=", "#");
+        int length = source.length();
+        StringBuilder text = new StringBuilder(length);
+        int pos = 0;
+        while (pos < length) {
+            char c = source.charAt(pos);
+            char next = pos + 1 < length ? source.charAt(pos + 1) : '\0';
+            int end;
+            if (c == '/' && next == '/') {
+                end = source.indexOf('\n', pos);
+                end = end < 0 ? length : end;
+                blank(source, pos, end, text);
+            } else if (c == '/' && next == '*') {
+                end = source.indexOf("*/", pos + 2);
+                end = end < 0 ? length : end + 2;
+                blank(source, pos, end, text);
+            } else if (Character.isJavaIdentifierStart(c)) {
+                end = pos + 1;
+                while (end < length && Character.isJavaIdentifierPart(source.charAt(end))) {
+                    end++;
+                }
+                String identifier = source.substring(pos, end);
+                if (end < length && source.charAt(end) == '"' && RAW_STRING_PREFIXES.contains(identifier)) {
+                    end = rawStringEnd(source, end);
+                }
+                text.append(source, pos, end);
+            } else if (Character.isDigit(c) || (c == '.' && Character.isDigit(next))) {
+                end = numberEnd(source, pos);
+                text.append(source, pos, end);
+            } else if (c == '"' || c == '\'') {
+                end = quotedEnd(source, pos);
+                text.append(source, pos, end);
+            } else {
+                end = pos + 1;
+                text.append(c);
+            }
+            pos = end;
+        }
+        return text.toString();
+    }
+
+    private static void blank(String source, int start, int end, StringBuilder text) {
+        for (int i = start; i < end; i++) {
+            text.append(source.charAt(i) == '\n' ? '\n' : ' ');
+        }
+    }
+
+    /**
+     * End of R"delimiter( ... )delimiter", given the position of its opening quote
+     */
+    private static int rawStringEnd(String source, int quote) {
+        int open = source.indexOf('(', quote);
+        if (open < 0) {
+            return source.length();
+        }
+        String close = ")" + source.substring(quote + 1, open) + "\"";
+        int end = source.indexOf(close, open);
+        return end < 0 ? source.length() : end + close.length();
+    }
+
+    /**
+     * End of a string or character literal; an unterminated one ends with its line
+     */
+    private static int quotedEnd(String source, int start) {
+        char quote = source.charAt(start);
+        int pos = start + 1;
+        while (pos < source.length() && source.charAt(pos) != quote && source.charAt(pos) != '\n') {
+            pos += source.charAt(pos) == '\\' ? 2 : 1;
+        }
+        return Math.min(source.length(), pos + 1);
+    }
+
+    /**
+     * End of a preprocessing number, which may contain digit separators (1'000) and exponent signs
+     */
+    private static int numberEnd(String source, int start) {
+        int pos = start + 1;
+        while (pos < source.length()) {
+            char c = source.charAt(pos);
+            char next = pos + 1 < source.length() ? source.charAt(pos + 1) : '\0';
+            if (Character.isLetterOrDigit(c) || c == '_' || c == '.') {
+                pos += "eEpP".indexOf(c) >= 0 && (next == '+' || next == '-') ? 2 : 1;
+            } else if (c == '\'' && (Character.isLetterOrDigit(next) || next == '_')) {
+                pos += 2;
+            } else {
+                break;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Rules are written as source and tokenized like submissions, so their spelling matches
+     */
+    private static TokenSequenceMatcher compile(String[] rules, CodeExecutionRequest.Language language) {
+        Map<String, List<String>> tokenized = new LinkedHashMap<>();
+        for (String rule : rules) {
+            List<String> tokens = new ArrayList<>();
+            SourceTokenizer.tokenize(rule, language, tokens::add);
+            tokenized.put(rule, tokens);
+        }
+        return new TokenSequenceMatcher(tokenized);
+    }
+}
@@ -0,0 +1,71 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Result of a compile step: either the produced artifacts (class files or a native binary),
+ * keyed by path relative to the workspace, or the response describing why compilation failed
+ */
+public class CompileOutcome {
+
+    private final Map<String, byte[]> artifacts;
+    private final Set<String> executables;
+    private final CodeExecutionResponse failure;
+
+    private CompileOutcome(Map<String, byte[]> artifacts, Set<String> executables, CodeExecutionResponse failure) {
+        this.artifacts = artifacts;
+        this.executables = executables;
+        this.failure = failure;
+    }
+
+    public static CompileOutcome success(Map<String, byte[]> artifacts, Set<String> executables) {
+        return new CompileOutcome(artifacts, executables, null);
+    }
+
+    public static CompileOutcome failure(CodeExecutionResponse failure) {
+        return new CompileOutcome(Collections.emptyMap(), Collections.emptySet(), failure);
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    public CodeExecutionResponse getFailure() {
+        return failure;
+    }
+
+    public Map<String, byte[]> getArtifacts() {
+        return artifacts;
+    }
+
+    public Set<String> getExecutables() {
+        return executables;
+    }
+
+    public long sizeInBytes() {
+        return artifacts.values().stream().mapToLong(bytes -> bytes.length).sum();
+    }
+
+    /**
+     * Materialize the artifacts in a workspace so the sandbox can run them
+     */
+    public void writeTo(Path directory) throws IOException {
+        for (Map.Entry<String, byte[]> artifact : artifacts.entrySet()) {
+            Path target = directory.resolve(artifact.getKey());
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            Files.write(target, artifact.getValue());
+            if (executables.contains(artifact.getKey())) {
+                target.toFile().setExecutable(true, false);
+            }
+        }
+    }
+}
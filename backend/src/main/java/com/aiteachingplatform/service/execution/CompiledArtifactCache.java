@@ -0,0 +1,346 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Bounded, disk-backed LRU cache of compiled artifacts
+ * Entries are content-addressed by a SHA-256 of language, compiler flags and the prepared
+ * source, so identical submissions (re-runs, unmodified starter code) skip compilation
+ * Identical submissions compiling at the same time share a single compilation
+ */
+@Component
+public class CompiledArtifactCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompiledArtifactCache.class);
+
+    @Value("${code.execution.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${code.execution.cache.dir:/tmp/code-execution/artifact-cache}")
+    private String cacheDir;
+
+    @Value("${code.execution.cache.max-size-mb:256}")
+    private long maxSizeMB;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private final Map<String, CompletableFuture<CompileOutcome>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong lookups = new AtomicLong();
+
+    private Path root;
+
+    @PostConstruct
+    void initialize() throws IOException {
+        root = Paths.get(cacheDir);
+        Files.createDirectories(root);
+        loadExistingEntries();
+
+        meterRegistry.gauge("code.execution.artifact.cache.size.bytes", totalBytes, AtomicLong::get);
+        meterRegistry.gauge("code.execution.artifact.cache.entries", entries, map -> {
+            synchronized (entries) {
+                return map.size();
+            }
+        });
+        meterRegistry.gauge("code.execution.artifact.cache.hit.ratio", this, CompiledArtifactCache::getHitRatio);
+    }
+
+    /**
+     * Build the content address of a compilation
+     */
+    public String keyFor(CodeExecutionRequest.Language language, String source, List<String> compilerFlags) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(language.getValue().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.join(" ", compilerFlags).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(source.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Return the cached artifacts for a key, or run the compile step to produce them
+     * Concurrent callers with the same key wait for the first caller's outcome instead
+     * of compiling again; only successful outcomes are stored
+     */
+    public CompileOutcome getOrCompile(CodeExecutionRequest.Language language, String key,
+                                       CompileStep compileStep) throws IOException {
+        if (!cacheEnabled) {
+            return compileStep.compile();
+        }
+
+        String languageTag = language.getValue();
+        lookups.incrementAndGet();
+
+        CompileOutcome cached = load(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            meterRegistry.counter("code.execution.artifact.cache.hits", "language", languageTag).increment();
+            return cached;
+        }
+
+        CompletableFuture<CompileOutcome> population = new CompletableFuture<>();
+        CompletableFuture<CompileOutcome> existing = inFlight.putIfAbsent(key, population);
+        if (existing != null) {
+            // An identical submission is compiling right now; reuse its outcome
+            hits.incrementAndGet();
+            meterRegistry.counter("code.execution.artifact.cache.shared", "language", languageTag).increment();
+            return awaitPopulation(existing);
+        }
+
+        try {
+            // The previous owner of this key may have stored it just before we registered
+            CompileOutcome outcome = load(key);
+            if (outcome != null) {
+                hits.incrementAndGet();
+                meterRegistry.counter("code.execution.artifact.cache.hits", "language", languageTag).increment();
+                population.complete(outcome);
+                return outcome;
+            }
+
+            meterRegistry.counter("code.execution.artifact.cache.misses", "language", languageTag).increment();
+            long compileStart = System.nanoTime();
+            outcome = compileStep.compile();
+            Timer.builder("code.execution.compile.duration")
+                .description("Time to compile a submission whose artifacts were not cached")
+                .tag("language", languageTag)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - compileStart, TimeUnit.NANOSECONDS);
+            if (outcome.isSuccess()) {
+                store(key, outcome);
+            }
+            population.complete(outcome);
+            return outcome;
+        } catch (IOException | RuntimeException e) {
+            population.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, population);
+        }
+    }
+
+    /**
+     * Fraction of lookups served without compiling
+     */
+    public double getHitRatio() {
+        long total = lookups.get();
+        return total == 0 ? 0.0 : (double) hits.get() / total;
+    }
+
+    private CompileOutcome awaitPopulation(CompletableFuture<CompileOutcome> population) throws IOException {
+        try {
+            return population.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a shared compilation", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Shared compilation failed", e.getCause());
+        }
+    }
+
+    private CompileOutcome load(String key) {
+        CacheEntry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            return null;
+        }
+
+        // Read outside the lock; a concurrent eviction simply turns this into a miss
+        try {
+            Map<String, byte[]> artifacts = new LinkedHashMap<>();
+            Set<String> executables = new HashSet<>();
+            for (Path file : listFiles(entry.directory)) {
+                String name = entry.directory.relativize(file).toString();
+                artifacts.put(name, Files.readAllBytes(file));
+                if (Files.isExecutable(file)) {
+                    executables.add(name);
+                }
+            }
+            Files.setLastModifiedTime(entry.directory, FileTime.fromMillis(System.currentTimeMillis()));
+            return CompileOutcome.success(artifacts, executables);
+        } catch (IOException e) {
+            logger.debug("Cached artifacts for {} disappeared, treating as a miss", key);
+            remove(key, entry);
+            return null;
+        }
+    }
+
+    private void store(String key, CompileOutcome outcome) {
+        Path staging = root.resolve(key + ".tmp-" + UUID.randomUUID());
+        Path target = root.resolve(key);
+        try {
+            Files.createDirectories(staging);
+            outcome.writeTo(staging);
+            Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Another node or a previous run may already have stored it
+            deleteQuietly(staging);
+            if (!Files.isDirectory(target)) {
+                logger.warn("Failed to store compiled artifacts for {}", key, e);
+                return;
+            }
+        }
+
+        List<Path> evicted = new ArrayList<>();
+        synchronized (entries) {
+            if (!entries.containsKey(key)) {
+                entries.put(key, new CacheEntry(target, outcome.sizeInBytes()));
+                totalBytes.addAndGet(outcome.sizeInBytes());
+            }
+            evicted.addAll(evictOverBudget());
+        }
+        evicted.forEach(this::deleteQuietly);
+    }
+
+    /**
+     * Evict least recently used entries until the cache fits its budget
+     * Must be called while holding the entries lock; returns directories to delete
+     */
+    private List<Path> evictOverBudget() {
+        List<Path> evicted = new ArrayList<>();
+        long maxBytes = maxSizeMB * 1024 * 1024;
+        var iterator = entries.entrySet().iterator();
+        while (totalBytes.get() > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, CacheEntry> eldest = iterator.next();
+            iterator.remove();
+            totalBytes.addAndGet(-eldest.getValue().sizeBytes);
+            evicted.add(eldest.getValue().directory);
+            meterRegistry.counter("code.execution.artifact.cache.evictions").increment();
+        }
+        return evicted;
+    }
+
+    private void remove(String key, CacheEntry entry) {
+        synchronized (entries) {
+            if (entries.remove(key, entry)) {
+                totalBytes.addAndGet(-entry.sizeBytes);
+            }
+        }
+        deleteQuietly(entry.directory);
+    }
+
+    /**
+     * Rebuild the index from disk so the cache survives restarts, oldest entries first
+     */
+    private void loadExistingEntries() throws IOException {
+        List<Path> directories = new ArrayList<>();
+        try (Stream<Path> children = Files.list(root)) {
+            children.filter(Files::isDirectory).forEach(directories::add);
+        }
+
+        directories.sort(Comparator.comparing(this::lastModified));
+        List<Path> evicted;
+        synchronized (entries) {
+            for (Path directory : directories) {
+                String name = directory.getFileName().toString();
+                if (name.contains(".tmp-")) {
+                    deleteQuietly(directory);
+                    continue;
+                }
+                long size = 0;
+                for (Path file : listFiles(directory)) {
+                    size += Files.size(file);
+                }
+                entries.put(name, new CacheEntry(directory, size));
+                totalBytes.addAndGet(size);
+            }
+            evicted = evictOverBudget();
+        }
+        evicted.forEach(this::deleteQuietly);
+        logger.info("Compiled artifact cache loaded {} entries ({} bytes)", directories.size(), totalBytes.get());
+    }
+
+    private List<Path> listFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            List<Path> result = new ArrayList<>();
+            files.filter(Files::isRegularFile).forEach(result::add);
+            return result;
+        }
+    }
+
+    private FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private void deleteQuietly(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    logger.warn("Failed to delete cached artifact: " + path, e);
+                }
+            });
+        } catch (IOException e) {
+            logger.debug("Failed to delete cache directory {}", directory, e);
+        }
+    }
+
+    /**
+     * Produces compiled artifacts on a cache miss
+     */
+    @FunctionalInterface
+    public interface CompileStep {
+        CompileOutcome compile() throws IOException;
+    }
+
+    private static class CacheEntry {
+        private final Path directory;
+        private final long sizeBytes;
+
+        CacheEntry(Path directory, long sizeBytes) {
+            this.directory = directory;
+            this.sizeBytes = sizeBytes;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import com.aiteachingplatform.dto.CompilationDiagnostic;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Structured diagnostics from the text output of sandboxed compilers and syntax checkers
+ * Understands the file:line[:column]: severity: message lines of g++, javac and the Python
+ * checker, and the file:line / caret / SyntaxError report of node --check
+ */
+public final class CompilerDiagnostics {
+
+    private static final Pattern CARET = Pattern.compile("^[\\s|]*\\^");
+    private static final Pattern NODE_ERROR = Pattern.compile("^(\\w*Error): (.*)$");
+
+    private static final String PYTHON_SYNTAX_CHECK = loadScript("syntax_check.py");
+
+    private CompilerDiagnostics() {
+    }
+
+    /**
+     * Command that parses the submission without running it, or null for compiled languages,
+     * whose compile step is their check
+     */
+    public static String[] syntaxCheckCommand(CodeExecutionRequest.Language language) {
+        String fileName = SubmissionFiles.sourceFileName(language);
+        switch (language) {
+            case PYTHON:
+                return new String[]{"python", "-c", PYTHON_SYNTAX_CHECK, fileName};
+            case JAVASCRIPT:
+                return new String[]{"node", "--check", fileName};
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Parse compiler output for the given source file
+     * Output that has no recognizable diagnostic, e.g. a linker failure, becomes a single
+     * error without a position
+     */
+    public static List<CompilationDiagnostic> parse(String output, String fileName) {
+        List<CompilationDiagnostic> diagnostics = new ArrayList<>();
+        if (output == null || output.isBlank()) {
+            return diagnostics;
+        }
+
+        String file = "^(?:.*[/\\\\])?" + Pattern.quote(fileName);
+        Pattern located = Pattern.compile(file + ":(\\d+)(?::(\\d+))?: (fatal error|error|warning|note): (.*)$");
+        Pattern nodeLocation = Pattern.compile(file + ":(\\d+)$");
+
+        String[] lines = output.split("\\R");
+        for (int i = 0; i < lines.length; i++) {
+            Matcher matcher = located.matcher(lines[i]);
+            if (matcher.matches()) {
+                Integer column = matcher.group(2) != null
+                    ? Integer.valueOf(matcher.group(2))
+                    : caretColumn(lines, i + 1);
+                diagnostics.add(new CompilationDiagnostic(
+                    Integer.valueOf(matcher.group(1)), column, matcher.group(4), severity(matcher.group(3))
+                ));
+                continue;
+            }
+
+            matcher = nodeLocation.matcher(lines[i]);
+            if (matcher.matches()) {
+                String message = nodeMessage(lines, i + 1);
+                if (message != null) {
+                    diagnostics.add(new CompilationDiagnostic(
+                        Integer.valueOf(matcher.group(1)), caretColumn(lines, i + 1), message,
+                        CompilationDiagnostic.Severity.ERROR
+                    ));
+                }
+            }
+        }
+
+        if (diagnostics.isEmpty()) {
+            diagnostics.add(new CompilationDiagnostic(null, null, output.trim(), CompilationDiagnostic.Severity.ERROR));
+        }
+        return diagnostics;
+    }
+
+    private static CompilationDiagnostic.Severity severity(String kind) {
+        switch (kind) {
+            case "warning":
+                return CompilationDiagnostic.Severity.WARNING;
+            case "note":
+                return CompilationDiagnostic.Severity.INFO;
+            default:
+                return CompilationDiagnostic.Severity.ERROR;
+        }
+    }
+
+    /**
+     * Column marked by the caret line under the echoed source line, if there is one
+     */
+    private static Integer caretColumn(String[] lines, int from) {
+        // Source line, then the caret
+        int caretLine = from + 1;
+        if (caretLine >= lines.length || !CARET.matcher(lines[caretLine]).find()) {
+            return null;
+        }
+        return lines[caretLine].indexOf('^') + 1;
+    }
+
+    private static String nodeMessage(String[] lines, int from) {
+        for (int i = from; i < Math.min(lines.length, from + 5); i++) {
+            Matcher matcher = NODE_ERROR.matcher(lines[i]);
+            if (matcher.matches()) {
+                return matcher.group(2);
+            }
+        }
+        return null;
+    }
+
+    private static String loadScript(String name) {
+        try (InputStream in = CompilerDiagnostics.class.getResourceAsStream("/validation/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing validation script " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.aiteachingplatform.service.execution;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the containers of cold runs from launch until they are gone
+ * Every run container gets a name derived from this node and a run number, and labels
+ * carrying its deadline. Killing the docker client of a timed-out run does not stop its
+ * container, so the tracker force-removes it; a periodic reaper removes any labelled run
+ * container, from this node or one that crashed, that is still around past its deadline
+ */
+@Component
+public class ContainerLifecycleTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContainerLifecycleTracker.class);
+
+    public static final String RUN_LABEL = "com.aiteachingplatform.sandbox.run";
+    public static final String NODE_LABEL = "com.aiteachingplatform.sandbox.node";
+    public static final String DEADLINE_LABEL = "com.aiteachingplatform.sandbox.deadline";
+
+    static final String REASON_TIMEOUT = "timeout";
+    static final String REASON_EXPIRED = "expired";
+
+    @Value("${code.execution.reaper.enabled:true}")
+    private boolean reaperEnabled;
+
+    @Value("${code.execution.reaper.interval-seconds:30}")
+    private long reaperIntervalSeconds;
+
+    // Allows for clock skew between nodes and for runs that are being torn down normally
+    @Value("${code.execution.reaper.grace-seconds:10}")
+    private long graceSeconds;
+
+    @Value("${code.execution.cpu.limit:0.5}")
+    private double cpuLimit;
+
+    @Autowired
+    private ExecutionBackendSelector backendSelector;
+
+    @Autowired
+    private ExecutionThreads executionThreads;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final String nodeId = nodeName();
+
+    private final AtomicLong runNumbers = new AtomicLong();
+
+    private final Set<TrackedContainer> tracked = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "container-reaper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    void initialize() {
+        meterRegistry.gauge("code.execution.containers.tracked", tracked, Set::size);
+        if (reaperEnabled) {
+            reaper.scheduleWithFixedDelay(this::reap, reaperIntervalSeconds, reaperIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reaper.shutdownNow();
+    }
+
+    /**
+     * Name and label the container of a run that must be gone within the timeout
+     */
+    public TrackedContainer track(long timeoutSeconds) {
+        String name = "code-exec-" + nodeId + "-" + runNumbers.incrementAndGet();
+        long deadlineMillis = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeoutSeconds);
+
+        Map<String, String> labels = new LinkedHashMap<>();
+        labels.put(RUN_LABEL, name);
+        labels.put(NODE_LABEL, nodeId);
+        labels.put(DEADLINE_LABEL, Long.toString(deadlineMillis));
+
+        TrackedContainer container = new TrackedContainer(name, deadlineMillis, labels);
+        tracked.add(container);
+        return container;
+    }
+
+    /**
+     * The run is over; a timed-out run's container is force-removed in the background
+     */
+    public void finished(TrackedContainer container, boolean timedOut) {
+        if (!tracked.remove(container) || !timedOut) {
+            return;
+        }
+        try {
+            executionThreads.submitIo(() -> {
+                stop(backendSelector.select(), container.getName(), true, container.getDeadlineMillis(), REASON_TIMEOUT);
+                return null;
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the reaper of another node or the next start removes it
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Remove every run container that outlived its deadline by more than the grace period
+     */
+    void reap() {
+        try {
+            ExecutionBackend backend = backendSelector.select();
+            if (!backend.runsContainers() || !backend.isAvailable()) {
+                return;
+            }
+            long cutoff = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(graceSeconds);
+            for (ContainerSummary container : backend.listContainers(RUN_LABEL)) {
+                Long deadlineMillis = parseDeadline(container.getLabels().get(DEADLINE_LABEL));
+                if (deadlineMillis != null && deadlineMillis < cutoff) {
+                    logger.warn("Reaping run container {} of node {}, {} s past its deadline",
+                                container.getLabels().get(RUN_LABEL), container.getLabels().get(NODE_LABEL),
+                                TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - deadlineMillis));
+                    stop(backend, container.getId(), container.isRunning(), deadlineMillis, REASON_EXPIRED);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Container reaper failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Force-remove a container and account for it
+     * A runaway program runs at its CPU limit, so the CPU time reclaimed is estimated as
+     * the limit times how long the container ran past its deadline; containers that were
+     * not running held no CPU
+     */
+    private void stop(ExecutionBackend backend, String container, boolean running, long deadlineMillis,
+                      String reason) {
+        if (!backend.runsContainers()) {
+            return;
+        }
+        try {
+            backend.removeSandbox(container);
+        } catch (Exception e) {
+            logger.warn("Failed to remove run container {}: {}", container, e.getMessage());
+            return;
+        }
+
+        long overrunMillis = running ? Math.max(0, System.currentTimeMillis() - deadlineMillis) : 0;
+        meterRegistry.counter("code.execution.containers.reaped", "reason", reason).increment();
+        Counter.builder("code.execution.containers.reclaimed.cpu")
+            .description("Estimated CPU time stopped containers spent past their deadline")
+            .baseUnit("seconds")
+            .tag("reason", reason)
+            .register(meterRegistry)
+            .increment(cpuLimit * overrunMillis / 1000.0);
+    }
+
+    private static Long parseDeadline(String label) {
+        if (label == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(label);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Host name plus a random suffix, so run containers of a restarted node never collide
+     * with the leftovers of its previous incarnation
+     */
+    private static String nodeName() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        // Container names allow [a-zA-Z0-9][a-zA-Z0-9_.-]
+        host = host.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9_.-]", "-");
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * A run container from launch until the run is over
+     */
+    public static class TrackedContainer {
+
+        private final String name;
+        private final long deadlineMillis;
+        private final Map<String, String> labels;
+
+        TrackedContainer(String name, long deadlineMillis, Map<String, String> labels) {
+            this.name = name;
+            this.deadlineMillis = deadlineMillis;
+            this.labels = Collections.unmodifiableMap(labels);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+
+        public Map<String, String> getLabels() {
+            return labels;
+        }
+    }
+}
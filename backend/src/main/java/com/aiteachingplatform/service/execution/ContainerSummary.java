@@ -0,0 +1,32 @@
+package com.aiteachingplatform.service.execution;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A container found by label, with the labels it was started with
+ */
+public class ContainerSummary {
+
+    private final String id;
+    private final boolean running;
+    private final Map<String, String> labels;
+
+    public ContainerSummary(String id, boolean running, Map<String, String> labels) {
+        this.id = id;
+        this.running = running;
+        this.labels = Collections.unmodifiableMap(labels);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public Map<String, String> getLabels() {
+        return labels;
+    }
+}
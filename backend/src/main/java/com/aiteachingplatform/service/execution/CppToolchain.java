@@ -0,0 +1,110 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.model.Lesson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How C++ submissions are compiled
+ * Compiler flags follow the difficulty of the lesson or question being worked on. In
+ * toolchain mode submissions are compiled in the toolchain image, whose precompiled
+ * {@code <bits/stdc++.h>} (one variant per difficulty's flags) replaces parsing the whole
+ * standard library, through ccache on a shared, size-bounded volume. That volume is only
+ * mounted on compile containers, never on a sandbox that runs student programs
+ */
+@Component
+public class CppToolchain {
+
+    static final String PCH_INCLUDE_DIR = "/opt/pch";
+    static final String CCACHE_DIR = "/ccache";
+
+    @Value("${code.execution.cpp.toolchain.enabled:false}")
+    private boolean toolchainEnabled;
+
+    @Value("${code.execution.cpp.ccache.volume:code-execution-ccache}")
+    private String ccacheVolume;
+
+    @Value("${code.execution.cpp.ccache.max-size:2G}")
+    private String ccacheMaxSize;
+
+    // Must match the flags the toolchain image precompiled its headers with, or g++ ignores them
+    @Value("${code.execution.cpp.flags.beginner:-std=gnu++17 -O0 -Wall -Wextra}")
+    private String beginnerFlags;
+
+    @Value("${code.execution.cpp.flags.intermediate:-std=gnu++17 -O1 -Wall}")
+    private String intermediateFlags;
+
+    @Value("${code.execution.cpp.flags.advanced:-std=gnu++17 -O2}")
+    private String advancedFlags;
+
+    @Autowired
+    private ExecutionBackendSelector backendSelector;
+
+    /**
+     * Whether compiles use the toolchain image, its precompiled headers and ccache
+     * Only container backends have the image; local runs use the host's g++
+     */
+    public boolean isEnabled() {
+        return toolchainEnabled && backendSelector.select().runsContainers();
+    }
+
+    /**
+     * Compiler flags for a difficulty; submissions outside a lesson compile like beginner code
+     */
+    public List<String> flagsFor(Lesson.Difficulty difficulty) {
+        String flags;
+        if (difficulty == Lesson.Difficulty.ADVANCED) {
+            flags = advancedFlags;
+        } else if (difficulty == Lesson.Difficulty.INTERMEDIATE) {
+            flags = intermediateFlags;
+        } else {
+            flags = beginnerFlags;
+        }
+        return flags.isBlank() ? List.of() : Arrays.asList(flags.trim().split("\\s+"));
+    }
+
+    /**
+     * The g++ invocation for a submission
+     * Since the flags are part of the command, they are part of the artifact cache key
+     */
+    public String[] compileCommand(Lesson.Difficulty difficulty, String fileName) {
+        List<String> command = new ArrayList<>();
+        boolean toolchain = isEnabled();
+        if (toolchain) {
+            command.add("ccache");
+        }
+        command.add("g++");
+        command.addAll(flagsFor(difficulty));
+        if (toolchain) {
+            // Searched before the system headers, so <bits/stdc++.h> resolves to its precompiled form;
+            // -fpch-preprocess lets ccache hash and cache compiles that use it
+            command.add("-I" + PCH_INCLUDE_DIR);
+            command.add("-fpch-preprocess");
+        }
+        command.add("-o");
+        command.add("main");
+        command.add(fileName);
+        return command.toArray(new String[0]);
+    }
+
+    /**
+     * Give a cold compile container the shared compiler cache
+     */
+    public SandboxSpec withCompilerCache(SandboxSpec spec) {
+        Map<String, String> environment = new LinkedHashMap<>();
+        environment.put("CCACHE_DIR", CCACHE_DIR);
+        environment.put("CCACHE_MAXSIZE", ccacheMaxSize);
+        // Compiles run as nobody in throwaway containers; the cache must stay usable by the next one
+        environment.put("CCACHE_UMASK", "000");
+        environment.put("CCACHE_BASEDIR", "/workspace");
+        environment.put("CCACHE_SLOPPINESS", "pch_defines,time_macros");
+        return spec.withVolume(ccacheVolume, CCACHE_DIR).withEnvironment(environment);
+    }
+}
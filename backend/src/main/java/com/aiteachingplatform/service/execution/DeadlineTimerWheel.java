@@ -0,0 +1,199 @@
+package com.aiteachingplatform.service.execution;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timer wheel that enforces the deadlines of all running executions on one thread
+ * Scheduling and cancelling are O(1) and never touch the wheel thread's buckets directly:
+ * new deadlines are handed over through a queue and cancelled ones are dropped lazily.
+ * Deadlines fire up to one tick late; expiry tasks run on the given executor so a slow
+ * kill never delays the other deadlines
+ * The wheel thread runs from {@link #start()} until {@link #shutdown()}
+ */
+public class DeadlineTimerWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadlineTimerWheel.class);
+
+    private final long tickNanos;
+    private final ArrayDeque<Deadline>[] buckets;
+    private final int mask;
+    private final Executor expiryExecutor;
+    private final Queue<Deadline> added = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final String name;
+    private final long startNanos;
+
+    private Thread worker;
+
+    private volatile boolean stopped;
+    // Only touched by the wheel thread
+    private long tick;
+
+    public DeadlineTimerWheel(String name, long tickDuration, TimeUnit unit, int wheelSize, Executor expiryExecutor) {
+        this.name = name;
+        this.tickNanos = Math.max(1, unit.toNanos(tickDuration));
+        int size = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.buckets = newBuckets(size);
+        this.mask = size - 1;
+        this.expiryExecutor = expiryExecutor;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Start the wheel thread; deadlines scheduled before this fire once it catches up
+     */
+    public synchronized void start() {
+        if (worker != null) {
+            throw new IllegalStateException("Timer wheel is already started");
+        }
+        worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Run the task once the delay has passed, unless the returned deadline is cancelled first
+     */
+    public Deadline schedule(long delay, TimeUnit unit, Runnable task) {
+        if (stopped) {
+            throw new IllegalStateException("Timer wheel is stopped");
+        }
+        Deadline deadline = new Deadline(System.nanoTime() + unit.toNanos(delay), task);
+        pending.incrementAndGet();
+        added.add(deadline);
+        return deadline;
+    }
+
+    /**
+     * Deadlines scheduled and not yet fired or cancelled
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    public synchronized void shutdown() {
+        stopped = true;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void run() {
+        while (!stopped) {
+            long tickEnd = startNanos + (tick + 1) * tickNanos;
+            long sleepNanos = tickEnd - System.nanoTime();
+            if (sleepNanos > 0) {
+                LockSupport.parkNanos(this, sleepNanos);
+                continue;
+            }
+            try {
+                transferAdded();
+                expireBucket(buckets[(int) (tick & mask)]);
+            } catch (RuntimeException e) {
+                logger.error("Deadline timer wheel tick failed", e);
+            }
+            tick++;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArrayDeque<Deadline>[] newBuckets(int size) {
+        ArrayDeque<Deadline>[] buckets = (ArrayDeque<Deadline>[]) new ArrayDeque<?>[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        return buckets;
+    }
+
+    /**
+     * Place newly scheduled deadlines in the bucket of the tick they are due on
+     */
+    private void transferAdded() {
+        Deadline deadline;
+        while ((deadline = added.poll()) != null) {
+            if (deadline.isCancelled()) {
+                continue;
+            }
+            long dueTick = Math.max(tick, (deadline.dueNanos - startNanos) / tickNanos);
+            deadline.remainingRounds = (dueTick - tick) / buckets.length;
+            buckets[(int) (dueTick & mask)].add(deadline);
+        }
+    }
+
+    private void expireBucket(ArrayDeque<Deadline> bucket) {
+        Iterator<Deadline> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Deadline deadline = iterator.next();
+            if (deadline.isCancelled()) {
+                iterator.remove();
+            } else if (deadline.remainingRounds <= 0) {
+                iterator.remove();
+                if (deadline.expire()) {
+                    expiryExecutor.execute(deadline.task);
+                }
+            } else {
+                deadline.remainingRounds--;
+            }
+        }
+    }
+
+    /**
+     * A scheduled deadline; fires at most once
+     */
+    public class Deadline {
+
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final long dueNanos;
+        private final Runnable task;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        // Only touched by the wheel thread
+        private long remainingRounds;
+
+        Deadline(long dueNanos, Runnable task) {
+            this.dueNanos = dueNanos;
+            this.task = task;
+        }
+
+        /**
+         * Cancel the deadline
+         *
+         * @return true if it was cancelled before it fired
+         */
+        public boolean cancel() {
+            if (state.compareAndSet(WAITING, CANCELLED)) {
+                pending.decrementAndGet();
+                return true;
+            }
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        private boolean expire() {
+            if (state.compareAndSet(WAITING, EXPIRED)) {
+                pending.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import com.aiteachingplatform.dto.CodeExecutionResponse;
+import com.aiteachingplatform.dto.CodeValidationResponse;
+import com.aiteachingplatform.dto.TestRunResponse;
+import com.aiteachingplatform.exception.CodeExecutionException;
+import com.aiteachingplatform.exception.ExecutionQueueFullException;
+import com.aiteachingplatform.model.CodeExecutionQueueEntry;
+import com.aiteachingplatform.repository.CodeExecutionQueueRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Durable queue of code executions in PostgreSQL, shared by API nodes and execution workers
+ * API nodes enqueue jobs and poll for their results; workers claim jobs with
+ * FOR UPDATE SKIP LOCKED under a lease they keep alive by heartbeating. A job whose worker
+ * dies is claimed again once its lease expires, up to the attempt limit
+ * Live program output is not relayed across nodes: subscribers of a queued job see status
+ * changes and the final result
+ * Compile-only validations and practice question grading go through the same queue, so API
+ * nodes that are not workers never compile or run code themselves
+ */
+@Component
+public class DistributedExecutionQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(DistributedExecutionQueue.class);
+
+    // API nodes cannot see how fast the workers drain the queue
+    private static final long RETRY_AFTER_SECONDS = 5;
+
+    @Value("${code.execution.queue.enabled:false}")
+    private boolean queueEnabled;
+
+    @Value("${code.execution.queue.poll-interval-ms:200}")
+    private long pollIntervalMs;
+
+    @Value("${code.execution.queue.lease-seconds:30}")
+    private int leaseSeconds;
+
+    @Value("${code.execution.queue.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${code.execution.queue.max-wait-seconds:120}")
+    private long maxWaitSeconds;
+
+    @Value("${code.execution.jobs.ttl-seconds:300}")
+    private long resultRetentionSeconds;
+
+    @Value("${code.execution.scheduler.max-queue-length:200}")
+    private int maxQueueLength;
+
+    @Value("${code.execution.scheduler.max-queued-per-user:5}")
+    private int maxQueuedPerUser;
+
+    @Autowired
+    private CodeExecutionQueueRepository repository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Jobs this node dispatched and is waiting on
+    private final Map<String, PendingExecution<?>> pending = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "code-execution-queue-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private long lastPurgeNanos = System.nanoTime();
+
+    @PostConstruct
+    void initialize() {
+        if (!queueEnabled) {
+            return;
+        }
+        poller.scheduleWithFixedDelay(this::pollResults, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        meterRegistry.gauge("code.execution.queue.pending", pending, Map::size);
+        logger.info("Code executions are dispatched through the durable queue");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return queueEnabled;
+    }
+
+    /**
+     * Store a job for the workers, to run in the given scheduler lane there; the callback
+     * receives its result on this node
+     *
+     * @throws ExecutionQueueFullException when the queue or the user's share of it is full
+     */
+    public void enqueue(CodeExecutionJob job, ExecutionLane lane, Consumer<CodeExecutionResponse> onResult) {
+        dispatch(job.getOwner(), CodeExecutionQueueEntry.QueueKind.EXECUTION, lane, job.getRequest(), job.getRequest(),
+                 new PendingExecution<>(job.getId(), job, CodeExecutionResponse.class, Function.identity(), onResult));
+    }
+
+    /**
+     * Store a compile-only validation for the workers; the callback receives its result on this node
+     *
+     * @throws ExecutionQueueFullException when the queue or the user's share of it is full
+     */
+    public void enqueueValidation(CodeExecutionRequest request, String owner, Consumer<CodeValidationResponse> onResult) {
+        dispatch(owner, CodeExecutionQueueEntry.QueueKind.VALIDATION, ExecutionLane.ASSIST, request, request,
+                 new PendingExecution<>(UUID.randomUUID().toString(), null, CodeValidationResponse.class,
+                                        CodeValidationResponse::from, onResult));
+    }
+
+    /**
+     * Store a practice question grading for the workers; the callback receives its result on this node
+     *
+     * @throws ExecutionQueueFullException when the queue or the user's share of it is full
+     */
+    public void enqueueGrading(GradingRequest grading, String owner, Consumer<TestRunResponse> onResult) {
+        dispatch(owner, CodeExecutionQueueEntry.QueueKind.GRADING, ExecutionLane.GRADING, grading.getRequest(), grading,
+                 new PendingExecution<>(UUID.randomUUID().toString(), null, TestRunResponse.class,
+                                        grading::notRun, onResult));
+    }
+
+    private void dispatch(String owner, CodeExecutionQueueEntry.QueueKind kind, ExecutionLane lane,
+                          CodeExecutionRequest request, Object payload, PendingExecution<?> execution) {
+        if (repository.countByStatus(CodeExecutionQueueEntry.QueueStatus.QUEUED) >= maxQueueLength) {
+            reject("global");
+            throw new ExecutionQueueFullException("Code execution is busy. Please try again shortly.",
+                                                  RETRY_AFTER_SECONDS);
+        }
+        if (repository.countByOwnerAndStatus(owner, CodeExecutionQueueEntry.QueueStatus.QUEUED) >= maxQueuedPerUser) {
+            reject("user");
+            throw new ExecutionQueueFullException(
+                "You already have code waiting to run. Please wait for it to finish.", RETRY_AFTER_SECONDS);
+        }
+
+        String language = request.getLanguage().getValue();
+        repository.save(new CodeExecutionQueueEntry(execution.id, owner, kind, lane, language, toJson(payload, language)));
+        pending.put(execution.id, execution);
+        meterRegistry.counter("code.execution.queue.enqueued", "language", language,
+                              "kind", kind.name().toLowerCase()).increment();
+    }
+
+    /**
+     * Claim up to the given number of jobs for a worker
+     */
+    @Transactional
+    public List<CodeExecutionQueueEntry> claim(String workerId, int limit) {
+        List<String> ids = repository.lockClaimable(maxAttempts, limit);
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        repository.markClaimed(ids, workerId, leaseSeconds);
+        List<CodeExecutionQueueEntry> claimed = repository.findAllById(ids);
+        for (CodeExecutionQueueEntry entry : claimed) {
+            meterRegistry.counter("code.execution.queue.claimed", "language", entry.getLanguage()).increment();
+            if (entry.getAttempts() > 1) {
+                logger.info("Retrying code execution {} abandoned by a worker (attempt {})", entry.getId(), entry.getAttempts());
+                meterRegistry.counter("code.execution.queue.retried", "language", entry.getLanguage()).increment();
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Read the request of a claimed execution or validation
+     */
+    public CodeExecutionRequest requestOf(CodeExecutionQueueEntry entry) {
+        return read(entry, CodeExecutionRequest.class);
+    }
+
+    /**
+     * Read the submission and test cases of a claimed grading
+     */
+    public GradingRequest gradingOf(CodeExecutionQueueEntry entry) {
+        return read(entry, GradingRequest.class);
+    }
+
+    private <T> T read(CodeExecutionQueueEntry entry, Class<T> type) {
+        try {
+            return objectMapper.readValue(entry.getRequest(), type);
+        } catch (JsonProcessingException e) {
+            throw new CodeExecutionException("Unreadable queued execution " + entry.getId(), e, entry.getLanguage());
+        }
+    }
+
+    /**
+     * Store the result of a claimed job: a {@link CodeExecutionResponse}, a
+     * {@link CodeValidationResponse} for a validation or a {@link TestRunResponse} for a grading
+     *
+     * @return false if the job's lease was lost and another worker owns it now
+     */
+    public boolean complete(CodeExecutionQueueEntry entry, String workerId, Object response) {
+        return repository.complete(entry.getId(), workerId, toJson(response, entry.getLanguage())) == 1;
+    }
+
+    /**
+     * Return a claimed job that the worker could not start
+     */
+    public void release(CodeExecutionQueueEntry entry, String workerId) {
+        repository.release(entry.getId(), workerId);
+    }
+
+    /**
+     * Keep the worker's leases alive and fail jobs that other workers abandoned too often
+     */
+    public void heartbeat(String workerId) {
+        repository.extendLeases(workerId, leaseSeconds);
+        // Stored without a result; the node waiting on the job reports the failure in the job's own form
+        int failed = repository.failExhausted(maxAttempts);
+        if (failed > 0) {
+            logger.warn("Gave up on {} code executions after {} attempts", failed, maxAttempts);
+            meterRegistry.counter("code.execution.queue.abandoned").increment(failed);
+        }
+    }
+
+    /**
+     * Put a stopping worker's jobs back in the queue
+     */
+    public void releaseWorker(String workerId) {
+        int released = repository.releaseWorker(workerId);
+        if (released > 0) {
+            logger.info("Returned {} running code executions to the queue", released);
+        }
+    }
+
+    /**
+     * Deliver results of this node's jobs and give up on jobs no worker picked up in time
+     */
+    private void pollResults() {
+        try {
+            if (!pending.isEmpty()) {
+                for (CodeExecutionQueueEntry entry : repository.findAllById(new ArrayList<>(pending.keySet()))) {
+                    deliver(entry);
+                }
+                expireUnclaimed();
+            }
+            if (System.nanoTime() - lastPurgeNanos > TimeUnit.SECONDS.toNanos(30)) {
+                lastPurgeNanos = System.nanoTime();
+                repository.purgeCompleted(resultRetentionSeconds);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to poll the code execution queue: {}", e.getMessage());
+        }
+    }
+
+    private void deliver(CodeExecutionQueueEntry entry) {
+        PendingExecution<?> execution = pending.get(entry.getId());
+        if (execution == null) {
+            return;
+        }
+        if (entry.getStatus() == CodeExecutionQueueEntry.QueueStatus.RUNNING
+                && execution.job != null && execution.job.getStatus() == CodeExecutionJob.Status.QUEUED) {
+            execution.job.markRunning();
+        } else if (entry.getStatus() == CodeExecutionQueueEntry.QueueStatus.COMPLETED) {
+            pending.remove(entry.getId());
+            if (entry.getResult() == null) {
+                execution.fail("Code execution was interrupted. Please run your code again.");
+            } else {
+                deliverResult(execution, entry.getResult());
+            }
+        }
+    }
+
+    private <T> void deliverResult(PendingExecution<T> execution, String result) {
+        T response;
+        try {
+            response = objectMapper.readValue(result, execution.resultType);
+        } catch (JsonProcessingException e) {
+            logger.error("Unreadable result of code execution {}", execution.id, e);
+            execution.fail("Unreadable execution result");
+            return;
+        }
+        execution.onResult.accept(response);
+    }
+
+    private void expireUnclaimed() {
+        long cutoff = System.nanoTime() - TimeUnit.SECONDS.toNanos(maxWaitSeconds);
+        for (PendingExecution<?> execution : pending.values()) {
+            if (execution.enqueuedAt - cutoff < 0 && repository.withdraw(execution.id) == 1) {
+                pending.remove(execution.id);
+                meterRegistry.counter("code.execution.queue.expired").increment();
+                execution.fail("No code execution worker is available. Please try again later.");
+            }
+        }
+    }
+
+    private String toJson(Object value, String language) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new CodeExecutionException("Cannot serialize queued execution", e, language);
+        }
+    }
+
+    private void reject(String reason) {
+        meterRegistry.counter("code.execution.queue.rejected", "reason", reason).increment();
+    }
+
+    /**
+     * A job this node waits on; failures reach the callback as a result of the job's own type
+     */
+    private static class PendingExecution<T> {
+        private final String id;
+        // Only executions have a job whose status follows the queue
+        private final CodeExecutionJob job;
+        private final Class<T> resultType;
+        private final Function<CodeExecutionResponse, T> failure;
+        private final Consumer<T> onResult;
+        private final long enqueuedAt = System.nanoTime();
+
+        PendingExecution(String id, CodeExecutionJob job, Class<T> resultType,
+                         Function<CodeExecutionResponse, T> failure, Consumer<T> onResult) {
+            this.id = id;
+            this.job = job;
+            this.resultType = resultType;
+            this.failure = failure;
+            this.onResult = onResult;
+        }
+
+        void fail(String message) {
+            onResult.accept(failure.apply(CodeExecutionResponse.systemError(message)));
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.aiteachingplatform.service.execution;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execution backend that forks the docker CLI for every container operation
+ * Kept as the fallback for hosts where the Engine API socket is not reachable
+ */
+@Component
+public class DockerCliBackend implements ExecutionBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(DockerCliBackend.class);
+
+    private static final long DOCKER_COMMAND_TIMEOUT_SECONDS = 60;
+
+    @Value("${code.execution.memory.limit.mb:128}")
+    private int memoryLimitMB;
+
+    @Value("${code.execution.cpu.limit:0.5}")
+    private double cpuLimit;
+
+    @Value("${code.execution.docker.availability-cache-seconds:30}")
+    private long availabilityCacheSeconds;
+
+    private volatile boolean available;
+    private volatile long availabilityCheckedAt;
+
+    @Override
+    public String getName() {
+        return "docker-cli";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        long now = System.nanoTime();
+        if (availabilityCheckedAt == 0 || now - availabilityCheckedAt > TimeUnit.SECONDS.toNanos(availabilityCacheSeconds)) {
+            available = checkAvailable();
+            availabilityCheckedAt = now;
+        }
+        return available;
+    }
+
+    @Override
+    public SandboxProcess launch(SandboxSpec spec) throws IOException {
+        Process process = new ProcessBuilder(buildCommand(spec))
+            .directory(spec.getWorkspace().toFile())
+            .start();
+        return new CliSandboxProcess(process, spec.getContainerName());
+    }
+
+    @Override
+    public String startSandbox(SandboxSpec spec) throws IOException {
+        List<String> args = new ArrayList<>();
+        args.add("run");
+        args.add("-d");
+        addSecurityOptions(args);
+        addLabels(args, spec.getLabels());
+        args.add("-v");
+        args.add(spec.getWorkspace().toString() + ":/workspace");
+        args.add("-w");
+        args.add("/workspace");
+        args.add(spec.getImage());
+        args.addAll(spec.getCommand());
+        return docker(args);
+    }
+
+    @Override
+    public void removeSandbox(String containerId) throws IOException {
+        try {
+            docker(List.of("rm", "-f", containerId));
+        } catch (IOException e) {
+            if (e.getMessage() == null || !e.getMessage().contains("No such container")) {
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public List<ContainerSummary> listContainers(String label) throws IOException {
+        String output = docker(List.of(
+            "ps", "--all", "--no-trunc", "--filter", "label=" + label, "--format", "{{.ID}}\t{{.State}}\t{{.Labels}}"
+        ));
+        List<ContainerSummary> containers = new ArrayList<>();
+        for (String line : output.split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] fields = line.split("\t", 3);
+            boolean running = fields.length > 1 && "running".equals(fields[1]);
+            containers.add(new ContainerSummary(fields[0], running, parseLabels(fields.length > 2 ? fields[2] : "")));
+        }
+        return containers;
+    }
+
+    @Override
+    public void prepareImage(String image, long timeoutSeconds) throws IOException {
+        try {
+            docker(List.of("image", "inspect", "--format", "{{.Id}}", image));
+        } catch (IOException missing) {
+            logger.info("Pulling sandbox image {}", image);
+            docker(List.of("pull", "--quiet", image), timeoutSeconds);
+        }
+    }
+
+    /**
+     * Build the docker CLI invocation, reusing the leased sandbox when there is one
+     */
+    List<String> buildCommand(SandboxSpec spec) {
+        List<String> dockerCommand = new ArrayList<>();
+        dockerCommand.add("docker");
+        if (spec.isPooled()) {
+            // The sandbox was started with the same security restrictions as a cold run
+            dockerCommand.add("exec");
+            dockerCommand.add("-i");
+            dockerCommand.add("-w");
+            dockerCommand.add("/workspace");
+            dockerCommand.add(spec.getSandboxContainerId());
+        } else {
+            // Build Docker command with security restrictions
+            dockerCommand.add("run");
+            dockerCommand.add("--rm");
+            dockerCommand.add("-i");
+            dockerCommand.add("--name=" + spec.getContainerName());
+            addSecurityOptions(dockerCommand);
+            addLabels(dockerCommand, spec.getLabels());
+            for (Map.Entry<String, String> volume : spec.getVolumes().entrySet()) {
+                dockerCommand.add("-v");
+                dockerCommand.add(volume.getKey() + ":" + volume.getValue());
+            }
+            for (Map.Entry<String, String> variable : spec.getEnvironment().entrySet()) {
+                dockerCommand.add("-e");
+                dockerCommand.add(variable.getKey() + "=" + variable.getValue());
+            }
+            dockerCommand.add("-v");
+            dockerCommand.add(spec.getWorkspace().toString() + ":/workspace");
+            dockerCommand.add("-w");
+            dockerCommand.add("/workspace");
+            dockerCommand.add(spec.getImage());
+        }
+
+        // Add the actual command
+        dockerCommand.addAll(spec.getCommand());
+        return dockerCommand;
+    }
+
+    private void addSecurityOptions(List<String> args) {
+        args.add("--network=none"); // No network access
+        args.add("--memory=" + memoryLimitMB + "m"); // Memory limit
+        args.add("--cpus=" + cpuLimit); // CPU limit
+        args.add("--user=nobody"); // Run as non-root user
+        args.add("--read-only"); // Read-only filesystem
+        args.add("--tmpfs=/tmp"); // Temporary filesystem
+    }
+
+    private void addLabels(List<String> args, Map<String, String> labels) {
+        for (Map.Entry<String, String> label : labels.entrySet()) {
+            args.add("--label");
+            args.add(label.getKey() + "=" + label.getValue());
+        }
+    }
+
+    /**
+     * Parse the comma-separated key=value list docker ps prints for {{.Labels}}
+     */
+    static Map<String, String> parseLabels(String labels) {
+        Map<String, String> parsed = new LinkedHashMap<>();
+        for (String label : labels.split(",")) {
+            int separator = label.indexOf('=');
+            if (separator > 0) {
+                parsed.put(label.substring(0, separator), label.substring(separator + 1));
+            }
+        }
+        return parsed;
+    }
+
+    private boolean checkAvailable() {
+        try {
+            Process process = new ProcessBuilder("docker", "--version").start();
+            return process.waitFor(5, TimeUnit.SECONDS) && process.exitValue() == 0;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private String docker(List<String> args) throws IOException {
+        return docker(args, DOCKER_COMMAND_TIMEOUT_SECONDS);
+    }
+
+    private String docker(List<String> args, long timeoutSeconds) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add("docker");
+        command.addAll(args);
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try {
+            if (!process.waitFor(timeoutSeconds, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                throw new IOException("docker " + args.get(0) + " timed out");
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException("docker " + args.get(0) + " interrupted", e);
+        }
+
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+        if (process.exitValue() != 0) {
+            throw new IOException("docker " + args.get(0) + " failed: " + output);
+        }
+        return output;
+    }
+
+    /**
+     * A docker CLI client process; killing it does not stop a cold container, so the
+     * container is killed by name as well
+     */
+    private static class CliSandboxProcess implements SandboxProcess {
+
+        private final Process process;
+        private final String containerName;
+
+        CliSandboxProcess(Process process, String containerName) {
+            this.process = process;
+            this.containerName = containerName;
+        }
+
+        @Override
+        public OutputStream getStdin() {
+            return process.getOutputStream();
+        }
+
+        @Override
+        public InputStream getStdout() {
+            return process.getInputStream();
+        }
+
+        @Override
+        public InputStream getStderr() {
+            return process.getErrorStream();
+        }
+
+        @Override
+        public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+            return process.waitFor(timeout, unit);
+        }
+
+        @Override
+        public int exitValue() {
+            return process.exitValue();
+        }
+
+        @Override
+        public void destroy() {
+            process.destroyForcibly();
+            if (containerName == null) {
+                return;
+            }
+            try {
+                Process kill = new ProcessBuilder("docker", "kill", containerName).redirectErrorStream(true).start();
+                kill.getInputStream().close();
+                if (!kill.waitFor(5, TimeUnit.SECONDS)) {
+                    kill.destroyForcibly();
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to kill container {}", containerName, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,428 @@
+package com.aiteachingplatform.service.execution;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Execution backend that talks to the Docker Engine HTTP API over its Unix socket
+ * Containers are created, attached, waited on and started with a handful of requests on
+ * reused keep-alive connections instead of forking a docker CLI process per step
+ */
+@Component
+public class DockerEngineApiBackend implements ExecutionBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(DockerEngineApiBackend.class);
+
+    private static final int PIPE_BUFFER_BYTES = 65536;
+
+    @Value("${code.execution.docker.socket:/var/run/docker.sock}")
+    private String socketPath;
+
+    @Value("${code.execution.docker.api-version:v1.41}")
+    private String apiVersion;
+
+    @Value("${code.execution.docker.max-idle-connections:8}")
+    private int maxIdleConnections;
+
+    @Value("${code.execution.docker.availability-cache-seconds:30}")
+    private long availabilityCacheSeconds;
+
+    @Value("${code.execution.memory.limit.mb:128}")
+    private int memoryLimitMB;
+
+    @Value("${code.execution.cpu.limit:0.5}")
+    private double cpuLimit;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private DockerEngineClient client;
+
+    // Demultiplexing and waiting block on the socket, one virtual thread each per running program
+    @Autowired
+    private ExecutionThreads executionThreads;
+
+    private volatile boolean available;
+    private volatile long availabilityCheckedAt;
+
+    @PostConstruct
+    void initialize() {
+        client = new DockerEngineClient(Paths.get(socketPath), apiVersion, maxIdleConnections, objectMapper);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        client.close();
+    }
+
+    @Override
+    public String getName() {
+        return "docker-api";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        long now = System.nanoTime();
+        if (availabilityCheckedAt == 0 || now - availabilityCheckedAt > TimeUnit.SECONDS.toNanos(availabilityCacheSeconds)) {
+            available = ping();
+            availabilityCheckedAt = now;
+        }
+        return available;
+    }
+
+    @Override
+    public SandboxProcess launch(SandboxSpec spec) throws IOException {
+        return spec.isPooled() ? launchExec(spec) : launchContainer(spec);
+    }
+
+    @Override
+    public String startSandbox(SandboxSpec spec) throws IOException {
+        Map<String, Object> body = containerBody(spec, false);
+        String containerId = createContainer(body, null);
+        try {
+            expectSuccess("POST", "/containers/" + containerId + "/start", null);
+        } catch (IOException e) {
+            removeQuietly(containerId);
+            throw e;
+        }
+        return containerId;
+    }
+
+    @Override
+    public void removeSandbox(String containerId) throws IOException {
+        DockerEngineClient.Response response = client.request("DELETE", "/containers/" + containerId + "?force=true", null);
+        if (!response.isSuccessful() && response.getStatus() != 404) {
+            throw response.toException("DELETE", "/containers/" + containerId);
+        }
+    }
+
+    @Override
+    public List<ContainerSummary> listContainers(String label) throws IOException {
+        String filters = objectMapper.writeValueAsString(Map.of("label", List.of(label)));
+        String path = "/containers/json?all=true&filters=" + URLEncoder.encode(filters, StandardCharsets.UTF_8);
+
+        List<ContainerSummary> containers = new ArrayList<>();
+        for (JsonNode container : client.readJson(expectSuccess("GET", path, null))) {
+            Map<String, String> labels = new LinkedHashMap<>();
+            container.path("Labels").fields().forEachRemaining(entry -> labels.put(entry.getKey(), entry.getValue().asText()));
+            containers.add(new ContainerSummary(
+                container.path("Id").asText(), "running".equals(container.path("State").asText()), labels
+            ));
+        }
+        return containers;
+    }
+
+    @Override
+    public void prepareImage(String image, long timeoutSeconds) throws IOException {
+        DockerEngineClient.Response inspect = client.request("GET", "/images/" + image + "/json", null);
+        if (inspect.isSuccessful()) {
+            return;
+        }
+        if (inspect.getStatus() != 404) {
+            throw inspect.toException("GET", "/images/" + image + "/json");
+        }
+
+        // Containers are created through the API, which never pulls a missing image by itself
+        logger.info("Pulling sandbox image {}", image);
+        String path = "/images/create?fromImage=" + URLEncoder.encode(image, StandardCharsets.UTF_8);
+        Future<DockerEngineClient.Response> pull = executionThreads.submitIo(() -> client.request("POST", path, null));
+        DockerEngineClient.Response response;
+        try {
+            response = pull.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            // The daemon finishes the pull anyway; the next attempt finds the image
+            pull.cancel(true);
+            throw new IOException("Pulling " + image + " timed out after " + timeoutSeconds + "s");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while pulling " + image, e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+        if (!response.isSuccessful()) {
+            throw response.toException("POST", path);
+        }
+
+        // A pull that fails after it started reports the error in its progress stream
+        for (String line : response.getBody().split("\n")) {
+            if (line.contains("\"error\"")) {
+                throw new IOException("Pulling " + image + " failed: " + objectMapper.readTree(line).path("error").asText());
+            }
+        }
+    }
+
+    /**
+     * Cold run: create, attach, register the wait, then start, so neither output nor the
+     * exit status of a fast program can be missed
+     */
+    private SandboxProcess launchContainer(SandboxSpec spec) throws IOException {
+        String containerId = createContainer(containerBody(spec, true), spec.getContainerName());
+        DockerEngineClient.Connection attach = null;
+        DockerEngineClient.PendingResponse wait = null;
+        try {
+            attach = client.hijack("POST", "/containers/" + containerId + "/attach?stream=1&stdin=1&stdout=1&stderr=1", null);
+            wait = client.begin("POST", "/containers/" + containerId + "/wait?condition=next-exit", null);
+            if (wait.getStatus() != 200) {
+                throw wait.readBody().toException("POST", "/containers/" + containerId + "/wait");
+            }
+            expectSuccess("POST", "/containers/" + containerId + "/start", null);
+        } catch (IOException | RuntimeException e) {
+            if (attach != null) {
+                attach.close();
+            }
+            if (wait != null) {
+                wait.abandon();
+            }
+            removeQuietly(containerId);
+            throw e;
+        }
+
+        DockerEngineClient.PendingResponse pendingWait = wait;
+        ApiSandboxProcess process = new ApiSandboxProcess(attach, containerId);
+        process.startPump();
+        executionThreads.relayExecutor().execute(() -> {
+            try {
+                JsonNode result = client.readJson(pendingWait.readBody());
+                process.exit(result.path("StatusCode").asInt(-1));
+            } catch (Exception e) {
+                process.fail(e);
+            }
+        });
+        return process;
+    }
+
+    /**
+     * Pooled run: exec in the leased sandbox; the exit code is read once the stream ends
+     */
+    private SandboxProcess launchExec(SandboxSpec spec) throws IOException {
+        Map<String, Object> execBody = new LinkedHashMap<>();
+        execBody.put("AttachStdin", true);
+        execBody.put("AttachStdout", true);
+        execBody.put("AttachStderr", true);
+        execBody.put("Tty", false);
+        execBody.put("WorkingDir", "/workspace");
+        execBody.put("Cmd", spec.getCommand());
+
+        String execId = client.readJson(
+            expectSuccess("POST", "/containers/" + spec.getSandboxContainerId() + "/exec", execBody)
+        ).path("Id").asText();
+
+        DockerEngineClient.Connection stream = client.hijack(
+            "POST", "/exec/" + execId + "/start", Map.of("Detach", false, "Tty", false)
+        );
+
+        ApiSandboxProcess process = new ApiSandboxProcess(stream, null);
+        process.startPump().whenComplete((ignored, pumpFailure) -> {
+            try {
+                process.exit(readExecExitCode(execId));
+            } catch (Exception e) {
+                process.fail(e);
+            }
+        });
+        return process;
+    }
+
+    private int readExecExitCode(String execId) throws IOException, InterruptedException {
+        // The stream closes as the program exits; the daemon may record the exit code a moment later
+        for (int attempt = 0; attempt < 50; attempt++) {
+            JsonNode exec = client.readJson(expectSuccess("GET", "/exec/" + execId + "/json", null));
+            if (!exec.path("Running").asBoolean(false) && exec.hasNonNull("ExitCode")) {
+                return exec.get("ExitCode").asInt();
+            }
+            Thread.sleep(20);
+        }
+        throw new IOException("Exec " + execId + " did not report an exit code");
+    }
+
+    private Map<String, Object> containerBody(SandboxSpec spec, boolean attached) {
+        Map<String, Object> hostConfig = new LinkedHashMap<>();
+        hostConfig.put("NetworkMode", "none"); // No network access
+        hostConfig.put("Memory", memoryLimitMB * 1024L * 1024L); // Memory limit
+        hostConfig.put("NanoCpus", (long) (cpuLimit * 1_000_000_000L)); // CPU limit
+        hostConfig.put("ReadonlyRootfs", true); // Read-only filesystem
+        hostConfig.put("Tmpfs", Map.of("/tmp", "")); // Temporary filesystem
+        List<String> binds = new ArrayList<>();
+        binds.add(spec.getWorkspace().toString() + ":/workspace");
+        spec.getVolumes().forEach((volume, target) -> binds.add(volume + ":" + target));
+        hostConfig.put("Binds", binds);
+        hostConfig.put("AutoRemove", attached);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("Image", spec.getImage());
+        body.put("Cmd", spec.getCommand());
+        body.put("User", "nobody"); // Run as non-root user
+        body.put("WorkingDir", "/workspace");
+        body.put("NetworkDisabled", true);
+        List<String> environment = new ArrayList<>();
+        spec.getEnvironment().forEach((name, value) -> environment.add(name + "=" + value));
+        body.put("Env", environment);
+        body.put("Labels", spec.getLabels());
+        body.put("Tty", false);
+        body.put("AttachStdin", attached);
+        body.put("AttachStdout", attached);
+        body.put("AttachStderr", attached);
+        body.put("OpenStdin", attached);
+        body.put("StdinOnce", attached);
+        body.put("HostConfig", hostConfig);
+        return body;
+    }
+
+    private String createContainer(Map<String, Object> body, String name) throws IOException {
+        String path = "/containers/create"
+            + (name != null ? "?name=" + URLEncoder.encode(name, StandardCharsets.UTF_8) : "");
+        return client.readJson(expectSuccess("POST", path, body)).path("Id").asText();
+    }
+
+    private DockerEngineClient.Response expectSuccess(String method, String path, Object body) throws IOException {
+        DockerEngineClient.Response response = client.request(method, path, body);
+        if (!response.isSuccessful() && response.getStatus() != 304) {
+            throw response.toException(method, path);
+        }
+        return response;
+    }
+
+    private void kill(String containerId) {
+        try {
+            DockerEngineClient.Response response = client.request("POST", "/containers/" + containerId + "/kill", null);
+            // 404 and 409 mean the container has already exited
+            if (!response.isSuccessful() && response.getStatus() != 404 && response.getStatus() != 409) {
+                logger.warn("Failed to kill container {}: {}", containerId, response.getBody().trim());
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to kill container {}", containerId, e);
+        }
+    }
+
+    private void removeQuietly(String containerId) {
+        try {
+            removeSandbox(containerId);
+        } catch (IOException e) {
+            logger.warn("Failed to remove container {}", containerId, e);
+        }
+    }
+
+    private boolean ping() {
+        if (!client.isSocketPresent()) {
+            return false;
+        }
+        try {
+            DockerEngineClient.Response response = client.request("GET", "/_ping", null);
+            return response.isSuccessful();
+        } catch (IOException e) {
+            logger.debug("Docker Engine API is not reachable at {}: {}", socketPath, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * A program attached through a hijacked connection
+     */
+    private class ApiSandboxProcess implements SandboxProcess {
+
+        private final DockerEngineClient.Connection stream;
+        private final String containerId;
+        private final StreamPipe stdout = new StreamPipe(PIPE_BUFFER_BYTES);
+        private final StreamPipe stderr = new StreamPipe(PIPE_BUFFER_BYTES);
+        private final CompletableFuture<Integer> exitCode = new CompletableFuture<>();
+
+        ApiSandboxProcess(DockerEngineClient.Connection stream, String containerId) {
+            this.stream = stream;
+            this.containerId = containerId;
+        }
+
+        CompletableFuture<Void> startPump() throws IOException {
+            DockerStreamDemultiplexer demultiplexer = new DockerStreamDemultiplexer(
+                stream.in, stdout.sink(), stderr.sink()
+            );
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    demultiplexer.pump();
+                } catch (IOException e) {
+                    logger.debug("Attach stream ended: {}", e.getMessage());
+                } finally {
+                    stream.close();
+                }
+            }, executionThreads.relayExecutor());
+        }
+
+        void exit(int code) {
+            exitCode.complete(code);
+        }
+
+        void fail(Throwable failure) {
+            exitCode.completeExceptionally(failure);
+        }
+
+        @Override
+        public OutputStream getStdin() {
+            // Closing it half-closes the socket, which the program sees as EOF
+            return stream.out;
+        }
+
+        @Override
+        public InputStream getStdout() {
+            return stdout.source();
+        }
+
+        @Override
+        public InputStream getStderr() {
+            return stderr.source();
+        }
+
+        @Override
+        public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+            try {
+                exitCode.get(timeout, unit);
+                return true;
+            } catch (TimeoutException e) {
+                return false;
+            } catch (ExecutionException e) {
+                // The exit status is lost but the program is gone
+                return true;
+            }
+        }
+
+        @Override
+        public int exitValue() {
+            if (!exitCode.isDone()) {
+                throw new IllegalThreadStateException("Sandboxed program has not exited");
+            }
+            try {
+                return exitCode.join();
+            } catch (RuntimeException e) {
+                throw new IllegalStateException("Exit status of the sandboxed program is unknown", e.getCause());
+            }
+        }
+
+        @Override
+        public void destroy() {
+            if (containerId != null) {
+                kill(containerId);
+            }
+            stream.close();
+        }
+    }
+}
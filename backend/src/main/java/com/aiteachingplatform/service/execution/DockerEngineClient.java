@@ -0,0 +1,424 @@
+package com.aiteachingplatform.service.execution;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal HTTP/1.1 client for the Docker Engine API over its Unix domain socket
+ * Connections are kept alive and reused between requests; attach and exec start
+ * hijack their connection into a raw bidirectional stream
+ */
+class DockerEngineClient implements Closeable {
+
+    private final Path socketPath;
+    private final String apiPrefix;
+    private final int maxIdleConnections;
+    private final ObjectMapper objectMapper;
+
+    private final Deque<Connection> idleConnections = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    DockerEngineClient(Path socketPath, String apiVersion, int maxIdleConnections, ObjectMapper objectMapper) {
+        this.socketPath = socketPath;
+        this.apiPrefix = apiVersion == null || apiVersion.isBlank() ? "" : "/" + apiVersion;
+        this.maxIdleConnections = maxIdleConnections;
+        this.objectMapper = objectMapper;
+    }
+
+    boolean isSocketPresent() {
+        return Files.exists(socketPath);
+    }
+
+    /**
+     * Send a request and read the whole response
+     */
+    Response request(String method, String path, Object body) throws IOException {
+        return begin(method, path, body).readBody();
+    }
+
+    /**
+     * Send a request and read only the status line and headers; the body is read later
+     * with {@link PendingResponse#readBody()}
+     * Used for {@code wait}, whose headers confirm the wait is registered long before the body arrives
+     */
+    PendingResponse begin(String method, String path, Object body) throws IOException {
+        return exchange(method, path, body, false);
+    }
+
+    /**
+     * Send a request that upgrades the connection to a raw stream (attach, exec start)
+     * The returned connection belongs to the caller and is never reused
+     */
+    Connection hijack(String method, String path, Object body) throws IOException {
+        PendingResponse response = exchange(method, path, body, true);
+        if (response.status != 101 && response.status != 200) {
+            Response failure = response.readBody();
+            throw failure.toException(method, path);
+        }
+        return response.connection;
+    }
+
+    JsonNode readJson(Response response) throws IOException {
+        return objectMapper.readTree(response.body);
+    }
+
+    @Override
+    public void close() {
+        Connection connection;
+        while ((connection = idleConnections.poll()) != null) {
+            connection.close();
+        }
+        idleCount.set(0);
+    }
+
+    private PendingResponse exchange(String method, String path, Object body, boolean upgrade) throws IOException {
+        byte[] payload = body != null ? objectMapper.writeValueAsBytes(body) : new byte[0];
+        byte[] head = requestHead(method, path, body != null, payload.length, upgrade);
+
+        Connection connection = borrow();
+        try {
+            return send(connection, head, payload);
+        } catch (StaleConnectionException e) {
+            // The daemon closed an idle keep-alive connection; nothing was processed, so retry once
+            connection.close();
+            connection = Connection.open(socketPath);
+            try {
+                return send(connection, head, payload);
+            } catch (IOException retryFailure) {
+                connection.close();
+                throw retryFailure;
+            }
+        } catch (IOException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    private PendingResponse send(Connection connection, byte[] head, byte[] payload) throws IOException {
+        try {
+            connection.out.write(head);
+            connection.out.write(payload);
+        } catch (IOException e) {
+            if (connection.reused) {
+                throw new StaleConnectionException();
+            }
+            throw e;
+        }
+
+        String statusLine = readLine(connection.in);
+        if (statusLine == null) {
+            if (connection.reused) {
+                throw new StaleConnectionException();
+            }
+            throw new EOFException("Docker daemon closed the connection without a response");
+        }
+        String[] statusParts = statusLine.split(" ", 3);
+        if (statusParts.length < 2 || !statusParts[0].startsWith("HTTP/1.")) {
+            throw new IOException("Malformed response from Docker daemon: " + statusLine);
+        }
+
+        Map<String, String> headers = new HashMap<>();
+        String line;
+        while ((line = readLine(connection.in)) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+        if (line == null) {
+            throw new EOFException("Docker daemon closed the connection mid-response");
+        }
+        return new PendingResponse(connection, Integer.parseInt(statusParts[1]), headers);
+    }
+
+    private byte[] requestHead(String method, String path, boolean hasBody, int contentLength, boolean upgrade) {
+        StringBuilder head = new StringBuilder()
+            .append(method).append(' ').append(apiPrefix).append(path).append(" HTTP/1.1\r\n")
+            .append("Host: docker\r\n");
+        if (upgrade) {
+            head.append("Connection: Upgrade\r\n").append("Upgrade: tcp\r\n");
+        }
+        if (hasBody) {
+            head.append("Content-Type: application/json\r\n");
+        }
+        head.append("Content-Length: ").append(contentLength).append("\r\n\r\n");
+        return head.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private Connection borrow() throws IOException {
+        Connection connection = idleConnections.poll();
+        if (connection != null) {
+            idleCount.decrementAndGet();
+            connection.reused = true;
+            return connection;
+        }
+        return Connection.open(socketPath);
+    }
+
+    private void giveBack(Connection connection) {
+        if (idleCount.incrementAndGet() > maxIdleConnections) {
+            idleCount.decrementAndGet();
+            connection.close();
+            return;
+        }
+        idleConnections.push(connection);
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                byte[] bytes = line.toByteArray();
+                int length = bytes.length > 0 && bytes[bytes.length - 1] == '\r' ? bytes.length - 1 : bytes.length;
+                return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+            }
+            line.write(b);
+        }
+        return line.size() == 0 ? null : line.toString(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * A response whose headers have been read
+     */
+    class PendingResponse {
+
+        private final Connection connection;
+        private final int status;
+        private final Map<String, String> headers;
+
+        PendingResponse(Connection connection, int status, Map<String, String> headers) {
+            this.connection = connection;
+            this.status = status;
+            this.headers = headers;
+        }
+
+        int getStatus() {
+            return status;
+        }
+
+        /**
+         * Read the rest of the response and return the connection to the pool when it can be reused
+         */
+        Response readBody() throws IOException {
+            try {
+                byte[] body;
+                boolean reusable = !"close".equalsIgnoreCase(headers.get("connection"));
+                String contentLength = headers.get("content-length");
+
+                if (status == 204 || status == 304 || status < 200) {
+                    body = new byte[0];
+                } else if ("chunked".equalsIgnoreCase(headers.get("transfer-encoding"))) {
+                    body = readChunked(connection.in);
+                } else if (contentLength != null) {
+                    int length = Integer.parseInt(contentLength);
+                    body = connection.in.readNBytes(length);
+                    if (body.length < length) {
+                        throw new EOFException("Docker daemon closed the connection mid-body");
+                    }
+                } else {
+                    body = connection.in.readAllBytes();
+                    reusable = false;
+                }
+
+                if (reusable) {
+                    giveBack(connection);
+                } else {
+                    connection.close();
+                }
+                return new Response(status, new String(body, StandardCharsets.UTF_8));
+            } catch (IOException | RuntimeException e) {
+                connection.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Abandon the response, for example when the caller gave up waiting for it
+         */
+        void abandon() {
+            connection.close();
+        }
+
+        private byte[] readChunked(InputStream in) throws IOException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            while (true) {
+                String sizeLine = readLine(in);
+                if (sizeLine == null) {
+                    throw new EOFException("Docker daemon closed the connection mid-body");
+                }
+                int extension = sizeLine.indexOf(';');
+                int size = Integer.parseInt((extension >= 0 ? sizeLine.substring(0, extension) : sizeLine).trim(), 16);
+                if (size == 0) {
+                    // Skip trailers up to the terminating empty line
+                    String trailer;
+                    while ((trailer = readLine(in)) != null && !trailer.isEmpty()) {
+                        // ignored
+                    }
+                    return body.toByteArray();
+                }
+                byte[] chunk = in.readNBytes(size);
+                if (chunk.length < size) {
+                    throw new EOFException("Docker daemon closed the connection mid-chunk");
+                }
+                body.write(chunk);
+                readLine(in); // CRLF after the chunk
+            }
+        }
+    }
+
+    /**
+     * A complete API response
+     */
+    static class Response {
+
+        private final int status;
+        private final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        int getStatus() {
+            return status;
+        }
+
+        String getBody() {
+            return body;
+        }
+
+        boolean isSuccessful() {
+            return status >= 200 && status < 300;
+        }
+
+        IOException toException(String method, String path) {
+            return new IOException("Docker API " + method + " " + path + " failed with " + status + ": " + body.trim());
+        }
+    }
+
+    /**
+     * One keep-alive connection to the daemon
+     * Reads and writes go through their own streams rather than {@link java.nio.channels.Channels}
+     * adapters, which serialize on the channel's blocking lock and would stall stdin writes
+     * while a reader is blocked on a hijacked stream
+     */
+    static class Connection implements Closeable {
+
+        private final SocketChannel channel;
+        final InputStream in;
+        final OutputStream out;
+        private boolean reused;
+
+        private Connection(SocketChannel channel) {
+            this.channel = channel;
+            this.in = new BufferedInputStream(new ChannelInputStream(channel), 8192);
+            this.out = new ChannelOutputStream(channel);
+        }
+
+        static Connection open(Path socketPath) throws IOException {
+            SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+            try {
+                channel.connect(UnixDomainSocketAddress.of(socketPath));
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            return new Connection(channel);
+        }
+
+        /**
+         * Half-close the connection, which the daemon forwards as EOF on the program's stdin
+         */
+        void shutdownOutput() throws IOException {
+            channel.shutdownOutput();
+        }
+
+        @Override
+        public void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Nothing left to release
+            }
+        }
+    }
+
+    private static class ChannelInputStream extends InputStream {
+
+        private final SocketChannel channel;
+
+        ChannelInputStream(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int n = read(single, 0, 1);
+            return n == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            return channel.read(ByteBuffer.wrap(b, off, len));
+        }
+    }
+
+    private static class ChannelOutputStream extends OutputStream {
+
+        private final SocketChannel channel;
+
+        ChannelOutputStream(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.shutdownOutput();
+        }
+    }
+
+    private static class StaleConnectionException extends IOException {
+        StaleConnectionException() {
+            super("Reused connection was closed by the Docker daemon");
+        }
+    }
+}
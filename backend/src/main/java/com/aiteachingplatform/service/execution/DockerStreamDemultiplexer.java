@@ -0,0 +1,89 @@
+package com.aiteachingplatform.service.execution;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Splits the multiplexed stream of a non-TTY attach or exec into stdout and stderr
+ * Every frame is an 8-byte header (stream type, three zero bytes, big-endian payload
+ * size) followed by the payload
+ */
+class DockerStreamDemultiplexer {
+
+    static final int STREAM_STDIN = 0;
+    static final int STREAM_STDOUT = 1;
+    static final int STREAM_STDERR = 2;
+
+    private static final int HEADER_BYTES = 8;
+
+    private final InputStream source;
+    private final OutputStream stdout;
+    private final OutputStream stderr;
+    private final byte[] buffer = new byte[8192];
+
+    DockerStreamDemultiplexer(InputStream source, OutputStream stdout, OutputStream stderr) {
+        this.source = source;
+        this.stdout = stdout;
+        this.stderr = stderr;
+    }
+
+    /**
+     * Copy frames until the stream ends, then close both outputs
+     */
+    void pump() throws IOException {
+        try {
+            byte[] header = new byte[HEADER_BYTES];
+            while (true) {
+                int headerRead = source.readNBytes(header, 0, HEADER_BYTES);
+                if (headerRead == 0) {
+                    return;
+                }
+                if (headerRead < HEADER_BYTES) {
+                    throw new EOFException("Stream ended inside a frame header");
+                }
+
+                long size = ((header[4] & 0xffL) << 24) | ((header[5] & 0xff) << 16)
+                    | ((header[6] & 0xff) << 8) | (header[7] & 0xff);
+                copyFrame(targetFor(header[0]), size);
+            }
+        } finally {
+            closeQuietly(stdout);
+            closeQuietly(stderr);
+        }
+    }
+
+    private OutputStream targetFor(int streamType) throws IOException {
+        switch (streamType) {
+            case STREAM_STDIN:
+            case STREAM_STDOUT:
+                return stdout;
+            case STREAM_STDERR:
+                return stderr;
+            default:
+                throw new IOException("Unknown stream type in multiplexed stream: " + streamType);
+        }
+    }
+
+    private void copyFrame(OutputStream target, long size) throws IOException {
+        long remaining = size;
+        while (remaining > 0) {
+            int n = source.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (n == -1) {
+                throw new EOFException("Stream ended inside a frame");
+            }
+            target.write(buffer, 0, n);
+            remaining -= n;
+        }
+        target.flush();
+    }
+
+    private static void closeQuietly(OutputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            // The reader is already gone
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionResponse;
+import com.aiteachingplatform.model.Lesson;
+import com.aiteachingplatform.model.PracticeQuestion;
+import com.aiteachingplatform.repository.LessonRepository;
+import com.aiteachingplatform.repository.PracticeQuestionRepository;
+import com.aiteachingplatform.service.CodeExecutionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that runs every lesson's examples once per version of the lesson and
+ * stores the outputs in {@link ExampleOutputStore}
+ * Lessons are swept once execution is warm and periodically after that, which also picks up
+ * lessons changed on other nodes; an update through the lesson service drops the lesson's
+ * outputs and reruns its examples right away
+ * Examples run one at a time in the scheduler's background lane, each twice: only an outcome
+ * decided by the code that both runs agree on is reused. Examples {@link NondeterminismScanner}
+ * flags, such as programs printing random numbers or the time, are not run ahead at all
+ */
+@Component
+public class ExampleOutputPrecomputer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExampleOutputPrecomputer.class);
+
+    // How soon a sweep is retried while execution is still warming up
+    private static final long NOT_READY_RETRY_SECONDS = 30;
+
+    // Scheduler owner of every example run
+    private static final String OWNER = "lesson-examples";
+
+    @Value("${code.execution.enabled:true}")
+    private boolean executionEnabled;
+
+    @Value("${code.execution.examples.enabled:true}")
+    private boolean examplesEnabled;
+
+    @Value("${code.execution.examples.sweep-interval-seconds:600}")
+    private long sweepIntervalSeconds;
+
+    @Value("${code.execution.queue.enabled:false}")
+    private boolean queueEnabled;
+
+    @Value("${code.execution.queue.worker:true}")
+    private boolean queueWorker;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private PracticeQuestionRepository practiceQuestionRepository;
+
+    @Autowired
+    private CodeExecutionService codeExecutionService;
+
+    @Autowired
+    private ExecutionScheduler executionScheduler;
+
+    @Autowired
+    private ExampleOutputStore store;
+
+    @Autowired
+    private ExecutionWarmup executionWarmup;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final NondeterminismScanner nondeterminismScanner = new NondeterminismScanner();
+
+    private final ScheduledExecutorService precomputeExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "example-precompute");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void shutdown() {
+        precomputeExecutor.shutdownNow();
+    }
+
+    /**
+     * Start sweeping lessons in the background once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (isRequired()) {
+            submit(this::sweep, 0);
+        }
+    }
+
+    /**
+     * Whether this node runs code and so precomputes examples
+     * API-only nodes hand runs to the execution workers, which precompute for them
+     */
+    public boolean isRequired() {
+        return executionEnabled && examplesEnabled && (!queueEnabled || queueWorker);
+    }
+
+    /**
+     * Drop a lesson's stored outputs and, once the current transaction commits, run its
+     * examples again
+     */
+    public void lessonChanged(Long lessonId) {
+        store.invalidate(lessonId);
+        if (!isRequired()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(() -> precomputeLesson(lessonId), 0);
+                }
+            });
+        } else {
+            submit(() -> precomputeLesson(lessonId), 0);
+        }
+    }
+
+    private void sweep() {
+        if (!executionWarmup.isReady()) {
+            submit(this::sweep, NOT_READY_RETRY_SECONDS);
+            return;
+        }
+        try {
+            for (Lesson lesson : lessonRepository.findAll()) {
+                precompute(lesson, practiceQuestionRepository.findByLessonIdOrderBySequenceOrder(lesson.getId()));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Precomputing lesson examples failed", e);
+        }
+        submit(this::sweep, sweepIntervalSeconds);
+    }
+
+    private void precomputeLesson(Long lessonId) {
+        try {
+            Optional<Lesson> lesson = lessonRepository.findById(lessonId);
+            if (lesson.isPresent()) {
+                precompute(lesson.get(), practiceQuestionRepository.findByLessonIdOrderBySequenceOrder(lessonId));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Precomputing the examples of lesson {} failed", lessonId, e);
+        }
+    }
+
+    /**
+     * Run the lesson's examples that have no stored outcome for its current version
+     */
+    void precompute(Lesson lesson, List<PracticeQuestion> practiceQuestions) {
+        List<LessonExample> examples = LessonExample.extract(lesson, practiceQuestions);
+        String version = LessonExample.versionOf(examples);
+        store.retainVersion(lesson.getId(), version);
+
+        for (LessonExample example : examples) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            if (store.contains(lesson.getId(), example)) {
+                continue;
+            }
+            if (!nondeterminismScanner.isDeterministic(example.getCode(), example.getLanguage())) {
+                // Runs every time anyway
+                store.save(lesson.getId(), version, example, null);
+                continue;
+            }
+
+            CodeExecutionResponse first = run(example);
+            if (first.getStatus() == CodeExecutionResponse.ExecutionStatus.SYSTEM_ERROR) {
+                // Says nothing about the example; the next sweep tries again
+                continue;
+            }
+            CodeExecutionResponse reusable = null;
+            if (ExecutionResultCache.isCacheable(first)
+                    && sameOutcome(first, run(example))) {
+                reusable = first;
+            }
+            store.save(lesson.getId(), version, example, reusable);
+            meterRegistry.counter("code.execution.examples.precomputed",
+                "language", example.getLanguage().getValue(), "reusable", String.valueOf(reusable != null)).increment();
+        }
+    }
+
+    /**
+     * Run an example in the background lane and wait for it
+     *
+     * @throws com.aiteachingplatform.exception.ExecutionQueueFullException when the lane's queue is full
+     */
+    private CodeExecutionResponse run(LessonExample example) {
+        CompletableFuture<CodeExecutionResponse> result = new CompletableFuture<>();
+        executionScheduler.submit(ExecutionLane.BACKGROUND, OWNER, () -> {
+            try {
+                result.complete(codeExecutionService.executeCode(example.toRequest()));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CodeExecutionResponse.systemError("Interrupted");
+        } catch (ExecutionException e) {
+            return CodeExecutionResponse.systemError(e.getCause().getMessage());
+        }
+    }
+
+    static boolean sameOutcome(CodeExecutionResponse first, CodeExecutionResponse second) {
+        return first.getStatus() == second.getStatus()
+            && Objects.equals(first.getOutput(), second.getOutput())
+            && Objects.equals(first.getError(), second.getError())
+            && Objects.equals(first.getCompilationError(), second.getCompilationError());
+    }
+
+    private void submit(Runnable task, long delaySeconds) {
+        try {
+            precomputeExecutor.schedule(task, delaySeconds, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import com.aiteachingplatform.dto.CodeExecutionResponse;
+import com.aiteachingplatform.model.ExampleOutput;
+import com.aiteachingplatform.repository.ExampleOutputRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Stored outputs of lesson examples, filled in ahead of time by {@link ExampleOutputPrecomputer}
+ * A run of unmodified example code without stdin is answered from here instead of executing it
+ * Results are stored as JSON and deserialized per lookup, so callers get their own copy
+ * Code that may print something different on every run is never answered from here, even if
+ * an output was stored for it
+ */
+@Component
+public class ExampleOutputStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExampleOutputStore.class);
+
+    @Value("${code.execution.examples.enabled:true}")
+    private boolean examplesEnabled;
+
+    @Value("${code.execution.timeout.seconds:10}")
+    private int defaultTimeoutSeconds;
+
+    @Autowired
+    private ExampleOutputRepository repository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final NondeterminismScanner nondeterminismScanner = new NondeterminismScanner();
+
+    public boolean isEnabled() {
+        return examplesEnabled;
+    }
+
+    /**
+     * The stored result of running the request's code, or null if it has to run
+     */
+    public CodeExecutionResponse find(CodeExecutionRequest request) {
+        if (!examplesEnabled || request.getCode() == null
+                || (request.getStdin() != null && !request.getStdin().isEmpty())
+                || !nondeterminismScanner.isDeterministic(request.getCode(), request.getLanguage())) {
+            return null;
+        }
+
+        String language = request.getLanguage().getValue();
+        String hash = LessonExample.hashOf(request.getLanguage(), request.getDifficulty(), request.getCode());
+        CodeExecutionResponse response = null;
+        try {
+            Optional<ExampleOutput> stored = repository.findFirstByCodeHashAndResultIsNotNull(hash);
+            if (stored.isPresent()) {
+                response = objectMapper.readValue(stored.get().getResult(), CodeExecutionResponse.class);
+            }
+        } catch (JsonProcessingException e) {
+            logger.warn("Unreadable stored output of example {}", hash, e);
+        } catch (RuntimeException e) {
+            // The store only saves work; executions go ahead without it
+            logger.warn("Example output lookup failed", e);
+        }
+
+        int timeoutSeconds = request.getTimeoutSeconds() != null ? request.getTimeoutSeconds() : defaultTimeoutSeconds;
+        if (response == null || response.getExecutionTimeMs() >= timeoutSeconds * 1000L) {
+            // A shorter timeout than the example was run with could have cut it off
+            meterRegistry.counter("code.execution.examples.misses", "language", language).increment();
+            return null;
+        }
+        meterRegistry.counter("code.execution.examples.hits", "language", language).increment();
+        return response;
+    }
+
+    /**
+     * Whether the lesson's example has been run already
+     */
+    public boolean contains(Long lessonId, LessonExample example) {
+        return repository.existsByLessonIdAndCodeHash(lessonId, example.getHash());
+    }
+
+    /**
+     * Record the outcome of running an example; a null response records that it cannot be reused
+     */
+    public void save(Long lessonId, String lessonVersion, LessonExample example, CodeExecutionResponse response) {
+        String language = example.getLanguage().getValue();
+        String result = null;
+        if (response != null) {
+            try {
+                result = objectMapper.writeValueAsString(response);
+            } catch (JsonProcessingException e) {
+                logger.warn("Cannot serialize the output of example {}", example.getHash(), e);
+            }
+        }
+        try {
+            repository.save(new ExampleOutput(lessonId, lessonVersion, example.getHash(), language, result));
+        } catch (DataIntegrityViolationException e) {
+            // Another node ran the same example, or the lesson was deleted meanwhile
+            logger.debug("Output of example {} was not stored", example.getHash(), e);
+        }
+    }
+
+    /**
+     * Drop the outputs of earlier versions of a lesson's examples
+     */
+    public void retainVersion(Long lessonId, String lessonVersion) {
+        repository.deleteOtherVersions(lessonId, lessonVersion);
+    }
+
+    /**
+     * Drop every stored output of a lesson
+     */
+    public void invalidate(Long lessonId) {
+        int removed = repository.deleteByLessonId(lessonId);
+        if (removed > 0) {
+            logger.debug("Dropped {} stored example outputs of lesson {}", removed, lessonId);
+        }
+    }
+}
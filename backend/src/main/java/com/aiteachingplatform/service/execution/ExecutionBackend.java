@@ -0,0 +1,64 @@
+package com.aiteachingplatform.service.execution;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Runs sandboxed programs and manages the containers of the sandbox pool
+ */
+public interface ExecutionBackend {
+
+    /**
+     * Short name used in logs and the service status
+     */
+    String getName();
+
+    /**
+     * Whether the backend can run programs right now; implementations cache the answer
+     */
+    boolean isAvailable();
+
+    /**
+     * Whether the backend can start long-lived sandboxes for the pool
+     */
+    default boolean supportsPooling() {
+        return true;
+    }
+
+    /**
+     * Whether programs run in containers, which outlive the client process that started them
+     */
+    default boolean runsContainers() {
+        return true;
+    }
+
+    /**
+     * Make sure a sandbox image is present, pulling it if needed
+     * Backends that run programs without images have nothing to prepare
+     */
+    default void prepareImage(String image, long timeoutSeconds) throws IOException {
+    }
+
+    /**
+     * Start a program, in a fresh container or inside a pooled sandbox
+     */
+    SandboxProcess launch(SandboxSpec spec) throws IOException;
+
+    /**
+     * Start an idle pooled sandbox and return its container id
+     */
+    String startSandbox(SandboxSpec spec) throws IOException;
+
+    /**
+     * Force-remove a container by id or name, killing it if it still runs
+     * A container that is already gone is not an error
+     */
+    void removeSandbox(String containerId) throws IOException;
+
+    /**
+     * All containers carrying the label, running or not
+     */
+    default List<ContainerSummary> listContainers(String label) throws IOException {
+        return List.of();
+    }
+}
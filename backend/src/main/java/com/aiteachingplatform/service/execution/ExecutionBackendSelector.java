@@ -0,0 +1,54 @@
+package com.aiteachingplatform.service.execution;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Chooses the backend executions run on
+ * With the docker backend the Engine API client is preferred when configured and its
+ * socket answers; otherwise the docker CLI is used
+ */
+@Component
+public class ExecutionBackendSelector {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionBackendSelector.class);
+
+    @Value("${code.execution.backend:docker}")
+    private String backendType;
+
+    @Value("${code.execution.docker.client:api}")
+    private String dockerClient;
+
+    @Autowired
+    private DockerEngineApiBackend apiBackend;
+
+    @Autowired
+    private DockerCliBackend cliBackend;
+
+    @Autowired
+    private LocalProcessBackend localBackend;
+
+    private volatile ExecutionBackend lastSelected;
+
+    /**
+     * The backend to use for the next operation
+     */
+    public ExecutionBackend select() {
+        ExecutionBackend backend;
+        if ("local".equalsIgnoreCase(backendType)) {
+            backend = localBackend;
+        } else if ("api".equalsIgnoreCase(dockerClient) && apiBackend.isAvailable()) {
+            backend = apiBackend;
+        } else {
+            backend = cliBackend;
+        }
+        if (backend != lastSelected) {
+            logger.info("Running code executions on the {} backend", backend.getName());
+            lastSelected = backend;
+        }
+        return backend;
+    }
+}
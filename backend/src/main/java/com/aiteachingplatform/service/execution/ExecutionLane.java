@@ -0,0 +1,61 @@
+package com.aiteachingplatform.service.execution;
+
+/**
+ * Priority lanes of the execution scheduler
+ * Each lane has a scheduling weight, a share of the slots reserved for it, a cap on the
+ * slots it may hold, an optional cap on its queue and a latency objective; all can be
+ * overridden under {@code code.execution.lanes.<lane>.*}. The defaults keep a quarter of
+ * the slots for interactive runs, and at most a quarter of the slots and a bounded queue
+ * for background work
+ */
+public enum ExecutionLane {
+    /** A student pressing Run and waiting for the output */
+    INTERACTIVE("interactive", 8, 25, 100, 0, 2000),
+    /** Hints and compile-only validation the editor asks for */
+    ASSIST("assist", 4, 0, 100, 0, 5000),
+    /** Running a submission against a practice question's test cases */
+    GRADING("grading", 2, 0, 100, 0, 15000),
+    /** Work no one is waiting on, such as precomputing lesson examples or regrading */
+    BACKGROUND("background", 1, 0, 25, 50, 60000);
+
+    private final String value;
+    private final int defaultWeight;
+    private final int defaultReservedPercent;
+    private final int defaultMaxPercent;
+    private final int defaultMaxQueueLength;
+    private final long defaultSloMillis;
+
+    ExecutionLane(String value, int defaultWeight, int defaultReservedPercent, int defaultMaxPercent,
+                  int defaultMaxQueueLength, long defaultSloMillis) {
+        this.value = value;
+        this.defaultWeight = defaultWeight;
+        this.defaultReservedPercent = defaultReservedPercent;
+        this.defaultMaxPercent = defaultMaxPercent;
+        this.defaultMaxQueueLength = defaultMaxQueueLength;
+        this.defaultSloMillis = defaultSloMillis;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    int getDefaultWeight() {
+        return defaultWeight;
+    }
+
+    int getDefaultReservedPercent() {
+        return defaultReservedPercent;
+    }
+
+    int getDefaultMaxPercent() {
+        return defaultMaxPercent;
+    }
+
+    int getDefaultMaxQueueLength() {
+        return defaultMaxQueueLength;
+    }
+
+    long getDefaultSloMillis() {
+        return defaultSloMillis;
+    }
+}
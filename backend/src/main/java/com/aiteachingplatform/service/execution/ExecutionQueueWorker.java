@@ -0,0 +1,168 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionResponse;
+import com.aiteachingplatform.dto.CodeValidationResponse;
+import com.aiteachingplatform.dto.TestRunResponse;
+import com.aiteachingplatform.exception.ExecutionQueueFullException;
+import com.aiteachingplatform.model.CodeExecutionQueueEntry;
+import com.aiteachingplatform.service.CodeExecutionService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execution worker: claims jobs from the durable queue and runs them on this node, each in
+ * the scheduler lane it was submitted for
+ * Only as many jobs are claimed as the execution scheduler has free slots, so a worker
+ * never holds queued work another worker could be running. Leases are renewed by a
+ * heartbeat; a worker that stops heartbeating loses its jobs to the other workers
+ */
+@Component
+public class ExecutionQueueWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionQueueWorker.class);
+
+    @Value("${code.execution.queue.enabled:false}")
+    private boolean queueEnabled;
+
+    @Value("${code.execution.queue.worker:true}")
+    private boolean workerEnabled;
+
+    @Value("${code.execution.queue.poll-interval-ms:200}")
+    private long pollIntervalMs;
+
+    @Value("${code.execution.queue.heartbeat-seconds:10}")
+    private long heartbeatSeconds;
+
+    @Autowired
+    private DistributedExecutionQueue executionQueue;
+
+    @Autowired
+    private ExecutionScheduler executionScheduler;
+
+    @Autowired
+    private CodeExecutionService codeExecutionService;
+
+    private final String workerId = workerName();
+
+    private final ScheduledExecutorService claimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "code-execution-queue-claimer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    void initialize() {
+        if (!queueEnabled || !workerEnabled) {
+            return;
+        }
+        claimer.scheduleWithFixedDelay(this::claimJobs, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        claimer.scheduleAtFixedRate(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        logger.info("Code execution worker {} is claiming queued executions", workerId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        claimer.shutdownNow();
+        if (queueEnabled && workerEnabled) {
+            try {
+                executionQueue.releaseWorker(workerId);
+            } catch (RuntimeException e) {
+                logger.warn("Could not return running executions to the queue: {}", e.getMessage());
+            }
+        }
+    }
+
+    public String getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * Claim jobs for the scheduler's free slots
+     * Only runs on the claimer thread, so two claims of this worker never overlap
+     */
+    private void claimJobs() {
+        try {
+            int free = executionScheduler.getMaxConcurrent() - executionScheduler.getRunning()
+                - executionScheduler.getQueueDepth();
+            if (free <= 0) {
+                return;
+            }
+            List<CodeExecutionQueueEntry> claimed = executionQueue.claim(workerId, free);
+            for (CodeExecutionQueueEntry entry : claimed) {
+                try {
+                    executionScheduler.submit(entry.getLane(), entry.getOwner(), () -> run(entry));
+                } catch (ExecutionQueueFullException e) {
+                    executionQueue.release(entry, workerId);
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to claim queued code executions: {}", e.getMessage());
+        }
+    }
+
+    private void run(CodeExecutionQueueEntry entry) {
+        Object response;
+        GradingRequest grading = null;
+        try {
+            if (entry.getKind() == CodeExecutionQueueEntry.QueueKind.VALIDATION) {
+                response = codeExecutionService.validateCode(executionQueue.requestOf(entry));
+            } else if (entry.getKind() == CodeExecutionQueueEntry.QueueKind.GRADING) {
+                grading = executionQueue.gradingOf(entry);
+                response = codeExecutionService.executeTestCases(
+                    grading.getRequest(), grading.getTestCases(), grading.isStopOnFirstFailure());
+            } else {
+                response = codeExecutionService.executeCode(executionQueue.requestOf(entry));
+            }
+        } catch (Exception e) {
+            logger.error("Queued code execution {} failed", entry.getId(), e);
+            CodeExecutionResponse failure = CodeExecutionResponse.systemError(e.getMessage());
+            if (entry.getKind() == CodeExecutionQueueEntry.QueueKind.VALIDATION) {
+                response = CodeValidationResponse.from(failure);
+            } else if (entry.getKind() == CodeExecutionQueueEntry.QueueKind.GRADING) {
+                response = grading != null ? grading.notRun(failure) : new GradingRequest().notRun(failure);
+            } else {
+                response = failure;
+            }
+        }
+        if (!executionQueue.complete(entry, workerId, response)) {
+            logger.warn("Dropped the result of code execution {}: its lease moved to another worker", entry.getId());
+        }
+        // A slot just freed up; look for more work without waiting for the next poll
+        try {
+            claimer.execute(this::claimJobs);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    private void heartbeat() {
+        try {
+            executionQueue.heartbeat(workerId);
+        } catch (RuntimeException e) {
+            logger.warn("Code execution worker heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    private static String workerName() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "worker";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
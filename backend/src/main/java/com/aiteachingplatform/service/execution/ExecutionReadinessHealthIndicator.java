@@ -0,0 +1,41 @@
+package com.aiteachingplatform.service.execution;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reports whether code execution is warm, per language
+ * Out of service until every language's image is present and its canary has run, so the
+ * readiness probe keeps execution traffic away from a node that would run it cold
+ */
+@Component
+public class ExecutionReadinessHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private ExecutionWarmup warmup;
+
+    @Override
+    public Health health() {
+        if (!warmup.isRequired()) {
+            return Health.up().withDetail("warmup", "not required").build();
+        }
+
+        Map<String, Object> languages = new LinkedHashMap<>();
+        warmup.getReadiness().forEach((language, state) -> {
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("stage", state.getStage());
+            if (state.getDetail() != null) {
+                details.put("detail", state.getDetail());
+            }
+            languages.put(language.getValue(), details);
+        });
+
+        Health.Builder health = warmup.isReady() ? Health.up() : Health.outOfService();
+        return health.withDetail("languages", languages).build();
+    }
+}
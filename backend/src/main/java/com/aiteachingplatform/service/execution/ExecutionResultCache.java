@@ -0,0 +1,202 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import com.aiteachingplatform.dto.CodeExecutionResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived cache of execution results with single-flight of identical executions
+ * Entries are keyed by a SHA-256 of language, code, stdin, timeout and difficulty, so
+ * running unchanged code again (for example /hints right after /execute) reuses the result
+ * instead of launching another container
+ * Only outcomes decided by the code itself are kept; timeouts, resource limits and system
+ * errors always run again. Code that {@link NondeterminismScanner} cannot show to be
+ * deterministic gets no key, so it neither shares runs nor reuses results.
+ * Every caller gets its own copy of a stored result
+ */
+@Component
+public class ExecutionResultCache {
+
+    @Value("${code.execution.results.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${code.execution.results.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Value("${code.execution.results.max-entries:500}")
+    private int maxEntries;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, CachedResult> results = new LinkedHashMap<>(64, 0.75f, true);
+
+    private final Map<String, CodeExecutionJob> inFlight = new ConcurrentHashMap<>();
+
+    private final NondeterminismScanner nondeterminismScanner = new NondeterminismScanner();
+
+    @PostConstruct
+    void initialize() {
+        meterRegistry.gauge("code.execution.results.cache.entries", results, map -> {
+            synchronized (results) {
+                return map.size();
+            }
+        });
+        meterRegistry.gauge("code.execution.results.in.flight", inFlight, Map::size);
+    }
+
+    /**
+     * Build the key of an execution
+     *
+     * @return the key, or null if the program's output may differ between runs
+     */
+    public String keyFor(CodeExecutionRequest request) {
+        if (!cacheEnabled) {
+            return null;
+        }
+        if (!nondeterminismScanner.isDeterministic(request.getCode(), request.getLanguage())) {
+            meterRegistry.counter("code.execution.results.uncacheable", "language", request.getLanguage().getValue())
+                .increment();
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(request.getLanguage().getValue().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(request.getTimeoutSeconds()).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(request.getStdin()).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            // Selects the compiler flags, which can change what a program does
+            digest.update(String.valueOf(request.getDifficulty()).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(request.getCode().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * A copy of the completed result for the key if it is still fresh, or null
+     */
+    public CodeExecutionResponse getCompleted(String key, CodeExecutionRequest.Language language) {
+        if (!cacheEnabled || key == null) {
+            return null;
+        }
+
+        CachedResult cached;
+        synchronized (results) {
+            cached = results.get(key);
+            if (cached != null && cached.isExpired()) {
+                results.remove(key);
+                cached = null;
+            }
+        }
+
+        if (cached == null) {
+            meterRegistry.counter("code.execution.results.misses", "language", language.getValue()).increment();
+            return null;
+        }
+        meterRegistry.counter("code.execution.results.hits", "language", language.getValue(), "source", "cache")
+            .increment();
+        return cached.response.copy();
+    }
+
+    /**
+     * Register a job as the one running the key
+     *
+     * @return the job already running an identical execution, or null if this job now owns the key
+     */
+    public CodeExecutionJob joinInFlight(String key, CodeExecutionJob job) {
+        if (!cacheEnabled || key == null) {
+            return null;
+        }
+
+        CodeExecutionJob leader = inFlight.putIfAbsent(key, job);
+        if (leader != null) {
+            meterRegistry.counter("code.execution.results.hits",
+                "language", job.getRequest().getLanguage().getValue(), "source", "in-flight").increment();
+        }
+        return leader;
+    }
+
+    /**
+     * Record the outcome of the job that owns the key and release the key
+     * The result is stored before the key is released so no identical request slips in between
+     */
+    public void complete(String key, CodeExecutionJob job, CodeExecutionResponse response) {
+        if (!cacheEnabled || key == null) {
+            return;
+        }
+
+        if (isCacheable(response)) {
+            synchronized (results) {
+                results.put(key, new CachedResult(response.copy()));
+                evictOverflow();
+            }
+        }
+        inFlight.remove(key, job);
+    }
+
+    /**
+     * Release the key of a job that never ran
+     */
+    public void abandon(String key, CodeExecutionJob job) {
+        if (key != null) {
+            inFlight.remove(key, job);
+        }
+    }
+
+    static boolean isCacheable(CodeExecutionResponse response) {
+        if (response == null) {
+            return false;
+        }
+        switch (response.getStatus()) {
+            case SUCCESS:
+            case COMPILATION_ERROR:
+            case RUNTIME_ERROR:
+            case SECURITY_VIOLATION:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<CachedResult> iterator = results.values().iterator();
+        while (results.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private class CachedResult {
+
+        private final CodeExecutionResponse response;
+        private final long storedAt = System.nanoTime();
+
+        CachedResult(CodeExecutionResponse response) {
+            this.response = response;
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - storedAt > TimeUnit.SECONDS.toNanos(ttlSeconds);
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.exception.ExecutionQueueFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admits code executions onto the host with a global concurrency cap and per-user fair queuing
+ * The cap is derived from the CPU and memory each sandbox is allowed, so a whole class
+ * pressing Run at once queues instead of overcommitting the host; queued work is
+ * dispatched round-robin across users so one user's backlog cannot starve the others
+ * Work is queued in priority lanes (see {@link ExecutionLane}). A free slot goes to the
+ * lanes with waiting work in proportion to their weights (smooth weighted round-robin), but
+ * never to a lane at its cap or into slots other lanes have reserved and are not using, so
+ * a batch of background work cannot hold the slots interactive runs need
+ */
+@Component
+public class ExecutionScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionScheduler.class);
+
+    @Value("${code.execution.scheduler.max-concurrent:0}")
+    private int configuredMaxConcurrent;
+
+    @Value("${code.execution.cpu.limit:0.5}")
+    private double cpusPerExecution;
+
+    @Value("${code.execution.scheduler.memory-budget-mb:0}")
+    private long memoryBudgetMB;
+
+    @Value("${code.execution.memory.limit.mb:128}")
+    private int memoryLimitMB;
+
+    @Value("${code.execution.scheduler.max-queue-length:200}")
+    private int maxQueueLength;
+
+    @Value("${code.execution.scheduler.max-queued-per-user:5}")
+    private int maxQueuedPerUser;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private Environment environment;
+
+    private final Object lock = new Object();
+
+    private final Map<ExecutionLane, Lane> lanes = new EnumMap<>(ExecutionLane.class);
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+
+    // Moving average of execution time, used to estimate Retry-After
+    private volatile double averageRunMillis = 2000;
+
+    private int maxConcurrent;
+    private ExecutorService workers;
+
+    @PostConstruct
+    void initialize() {
+        maxConcurrent = configuredMaxConcurrent > 0 ? configuredMaxConcurrent : deriveMaxConcurrent();
+        for (ExecutionLane name : ExecutionLane.values()) {
+            lanes.put(name, createLane(name));
+        }
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(maxConcurrent, runnable -> {
+            Thread thread = new Thread(runnable, "code-execution-worker-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        meterRegistry.gauge("code.execution.scheduler.queue.depth", queued, AtomicInteger::get);
+        meterRegistry.gauge("code.execution.scheduler.running", running, AtomicInteger::get);
+        meterRegistry.gauge("code.execution.scheduler.capacity", this, ExecutionScheduler::getMaxConcurrent);
+
+        logger.info("Code execution scheduler admits {} concurrent executions", maxConcurrent);
+        for (Lane lane : lanes.values()) {
+            logger.info("Execution lane {}: weight {}, {} reserved and at most {} slots", lane.name.getValue(),
+                        lane.weight, lane.reservedSlots, lane.maxSlots);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Queue an interactive task on behalf of a user
+     *
+     * @throws ExecutionQueueFullException when the global queue or the user's own queue is full
+     */
+    public void submit(String owner, Runnable task) {
+        submit(ExecutionLane.INTERACTIVE, owner, task);
+    }
+
+    /**
+     * Queue a task in a lane on behalf of a user; it runs once the lane gets a free slot and
+     * it is the user's turn within the lane
+     *
+     * @throws ExecutionQueueFullException when the global queue, the lane's queue or the user's
+     *                                     own queue in the lane is full
+     */
+    public void submit(ExecutionLane laneName, String owner, Runnable task) {
+        synchronized (lock) {
+            Lane lane = lanes.get(laneName);
+            Deque<ScheduledTask> userQueue = lane.userQueues.get(owner);
+            int userQueued = userQueue != null ? userQueue.size() : 0;
+
+            if (queued.get() >= maxQueueLength) {
+                reject("global", lane);
+                throw new ExecutionQueueFullException(
+                    "Code execution is busy. Please try again shortly.", estimateRetryAfterSeconds(queued.get()));
+            }
+            if (lane.maxQueueLength > 0 && lane.queued.get() >= lane.maxQueueLength) {
+                reject("lane", lane);
+                throw new ExecutionQueueFullException(
+                    "Code execution is busy. Please try again shortly.", estimateRetryAfterSeconds(queued.get()));
+            }
+            if (userQueued >= maxQueuedPerUser) {
+                reject("user", lane);
+                throw new ExecutionQueueFullException(
+                    "You already have code waiting to run. Please wait for it to finish.",
+                    estimateRetryAfterSeconds(queued.get()));
+            }
+
+            if (userQueue == null) {
+                userQueue = new ArrayDeque<>();
+                lane.userQueues.put(owner, userQueue);
+                lane.rotation.addLast(owner);
+            }
+            userQueue.addLast(new ScheduledTask(task, System.nanoTime()));
+            lane.queued.incrementAndGet();
+            queued.incrementAndGet();
+
+            dispatch();
+        }
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    public int getRunning() {
+        return running.get();
+    }
+
+    public int getQueueDepth(ExecutionLane lane) {
+        return lanes.get(lane).queued.get();
+    }
+
+    public int getRunning(ExecutionLane lane) {
+        return lanes.get(lane).running.get();
+    }
+
+    /**
+     * Start queued tasks while slots are free, picking a lane by weight and then one task per
+     * user of that lane in turn
+     * Must be called while holding the lock
+     */
+    private void dispatch() {
+        while (running.get() < maxConcurrent) {
+            Lane lane = nextLane();
+            if (lane == null) {
+                return;
+            }
+
+            String owner = lane.rotation.pollFirst();
+            Deque<ScheduledTask> userQueue = lane.userQueues.get(owner);
+            ScheduledTask next = userQueue.pollFirst();
+            if (userQueue.isEmpty()) {
+                lane.userQueues.remove(owner);
+            } else {
+                // Back of the line until every other waiting user has had a turn
+                lane.rotation.addLast(owner);
+            }
+
+            lane.queued.decrementAndGet();
+            queued.decrementAndGet();
+            lane.running.incrementAndGet();
+            running.incrementAndGet();
+            workers.execute(() -> run(lane, next));
+        }
+    }
+
+    /**
+     * The lane that gets the next free slot, or null if no lane with waiting work may start any
+     * Smooth weighted round-robin: every eligible lane earns its weight, and the richest lane
+     * pays back what all of them earned, so lanes interleave in proportion to their weights
+     */
+    private Lane nextLane() {
+        int freeSlots = maxConcurrent - running.get();
+        Lane chosen = null;
+        int totalWeight = 0;
+        for (Lane lane : lanes.values()) {
+            if (lane.queued.get() == 0 || lane.running.get() >= lane.maxSlots
+                    || freeSlots - 1 < unusedReservationsBesides(lane)) {
+                continue;
+            }
+            lane.currentWeight += lane.weight;
+            totalWeight += lane.weight;
+            if (chosen == null || lane.currentWeight > chosen.currentWeight) {
+                chosen = lane;
+            }
+        }
+        if (chosen != null) {
+            chosen.currentWeight -= totalWeight;
+        }
+        return chosen;
+    }
+
+    /**
+     * Slots other lanes have reserved but are not using
+     */
+    private int unusedReservationsBesides(Lane lane) {
+        int unused = 0;
+        for (Lane other : lanes.values()) {
+            if (other != lane) {
+                unused += Math.max(0, other.reservedSlots - other.running.get());
+            }
+        }
+        return unused;
+    }
+
+    private void run(Lane lane, ScheduledTask scheduled) {
+        long startedAt = System.nanoTime();
+        lane.queueWaitTimer.record(startedAt - scheduled.enqueuedAt, TimeUnit.NANOSECONDS);
+        try {
+            scheduled.task.run();
+        } catch (RuntimeException e) {
+            logger.error("Scheduled code execution failed", e);
+        } finally {
+            long finishedAt = System.nanoTime();
+            double runMillis = (finishedAt - startedAt) / 1_000_000.0;
+            averageRunMillis = averageRunMillis * 0.9 + runMillis * 0.1;
+            lane.recordLatency(finishedAt - scheduled.enqueuedAt);
+            synchronized (lock) {
+                lane.running.decrementAndGet();
+                running.decrementAndGet();
+                dispatch();
+            }
+        }
+    }
+
+    /**
+     * Rough time until the current backlog drains, in whole seconds
+     */
+    private long estimateRetryAfterSeconds(int backlog) {
+        double waves = (double) backlog / maxConcurrent + 1;
+        long seconds = (long) Math.ceil(waves * averageRunMillis / 1000.0);
+        return Math.max(1, Math.min(seconds, 60));
+    }
+
+    private void reject(String reason, Lane lane) {
+        meterRegistry.counter("code.execution.scheduler.rejected", "reason", reason, "lane", lane.name.getValue())
+            .increment();
+    }
+
+    /**
+     * Set up a lane from code.execution.lanes.<lane>.*, with shares taken of the scheduler's slots
+     */
+    private Lane createLane(ExecutionLane name) {
+        Lane lane = new Lane(name);
+        lane.weight = Math.max(1, laneSetting(name, "weight", name.getDefaultWeight()));
+        // Rounded down, so a small host is not reserved entirely for one lane
+        lane.reservedSlots = maxConcurrent * laneSetting(name, "reserved-percent", name.getDefaultReservedPercent()) / 100;
+        lane.maxSlots = Math.max(1, maxConcurrent * laneSetting(name, "max-percent", name.getDefaultMaxPercent()) / 100);
+        lane.maxQueueLength = laneSetting(name, "max-queue-length", name.getDefaultMaxQueueLength());
+        lane.sloNanos = TimeUnit.MILLISECONDS.toNanos(laneSetting(name, "slo-ms", (int) name.getDefaultSloMillis()));
+
+        Tags tags = Tags.of("lane", name.getValue());
+        lane.queueWaitTimer = Timer.builder("code.execution.scheduler.queue.wait")
+            .description("Time executions spend queued before a slot is free")
+            .tags("lane", name.getValue())
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+        lane.latencyTimer = Timer.builder("code.execution.lanes.latency")
+            .description("Time from queuing an execution to its completion")
+            .tags("lane", name.getValue())
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .serviceLevelObjectives(Duration.ofNanos(lane.sloNanos))
+            .register(meterRegistry);
+        lane.sloMisses = meterRegistry.counter("code.execution.lanes.slo.misses", "lane", name.getValue());
+        meterRegistry.gauge("code.execution.lanes.queue.depth", tags, lane.queued, AtomicInteger::get);
+        meterRegistry.gauge("code.execution.lanes.running", tags, lane.running, AtomicInteger::get);
+        return lane;
+    }
+
+    private int laneSetting(ExecutionLane lane, String setting, int defaultValue) {
+        if (environment == null) {
+            // Built outside a Spring context
+            return defaultValue;
+        }
+        return environment.getProperty("code.execution.lanes." + lane.getValue() + "." + setting, Integer.class,
+                                       defaultValue);
+    }
+
+    /**
+     * Slots the host can afford given each sandbox's CPU and memory limits
+     */
+    private int deriveMaxConcurrent() {
+        int cpuSlots = (int) (Runtime.getRuntime().availableProcessors() / Math.max(0.1, cpusPerExecution));
+
+        long budgetMB = memoryBudgetMB > 0 ? memoryBudgetMB : defaultMemoryBudgetMB();
+        int memorySlots = (int) (budgetMB / Math.max(1, memoryLimitMB));
+
+        return Math.max(1, Math.min(cpuSlots, memorySlots));
+    }
+
+    /**
+     * Physical memory not reserved for the backend's own heap
+     */
+    private long defaultMemoryBudgetMB() {
+        long physicalBytes = Long.MAX_VALUE;
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            physicalBytes = os.getTotalMemorySize();
+        }
+        long available = physicalBytes - Runtime.getRuntime().maxMemory();
+        return Math.max(0, available / (1024 * 1024));
+    }
+
+    /**
+     * One lane's settings, its pending work per user and the order in which its users get
+     * their next turn
+     */
+    private static class Lane {
+        private final ExecutionLane name;
+        private final Map<String, Deque<ScheduledTask>> userQueues = new HashMap<>();
+        private final Deque<String> rotation = new ArrayDeque<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+
+        private int weight;
+        private int reservedSlots;
+        private int maxSlots;
+        private int maxQueueLength;
+        private long sloNanos;
+        private Timer queueWaitTimer;
+        private Timer latencyTimer;
+        private Counter sloMisses;
+
+        // Credit in the weighted round-robin; guarded by the scheduler lock
+        private int currentWeight;
+
+        Lane(ExecutionLane name) {
+            this.name = name;
+        }
+
+        void recordLatency(long nanos) {
+            latencyTimer.record(nanos, TimeUnit.NANOSECONDS);
+            if (nanos > sloNanos) {
+                sloMisses.increment();
+            }
+        }
+    }
+
+    private static class ScheduledTask {
+        private final Runnable task;
+        private final long enqueuedAt;
+
+        ScheduledTask(Runnable task, long enqueuedAt) {
+            this.task = task;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
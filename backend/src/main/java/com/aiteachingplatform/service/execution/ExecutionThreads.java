@@ -0,0 +1,102 @@
+package com.aiteachingplatform.service.execution;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads shared by all executions: virtual threads for blocking stream I/O and one timer
+ * wheel for run deadlines
+ * Draining a program's output and relaying sandbox streams costs a virtual thread each, so
+ * concurrent runs no longer hold platform threads for I/O. The platform threads of the
+ * backend stay bounded by the scheduler's worker pool and are published as a gauge
+ */
+@Component
+public class ExecutionThreads {
+
+    @Value("${code.execution.deadlines.tick-ms:10}")
+    private long tickMs;
+
+    @Value("${code.execution.deadlines.wheel-size:512}")
+    private int wheelSize;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ExecutorService ioExecutor = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("execution-io-", 0).factory()
+    );
+
+    private final AtomicInteger activeIoTasks = new AtomicInteger();
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    private DeadlineTimerWheel deadlines;
+
+    @PostConstruct
+    void initialize() {
+        deadlines = new DeadlineTimerWheel("execution-deadlines", tickMs, TimeUnit.MILLISECONDS, wheelSize, ioExecutor);
+        deadlines.start();
+
+        meterRegistry.gauge("code.execution.threads.io.active", activeIoTasks, AtomicInteger::get);
+        meterRegistry.gauge("code.execution.deadlines.pending", this, threads -> threads.deadlines.getPending());
+        // Virtual threads are not counted by the thread MXBean
+        meterRegistry.gauge("code.execution.threads.platform", threadBean, ThreadMXBean::getThreadCount);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (deadlines != null) {
+            deadlines.shutdown();
+        }
+        ioExecutor.shutdownNow();
+    }
+
+    /**
+     * Run blocking stream work on its own virtual thread
+     */
+    public <T> Future<T> submitIo(Callable<T> task) {
+        return ioExecutor.submit(() -> {
+            activeIoTasks.incrementAndGet();
+            try {
+                return task.call();
+            } finally {
+                activeIoTasks.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Executor for long-lived stream relays, e.g. demultiplexers and zygote readers
+     */
+    public Executor relayExecutor() {
+        return task -> ioExecutor.execute(() -> {
+            activeIoTasks.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                activeIoTasks.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Run the task when the run's time is up unless the deadline is cancelled first
+     */
+    public DeadlineTimerWheel.Deadline deadline(long delay, TimeUnit unit, Runnable onExpiry) {
+        return deadlines.schedule(delay, unit, onExpiry);
+    }
+}
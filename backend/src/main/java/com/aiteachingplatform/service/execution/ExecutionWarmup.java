@@ -0,0 +1,240 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import com.aiteachingplatform.dto.CodeExecutionResponse;
+import com.aiteachingplatform.service.CodeExecutionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup warm-up of the execution pipeline
+ * Once the application is up, every language's sandbox image is pulled if missing and a
+ * canary program is run through the regular pipeline, so image layers, compilers and
+ * interpreters are in the page cache before the first student submits. Languages that
+ * fail are retried; readiness is published per language for the health indicator
+ */
+@Component
+public class ExecutionWarmup {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionWarmup.class);
+
+    static final String CANARY_OUTPUT = "ready";
+
+    private static final Map<CodeExecutionRequest.Language, String> CANARIES =
+        new EnumMap<>(CodeExecutionRequest.Language.class);
+
+    static {
+        CANARIES.put(CodeExecutionRequest.Language.JAVA,
+            "public class Main { public static void main(String[] args) { System.out.println(\"" + CANARY_OUTPUT + "\"); } }");
+        CANARIES.put(CodeExecutionRequest.Language.PYTHON, "print(\"" + CANARY_OUTPUT + "\")");
+        CANARIES.put(CodeExecutionRequest.Language.JAVASCRIPT, "console.log(\"" + CANARY_OUTPUT + "\");");
+        CANARIES.put(CodeExecutionRequest.Language.CPP,
+            "#include <iostream>\nint main() { std::cout << \"" + CANARY_OUTPUT + "\" << std::endl; return 0; }");
+    }
+
+    public enum Stage {
+        PENDING,
+        PULLING,
+        WARMING,
+        READY,
+        FAILED
+    }
+
+    @Value("${code.execution.enabled:true}")
+    private boolean executionEnabled;
+
+    @Value("${code.execution.warmup.enabled:true}")
+    private boolean warmupEnabled;
+
+    @Value("${code.execution.warmup.pull-timeout-seconds:600}")
+    private long pullTimeoutSeconds;
+
+    @Value("${code.execution.warmup.canary-timeout-seconds:60}")
+    private int canaryTimeoutSeconds;
+
+    @Value("${code.execution.warmup.retry-seconds:30}")
+    private long retrySeconds;
+
+    @Value("${code.execution.queue.enabled:false}")
+    private boolean queueEnabled;
+
+    @Value("${code.execution.queue.worker:true}")
+    private boolean queueWorker;
+
+    @Autowired
+    private SandboxImages sandboxImages;
+
+    @Autowired
+    private ExecutionBackendSelector backendSelector;
+
+    @Autowired
+    private SandboxContainerPool sandboxPool;
+
+    @Autowired
+    private CodeExecutionService codeExecutionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<CodeExecutionRequest.Language, LanguageReadiness> readiness =
+        new EnumMap<>(CodeExecutionRequest.Language.class);
+
+    private final ScheduledExecutorService warmupExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "execution-warmup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    void initialize() {
+        for (CodeExecutionRequest.Language language : CodeExecutionRequest.Language.values()) {
+            LanguageReadiness state = new LanguageReadiness();
+            readiness.put(language, state);
+            meterRegistry.gauge("code.execution.warmup.ready", Tags.of("language", language.getValue()), state,
+                s -> s.stage == Stage.READY ? 1 : 0);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        warmupExecutor.shutdownNow();
+    }
+
+    /**
+     * Start warming up in the background once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!isRequired()) {
+            readiness.values().forEach(state -> state.update(Stage.READY, "Warm-up not required"));
+            return;
+        }
+        warmupExecutor.execute(this::warmUpPending);
+    }
+
+    /**
+     * Whether this node runs code and so has to be warm before taking execution traffic
+     * API-only nodes hand runs to the execution workers through the durable queue
+     */
+    public boolean isRequired() {
+        return executionEnabled && warmupEnabled && (!queueEnabled || queueWorker);
+    }
+
+    public boolean isReady() {
+        return readiness.values().stream().allMatch(state -> state.stage == Stage.READY);
+    }
+
+    public Map<CodeExecutionRequest.Language, LanguageReadiness> getReadiness() {
+        return Collections.unmodifiableMap(readiness);
+    }
+
+    private void warmUpPending() {
+        boolean anyFailed = false;
+        for (CodeExecutionRequest.Language language : CodeExecutionRequest.Language.values()) {
+            if (readiness.get(language).stage != Stage.READY) {
+                anyFailed |= !warmUp(language);
+            }
+        }
+
+        // Images that were missing at startup could not be pooled; top the pool up now
+        sandboxPool.prewarm();
+
+        if (anyFailed) {
+            try {
+                warmupExecutor.schedule(this::warmUpPending, retrySeconds, TimeUnit.SECONDS);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+            }
+        } else {
+            logger.info("Code execution is warm for all languages");
+        }
+    }
+
+    /**
+     * Pull the language's image if needed and run its canary
+     *
+     * @return whether the language is ready
+     */
+    boolean warmUp(CodeExecutionRequest.Language language) {
+        LanguageReadiness state = readiness.get(language);
+        String image = sandboxImages.imageFor(language);
+        long start = System.nanoTime();
+        try {
+            ExecutionBackend backend = backendSelector.select();
+            if (!backend.isAvailable()) {
+                state.update(Stage.FAILED, "Execution backend " + backend.getName() + " is not available");
+                return false;
+            }
+
+            state.update(Stage.PULLING, image);
+            backend.prepareImage(image, pullTimeoutSeconds);
+
+            state.update(Stage.WARMING, image);
+            CodeExecutionRequest canary = new CodeExecutionRequest();
+            canary.setCode(CANARIES.get(language));
+            canary.setLanguage(language);
+            canary.setTimeoutSeconds(canaryTimeoutSeconds);
+            CodeExecutionResponse response = codeExecutionService.executeCode(canary);
+
+            if (!response.isSuccess() || response.getOutput() == null || !CANARY_OUTPUT.equals(response.getOutput().trim())) {
+                String reason = response.getCompilationError() != null ? response.getCompilationError() : response.getError();
+                state.update(Stage.FAILED, "Canary run ended with " + response.getStatus() + ": " + reason);
+                logger.warn("Warm-up of {} failed: canary ended with {}", language, response.getStatus());
+                return false;
+            }
+
+            long elapsed = System.nanoTime() - start;
+            state.update(Stage.READY, image);
+            Timer.builder("code.execution.warmup.duration")
+                .tag("language", language.getValue())
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+            logger.info("Warmed up {} ({}) in {} ms", language, image, TimeUnit.NANOSECONDS.toMillis(elapsed));
+            return true;
+        } catch (Exception e) {
+            state.update(Stage.FAILED, e.getMessage());
+            logger.warn("Warm-up of {} failed: {}", language, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Warm-up progress of one language
+     */
+    public static class LanguageReadiness {
+
+        private volatile Stage stage = Stage.PENDING;
+        private volatile String detail;
+
+        void update(Stage stage, String detail) {
+            this.stage = stage;
+            this.detail = detail;
+        }
+
+        public Stage getStage() {
+            return stage;
+        }
+
+        public String getDetail() {
+            return detail;
+        }
+    }
+}
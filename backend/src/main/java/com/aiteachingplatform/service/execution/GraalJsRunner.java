@@ -0,0 +1,501 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import com.aiteachingplatform.dto.CodeExecutionResponse;
+import com.aiteachingplatform.dto.ResourceUsage;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.EnvironmentAccess;
+import org.graalvm.polyglot.HostAccess;
+import org.graalvm.polyglot.PolyglotAccess;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.ResourceLimits;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.SourceSection;
+import org.graalvm.polyglot.io.IOAccess;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs short JavaScript programs inside the backend JVM, in pooled GraalJS contexts
+ * A context has no host, file, thread, process or environment access, and a statement
+ * limit, a CPU and allocation watchdog and the output cap bound what a program consumes.
+ * Contexts are created and given a node-compatible console ahead of time. Each serves one
+ * run, since a program's changes to globals cannot be undone reliably: a used context is
+ * closed and a fresh one prepared in the background. Programs that need node (timers,
+ * modules, promises), print values the console cannot reproduce exactly, or outgrow the
+ * in-process budgets are handed back to run in a container
+ */
+@Component
+public class GraalJsRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(GraalJsRunner.class);
+
+    private static final String FILE_NAME = SubmissionFiles.sourceFileName(CodeExecutionRequest.Language.JAVASCRIPT);
+
+    // Node globals GraalJS lacks, and asynchronous code whose scheduling differs from node's event loop
+    private static final Set<String> NODE_ONLY = Set.of(
+        "setTimeout", "setInterval", "setImmediate", "clearTimeout", "clearInterval", "clearImmediate",
+        "queueMicrotask", "Buffer", "module", "exports", "__dirname", "__filename", "global", "structuredClone",
+        "TextEncoder", "TextDecoder", "URL", "URLSearchParams", "performance", "atob", "btoa", "AbortController",
+        "async", "await", "Promise"
+    );
+
+    static final String FALLBACK_NODE = "node-api";
+    static final String FALLBACK_SOURCE_SIZE = "source-size";
+    static final String FALLBACK_CONSOLE = "console";
+    static final String FALLBACK_STATEMENTS = "statement-limit";
+    static final String FALLBACK_CPU = "cpu-budget";
+    static final String FALLBACK_ALLOCATION = "allocation";
+    static final String FALLBACK_ENGINE = "engine";
+
+    @Value("${code.execution.javascript.in-process.enabled:false}")
+    private boolean enabled;
+
+    @Value("${code.execution.javascript.in-process.pool-size:4}")
+    private int poolSize;
+
+    @Value("${code.execution.javascript.in-process.max-source-bytes:16384}")
+    private int maxSourceBytes;
+
+    @Value("${code.execution.javascript.in-process.statement-limit:1000000}")
+    private long statementLimit;
+
+    @Value("${code.execution.javascript.in-process.cpu-budget-ms:2000}")
+    private long cpuBudgetMs;
+
+    @Value("${code.execution.javascript.in-process.max-allocation-mb:256}")
+    private long maxAllocationMb;
+
+    @Value("${code.execution.javascript.in-process.watchdog-interval-ms:10}")
+    private long watchdogIntervalMs;
+
+    @Value("${code.execution.output.max-bytes:1048576}")
+    private long maxOutputBytes;
+
+    @Value("${code.execution.output.buffer-bytes:65536}")
+    private int outputBufferBytes;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final BlockingQueue<PreparedContext> idle = new LinkedBlockingQueue<>();
+
+    private final Set<Run> running = ConcurrentHashMap.newKeySet();
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    private String consoleScript;
+    private volatile Engine engine;
+    private ResourceLimits limits;
+    private ExecutorService preparer;
+    private ScheduledExecutorService watchdog;
+
+    @PostConstruct
+    void initialize() {
+        if (!enabled) {
+            return;
+        }
+        consoleScript = loadScript("console.js");
+        // Without the Graal compiler in the JVM GraalJS only interprets, which short programs don't notice
+        engine = Engine.newBuilder("js").option("engine.WarnInterpreterOnly", "false").build();
+        // The console script is internal, so only the program's statements count
+        limits = ResourceLimits.newBuilder()
+            .statementLimit(statementLimit, source -> !source.isInternal())
+            .build();
+
+        preparer = Executors.newSingleThreadExecutor(daemon("graaljs-contexts"));
+        watchdog = Executors.newSingleThreadScheduledExecutor(daemon("graaljs-watchdog"));
+        watchdog.scheduleAtFixedRate(this::watch, watchdogIntervalMs, watchdogIntervalMs, TimeUnit.MILLISECONDS);
+        meterRegistry.gauge("code.execution.graaljs.contexts.idle", idle, BlockingQueue::size);
+        replenish();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (engine == null) {
+            return;
+        }
+        watchdog.shutdownNow();
+        preparer.shutdownNow();
+        PreparedContext prepared;
+        while ((prepared = idle.poll()) != null) {
+            prepared.context.close();
+        }
+        engine.close(true);
+        engine = null;
+    }
+
+    public boolean isEnabled() {
+        return engine != null;
+    }
+
+    /**
+     * Run a program in a pooled context
+     *
+     * @return the response, or null when the program has to run in a container instead
+     */
+    public CodeExecutionResponse run(String source, int timeoutSeconds, OutputListener outputListener) {
+        if (source.getBytes(StandardCharsets.UTF_8).length > maxSourceBytes) {
+            return fallback(FALLBACK_SOURCE_SIZE);
+        }
+        if (needsNode(source)) {
+            return fallback(FALLBACK_NODE);
+        }
+
+        long acquireStart = System.nanoTime();
+        PreparedContext prepared = idle.poll();
+        replenish();
+        try {
+            if (prepared == null) {
+                prepared = prepare();
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not create a GraalJS context: {}", e.getMessage());
+            return fallback(FALLBACK_ENGINE);
+        }
+        long startupMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - acquireStart);
+
+        Run run = new Run(prepared, timeoutSeconds);
+        running.add(run);
+        PolyglotException failure = null;
+        boolean unsupported;
+        try {
+            try {
+                prepared.context.eval(Source.newBuilder("js", source, FILE_NAME).buildLiteral());
+            } catch (PolyglotException e) {
+                failure = e;
+            }
+            run.finish();
+            unsupported = run.getStop() == null && !isEngineLimit(failure) && prepared.isUnsupported();
+        } catch (PolyglotException e) {
+            unsupported = true;
+        } finally {
+            running.remove(run);
+            prepared.context.close(true);
+        }
+
+        Stop stop = run.getStop();
+        BoundedOutputCapture capture = prepared.capture;
+        CodeExecutionResponse response;
+        if (capture.isLimitExceeded()) {
+            response = CodeExecutionResponse.outputLimitExceeded(capture.getText(OutputListener.STDOUT), maxOutputBytes);
+        } else if (stop == Stop.TIMEOUT) {
+            response = CodeExecutionResponse.timeout();
+        } else if (stop == Stop.CPU_BUDGET) {
+            return fallback(FALLBACK_CPU);
+        } else if (stop == Stop.ALLOCATION) {
+            return fallback(FALLBACK_ALLOCATION);
+        } else if (isEngineLimit(failure)) {
+            // The statement limit, or the JVM running out of memory or stack for the program
+            return fallback(FALLBACK_STATEMENTS);
+        } else if (unsupported) {
+            // The output lacks whatever the console could not print like node
+            return fallback(FALLBACK_CONSOLE);
+        } else if (failure == null) {
+            response = CodeExecutionResponse.success(capture.getText(OutputListener.STDOUT), 0);
+        } else if (failure.isGuestException()) {
+            response = CodeExecutionResponse.runtimeError(capture.getText(OutputListener.STDERR) + describe(failure));
+        } else {
+            logger.warn("GraalJS failed to run a program", failure);
+            return fallback(FALLBACK_ENGINE);
+        }
+
+        response.setOutputTruncated(capture.isTruncated());
+        response.setResourceUsage(usage(run, capture, startupMs));
+        meterRegistry.counter("code.execution.graaljs.runs", "outcome", response.getStatus().name().toLowerCase(Locale.ROOT))
+            .increment();
+        if (outputListener != null) {
+            // Published once the run is over, since a run that falls back must not have shown output
+            publish(outputListener, OutputListener.STDOUT, capture.getText(OutputListener.STDOUT));
+            publish(outputListener, OutputListener.STDERR, capture.getText(OutputListener.STDERR));
+        }
+        return response;
+    }
+
+    /**
+     * Whether the program uses node APIs or asynchronous code the in-process runner lacks
+     */
+    static boolean needsNode(String source) {
+        boolean[] found = new boolean[1];
+        SourceTokenizer.tokenize(source, CodeExecutionRequest.Language.JAVASCRIPT, token -> {
+            found[0] = NODE_ONLY.contains(token);
+            return !found[0];
+        });
+        return found[0];
+    }
+
+    private static boolean isEngineLimit(PolyglotException failure) {
+        return failure != null && failure.isResourceExhausted();
+    }
+
+    /**
+     * A fresh context with the node-compatible console installed and its own output capture
+     */
+    private PreparedContext prepare() {
+        BoundedOutputCapture capture = new BoundedOutputCapture(outputBufferBytes, maxOutputBytes, null, () -> { });
+        Context context = Context.newBuilder("js")
+            .engine(engine)
+            .allowHostAccess(HostAccess.NONE)
+            .allowHostClassLookup(className -> false)
+            .allowIO(IOAccess.NONE)
+            .allowCreateThread(false)
+            .allowCreateProcess(false)
+            .allowNativeAccess(false)
+            .allowEnvironmentAccess(EnvironmentAccess.NONE)
+            .allowPolyglotAccess(PolyglotAccess.NONE)
+            .resourceLimits(limits)
+            .in(InputStream.nullInputStream())
+            .out(capture.sink(OutputListener.STDOUT))
+            .err(capture.sink(OutputListener.STDERR))
+            .build();
+        try {
+            org.graalvm.polyglot.Value console = context.eval(
+                Source.newBuilder("js", consoleScript, "console.js").internal(true).buildLiteral()
+            );
+            return new PreparedContext(context, console, capture);
+        } catch (RuntimeException e) {
+            context.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Top the pool up in the background
+     */
+    private void replenish() {
+        try {
+            preparer.execute(() -> {
+                try {
+                    while (idle.size() < poolSize) {
+                        idle.add(prepare());
+                    }
+                } catch (RuntimeException e) {
+                    logger.warn("Could not prepare a GraalJS context: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    /**
+     * Stop runs that hit the time limit, the output cap or an in-process budget
+     */
+    private void watch() {
+        long now = System.nanoTime();
+        for (Run run : running) {
+            try {
+                Stop stop = run.check(now);
+                if (stop != null) {
+                    run.stop(stop);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("GraalJS watchdog failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The uncaught error the way node reports it: location, source line with a caret under the
+     * failing column, then the error
+     */
+    private static String describe(PolyglotException e) {
+        StringBuilder text = new StringBuilder();
+        SourceSection location = programLocation(e);
+        if (location != null) {
+            Source source = location.getSource();
+            int line = location.getStartLine();
+            text.append(source.getName()).append(':').append(line).append('\n')
+                .append(source.getCharacters(line)).append('\n')
+                .append(" ".repeat(Math.max(0, location.getStartColumn() - 1))).append("^\n\n");
+        }
+        return text.append(e.getMessage()).append('\n').toString();
+    }
+
+    /**
+     * Where in the student's program the error happened: its own location, or else the innermost
+     * frame of the program, skipping the internal console script
+     */
+    private static SourceSection programLocation(PolyglotException e) {
+        if (isProgramLocation(e.getSourceLocation())) {
+            return e.getSourceLocation();
+        }
+        for (PolyglotException.StackFrame frame : e.getPolyglotStackTrace()) {
+            if (frame.isGuestFrame() && isProgramLocation(frame.getSourceLocation())) {
+                return frame.getSourceLocation();
+            }
+        }
+        return null;
+    }
+
+    private static boolean isProgramLocation(SourceSection location) {
+        return location != null && location.isAvailable() && !location.getSource().isInternal();
+    }
+
+    private ResourceUsage usage(Run run, BoundedOutputCapture capture, long startupMs) {
+        ResourceUsage usage = new ResourceUsage();
+        usage.setSandboxStartupMs(startupMs);
+        usage.setStdoutBytes(capture.getBytes(OutputListener.STDOUT));
+        usage.setStderrBytes(capture.getBytes(OutputListener.STDERR));
+        if (run.cpuStartNanos >= 0) {
+            long cpuMs = TimeUnit.NANOSECONDS.toMillis(threadBean.getCurrentThreadCpuTime() - run.cpuStartNanos);
+            long userMs = TimeUnit.NANOSECONDS.toMillis(threadBean.getCurrentThreadUserTime() - run.userStartNanos);
+            usage.setCpuUserMs(userMs);
+            usage.setCpuSystemMs(Math.max(0, cpuMs - userMs));
+        }
+        return usage;
+    }
+
+    private CodeExecutionResponse fallback(String reason) {
+        meterRegistry.counter("code.execution.graaljs.fallbacks", "reason", reason).increment();
+        return null;
+    }
+
+    private static void publish(OutputListener listener, String stream, String text) {
+        if (text.isEmpty()) {
+            return;
+        }
+        try {
+            listener.onOutput(stream, text);
+        } catch (RuntimeException e) {
+            logger.debug("Output listener failed", e);
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static String loadScript(String name) {
+        try (InputStream in = GraalJsRunner.class.getResourceAsStream("/graaljs/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing GraalJS script " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private enum Stop {
+        TIMEOUT,
+        OUTPUT_LIMIT,
+        CPU_BUDGET,
+        ALLOCATION
+    }
+
+    /**
+     * A context ready for a program, with the console's handle and the capture of its output
+     */
+    private static class PreparedContext {
+
+        private final Context context;
+        private final org.graalvm.polyglot.Value console;
+        private final BoundedOutputCapture capture;
+
+        PreparedContext(Context context, org.graalvm.polyglot.Value console, BoundedOutputCapture capture) {
+            this.context = context;
+            this.console = console;
+            this.capture = capture;
+        }
+
+        boolean isUnsupported() {
+            return console.getMember("isUnsupported").execute().asBoolean();
+        }
+    }
+
+    /**
+     * A program being run, as seen by the watchdog
+     * CPU time and allocation are measured on the thread running the program; virtual
+     * threads report neither, and are then only held to the time limit
+     */
+    private class Run {
+
+        private final PreparedContext prepared;
+        private final long threadId = Thread.currentThread().threadId();
+        private final long startNanos = System.nanoTime();
+        private final long deadlineNanos;
+        private final long cpuStartNanos = threadBean.getCurrentThreadCpuTime();
+        private final long userStartNanos = threadBean.getCurrentThreadUserTime();
+        private final long allocatedStart = allocatedBytes();
+
+        private Stop stop;
+        private boolean finished;
+
+        Run(PreparedContext prepared, int timeoutSeconds) {
+            this.prepared = prepared;
+            this.deadlineNanos = startNanos + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        }
+
+        Stop check(long now) {
+            if (prepared.capture.isLimitExceeded()) {
+                return Stop.OUTPUT_LIMIT;
+            }
+            if (now - deadlineNanos > 0) {
+                return Stop.TIMEOUT;
+            }
+            long cpuNanos = cpuStartNanos >= 0 ? threadBean.getThreadCpuTime(threadId) : -1;
+            if (cpuNanos >= 0 && cpuNanos - cpuStartNanos > TimeUnit.MILLISECONDS.toNanos(cpuBudgetMs)) {
+                return Stop.CPU_BUDGET;
+            }
+            long allocated = allocatedStart >= 0 ? allocatedBytes() : -1;
+            if (allocated >= 0 && allocated - allocatedStart > maxAllocationMb * 1024 * 1024) {
+                return Stop.ALLOCATION;
+            }
+            return null;
+        }
+
+        void stop(Stop reason) {
+            synchronized (this) {
+                if (finished || stop != null) {
+                    return;
+                }
+                stop = reason;
+            }
+            prepared.context.close(true);
+        }
+
+        synchronized void finish() {
+            finished = true;
+        }
+
+        synchronized Stop getStop() {
+            return stop;
+        }
+
+        private long allocatedBytes() {
+            return threadBean instanceof com.sun.management.ThreadMXBean allocation
+                ? allocation.getThreadAllocatedBytes(threadId)
+                : -1;
+        }
+    }
+}
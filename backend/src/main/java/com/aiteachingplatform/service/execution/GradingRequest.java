@@ -0,0 +1,66 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import com.aiteachingplatform.dto.CodeExecutionResponse;
+import com.aiteachingplatform.dto.TestCaseResult;
+import com.aiteachingplatform.dto.TestRunResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A practice question submission together with the test cases it is graded against
+ * Queued as one JSON document, so a worker grades it without looking up the question
+ */
+public class GradingRequest {
+
+    private CodeExecutionRequest request;
+    private List<TestCase> testCases = new ArrayList<>();
+    private boolean stopOnFirstFailure;
+
+    public GradingRequest() {}
+
+    public GradingRequest(CodeExecutionRequest request, List<TestCase> testCases, boolean stopOnFirstFailure) {
+        this.request = request;
+        this.testCases = testCases;
+        this.stopOnFirstFailure = stopOnFirstFailure;
+    }
+
+    /**
+     * The response of a grading that never ran, with every test case skipped
+     */
+    public TestRunResponse notRun(CodeExecutionResponse failure) {
+        List<TestCaseResult> skipped = new ArrayList<>();
+        for (int i = 0; i < testCases.size(); i++) {
+            TestCase testCase = testCases.get(i);
+            skipped.add(new TestCaseResult(
+                i, TestCaseResult.Status.SKIPPED, testCase.getInput(), testCase.getExpectedOutput()
+            ));
+        }
+        return TestRunResponse.notRun(failure, skipped);
+    }
+
+    public CodeExecutionRequest getRequest() {
+        return request;
+    }
+
+    public void setRequest(CodeExecutionRequest request) {
+        this.request = request;
+    }
+
+    public List<TestCase> getTestCases() {
+        return testCases;
+    }
+
+    public void setTestCases(List<TestCase> testCases) {
+        this.testCases = testCases;
+    }
+
+    public boolean isStopOnFirstFailure() {
+        return stopOnFirstFailure;
+    }
+
+    public void setStopOnFirstFailure(boolean stopOnFirstFailure) {
+        this.stopOnFirstFailure = stopOnFirstFailure;
+    }
+}
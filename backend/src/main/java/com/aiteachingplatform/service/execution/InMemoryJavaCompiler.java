@@ -0,0 +1,215 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CompilationDiagnostic;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.lang.model.SourceVersion;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Compiles student Java sources inside the backend JVM with the javax.tools API
+ * Sources and class files never touch the disk, so a compilation error costs no
+ * container start at all
+ */
+@Component
+public class InMemoryJavaCompiler {
+
+    @Value("${code.execution.java.release:21}")
+    private int targetRelease;
+
+    @Value("${code.execution.java.compile-threads:2}")
+    private int compileThreads;
+
+    private final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+    private volatile ExecutorService compileExecutor;
+
+    /**
+     * Whether javac is present (a JRE-only runtime has none) and can target the sandbox JVM
+     */
+    public boolean isAvailable() {
+        return compiler != null && SourceVersion.latestSupported().ordinal() >= targetRelease;
+    }
+
+    /**
+     * Compile a single compilation unit
+     */
+    public JavaCompilationResult compile(String className, String source, int timeoutSeconds) {
+        Future<JavaCompilationResult> compilation = executor().submit(() -> doCompile(className, source));
+        try {
+            return compilation.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            // javac is not interruptible; the task finishes in the background
+            compilation.cancel(true);
+            return JavaCompilationResult.timeout();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            compilation.cancel(true);
+            return JavaCompilationResult.timeout();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("In-process compilation failed", e.getCause());
+        }
+    }
+
+    /**
+     * Options passed to javac; part of the compiled artifact cache key
+     */
+    public List<String> getCompilerFlags() {
+        return Arrays.asList(
+            "--release", String.valueOf(targetRelease),
+            "-proc:none", // Never run annotation processors on student code
+            "-Xlint:none"
+        );
+    }
+
+    private JavaCompilationResult doCompile(String className, String source) throws IOException {
+        DiagnosticCollector<JavaFileObject> collector = new DiagnosticCollector<>();
+        List<String> options = getCompilerFlags();
+
+        try (StandardJavaFileManager standardManager =
+                 compiler.getStandardFileManager(collector, Locale.ENGLISH, StandardCharsets.UTF_8);
+             InMemoryClassFileManager fileManager = new InMemoryClassFileManager(standardManager)) {
+
+            JavaCompiler.CompilationTask task = compiler.getTask(
+                null, fileManager, collector, options, null,
+                Collections.singletonList(new SourceFile(className, source))
+            );
+            boolean success = task.call();
+
+            return new JavaCompilationResult(
+                success, false, success ? fileManager.getClassFiles() : Collections.emptyMap(),
+                toDiagnostics(collector)
+            );
+        }
+    }
+
+    private List<CompilationDiagnostic> toDiagnostics(DiagnosticCollector<JavaFileObject> collector) {
+        List<CompilationDiagnostic> diagnostics = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : collector.getDiagnostics()) {
+            diagnostics.add(new CompilationDiagnostic(
+                position(diagnostic.getLineNumber()),
+                position(diagnostic.getColumnNumber()),
+                diagnostic.getMessage(Locale.ENGLISH),
+                severity(diagnostic.getKind())
+            ));
+        }
+        return diagnostics;
+    }
+
+    private Integer position(long value) {
+        return value == Diagnostic.NOPOS ? null : (int) value;
+    }
+
+    private CompilationDiagnostic.Severity severity(Diagnostic.Kind kind) {
+        switch (kind) {
+            case ERROR:
+                return CompilationDiagnostic.Severity.ERROR;
+            case WARNING:
+            case MANDATORY_WARNING:
+                return CompilationDiagnostic.Severity.WARNING;
+            default:
+                return CompilationDiagnostic.Severity.INFO;
+        }
+    }
+
+    private ExecutorService executor() {
+        if (compileExecutor == null) {
+            synchronized (this) {
+                if (compileExecutor == null) {
+                    compileExecutor = Executors.newFixedThreadPool(Math.max(1, compileThreads), runnable -> {
+                        Thread thread = new Thread(runnable, "java-compiler");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return compileExecutor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (compileExecutor != null) {
+            compileExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Source file backed by a string
+     */
+    private static class SourceFile extends SimpleJavaFileObject {
+
+        private final String source;
+
+        SourceFile(String className, String source) {
+            super(URI.create("string:///" + className + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+
+    /**
+     * File manager that captures generated class files in memory
+     */
+    private static class InMemoryClassFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+        private final Map<String, ByteArrayOutputStream> classFiles = new LinkedHashMap<>();
+
+        InMemoryClassFileManager(StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(JavaFileManager.Location location, String className,
+                                                   JavaFileObject.Kind kind, FileObject sibling) {
+            return new SimpleJavaFileObject(
+                    URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    ByteArrayOutputStream output = new ByteArrayOutputStream();
+                    classFiles.put(className, output);
+                    return output;
+                }
+            };
+        }
+
+        Map<String, byte[]> getClassFiles() {
+            Map<String, byte[]> result = new LinkedHashMap<>();
+            classFiles.forEach((name, bytes) -> result.put(name, bytes.toByteArray()));
+            return result;
+        }
+    }
+}
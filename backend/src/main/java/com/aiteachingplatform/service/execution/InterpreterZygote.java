@@ -0,0 +1,323 @@
+package com.aiteachingplatform.service.execution;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Client of a long-lived interpreter ("zygote") running inside a pooled sandbox
+ * The zygote starts each program in a fresh child process (a fork for Python, a pre-booted
+ * interpreter for Node) or, for Java, in a fresh classloader of a warm JVM worker, so
+ * interpreter startup is not paid per run. Programs, their stdin,
+ * output and exit codes travel as frames over the zygote's stdin and stdout:
+ * 1 byte type, 4 byte big-endian length, payload. The scripts are in resources/zygote.
+ * An exit frame may carry a fifth byte, set when the zygote exits after that run.
+ * A zygote runs one program at a time, matching the exclusive lease of its sandbox
+ */
+public class InterpreterZygote {
+
+    private static final Logger logger = LoggerFactory.getLogger(InterpreterZygote.class);
+
+    // Frames sent to the zygote
+    static final int RUN = 1;
+    static final int STDIN = 2;
+    static final int STDIN_EOF = 3;
+    static final int KILL = 4;
+
+    // Frames received from the zygote
+    static final int STDOUT = 1;
+    static final int STDERR = 2;
+    static final int EXIT = 3;
+
+    private static final int PIPE_BUFFER_BYTES = 64 * 1024;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final SandboxProcess server;
+    private final String name;
+    private final DataOutputStream control;
+    private final ReentrantLock controlLock = new ReentrantLock();
+    private volatile ZygoteRun current;
+    private volatile boolean closed;
+    private volatile int runs;
+
+    /**
+     * Attach to a started zygote; its output is read on the given executor until it exits
+     */
+    InterpreterZygote(SandboxProcess server, String name, Executor executor) {
+        this.server = server;
+        this.name = name;
+        this.control = new DataOutputStream(server.getStdin());
+        executor.execute(this::readFrames);
+        executor.execute(this::logErrors);
+    }
+
+    /**
+     * Whether the zygote can accept another run
+     */
+    public boolean isAlive() {
+        return !closed;
+    }
+
+    /**
+     * Number of programs started so far
+     */
+    public int getRuns() {
+        return runs;
+    }
+
+    /**
+     * Start a program; the returned process behaves like a direct run of the interpreter
+     *
+     * @param argv script and arguments, relative to the workspace
+     * @param cpuSeconds CPU time limit of the child, or 0 for none
+     */
+    public SandboxProcess run(List<String> argv, int cpuSeconds) throws IOException {
+        if (closed) {
+            throw new IOException("Zygote " + name + " has exited");
+        }
+        if (current != null) {
+            throw new IllegalStateException("Zygote " + name + " is already running a program");
+        }
+
+        Map<String, Object> spec = new LinkedHashMap<>();
+        spec.put("argv", argv);
+        spec.put("cpuSeconds", cpuSeconds);
+
+        ZygoteRun run = new ZygoteRun();
+        current = run;
+        runs++;
+        try {
+            send(RUN, objectMapper.writeValueAsBytes(spec));
+        } catch (IOException e) {
+            current = null;
+            close();
+            throw e;
+        }
+        return run;
+    }
+
+    /**
+     * Stop the zygote and its current program
+     */
+    public void close() {
+        closed = true;
+        server.destroy();
+    }
+
+    private void send(int type, byte[] payload) throws IOException {
+        // A lock rather than a monitor so a virtual thread writing to the zygote does not pin its carrier
+        controlLock.lock();
+        try {
+            control.writeByte(type);
+            control.writeInt(payload.length);
+            control.write(payload);
+            control.flush();
+        } finally {
+            controlLock.unlock();
+        }
+    }
+
+    private void readFrames() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(server.getStdout()))) {
+            while (true) {
+                int type = in.read();
+                if (type < 0) {
+                    break;
+                }
+                byte[] payload = new byte[in.readInt()];
+                in.readFully(payload);
+
+                ZygoteRun run = current;
+                if (run == null) {
+                    continue;
+                }
+                switch (type) {
+                    case STDOUT:
+                        run.deliver(run.stdoutSink, payload);
+                        break;
+                    case STDERR:
+                        run.deliver(run.stderrSink, payload);
+                        break;
+                    case EXIT:
+                        if (payload.length > 4 && payload[4] != 0) {
+                            // Retiring; no further run may be sent to it
+                            closed = true;
+                        }
+                        // Free the zygote before waking the caller, who may start the next run at once
+                        current = null;
+                        run.exit(ByteBuffer.wrap(payload).getInt());
+                        break;
+                    default:
+                        throw new IOException("Unknown frame type " + type);
+                }
+            }
+        } catch (EOFException e) {
+            logger.debug("Zygote {} closed its output mid-frame", name);
+        } catch (IOException e) {
+            logger.debug("Zygote {} stream ended: {}", name, e.getMessage());
+        } finally {
+            closed = true;
+            ZygoteRun run = current;
+            current = null;
+            if (run != null) {
+                run.fail(new IOException("Zygote " + name + " exited during the run"));
+            }
+            server.destroy();
+        }
+    }
+
+    private void logErrors() {
+        // The zygote only writes to stderr when it fails; reading also keeps the stream from filling up
+        try (InputStream in = server.getStderr()) {
+            byte[] chunk = new byte[4096];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                logger.warn("Zygote {}: {}", name, new String(chunk, 0, read, StandardCharsets.UTF_8).trim());
+            }
+        } catch (IOException e) {
+            logger.debug("Zygote {} error stream ended: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * One program started by the zygote
+     */
+    private class ZygoteRun implements SandboxProcess {
+
+        private final StreamPipe stdout = new StreamPipe(PIPE_BUFFER_BYTES);
+        private final StreamPipe stderr = new StreamPipe(PIPE_BUFFER_BYTES);
+        private final OutputStream stdoutSink = stdout.sink();
+        private final OutputStream stderrSink = stderr.sink();
+        private final CompletableFuture<Integer> exitCode = new CompletableFuture<>();
+        private final OutputStream stdin = new FramedStdin();
+
+        void deliver(OutputStream sink, byte[] payload) {
+            try {
+                sink.write(payload);
+            } catch (IOException e) {
+                // The reader stopped reading; the rest of this stream is dropped
+            }
+        }
+
+        void exit(int code) {
+            closeSinks();
+            exitCode.complete(code);
+        }
+
+        void fail(Throwable failure) {
+            closeSinks();
+            exitCode.completeExceptionally(failure);
+        }
+
+        private void closeSinks() {
+            try {
+                stdoutSink.close();
+                stderrSink.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close zygote output: {}", e.getMessage());
+            }
+        }
+
+        @Override
+        public OutputStream getStdin() {
+            return stdin;
+        }
+
+        @Override
+        public InputStream getStdout() {
+            return stdout.source();
+        }
+
+        @Override
+        public InputStream getStderr() {
+            return stderr.source();
+        }
+
+        @Override
+        public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+            try {
+                exitCode.get(timeout, unit);
+                return true;
+            } catch (TimeoutException e) {
+                return false;
+            } catch (ExecutionException e) {
+                // The exit status is lost but the program is gone
+                return true;
+            }
+        }
+
+        @Override
+        public int exitValue() {
+            if (!exitCode.isDone()) {
+                throw new IllegalThreadStateException("Sandboxed program has not exited");
+            }
+            try {
+                return exitCode.join();
+            } catch (RuntimeException e) {
+                throw new IllegalStateException("Exit status of the sandboxed program is unknown", e.getCause());
+            }
+        }
+
+        @Override
+        public void destroy() {
+            if (exitCode.isDone()) {
+                return;
+            }
+            try {
+                send(KILL, new byte[0]);
+            } catch (IOException e) {
+                // An unresponsive zygote is stopped along with its program
+                close();
+            }
+        }
+
+        /**
+         * Program stdin; closing it sends EOF to the program
+         */
+        private class FramedStdin extends OutputStream {
+
+            private boolean eofSent;
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (len > 0) {
+                    send(STDIN, Arrays.copyOfRange(b, off, off + len));
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (!eofSent) {
+                    eofSent = true;
+                    send(STDIN_EOF, new byte[0]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CompilationDiagnostic;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Outcome of an in-process javac run: class files keyed by binary name plus diagnostics
+ */
+public class JavaCompilationResult {
+
+    private final boolean success;
+    private final boolean timedOut;
+    private final Map<String, byte[]> classFiles;
+    private final List<CompilationDiagnostic> diagnostics;
+
+    JavaCompilationResult(boolean success, boolean timedOut, Map<String, byte[]> classFiles,
+                          List<CompilationDiagnostic> diagnostics) {
+        this.success = success;
+        this.timedOut = timedOut;
+        this.classFiles = classFiles;
+        this.diagnostics = diagnostics;
+    }
+
+    static JavaCompilationResult timeout() {
+        return new JavaCompilationResult(false, true, Collections.emptyMap(), Collections.emptyList());
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    public Map<String, byte[]> getClassFiles() {
+        return classFiles;
+    }
+
+    public List<CompilationDiagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * Error diagnostics in javac's familiar {@code Main.java:line:col: error: message} form
+     */
+    public String formatErrors(String fileName) {
+        return diagnostics.stream()
+            .filter(diagnostic -> diagnostic.getSeverity() == CompilationDiagnostic.Severity.ERROR)
+            .map(diagnostic -> fileName + ":" + diagnostic)
+            .collect(Collectors.joining("\n"));
+    }
+}
@@ -0,0 +1,169 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import com.aiteachingplatform.model.Lesson;
+import com.aiteachingplatform.model.PracticeQuestion;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A runnable example of a lesson: a fenced code block of its content in a language we run,
+ * or the starter code of one of its practice questions
+ * Starter code carries no language of its own; it is taken to be in the language of the
+ * lesson's code blocks, and skipped when those mix languages
+ */
+public class LessonExample {
+
+    private static final String FENCE = "```";
+
+    private static final Map<String, CodeExecutionRequest.Language> FENCE_LANGUAGES = Map.of(
+        "java", CodeExecutionRequest.Language.JAVA,
+        "python", CodeExecutionRequest.Language.PYTHON,
+        "py", CodeExecutionRequest.Language.PYTHON,
+        "javascript", CodeExecutionRequest.Language.JAVASCRIPT,
+        "js", CodeExecutionRequest.Language.JAVASCRIPT,
+        "cpp", CodeExecutionRequest.Language.CPP,
+        "c++", CodeExecutionRequest.Language.CPP
+    );
+
+    private final CodeExecutionRequest.Language language;
+    private final Lesson.Difficulty difficulty;
+    private final String code;
+    private final String hash;
+
+    LessonExample(CodeExecutionRequest.Language language, Lesson.Difficulty difficulty, String code) {
+        this.language = language;
+        this.difficulty = difficulty;
+        this.code = code;
+        this.hash = hashOf(language, difficulty, code);
+    }
+
+    public CodeExecutionRequest.Language getLanguage() {
+        return language;
+    }
+
+    public Lesson.Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * The request a student sends when running this example from the lesson
+     */
+    public CodeExecutionRequest toRequest() {
+        CodeExecutionRequest request = new CodeExecutionRequest(code, language);
+        request.setDifficulty(difficulty);
+        return request;
+    }
+
+    /**
+     * The runnable examples of a lesson, in order and without duplicates
+     */
+    public static List<LessonExample> extract(Lesson lesson, List<PracticeQuestion> practiceQuestions) {
+        Map<String, LessonExample> examples = new LinkedHashMap<>();
+        Set<CodeExecutionRequest.Language> languages = new LinkedHashSet<>();
+        for (String[] block : codeBlocks(lesson.getContent())) {
+            CodeExecutionRequest.Language language = FENCE_LANGUAGES.get(block[0]);
+            if (language != null && !block[1].isBlank()) {
+                languages.add(language);
+                LessonExample example = new LessonExample(language, lesson.getDifficulty(), block[1]);
+                examples.putIfAbsent(example.getHash(), example);
+            }
+        }
+
+        if (languages.size() == 1) {
+            CodeExecutionRequest.Language language = languages.iterator().next();
+            for (PracticeQuestion question : practiceQuestions) {
+                String starterCode = question.getStarterCode();
+                if (starterCode != null && !starterCode.isBlank()) {
+                    LessonExample example = new LessonExample(language, lesson.getDifficulty(), starterCode);
+                    examples.putIfAbsent(example.getHash(), example);
+                }
+            }
+        }
+        return new ArrayList<>(examples.values());
+    }
+
+    /**
+     * Identify one version of a lesson's examples
+     */
+    public static String versionOf(List<LessonExample> examples) {
+        MessageDigest digest = sha256();
+        for (LessonExample example : examples) {
+            digest.update(example.getHash().getBytes(StandardCharsets.US_ASCII));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Hash code the way it is matched against stored examples
+     * Line endings and trailing whitespace are ignored, since editors change them without
+     * changing the program; the difficulty only counts for C++, where it selects the compiler flags
+     */
+    public static String hashOf(CodeExecutionRequest.Language language, Lesson.Difficulty difficulty, String code) {
+        MessageDigest digest = sha256();
+        digest.update(language.getValue().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        if (language == CodeExecutionRequest.Language.CPP) {
+            // Code run outside a lesson compiles like beginner code
+            Lesson.Difficulty flags = difficulty != null ? difficulty : Lesson.Difficulty.BEGINNER;
+            digest.update(flags.name().getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+        digest.update(code.replace("\r\n", "\n").stripTrailing().getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Fenced code blocks of Markdown content as {fence language, code} pairs
+     */
+    static List<String[]> codeBlocks(String content) {
+        List<String[]> blocks = new ArrayList<>();
+        if (content == null) {
+            return blocks;
+        }
+
+        String fenceLanguage = null;
+        StringBuilder code = new StringBuilder();
+        for (String line : content.split("\r?\n", -1)) {
+            String trimmed = line.strip();
+            if (fenceLanguage == null) {
+                if (trimmed.startsWith(FENCE)) {
+                    fenceLanguage = trimmed.substring(FENCE.length()).strip().toLowerCase(Locale.ROOT);
+                    code.setLength(0);
+                }
+            } else if (trimmed.equals(FENCE)) {
+                blocks.add(new String[] {fenceLanguage, code.toString()});
+                fenceLanguage = null;
+            } else {
+                code.append(line).append('\n');
+            }
+        }
+        return blocks;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
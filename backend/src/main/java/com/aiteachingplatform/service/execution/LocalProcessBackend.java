@@ -0,0 +1,207 @@
+package com.aiteachingplatform.service.execution;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execution backend that runs programs as local processes, without Docker
+ * Meant for load tests and benchmarks of the execution pipeline on build machines:
+ * programs run with the host's toolchains under rlimits in their own process group,
+ * which is not an isolation boundary for untrusted code
+ */
+@Component
+public class LocalProcessBackend implements ExecutionBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalProcessBackend.class);
+
+    static final String PRIVATE_TMP_DIR = ".tmp";
+
+    @Value("${code.execution.timeout.seconds:10}")
+    private int timeoutSeconds;
+
+    @Value("${code.execution.local.address-space-mb:4096}")
+    private long addressSpaceMB;
+
+    @Value("${code.execution.local.max-file-mb:64}")
+    private long maxFileMB;
+
+    @Value("${code.execution.local.max-processes:1024}")
+    private int maxProcesses;
+
+    private volatile Boolean available;
+
+    @Override
+    public String getName() {
+        return "local";
+    }
+
+    /**
+     * Local execution needs Linux with bash and setsid on the PATH
+     */
+    @Override
+    public boolean isAvailable() {
+        if (available == null) {
+            available = System.getProperty("os.name", "").toLowerCase(Locale.ROOT).contains("linux")
+                && onPath("bash") && onPath("setsid");
+        }
+        return available;
+    }
+
+    /**
+     * Local runs have no long-lived sandboxes to reuse
+     */
+    @Override
+    public boolean supportsPooling() {
+        return false;
+    }
+
+    /**
+     * Programs are host processes; killing their process group stops them
+     */
+    @Override
+    public boolean runsContainers() {
+        return false;
+    }
+
+    @Override
+    public SandboxProcess launch(SandboxSpec spec) throws IOException {
+        if (spec.isPooled()) {
+            throw new IOException("The local backend does not run pooled sandboxes");
+        }
+
+        Path privateTmp = spec.getWorkspace().resolve(PRIVATE_TMP_DIR);
+        Files.createDirectories(privateTmp);
+        Files.setPosixFilePermissions(privateTmp, PosixFilePermissions.fromString("rwx------"));
+
+        ProcessBuilder builder = new ProcessBuilder(buildCommand(spec)).directory(spec.getWorkspace().toFile());
+        Map<String, String> environment = builder.environment();
+        String path = environment.get("PATH");
+        environment.clear();
+        environment.put("PATH", path != null ? path : "/usr/local/bin:/usr/bin:/bin");
+        environment.put("HOME", spec.getWorkspace().toString());
+        environment.put("TMPDIR", privateTmp.toString());
+        environment.put("LANG", "C.UTF-8");
+        // Volumes have no local equivalent; programs see the host's directories
+        environment.putAll(spec.getEnvironment());
+
+        return new LocalSandboxProcess(builder.start());
+    }
+
+    @Override
+    public String startSandbox(SandboxSpec spec) throws IOException {
+        throw new IOException("The local backend does not run pooled sandboxes");
+    }
+
+    @Override
+    public void removeSandbox(String containerId) throws IOException {
+        throw new IOException("The local backend does not run pooled sandboxes");
+    }
+
+    /**
+     * setsid gives the program its own session and process group, so the whole tree can
+     * be killed; bash applies the rlimits before exec'ing the program
+     */
+    List<String> buildCommand(SandboxSpec spec) {
+        // CPU time backstops the wall-clock timeout enforced by the caller
+        String limits = "ulimit -t " + (timeoutSeconds + 1)
+            + " && ulimit -v " + addressSpaceMB * 1024
+            + " && ulimit -f " + maxFileMB * 1024
+            + " && ulimit -u " + maxProcesses
+            + " && exec \"$@\"";
+
+        List<String> command = new ArrayList<>();
+        command.add("setsid");
+        command.add("bash");
+        command.add("-c");
+        command.add(limits);
+        command.add("sandbox"); // $0
+        command.addAll(spec.getCommand());
+        return command;
+    }
+
+    private static boolean onPath(String executable) {
+        String path = System.getenv("PATH");
+        if (path == null) {
+            return false;
+        }
+        for (String dir : path.split(":")) {
+            if (!dir.isEmpty() && Files.isExecutable(Paths.get(dir, executable))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A local program; destroying it kills its whole process group
+     */
+    private static class LocalSandboxProcess implements SandboxProcess {
+
+        private final Process process;
+
+        LocalSandboxProcess(Process process) {
+            this.process = process;
+        }
+
+        @Override
+        public OutputStream getStdin() {
+            return process.getOutputStream();
+        }
+
+        @Override
+        public InputStream getStdout() {
+            return process.getInputStream();
+        }
+
+        @Override
+        public InputStream getStderr() {
+            return process.getErrorStream();
+        }
+
+        @Override
+        public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+            return process.waitFor(timeout, unit);
+        }
+
+        @Override
+        public int exitValue() {
+            return process.exitValue();
+        }
+
+        @Override
+        public void destroy() {
+            // The process group id is the program's pid, since setsid made it a session leader;
+            // killing the group also catches children that were re-parented away from it
+            try {
+                Process kill = new ProcessBuilder("kill", "-KILL", "--", "-" + process.pid())
+                    .redirectErrorStream(true)
+                    .start();
+                kill.getInputStream().close();
+                if (!kill.waitFor(5, TimeUnit.SECONDS)) {
+                    kill.destroyForcibly();
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to kill process group {}", process.pid(), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single-pass screen for code whose output can change from one run to the next
+ * Looks for the usual sources: random numbers, the clock, the environment, threads and
+ * identity hashes, matched as token sequences like {@link CodeSecurityScanner}'s rules,
+ * and Python set displays, whose iteration order follows string hash randomization.
+ * Only code without any of them is treated as deterministic, so its result may be reused
+ * for identical requests; the screen errs towards running code again
+ */
+public class NondeterminismScanner {
+
+    private static final String[] JAVA_SOURCES = {
+        "Random", "SecureRandom", "ThreadLocalRandom", "SplittableRandom", "Math.random", "UUID",
+        "System.currentTimeMillis", "System.nanoTime", "System.getenv", "System.getProperty",
+        "System.identityHashCode", "hashCode", "Instant", "Clock", "Date", "Calendar", "LocalDate",
+        "LocalTime", "LocalDateTime", "ZonedDateTime", "OffsetDateTime", "Year", "YearMonth",
+        "Thread", "Executors", "ExecutorService", "ForkJoinPool", "CompletableFuture", "parallel",
+        "parallelStream", "Object("
+    };
+
+    private static final String[] PYTHON_SOURCES = {
+        "random", "secrets", "uuid", "time", "datetime", "hash", "id(", "set", "frozenset",
+        "threading", "concurrent", "asyncio", "environ", "getenv"
+    };
+
+    private static final String[] JAVASCRIPT_SOURCES = {
+        "Math.random", "crypto", "Date", "performance", "setTimeout", "setInterval",
+        "setImmediate", "queueMicrotask", "Promise", "async", "await", "WeakRef"
+    };
+
+    private static final String[] CPP_SOURCES = {
+        "rand", "srand", "random", "random_device", "time", "ctime", "clock", "chrono", "getenv",
+        "getpid", "thread", "async", "future", "pthread.h"
+    };
+
+    private final Map<CodeExecutionRequest.Language, TokenSequenceMatcher> matchers =
+        new EnumMap<>(CodeExecutionRequest.Language.class);
+
+    public NondeterminismScanner() {
+        matchers.put(CodeExecutionRequest.Language.JAVA, compile(JAVA_SOURCES, CodeExecutionRequest.Language.JAVA));
+        matchers.put(CodeExecutionRequest.Language.PYTHON,
+            compile(PYTHON_SOURCES, CodeExecutionRequest.Language.PYTHON));
+        matchers.put(CodeExecutionRequest.Language.JAVASCRIPT,
+            compile(JAVASCRIPT_SOURCES, CodeExecutionRequest.Language.JAVASCRIPT));
+        matchers.put(CodeExecutionRequest.Language.CPP, compile(CPP_SOURCES, CodeExecutionRequest.Language.CPP));
+    }
+
+    /**
+     * Whether the code's output depends only on the code and its stdin
+     */
+    public boolean isDeterministic(String code, CodeExecutionRequest.Language language) {
+        return code != null && matchers.containsKey(language) && findSource(code, language) == null;
+    }
+
+    /**
+     * @return the first source of nondeterminism the code uses, or null if none
+     */
+    public String findSource(String code, CodeExecutionRequest.Language language) {
+        TokenSequenceMatcher matcher = matchers.get(language);
+        if (matcher == null || code == null) {
+            return null;
+        }
+
+        TokenSequenceMatcher.Cursor cursor = matcher.cursor();
+        PythonSetDisplays setDisplays = language == CodeExecutionRequest.Language.PYTHON ? new PythonSetDisplays() : null;
+        String[] source = new String[1];
+        SourceTokenizer.tokenize(code, language, token -> {
+            source[0] = cursor.advance(token);
+            if (source[0] == null && setDisplays != null && setDisplays.closesSet(token)) {
+                source[0] = "{...} set display";
+            }
+            return source[0] == null;
+        });
+        return source[0];
+    }
+
+    /**
+     * Follows Python brace displays through the token stream: one that is not empty and has
+     * no key (no top-level colon or ** unpacking) is a set literal or set comprehension
+     */
+    private static class PythonSetDisplays {
+
+        private final Deque<Display> open = new ArrayDeque<>();
+
+        /**
+         * @return true if the token closes a set display
+         */
+        boolean closesSet(String token) {
+            if (token.equals("{")) {
+                if (!open.isEmpty()) {
+                    open.peek().content(token);
+                }
+                open.push(new Display());
+                return false;
+            }
+            Display display = open.peek();
+            if (display == null) {
+                return false;
+            }
+            if (token.equals("}")) {
+                open.pop();
+                return !display.empty && !display.keyed;
+            }
+            display.content(token);
+            return false;
+        }
+
+        private static class Display {
+            // Parentheses and brackets open inside the display
+            int depth;
+            boolean empty = true;
+            boolean keyed;
+            String previous = "{";
+            String beforePrevious = "";
+
+            void content(String token) {
+                if (token.equals("(") || token.equals("[")) {
+                    depth++;
+                } else if (token.equals(")") || token.equals("]")) {
+                    depth--;
+                } else if (depth == 0 && token.equals(":")) {
+                    keyed = true;
+                } else if (depth == 0 && token.equals("*") && previous.equals("*")
+                        && (beforePrevious.equals("{") || beforePrevious.equals(","))) {
+                    keyed = true;
+                }
+                empty = false;
+                beforePrevious = previous;
+                previous = token;
+            }
+        }
+    }
+
+    private static TokenSequenceMatcher compile(String[] sources, CodeExecutionRequest.Language language) {
+        Map<String, List<String>> tokenized = new LinkedHashMap<>();
+        for (String source : sources) {
+            List<String> tokens = new ArrayList<>();
+            SourceTokenizer.tokenize(source, language, tokens::add);
+            tokenized.put(source, tokens);
+        }
+        return new TokenSequenceMatcher(tokenized);
+    }
+}
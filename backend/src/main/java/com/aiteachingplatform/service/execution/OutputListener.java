@@ -0,0 +1,16 @@
+package com.aiteachingplatform.service.execution;
+
+/**
+ * Receives program output while it is being produced, e.g. to stream it to the client
+ */
+@FunctionalInterface
+public interface OutputListener {
+
+    String STDOUT = "stdout";
+    String STDERR = "stderr";
+
+    /**
+     * Called from the capture thread with each decoded chunk of a stream
+     */
+    void onOutput(String stream, String chunk);
+}
@@ -0,0 +1,76 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+
+import java.nio.file.Path;
+
+/**
+ * A pre-started, network-less sandbox container leased from the {@link SandboxContainerPool}
+ * The container idles until a run is executed inside it with {@code docker exec}
+ */
+public class PooledSandbox {
+
+    private final String containerId;
+    private final CodeExecutionRequest.Language language;
+    private final Path workspace;
+    private final boolean warm;
+    private int uses;
+    private volatile InterpreterZygote zygote;
+
+    PooledSandbox(String containerId, CodeExecutionRequest.Language language, Path workspace, boolean warm) {
+        this.containerId = containerId;
+        this.language = language;
+        this.workspace = workspace;
+        this.warm = warm;
+    }
+
+    public String getContainerId() {
+        return containerId;
+    }
+
+    public CodeExecutionRequest.Language getLanguage() {
+        return language;
+    }
+
+    /**
+     * Host directory mounted as {@code /workspace} inside the container
+     */
+    public Path getWorkspace() {
+        return workspace;
+    }
+
+    /**
+     * Whether the sandbox was pre-started by the pool rather than created on demand
+     */
+    public boolean isWarm() {
+        return warm;
+    }
+
+    /**
+     * Interpreter zygote running in the sandbox, if any
+     */
+    InterpreterZygote getZygote() {
+        return zygote;
+    }
+
+    void setZygote(InterpreterZygote zygote) {
+        this.zygote = zygote;
+    }
+
+    int getUses() {
+        return uses;
+    }
+
+    void markUsed() {
+        uses++;
+    }
+
+    @Override
+    public String toString() {
+        return "PooledSandbox{" +
+                "containerId='" + containerId + '\'' +
+                ", language=" + language +
+                ", uses=" + uses +
+                '}';
+    }
+}
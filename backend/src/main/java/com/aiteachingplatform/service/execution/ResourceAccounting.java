@@ -0,0 +1,251 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.ResourceUsage;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the CPU time and peak memory of sandboxed runs from the sandbox's cgroup (v2)
+ * and publishes per-language distributions of everything a run consumed
+ * Only pooled sandboxes can be measured: a cold container's cgroup is removed the moment
+ * its program exits. Since a pooled sandbox serves one run at a time, the change in its
+ * cgroup counters over a run is that run's usage
+ */
+@Component
+public class ResourceAccounting {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourceAccounting.class);
+
+    // Where docker puts a container's cgroup with the systemd and the cgroupfs drivers
+    private static final List<String> CONTAINER_CGROUP_PATTERNS = List.of(
+        "system.slice/docker-%s.scope",
+        "docker/%s"
+    );
+
+    @Value("${code.execution.accounting.enabled:true}")
+    private boolean accountingEnabled;
+
+    // The host's cgroup2 mount; point it at a bind mount when the backend runs in a container
+    @Value("${code.execution.accounting.cgroup-root:/sys/fs/cgroup}")
+    private String cgroupRoot;
+
+    @Value("${code.execution.accounting.memory-sample-ms:20}")
+    private long memorySampleMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ScheduledExecutorService memorySampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cgroup-memory-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Start measuring a run in the sandbox; cold runs (null sandbox) get a measurement without
+     * CPU and memory figures
+     */
+    public Measurement begin(PooledSandbox sandbox) {
+        Path cgroup = accountingEnabled && sandbox != null ? findCgroup(sandbox.getContainerId()) : null;
+        if (cgroup == null) {
+            return new Measurement(null);
+        }
+        try {
+            Measurement measurement = new Measurement(cgroup);
+            measurement.start();
+            return measurement;
+        } catch (IOException e) {
+            logger.debug("Cannot read cgroup of {}: {}", sandbox, e.getMessage());
+            return new Measurement(null);
+        }
+    }
+
+    /**
+     * Add a run's usage to the per-language distributions
+     */
+    public void record(String languageTag, ResourceUsage usage) {
+        if (usage == null) {
+            return;
+        }
+        if (usage.getCpuUserMs() != null) {
+            histogram("code.execution.resources.cpu.user", "CPU time of a run in user mode", languageTag)
+                .record(usage.getCpuUserMs(), TimeUnit.MILLISECONDS);
+            histogram("code.execution.resources.cpu.system", "CPU time of a run in the kernel", languageTag)
+                .record(usage.getCpuSystemMs(), TimeUnit.MILLISECONDS);
+        }
+        if (usage.getPeakMemoryBytes() != null) {
+            DistributionSummary.builder("code.execution.resources.memory.peak")
+                .description("Peak memory of the sandbox during a run")
+                .baseUnit("bytes")
+                .tag("language", languageTag)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(usage.getPeakMemoryBytes());
+        }
+        DistributionSummary.builder("code.execution.resources.output")
+            .description("Bytes a run wrote to stdout and stderr")
+            .baseUnit("bytes")
+            .tag("language", languageTag)
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(usage.getStdoutBytes() + usage.getStderrBytes());
+        histogram("code.execution.resources.startup", "Time to start the program in its sandbox", languageTag)
+            .record(usage.getSandboxStartupMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        memorySampler.shutdownNow();
+    }
+
+    private Timer histogram(String name, String description, String languageTag) {
+        return Timer.builder(name)
+            .description(description)
+            .tag("language", languageTag)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    private Path findCgroup(String containerId) {
+        for (String pattern : CONTAINER_CGROUP_PATTERNS) {
+            Path candidate = Paths.get(cgroupRoot, String.format(pattern, containerId));
+            if (Files.isRegularFile(candidate.resolve("cpu.stat"))) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Usage of one run, read from its sandbox's cgroup
+     */
+    public class Measurement implements AutoCloseable {
+
+        private final Path cgroup;
+        private long userUsecBefore;
+        private long systemUsecBefore;
+        // Kernels from 6.12 reset memory.peak for the file descriptor that writes to it
+        private FileChannel peak;
+        // Older kernels only keep the cgroup's all-time peak, so memory.current is sampled
+        private ScheduledFuture<?> sampling;
+        private final AtomicLong sampledPeak = new AtomicLong();
+
+        Measurement(Path cgroup) {
+            this.cgroup = cgroup;
+        }
+
+        void start() throws IOException {
+            long[] cpu = readCpu();
+            userUsecBefore = cpu[0];
+            systemUsecBefore = cpu[1];
+
+            try {
+                peak = FileChannel.open(cgroup.resolve("memory.peak"), StandardOpenOption.READ, StandardOpenOption.WRITE);
+                peak.write(ByteBuffer.wrap("reset\n".getBytes(StandardCharsets.US_ASCII)));
+            } catch (IOException | UnsupportedOperationException e) {
+                closePeak();
+                sampleMemory();
+                sampling = memorySampler.scheduleAtFixedRate(
+                    this::sampleMemory, memorySampleMs, memorySampleMs, TimeUnit.MILLISECONDS
+                );
+            }
+        }
+
+        /**
+         * Fill in CPU time and peak memory once the program has exited
+         */
+        public void finish(ResourceUsage usage) {
+            if (cgroup == null) {
+                return;
+            }
+            try {
+                long[] cpu = readCpu();
+                usage.setCpuUserMs(TimeUnit.MICROSECONDS.toMillis(cpu[0] - userUsecBefore));
+                usage.setCpuSystemMs(TimeUnit.MICROSECONDS.toMillis(cpu[1] - systemUsecBefore));
+                if (peak != null) {
+                    usage.setPeakMemoryBytes(readNumber(peak));
+                } else {
+                    sampling.cancel(false);
+                    sampleMemory();
+                    usage.setPeakMemoryBytes(sampledPeak.get());
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Cannot read cgroup {}: {}", cgroup, e.getMessage());
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * Stop measuring without a result
+         */
+        @Override
+        public void close() {
+            closePeak();
+            if (sampling != null) {
+                sampling.cancel(false);
+            }
+        }
+
+        private long[] readCpu() throws IOException {
+            long[] cpu = new long[2];
+            for (String line : Files.readAllLines(cgroup.resolve("cpu.stat"))) {
+                if (line.startsWith("user_usec ")) {
+                    cpu[0] = Long.parseLong(line.substring("user_usec ".length()).trim());
+                } else if (line.startsWith("system_usec ")) {
+                    cpu[1] = Long.parseLong(line.substring("system_usec ".length()).trim());
+                }
+            }
+            return cpu;
+        }
+
+        private void sampleMemory() {
+            try {
+                long current = Long.parseLong(Files.readString(cgroup.resolve("memory.current")).trim());
+                sampledPeak.accumulateAndGet(current, Math::max);
+            } catch (IOException | RuntimeException e) {
+                // The sandbox is going away; keep the peak seen so far
+            }
+        }
+
+        private long readNumber(FileChannel channel) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(32);
+            channel.read(buffer, 0);
+            return Long.parseLong(new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII).trim());
+        }
+
+        private void closePeak() {
+            if (peak == null) {
+                return;
+            }
+            try {
+                peak.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close {}: {}", cgroup.resolve("memory.peak"), e.getMessage());
+            }
+            peak = null;
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Per-language pool of pre-started, network-less sandbox containers
+ * Runs are executed with {@code docker exec} in a leased container instead of paying
+ * for a cold {@code docker run} on every compile and run step
+ * Only nodes that run code keep a pool: with the durable queue enabled, API-only nodes
+ * start no containers
+ */
+@Component
+public class SandboxContainerPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(SandboxContainerPool.class);
+
+    public static final String POOL_LABEL = "com.aiteachingplatform.sandbox.pool";
+
+    @Value("${code.execution.pool.enabled:true}")
+    private boolean poolEnabled;
+
+    @Value("${code.execution.pool.size-per-language:2}")
+    private int sizePerLanguage;
+
+    @Value("${code.execution.pool.max-size-per-language:8}")
+    private int maxSizePerLanguage;
+
+    @Value("${code.execution.pool.max-uses:50}")
+    private int maxUsesPerSandbox;
+
+    @Value("${code.execution.pool.lease-timeout-ms:250}")
+    private long leaseTimeoutMs;
+
+    @Value("${code.execution.temp.dir:/tmp/code-execution}")
+    private String tempDir;
+
+    @Value("${code.execution.queue.enabled:false}")
+    private boolean queueEnabled;
+
+    @Value("${code.execution.queue.worker:true}")
+    private boolean queueWorker;
+
+    @Autowired
+    private SandboxImages sandboxImages;
+
+    @Autowired
+    private ExecutionBackendSelector backendSelector;
+
+    @Autowired
+    private ZygoteManager zygoteManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<CodeExecutionRequest.Language, BlockingQueue<PooledSandbox>> idleSandboxes =
+        new EnumMap<>(CodeExecutionRequest.Language.class);
+
+    private final Map<CodeExecutionRequest.Language, AtomicInteger> liveSandboxes =
+        new EnumMap<>(CodeExecutionRequest.Language.class);
+
+    private final Set<PooledSandbox> allSandboxes = ConcurrentHashMap.newKeySet();
+
+    // Container start/removal is slow, so it never runs on a request thread unless the pool is exhausted
+    private final ExecutorService maintenanceExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sandbox-pool-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    void initialize() {
+        for (CodeExecutionRequest.Language language : CodeExecutionRequest.Language.values()) {
+            BlockingQueue<PooledSandbox> idle = new LinkedBlockingQueue<>(Math.max(1, maxSizePerLanguage));
+            AtomicInteger live = new AtomicInteger();
+            idleSandboxes.put(language, idle);
+            liveSandboxes.put(language, live);
+
+            Tags tags = Tags.of("language", language.getValue());
+            meterRegistry.gauge("code.execution.pool.idle", tags, idle, BlockingQueue::size);
+            meterRegistry.gauge("code.execution.pool.live", tags, live, AtomicInteger::get);
+        }
+    }
+
+    /**
+     * Start the configured number of warm sandboxes once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void prewarm() {
+        if (!isPooling()) {
+            return;
+        }
+        for (CodeExecutionRequest.Language language : CodeExecutionRequest.Language.values()) {
+            replenishAsync(language);
+        }
+    }
+
+    /**
+     * Lease a sandbox for one execution
+     * Returns null when pooling is disabled, the backend cannot pool, or no sandbox could
+     * be provided, in which case the caller falls back to a cold run
+     */
+    public PooledSandbox lease(CodeExecutionRequest.Language language) {
+        if (!isPooling()) {
+            return null;
+        }
+
+        BlockingQueue<PooledSandbox> idle = idleSandboxes.get(language);
+        String languageTag = language.getValue();
+        long waitStart = System.nanoTime();
+
+        PooledSandbox sandbox = idle.poll();
+        if (sandbox != null) {
+            meterRegistry.counter("code.execution.pool.hits", "language", languageTag).increment();
+        } else {
+            // A replacement may already be starting; wait briefly before paying for a cold start
+            replenishAsync(language);
+            try {
+                sandbox = idle.poll(leaseTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (sandbox != null) {
+                meterRegistry.counter("code.execution.pool.waits", "language", languageTag).increment();
+            } else {
+                meterRegistry.counter("code.execution.pool.misses", "language", languageTag).increment();
+                sandbox = startOnDemand(language);
+            }
+        }
+
+        Timer.builder("code.execution.pool.lease.wait")
+            .tag("language", languageTag)
+            .register(meterRegistry)
+            .record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+
+        replenishAsync(language);
+        return sandbox;
+    }
+
+    /**
+     * Return a sandbox after a run
+     * Sandboxes that misbehaved or reached their use budget are discarded, all others get
+     * a fresh workspace and go back to the idle queue
+     */
+    public void release(PooledSandbox sandbox, boolean reusable) {
+        sandbox.markUsed();
+
+        if (!poolEnabled || !reusable || sandbox.getUses() >= maxUsesPerSandbox) {
+            discard(sandbox);
+            return;
+        }
+
+        try {
+            wipeWorkspace(sandbox.getWorkspace());
+        } catch (IOException e) {
+            logger.warn("Failed to reset workspace of {}, discarding it", sandbox, e);
+            discard(sandbox);
+            return;
+        }
+
+        if (zygoteManager.needsRestart(sandbox) && !maintenanceExecutor.isShutdown()) {
+            // A new zygote (for Java a JVM worker) takes a while to boot; the sandbox waits for it out of the queue
+            maintenanceExecutor.execute(() -> {
+                zygoteManager.restart(sandbox);
+                offerIdle(sandbox);
+            });
+            return;
+        }
+        offerIdle(sandbox);
+    }
+
+    /**
+     * Remove every container owned by the pool
+     */
+    @PreDestroy
+    public void shutdown() {
+        maintenanceExecutor.shutdownNow();
+        idleSandboxes.values().forEach(BlockingQueue::clear);
+        for (PooledSandbox sandbox : allSandboxes) {
+            removeSandbox(sandbox);
+        }
+        allSandboxes.clear();
+    }
+
+    private boolean isPooling() {
+        return poolEnabled && (!queueEnabled || queueWorker) && backendSelector.select().supportsPooling();
+    }
+
+    private PooledSandbox startOnDemand(CodeExecutionRequest.Language language) {
+        if (!reserveSlot(language)) {
+            return null;
+        }
+        try {
+            return startSandbox(language, false);
+        } catch (Exception e) {
+            logger.warn("Failed to start on-demand {} sandbox", language, e);
+            return null;
+        }
+    }
+
+    private void replenishAsync(CodeExecutionRequest.Language language) {
+        if (maintenanceExecutor.isShutdown()) {
+            return;
+        }
+        maintenanceExecutor.execute(() -> {
+            BlockingQueue<PooledSandbox> idle = idleSandboxes.get(language);
+            while (idle.size() < sizePerLanguage && reserveSlot(language)) {
+                try {
+                    PooledSandbox sandbox = startSandbox(language, true);
+                    if (!idle.offer(sandbox)) {
+                        discard(sandbox);
+                        return;
+                    }
+                } catch (Exception e) {
+                    logger.warn("Failed to pre-start {} sandbox: {}", language, e.getMessage());
+                    return;
+                }
+            }
+        });
+    }
+
+    /**
+     * Count a sandbox against the language's limit before starting it, so sandboxes that are
+     * still starting (seconds for a JVM worker) are counted too
+     *
+     * @return false if the language is at its limit
+     */
+    private boolean reserveSlot(CodeExecutionRequest.Language language) {
+        AtomicInteger live = liveSandboxes.get(language);
+        int current;
+        do {
+            current = live.get();
+            if (current >= maxSizePerLanguage) {
+                return false;
+            }
+        } while (!live.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Start a sandbox in a slot reserved with {@link #reserveSlot}; the slot is given back if it fails
+     */
+    private PooledSandbox startSandbox(CodeExecutionRequest.Language language, boolean warm) throws IOException {
+        Path workspace;
+        String containerId;
+        try {
+            workspace = createWorkspace(language);
+        } catch (IOException | RuntimeException e) {
+            liveSandboxes.get(language).decrementAndGet();
+            throw e;
+        }
+        try {
+            // Started with the same security restrictions as a cold run
+            containerId = backendSelector.select().startSandbox(SandboxSpec.idleSandbox(
+                sandboxImages.imageFor(language), workspace, Map.of(POOL_LABEL, "true")
+            ));
+        } catch (IOException | RuntimeException e) {
+            liveSandboxes.get(language).decrementAndGet();
+            deleteRecursively(workspace);
+            throw e;
+        }
+
+        PooledSandbox sandbox = new PooledSandbox(containerId, language, workspace, warm);
+        zygoteManager.prestart(sandbox);
+        allSandboxes.add(sandbox);
+        logger.debug("Started {}", sandbox);
+        return sandbox;
+    }
+
+    private void offerIdle(PooledSandbox sandbox) {
+        if (!idleSandboxes.get(sandbox.getLanguage()).offer(sandbox)) {
+            discard(sandbox);
+        }
+    }
+
+    private void discard(PooledSandbox sandbox) {
+        if (allSandboxes.remove(sandbox)) {
+            liveSandboxes.get(sandbox.getLanguage()).decrementAndGet();
+        }
+        if (maintenanceExecutor.isShutdown()) {
+            removeSandbox(sandbox);
+            return;
+        }
+        maintenanceExecutor.execute(() -> removeSandbox(sandbox));
+        replenishAsync(sandbox.getLanguage());
+    }
+
+    private void removeSandbox(PooledSandbox sandbox) {
+        zygoteManager.stop(sandbox);
+        try {
+            backendSelector.select().removeSandbox(sandbox.getContainerId());
+        } catch (Exception e) {
+            logger.warn("Failed to remove sandbox container {}", sandbox.getContainerId(), e);
+        }
+        deleteRecursively(sandbox.getWorkspace());
+    }
+
+    private Path createWorkspace(CodeExecutionRequest.Language language) throws IOException {
+        Path poolDir = Paths.get(tempDir, "pool");
+        Files.createDirectories(poolDir);
+
+        Path workspace = poolDir.resolve(language.getValue() + "_" + UUID.randomUUID());
+        Files.createDirectory(workspace);
+        // The sandbox runs as nobody and must be able to write compiler output
+        Files.setPosixFilePermissions(workspace, PosixFilePermissions.fromString("rwxrwxrwx"));
+        return workspace;
+    }
+
+    /**
+     * Delete the contents of a workspace while keeping the mounted directory itself
+     */
+    private void wipeWorkspace(Path workspace) throws IOException {
+        try (Stream<Path> entries = Files.list(workspace)) {
+            for (Path entry : (Iterable<Path>) entries::iterator) {
+                deleteTree(entry);
+            }
+        }
+    }
+
+    private void deleteRecursively(Path path) {
+        try {
+            deleteTree(path);
+        } catch (IOException e) {
+            logger.warn("Failed to delete sandbox workspace: " + path, e);
+        }
+    }
+
+    private void deleteTree(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(path)) {
+            List<Path> ordered = new ArrayList<>();
+            paths.forEach(ordered::add);
+            ordered.sort((a, b) -> b.compareTo(a)); // Delete files before directories
+            for (Path entry : ordered) {
+                Files.deleteIfExists(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import com.aiteachingplatform.exception.CodeExecutionException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the sandbox image configured for each supported language
+ */
+@Component
+public class SandboxImages {
+
+    @Value("${code.execution.docker.images.java:openjdk:21-slim}")
+    private String javaImage;
+
+    @Value("${code.execution.docker.images.python:python:3.11-slim}")
+    private String pythonImage;
+
+    @Value("${code.execution.docker.images.javascript:node:18-slim}")
+    private String javascriptImage;
+
+    @Value("${code.execution.docker.images.cpp:gcc:latest}")
+    private String cppImage;
+
+    // Built from the cpp-toolchain stage of Dockerfile.code-execution
+    @Value("${code.execution.cpp.toolchain.enabled:false}")
+    private boolean cppToolchainEnabled;
+
+    @Value("${code.execution.cpp.toolchain.image:ai-teaching-platform/cpp-toolchain:latest}")
+    private String cppToolchainImage;
+
+    /**
+     * Get Docker image for language
+     */
+    public String imageFor(CodeExecutionRequest.Language language) {
+        switch (language) {
+            case JAVA:
+                return javaImage;
+            case PYTHON:
+                return pythonImage;
+            case JAVASCRIPT:
+                return javascriptImage;
+            case CPP:
+                return cppToolchainEnabled ? cppToolchainImage : cppImage;
+            default:
+                throw new CodeExecutionException("Unsupported language: " + language, language.getValue());
+        }
+    }
+}
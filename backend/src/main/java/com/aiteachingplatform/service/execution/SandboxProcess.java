@@ -0,0 +1,35 @@
+package com.aiteachingplatform.service.execution;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A running sandboxed program, with the same shape as {@link Process}
+ */
+public interface SandboxProcess {
+
+    OutputStream getStdin();
+
+    InputStream getStdout();
+
+    InputStream getStderr();
+
+    /**
+     * Wait for the program to exit
+     *
+     * @return false if it was still running when the timeout elapsed
+     */
+    boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Exit code of a program that has exited
+     */
+    int exitValue();
+
+    /**
+     * Stop the program; for cold runs the container itself is killed
+     * A pooled sandbox is discarded on release instead
+     */
+    void destroy();
+}
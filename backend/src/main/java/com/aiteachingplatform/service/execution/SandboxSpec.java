@@ -0,0 +1,135 @@
+package com.aiteachingplatform.service.execution;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What an execution backend should run: a command in a fresh container mounted on a
+ * workspace, or a command inside an already running pooled sandbox
+ * Resource limits and security restrictions are applied by the backend itself
+ */
+public class SandboxSpec {
+
+    private final String image;
+    private final List<String> command;
+    private final Path workspace;
+    private final String containerName;
+    private final String sandboxContainerId;
+    private final Map<String, String> labels;
+    private final Map<String, String> volumes;
+    private final Map<String, String> environment;
+
+    private SandboxSpec(String image, List<String> command, Path workspace, String containerName,
+                        String sandboxContainerId, Map<String, String> labels) {
+        this(image, command, workspace, containerName, sandboxContainerId, labels,
+             Collections.emptyMap(), Collections.emptyMap());
+    }
+
+    private SandboxSpec(String image, List<String> command, Path workspace, String containerName,
+                        String sandboxContainerId, Map<String, String> labels, Map<String, String> volumes,
+                        Map<String, String> environment) {
+        this.image = image;
+        this.command = command;
+        this.workspace = workspace;
+        this.containerName = containerName;
+        this.sandboxContainerId = sandboxContainerId;
+        this.labels = labels;
+        this.volumes = volumes;
+        this.environment = environment;
+    }
+
+    /**
+     * Run a command in a new, named container that is removed when the command exits
+     */
+    public static SandboxSpec coldRun(String image, Path workspace, String[] command, String containerName) {
+        return coldRun(image, workspace, command, containerName, Collections.emptyMap());
+    }
+
+    /**
+     * Run a command in a new, named and labelled container that is removed when the command exits
+     */
+    public static SandboxSpec coldRun(String image, Path workspace, String[] command, String containerName,
+                                      Map<String, String> labels) {
+        return new SandboxSpec(image, Arrays.asList(command), workspace, containerName, null,
+                               new LinkedHashMap<>(labels));
+    }
+
+    /**
+     * Run a command inside a leased pooled sandbox
+     */
+    public static SandboxSpec pooledRun(PooledSandbox sandbox, String[] command) {
+        return new SandboxSpec(null, Arrays.asList(command), sandbox.getWorkspace(), null,
+                               sandbox.getContainerId(), Collections.emptyMap());
+    }
+
+    /**
+     * Start an idle, long-lived sandbox that later runs are executed in
+     */
+    public static SandboxSpec idleSandbox(String image, Path workspace, Map<String, String> labels) {
+        return new SandboxSpec(image, Arrays.asList("sleep", "infinity"), workspace, null, null,
+                               new LinkedHashMap<>(labels));
+    }
+
+    /**
+     * The same spec with a named volume mounted at the target path of a new container
+     */
+    public SandboxSpec withVolume(String volume, String target) {
+        Map<String, String> withVolume = new LinkedHashMap<>(volumes);
+        withVolume.put(volume, target);
+        return new SandboxSpec(image, command, workspace, containerName, sandboxContainerId, labels,
+                               withVolume, environment);
+    }
+
+    /**
+     * The same spec with extra environment variables for the program
+     */
+    public SandboxSpec withEnvironment(Map<String, String> variables) {
+        Map<String, String> withEnvironment = new LinkedHashMap<>(environment);
+        withEnvironment.putAll(variables);
+        return new SandboxSpec(image, command, workspace, containerName, sandboxContainerId, labels,
+                               volumes, withEnvironment);
+    }
+
+    public boolean isPooled() {
+        return sandboxContainerId != null;
+    }
+
+    public String getImage() {
+        return image;
+    }
+
+    public List<String> getCommand() {
+        return command;
+    }
+
+    public Path getWorkspace() {
+        return workspace;
+    }
+
+    public String getContainerName() {
+        return containerName;
+    }
+
+    public String getSandboxContainerId() {
+        return sandboxContainerId;
+    }
+
+    public Map<String, String> getLabels() {
+        return labels;
+    }
+
+    /**
+     * Named volumes by the path they are mounted at
+     */
+    public Map<String, String> getVolumes() {
+        return volumes;
+    }
+
+    public Map<String, String> getEnvironment() {
+        return environment;
+    }
+}
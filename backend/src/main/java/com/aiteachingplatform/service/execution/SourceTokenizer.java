@@ -0,0 +1,392 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+
+/**
+ * Lightweight single-pass lexer for submitted code
+ * Emits identifiers and punctuation; comments are skipped and every string, character,
+ * template or regex literal is reduced to a single {@link #LITERAL} token, so words inside
+ * them can never look like code. Code embedded in literals (JavaScript template
+ * substitutions, Python f-string replacement fields) is tokenized as code.
+ * It only needs to be as precise as the security scan requires, not a full parser
+ */
+class SourceTokenizer {
+
+    /** Stand-in for any literal; cannot collide with an identifier or punctuation */
+    static final String LITERAL = "<literal>";
+
+    /** Stand-in for any numeric literal */
+    static final String NUMBER = "<number>";
+
+    private static final String[] PUNCTUATION = new String[128];
+
+    static {
+        for (int c = 0; c < PUNCTUATION.length; c++) {
+            PUNCTUATION[c] = String.valueOf((char) c);
+        }
+    }
+
+    /**
+     * Receives tokens in source order
+     */
+    @FunctionalInterface
+    interface TokenSink {
+
+        /**
+         * @return false to stop tokenizing
+         */
+        boolean accept(String token);
+    }
+
+    private enum Previous {
+        NONE,
+        IDENTIFIER,
+        VALUE,
+        PUNCTUATION
+    }
+
+    private final String source;
+    private final CodeExecutionRequest.Language language;
+    private final TokenSink sink;
+    private final int length;
+
+    private int pos;
+    private Previous previous = Previous.NONE;
+    private String previousToken;
+
+    private SourceTokenizer(String source, CodeExecutionRequest.Language language, TokenSink sink) {
+        this.source = language == CodeExecutionRequest.Language.JAVA ? translateUnicodeEscapes(source) : source;
+        this.language = language;
+        this.sink = sink;
+        this.length = this.source.length();
+    }
+
+    /**
+     * Tokenize the source, stopping early when the sink asks to
+     */
+    static void tokenize(String source, CodeExecutionRequest.Language language, TokenSink sink) {
+        new SourceTokenizer(source, language, sink).scan(false);
+    }
+
+    /**
+     * Scan code until the end of input or, inside an embedded expression, its closing brace
+     *
+     * @return false if the sink stopped the scan
+     */
+    private boolean scan(boolean untilClosingBrace) {
+        int braceDepth = 0;
+        while (pos < length) {
+            char c = source.charAt(pos);
+
+            if (Character.isWhitespace(c)) {
+                pos++;
+            } else if (startsLineComment(c)) {
+                skipLineComment();
+            } else if (c == '/' && peek(1) == '*' && language != CodeExecutionRequest.Language.PYTHON) {
+                skipBlockComment();
+            } else if (Character.isJavaIdentifierStart(c)) {
+                if (!scanIdentifierOrPrefixedLiteral()) {
+                    return false;
+                }
+            } else if (isDigit(c) || (c == '.' && isDigit(peek(1)))) {
+                skipNumber();
+                if (!emit(NUMBER, Previous.VALUE)) {
+                    return false;
+                }
+            } else if (c == '"' || c == '\'') {
+                if (!scanQuotedLiteral(false)) {
+                    return false;
+                }
+            } else if (c == '`' && language == CodeExecutionRequest.Language.JAVASCRIPT) {
+                if (!scanTemplateLiteral()) {
+                    return false;
+                }
+            } else if (c == '/' && language == CodeExecutionRequest.Language.JAVASCRIPT && isRegexAllowed()) {
+                skipRegexLiteral();
+                if (!emit(LITERAL, Previous.VALUE)) {
+                    return false;
+                }
+            } else {
+                if (untilClosingBrace) {
+                    if (c == '{') {
+                        braceDepth++;
+                    } else if (c == '}') {
+                        if (braceDepth == 0) {
+                            pos++;
+                            return true;
+                        }
+                        braceDepth--;
+                    }
+                }
+                pos++;
+                if (!emit(c < PUNCTUATION.length ? PUNCTUATION[c] : String.valueOf(c), Previous.PUNCTUATION)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean scanIdentifierOrPrefixedLiteral() {
+        int start = pos;
+        while (pos < length && Character.isJavaIdentifierPart(source.charAt(pos))) {
+            pos++;
+        }
+
+        char next = pos < length ? source.charAt(pos) : 0;
+        if (language == CodeExecutionRequest.Language.PYTHON && (next == '"' || next == '\'')
+                && isPythonStringPrefix(start, pos)) {
+            boolean formatted = source.substring(start, pos).toLowerCase().contains("f");
+            return scanQuotedLiteral(formatted);
+        }
+        if (language == CodeExecutionRequest.Language.CPP && next == '"' && source.charAt(pos - 1) == 'R'
+                && isCppRawStringPrefix(start, pos)) {
+            skipCppRawString();
+            return emit(LITERAL, Previous.VALUE);
+        }
+        return emit(source.substring(start, pos), Previous.IDENTIFIER);
+    }
+
+    /**
+     * A quoted string or character literal starting at the current position
+     * Python f-strings have their replacement fields tokenized as code
+     */
+    private boolean scanQuotedLiteral(boolean formatted) {
+        char quote = source.charAt(pos);
+        boolean triple = peek(1) == quote && peek(2) == quote
+            && (language == CodeExecutionRequest.Language.PYTHON
+                || (language == CodeExecutionRequest.Language.JAVA && quote == '"'));
+        pos += triple ? 3 : 1;
+
+        while (pos < length) {
+            char c = source.charAt(pos);
+            if (c == '\\') {
+                pos += 2;
+            } else if (c == quote && (!triple || (peek(1) == quote && peek(2) == quote))) {
+                pos += triple ? 3 : 1;
+                return emit(LITERAL, Previous.VALUE);
+            } else if (c == '\n' && !triple) {
+                // Unterminated; the compiler rejects it, so resume scanning code on the next line
+                break;
+            } else if (formatted && c == '{') {
+                if (peek(1) == '{') {
+                    pos += 2;
+                } else {
+                    pos++;
+                    if (!scan(true)) {
+                        return false;
+                    }
+                }
+            } else {
+                pos++;
+            }
+        }
+        return emit(LITERAL, Previous.VALUE);
+    }
+
+    /**
+     * A JavaScript template literal; ${...} substitutions are tokenized as code
+     */
+    private boolean scanTemplateLiteral() {
+        pos++;
+        while (pos < length) {
+            char c = source.charAt(pos);
+            if (c == '\\') {
+                pos += 2;
+            } else if (c == '`') {
+                pos++;
+                break;
+            } else if (c == '$' && peek(1) == '{') {
+                pos += 2;
+                if (!scan(true)) {
+                    return false;
+                }
+            } else {
+                pos++;
+            }
+        }
+        return emit(LITERAL, Previous.VALUE);
+    }
+
+    private void skipRegexLiteral() {
+        pos++;
+        boolean inClass = false;
+        while (pos < length) {
+            char c = source.charAt(pos);
+            if (c == '\\') {
+                pos += 2;
+                continue;
+            }
+            if (c == '\n') {
+                break;
+            }
+            pos++;
+            if (c == '[') {
+                inClass = true;
+            } else if (c == ']') {
+                inClass = false;
+            } else if (c == '/' && !inClass) {
+                break;
+            }
+        }
+        // Flags
+        while (pos < length && Character.isJavaIdentifierPart(source.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private void skipCppRawString() {
+        // R"delimiter( ... )delimiter"
+        int open = source.indexOf('(', pos);
+        if (open < 0) {
+            pos = length;
+            return;
+        }
+        String terminator = ")" + source.substring(pos + 1, open) + "\"";
+        int end = source.indexOf(terminator, open + 1);
+        pos = end < 0 ? length : end + terminator.length();
+    }
+
+    private void skipNumber() {
+        while (pos < length) {
+            char c = source.charAt(pos);
+            if (Character.isLetterOrDigit(c) || c == '_' || c == '.'
+                    || (c == '\'' && language == CodeExecutionRequest.Language.CPP && isDigit(peek(1)))) {
+                pos++;
+            } else {
+                break;
+            }
+        }
+    }
+
+    private boolean startsLineComment(char c) {
+        if (language == CodeExecutionRequest.Language.PYTHON) {
+            return c == '#';
+        }
+        return c == '/' && peek(1) == '/';
+    }
+
+    private void skipLineComment() {
+        int end = source.indexOf('\n', pos);
+        pos = end < 0 ? length : end + 1;
+    }
+
+    private void skipBlockComment() {
+        int end = source.indexOf("*/", pos + 2);
+        pos = end < 0 ? length : end + 2;
+    }
+
+    /**
+     * In JavaScript a slash starts a regex literal wherever a value is expected
+     */
+    private boolean isRegexAllowed() {
+        switch (previous) {
+            case NONE:
+                return true;
+            case VALUE:
+                return false;
+            case IDENTIFIER:
+                return isKeywordBeforeExpression(previousToken);
+            default:
+                return !")".equals(previousToken) && !"]".equals(previousToken) && !"}".equals(previousToken);
+        }
+    }
+
+    private static boolean isKeywordBeforeExpression(String word) {
+        switch (word) {
+            case "return":
+            case "typeof":
+            case "instanceof":
+            case "in":
+            case "of":
+            case "new":
+            case "delete":
+            case "void":
+            case "throw":
+            case "case":
+            case "do":
+            case "else":
+            case "yield":
+            case "await":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private boolean isPythonStringPrefix(int start, int end) {
+        int prefixLength = end - start;
+        if (prefixLength > 2) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if ("rRbBuUfF".indexOf(source.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isCppRawStringPrefix(int start, int end) {
+        String prefix = source.substring(start, end);
+        return prefix.equals("R") || prefix.equals("LR") || prefix.equals("uR")
+            || prefix.equals("UR") || prefix.equals("u8R");
+    }
+
+    private boolean emit(String token, Previous kind) {
+        previous = kind;
+        previousToken = token;
+        return sink.accept(token);
+    }
+
+    private char peek(int offset) {
+        int index = pos + offset;
+        return index < length ? source.charAt(index) : 0;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Java translates backslash-u escapes before lexing, so they can hide quotes and
+     * line breaks that end comments (JLS 3.3)
+     */
+    static String translateUnicodeEscapes(String source) {
+        if (source.indexOf("\\u") < 0) {
+            return source;
+        }
+
+        StringBuilder translated = new StringBuilder(source.length());
+        int backslashes = 0;
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (c == '\\' && backslashes % 2 == 0 && i + 1 < source.length() && source.charAt(i + 1) == 'u') {
+                int j = i + 1;
+                while (j < source.length() && source.charAt(j) == 'u') {
+                    j++;
+                }
+                if (j + 4 <= source.length() && isHex(source, j, j + 4)) {
+                    translated.append((char) Integer.parseInt(source.substring(j, j + 4), 16));
+                    i = j + 4;
+                    backslashes = 0;
+                    continue;
+                }
+            }
+            backslashes = c == '\\' ? backslashes + 1 : 0;
+            translated.append(c);
+            i++;
+        }
+        return translated.toString();
+    }
+
+    private static boolean isHex(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (Character.digit(s.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
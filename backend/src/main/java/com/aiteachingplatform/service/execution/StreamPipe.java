@@ -0,0 +1,167 @@
+package com.aiteachingplatform.service.execution;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded in-memory pipe between a thread that demultiplexes sandbox output and the
+ * thread that captures it
+ * Replaces java.io piped streams, which block in synchronized methods and Object.wait and
+ * so pin the carrier of a virtual thread; this pipe parks on a lock condition instead,
+ * and a reader is woken as soon as bytes are written
+ * A writer blocks while the buffer is full; writing after the reader closed fails
+ */
+public class StreamPipe {
+
+    private final byte[] buffer;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition readable = lock.newCondition();
+    private final Condition writable = lock.newCondition();
+
+    private final InputStream source = new Source();
+    private final OutputStream sink = new Sink();
+
+    private int readPosition;
+    private int size;
+    private boolean sinkClosed;
+    private boolean sourceClosed;
+
+    public StreamPipe(int capacity) {
+        this.buffer = new byte[capacity];
+    }
+
+    /**
+     * The end the capture reads from; EOF once the sink is closed and drained
+     */
+    public InputStream source() {
+        return source;
+    }
+
+    /**
+     * The end the producer writes to
+     */
+    public OutputStream sink() {
+        return sink;
+    }
+
+    private class Source extends InputStream {
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            lock.lock();
+            try {
+                while (size == 0) {
+                    if (sourceClosed) {
+                        throw new IOException("Pipe closed");
+                    }
+                    if (sinkClosed) {
+                        return -1;
+                    }
+                    await(readable);
+                }
+                int count = Math.min(len, size);
+                int firstPart = Math.min(count, buffer.length - readPosition);
+                System.arraycopy(buffer, readPosition, b, off, firstPart);
+                System.arraycopy(buffer, 0, b, off + firstPart, count - firstPart);
+                readPosition = (readPosition + count) % buffer.length;
+                size -= count;
+                writable.signalAll();
+                return count;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public int available() {
+            lock.lock();
+            try {
+                return size;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                sourceClosed = true;
+                size = 0;
+                writable.signalAll();
+                readable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private class Sink extends OutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            lock.lock();
+            try {
+                while (len > 0) {
+                    if (sinkClosed) {
+                        throw new IOException("Pipe closed");
+                    }
+                    if (sourceClosed) {
+                        throw new IOException("Pipe reader closed");
+                    }
+                    if (size == buffer.length) {
+                        await(writable);
+                        continue;
+                    }
+                    int writePosition = (readPosition + size) % buffer.length;
+                    int count = Math.min(len, Math.min(buffer.length - size, buffer.length - writePosition));
+                    System.arraycopy(b, off, buffer, writePosition, count);
+                    size += count;
+                    off += count;
+                    len -= count;
+                    readable.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                sinkClosed = true;
+                readable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static void await(Condition condition) throws InterruptedIOException {
+        try {
+            condition.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting on the pipe");
+        }
+    }
+}
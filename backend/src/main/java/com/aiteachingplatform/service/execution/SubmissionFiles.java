@@ -0,0 +1,62 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import com.aiteachingplatform.exception.CodeExecutionException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns a submission into the source file the sandbox compiles or runs
+ */
+public final class SubmissionFiles {
+
+    public static final String JAVA_MAIN_CLASS = "Main";
+
+    private static final Pattern CLASS_DECLARATION = Pattern.compile("class\\s+\\w+");
+
+    private SubmissionFiles() {
+    }
+
+    /**
+     * Apply language-specific rewrites to the submitted code
+     */
+    public static String prepareSource(String code, CodeExecutionRequest.Language language) {
+        if (language == CodeExecutionRequest.Language.JAVA && !code.contains("class " + JAVA_MAIN_CLASS)) {
+            // Ensure the class name is Main for Java
+            return CLASS_DECLARATION.matcher(code).replaceFirst(Matcher.quoteReplacement("class " + JAVA_MAIN_CLASS));
+        }
+        return code;
+    }
+
+    /**
+     * Get source file name for language
+     */
+    public static String sourceFileName(CodeExecutionRequest.Language language) {
+        switch (language) {
+            case JAVA:
+                return JAVA_MAIN_CLASS + ".java";
+            case PYTHON:
+                return "main.py";
+            case JAVASCRIPT:
+                return "main.js";
+            case CPP:
+                return "main.cpp";
+            default:
+                throw new CodeExecutionException("Unsupported language: " + language, language.getValue());
+        }
+    }
+
+    /**
+     * Write prepared source to appropriate file based on language
+     */
+    public static Path write(Path executionDir, String source, CodeExecutionRequest.Language language) throws IOException {
+        Path codeFile = executionDir.resolve(sourceFileName(language));
+        Files.write(codeFile, source.getBytes(StandardCharsets.UTF_8));
+        return codeFile;
+    }
+}
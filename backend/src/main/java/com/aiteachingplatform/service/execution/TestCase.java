@@ -0,0 +1,35 @@
+package com.aiteachingplatform.service.execution;
+
+/**
+ * A single test case of a practice question
+ * Stored in {@code PracticeQuestion.testCases} as a JSON array of
+ * {@code {"input": "...", "expectedOutput": "..."}} objects
+ */
+public class TestCase {
+
+    private String input;
+    private String expectedOutput;
+
+    public TestCase() {}
+
+    public TestCase(String input, String expectedOutput) {
+        this.input = input;
+        this.expectedOutput = expectedOutput;
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    public void setInput(String input) {
+        this.input = input;
+    }
+
+    public String getExpectedOutput() {
+        return expectedOutput;
+    }
+
+    public void setExpectedOutput(String expectedOutput) {
+        this.expectedOutput = expectedOutput;
+    }
+}
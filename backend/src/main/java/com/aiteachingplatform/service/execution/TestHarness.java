@@ -0,0 +1,202 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.TestCaseResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Runs every test case of a submission inside one sandbox invocation
+ * A generated POSIX shell loop feeds each case's input to the already compiled program,
+ * enforcing a per-case timeout and output size, and compares the output with the
+ * expected output, so N test cases cost one container exec instead of N
+ */
+public class TestHarness {
+
+    static final String CASES_DIR = "cases";
+    static final String SCRIPT = CASES_DIR + "/harness.sh";
+    static final String RESULTS = CASES_DIR + "/results";
+
+    /** Command that runs the harness inside the sandbox */
+    public static final String[] COMMAND = {"sh", SCRIPT};
+
+    // timeout(1) exits 124, or 137 once it has to SIGKILL; exceeding ulimit -f raises SIGXFSZ
+    private static final int EXIT_TIMEOUT = 124;
+    private static final int EXIT_KILLED = 137;
+    private static final int EXIT_FILE_SIZE_EXCEEDED = 153;
+
+    // Whitespace dropped from line ends, by normalize() and by the script alike; \r is dropped everywhere
+    private static final String LINE_END_WHITESPACE = " \t\f\u000B";
+    private static final Pattern TRAILING_WHITESPACE = Pattern.compile("[" + LINE_END_WHITESPACE + "]+$", Pattern.MULTILINE);
+
+    private TestHarness() {}
+
+    /**
+     * Write the case files and the harness script into the workspace
+     */
+    public static void write(Path workspace, List<TestCase> testCases, String[] runCommand,
+                             int caseTimeoutSeconds, long maxOutputBytes, boolean stopOnFirstFailure)
+            throws IOException {
+        Path casesDir = workspace.resolve(CASES_DIR);
+        Files.createDirectories(casesDir);
+        // The sandbox runs as nobody and writes the outputs next to the inputs
+        Files.setPosixFilePermissions(casesDir, PosixFilePermissions.fromString("rwxrwxrwx"));
+
+        for (int i = 0; i < testCases.size(); i++) {
+            TestCase testCase = testCases.get(i);
+            String input = testCase.getInput() != null ? testCase.getInput() : "";
+            if (!input.isEmpty() && !input.endsWith("\n")) {
+                input += "\n";
+            }
+            Files.write(casesDir.resolve(i + ".in"), input.getBytes(StandardCharsets.UTF_8));
+            Files.write(casesDir.resolve(i + ".expected"),
+                normalize(testCase.getExpectedOutput()).getBytes(StandardCharsets.UTF_8));
+        }
+
+        Files.write(workspace.resolve(SCRIPT),
+            script(testCases.size(), runCommand, caseTimeoutSeconds, maxOutputBytes, stopOnFirstFailure)
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Read the per-case results written by the harness
+     * Cases the harness never reached are reported as skipped, except the one that was
+     * running when the whole batch hit its time limit
+     */
+    public static List<TestCaseResult> readResults(Path workspace, List<TestCase> testCases, long maxOutputBytes,
+                                                   int maxCapturedBytes, boolean batchTimedOut) throws IOException {
+        Map<Integer, String[]> lines = new HashMap<>();
+        Path resultsFile = workspace.resolve(RESULTS);
+        if (Files.exists(resultsFile)) {
+            for (String line : Files.readAllLines(resultsFile, StandardCharsets.UTF_8)) {
+                String[] fields = line.trim().split(" ");
+                if (fields.length == 4) {
+                    lines.put(Integer.parseInt(fields[0]), fields);
+                }
+            }
+        }
+
+        List<TestCaseResult> results = new ArrayList<>();
+        boolean timeoutReported = false;
+        for (int i = 0; i < testCases.size(); i++) {
+            TestCase testCase = testCases.get(i);
+            TestCaseResult result = new TestCaseResult(
+                i, TestCaseResult.Status.SKIPPED, testCase.getInput(), testCase.getExpectedOutput()
+            );
+
+            String[] fields = lines.get(i);
+            if (fields == null) {
+                if (batchTimedOut && !timeoutReported) {
+                    result.setStatus(TestCaseResult.Status.TIMEOUT);
+                    timeoutReported = true;
+                }
+                results.add(result);
+                continue;
+            }
+
+            Path outputFile = workspace.resolve(CASES_DIR + "/" + i + ".out");
+            int exitCode = Integer.parseInt(fields[1]);
+            // Runtimes that handle SIGXFSZ (Python, the JVM) fail with an I/O error instead
+            boolean outputLimitHit = exitCode != 0 && Files.exists(outputFile)
+                && Files.size(outputFile) >= outputLimitBlocks(maxOutputBytes) * 512;
+            result.setExecutionTimeMs(Long.parseLong(fields[2]));
+            result.setStatus(outputLimitHit
+                ? TestCaseResult.Status.OUTPUT_LIMIT_EXCEEDED
+                : statusFor(exitCode, "PASS".equals(fields[3])));
+            result.setActualOutput(readCapped(outputFile, maxCapturedBytes));
+            String error = readCapped(workspace.resolve(CASES_DIR + "/" + i + ".err"), maxCapturedBytes);
+            result.setError(error.isEmpty() ? null : error);
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Output as the harness compares it: no carriage returns, no trailing whitespace on any line,
+     * no trailing blank lines
+     */
+    static String normalize(String output) {
+        if (output == null) {
+            return "";
+        }
+        String normalized = TRAILING_WHITESPACE.matcher(output.replace("\r", "")).replaceAll("");
+        int end = normalized.length();
+        while (end > 0 && normalized.charAt(end - 1) == '\n') {
+            end--;
+        }
+        return normalized.substring(0, end);
+    }
+
+    static TestCaseResult.Status statusFor(int exitCode, boolean outputMatched) {
+        switch (exitCode) {
+            case 0:
+                return outputMatched ? TestCaseResult.Status.PASSED : TestCaseResult.Status.WRONG_ANSWER;
+            case EXIT_TIMEOUT:
+            case EXIT_KILLED:
+                return TestCaseResult.Status.TIMEOUT;
+            case EXIT_FILE_SIZE_EXCEEDED:
+                return TestCaseResult.Status.OUTPUT_LIMIT_EXCEEDED;
+            default:
+                return TestCaseResult.Status.RUNTIME_ERROR;
+        }
+    }
+
+    static String script(int caseCount, String[] runCommand, int caseTimeoutSeconds,
+                         long maxOutputBytes, boolean stopOnFirstFailure) {
+        String command = Arrays.stream(runCommand).map(TestHarness::quote).collect(Collectors.joining(" "));
+        long outputBlocks = outputLimitBlocks(maxOutputBytes);
+
+        return "#!/bin/sh\n"
+            + "# Generated test harness: runs each case against the compiled program\n"
+            + ": > " + RESULTS + "\n"
+            + "i=0\n"
+            + "while [ \"$i\" -lt " + caseCount + " ]; do\n"
+            + "  start=$(date +%s%N)\n"
+            + "  ( ulimit -f " + outputBlocks + "; exec timeout -k 1 " + caseTimeoutSeconds + " " + command + " ) \\\n"
+            + "    < " + CASES_DIR + "/$i.in > " + CASES_DIR + "/$i.out 2> " + CASES_DIR + "/$i.err\n"
+            + "  code=$?\n"
+            + "  end=$(date +%s%N)\n"
+            + "  verdict=FAIL\n"
+            // Same normalization as normalize(); $(...) drops the trailing blank lines
+            + "  if [ \"$code\" -eq 0 ] && [ \"$(tr -d '\\r' < " + CASES_DIR + "/$i.out | sed 's/["
+            + LINE_END_WHITESPACE + "]*$//')\" = \"$(cat " + CASES_DIR + "/$i.expected)\" ]; then\n"
+            + "    verdict=PASS\n"
+            + "  fi\n"
+            + "  echo \"$i $code $(( (end - start) / 1000000 )) $verdict\" >> " + RESULTS + "\n"
+            + (stopOnFirstFailure ? "  [ \"$verdict\" = PASS ] || break\n" : "")
+            + "  i=$((i + 1))\n"
+            + "done\n";
+    }
+
+    /**
+     * ulimit -f counts 512-byte blocks in POSIX sh
+     */
+    private static long outputLimitBlocks(long maxOutputBytes) {
+        return Math.max(1, (maxOutputBytes + 511) / 512);
+    }
+
+    private static String quote(String argument) {
+        return "'" + argument.replace("'", "'\\''") + "'";
+    }
+
+    private static String readCapped(Path file, int maxBytes) throws IOException {
+        if (!Files.exists(file)) {
+            return "";
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] bytes = in.readNBytes(maxBytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.aiteachingplatform.service.execution;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton whose alphabet is source tokens rather than characters
+ * All rules are matched together in one pass over the token stream, whatever their number
+ */
+class TokenSequenceMatcher {
+
+    private final Node root = new Node();
+
+    /**
+     * @param rules token sequences keyed by the name reported when they match
+     */
+    TokenSequenceMatcher(Map<String, List<String>> rules) {
+        for (Map.Entry<String, List<String>> rule : rules.entrySet()) {
+            Node node = root;
+            for (String token : rule.getValue()) {
+                node = node.children.computeIfAbsent(token, t -> new Node());
+            }
+            if (node.match == null) {
+                node.match = rule.getKey();
+            }
+        }
+        linkFailures();
+    }
+
+    /**
+     * Start matching a new token stream
+     */
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Breadth-first, so every node's failure target is complete before its children need it
+     */
+    private void linkFailures() {
+        Queue<Node> queue = new ArrayDeque<>();
+        for (Node child : root.children.values()) {
+            child.failure = root;
+            queue.add(child);
+        }
+
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            for (Map.Entry<String, Node> edge : node.children.entrySet()) {
+                Node child = edge.getValue();
+                Node fallback = node.failure;
+                while (fallback != root && !fallback.children.containsKey(edge.getKey())) {
+                    fallback = fallback.failure;
+                }
+                Node target = fallback.children.get(edge.getKey());
+                child.failure = target != null && target != child ? target : root;
+                if (child.match == null) {
+                    // A shorter rule ending at the same token
+                    child.match = child.failure.match;
+                }
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Matching state over one token stream
+     */
+    class Cursor {
+
+        private Node state = root;
+
+        /**
+         * Advance by one token
+         *
+         * @return the name of a rule ending at this token, or null
+         */
+        String advance(String token) {
+            Node node = state;
+            Node next = node.children.get(token);
+            while (next == null && node != root) {
+                node = node.failure;
+                next = node.children.get(token);
+            }
+            state = next != null ? next : root;
+            return state.match;
+        }
+    }
+
+    private static class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+        private Node failure;
+        private String match;
+    }
+}
@@ -0,0 +1,267 @@
+package com.aiteachingplatform.service.execution;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands out execution directories for cold runs
+ * Directories live on a tmpfs mount, are created ahead of time and are recycled: after a
+ * run the workspace is wiped on a background thread and goes back to the idle queue, so
+ * requests never wait on directory creation or recursive deletes.
+ * Directory names carry the node's id, and at startup the directories a previous process of
+ * the same node left behind are reaped in the background. Other nodes sharing the directory
+ * (execution workers mounting one host path) keep theirs
+ */
+@Component
+public class WorkspaceManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkspaceManager.class);
+
+    static final String WORKSPACE_PREFIX = "exec_";
+
+    @Value("${code.execution.workspaces.dir:/dev/shm/code-execution}")
+    private String workspaceDir;
+
+    @Value("${code.execution.temp.dir:/tmp/code-execution}")
+    private String tempDir;
+
+    @Value("${code.execution.workspaces.pre-created:8}")
+    private int preCreated;
+
+    @Value("${code.execution.workspaces.max-idle:32}")
+    private int maxIdle;
+
+    @Value("${code.execution.workspaces.node-id:}")
+    private String nodeId;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Path root;
+
+    // Prefix of this node's directories
+    private String namePrefix;
+
+    private BlockingDeque<Path> idleWorkspaces;
+
+    private final ExecutorService wipeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "workspace-wiper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    void initialize() throws IOException {
+        root = resolveRoot();
+        namePrefix = WORKSPACE_PREFIX + nodeName() + "_";
+        idleWorkspaces = new LinkedBlockingDeque<>(Math.max(1, maxIdle));
+        meterRegistry.gauge("code.execution.workspace.idle", idleWorkspaces, BlockingDeque::size);
+
+        // Anything of this node already there belongs to a process that died mid-run; list it before creating our own
+        List<Path> stale = listWorkspaces(root, namePrefix);
+        Path legacyDir = Paths.get(tempDir);
+        if (!legacyDir.equals(root)) {
+            stale.addAll(listWorkspaces(legacyDir, namePrefix));
+        }
+        if (!stale.isEmpty()) {
+            Thread reaper = new Thread(() -> reap(stale), "workspace-reaper");
+            reaper.setDaemon(true);
+            reaper.start();
+        }
+
+        for (int i = 0; i < preCreated && idleWorkspaces.remainingCapacity() > 0; i++) {
+            idleWorkspaces.offer(createWorkspace());
+        }
+    }
+
+    /**
+     * Take an empty workspace for one run
+     */
+    public Path lease() throws IOException {
+        long start = System.nanoTime();
+        Path workspace = idleWorkspaces.poll();
+        String source = "recycled";
+        if (workspace == null) {
+            workspace = createWorkspace();
+            source = "created";
+        }
+        Timer.builder("code.execution.workspace.lease")
+            .tag("source", source)
+            .register(meterRegistry)
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return workspace;
+    }
+
+    /**
+     * Give a workspace back after a run; it is wiped asynchronously
+     */
+    public void release(Path workspace) {
+        try {
+            wipeExecutor.execute(() -> recycle(workspace));
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the next startup reaps whatever is left
+            deleteQuietly(workspace);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wipeExecutor.shutdown();
+    }
+
+    private void recycle(Path workspace) {
+        long start = System.nanoTime();
+        String outcome;
+        try {
+            wipe(workspace);
+            if (idleWorkspaces.offer(workspace)) {
+                outcome = "recycled";
+            } else {
+                Files.delete(workspace);
+                outcome = "deleted";
+            }
+        } catch (IOException e) {
+            // A run may leave entries we cannot remove; never hand that directory out again
+            logger.warn("Failed to wipe workspace {}, dropping it", workspace, e);
+            deleteQuietly(workspace);
+            outcome = "failed";
+        }
+        Timer.builder("code.execution.workspace.wipe")
+            .tag("outcome", outcome)
+            .register(meterRegistry)
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void reap(List<Path> stale) {
+        int reaped = 0;
+        for (Path workspace : stale) {
+            if (deleteQuietly(workspace)) {
+                reaped++;
+            }
+        }
+        meterRegistry.counter("code.execution.workspace.reaped").increment(reaped);
+        logger.info("Reaped {} stale execution directories", reaped);
+    }
+
+    /**
+     * The configured tmpfs directory, or the temp directory if it cannot be used
+     */
+    private Path resolveRoot() throws IOException {
+        Path configured = Paths.get(workspaceDir);
+        try {
+            Files.createDirectories(configured);
+            String type = Files.getFileStore(configured).type();
+            if (!"tmpfs".equals(type)) {
+                logger.warn("Execution workspaces in {} are on {}, not tmpfs", configured, type);
+            }
+            return configured;
+        } catch (IOException e) {
+            Path fallback = Paths.get(tempDir);
+            logger.warn("Cannot use {} for execution workspaces ({}), falling back to {}",
+                configured, e.getMessage(), fallback);
+            Files.createDirectories(fallback);
+            return fallback;
+        }
+    }
+
+    private Path createWorkspace() throws IOException {
+        Path workspace = root.resolve(namePrefix + UUID.randomUUID());
+        Files.createDirectory(workspace);
+        // The container runs as nobody and must be able to write compiler and harness output
+        Files.setPosixFilePermissions(workspace, PosixFilePermissions.fromString("rwxrwxrwx"));
+        return workspace;
+    }
+
+    /**
+     * The configured node id, or the host name, which is stable across restarts of a container
+     * and differs between the containers sharing a host path
+     */
+    private String nodeName() {
+        String name = nodeId;
+        if (name == null || name.isBlank()) {
+            try {
+                name = InetAddress.getLocalHost().getHostName();
+            } catch (IOException e) {
+                name = "node";
+            }
+        }
+        // Used in directory names and glob patterns
+        return name.replaceAll("[^A-Za-z0-9.-]", "-");
+    }
+
+    private static List<Path> listWorkspaces(Path dir, String prefix) throws IOException {
+        List<Path> workspaces = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return workspaces;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir, prefix + "*")) {
+            entries.forEach(workspaces::add);
+        }
+        return workspaces;
+    }
+
+    /**
+     * Delete the contents of a workspace while keeping the directory itself
+     * Symbolic links are removed, never followed
+     */
+    public static void wipe(Path workspace) throws IOException {
+        Files.walkFileTree(workspace, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                if (e != null) {
+                    throw e;
+                }
+                if (!dir.equals(workspace)) {
+                    Files.delete(dir);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private boolean deleteQuietly(Path workspace) {
+        try {
+            if (Files.exists(workspace)) {
+                wipe(workspace);
+                Files.delete(workspace);
+            }
+            return true;
+        } catch (IOException e) {
+            logger.warn("Failed to delete execution directory: " + workspace, e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Starts and hands out the interpreter zygotes of pooled Python, JavaScript and Java sandboxes
+ * A zygote is started with its sandbox and serves every run of the interpreter command in it;
+ * any failure falls back to a plain exec of the command. Zygotes that exited or served
+ * their run budget are replaced between leases, off the request path
+ */
+@Component
+public class ZygoteManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(ZygoteManager.class);
+
+    private static final Map<CodeExecutionRequest.Language, String[]> SERVER_COMMANDS =
+        new EnumMap<>(CodeExecutionRequest.Language.class);
+
+    private static final Map<CodeExecutionRequest.Language, String> INTERPRETERS =
+        new EnumMap<>(CodeExecutionRequest.Language.class);
+
+    static {
+        INTERPRETERS.put(CodeExecutionRequest.Language.PYTHON, "python");
+        INTERPRETERS.put(CodeExecutionRequest.Language.JAVASCRIPT, "node");
+        INTERPRETERS.put(CodeExecutionRequest.Language.JAVA, "java");
+        SERVER_COMMANDS.put(CodeExecutionRequest.Language.PYTHON,
+            new String[]{"python", "-c", loadScript("forkserver.py"), "sandboxed"});
+        SERVER_COMMANDS.put(CodeExecutionRequest.Language.JAVASCRIPT,
+            new String[]{"node", "-e", loadScript("zygote.js"), "sandboxed"});
+        // java cannot take a program as an argument; the worker source goes to the sandbox's /tmp
+        // and is compiled by the source launcher once per worker
+        SERVER_COMMANDS.put(CodeExecutionRequest.Language.JAVA, new String[]{
+            "sh", "-c",
+            "printf '%s' \"$1\" > /tmp/JvmWorker.java"
+                + " && exec java -XX:+UseSerialGC -XX:TieredStopAtLevel=1 /tmp/JvmWorker.java sandboxed",
+            "jvm-worker", loadScript("JvmWorker.java")
+        });
+    }
+
+    @Value("${code.execution.zygote.enabled:true}")
+    private boolean zygoteEnabled;
+
+    @Value("${code.execution.zygote.max-runs:100}")
+    private int maxRunsPerZygote;
+
+    @Autowired
+    private ExecutionBackendSelector backendSelector;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Two long-lived readers per zygote, each on a virtual thread
+    @Autowired
+    private ExecutionThreads executionThreads;
+
+    /**
+     * Start the zygote of a freshly started sandbox so its first run is already fast
+     */
+    public void prestart(PooledSandbox sandbox) {
+        if (!supports(sandbox.getLanguage())) {
+            return;
+        }
+        try {
+            sandbox.setZygote(start(sandbox));
+        } catch (Exception e) {
+            logger.warn("Failed to start zygote in {}: {}", sandbox, e.getMessage());
+        }
+    }
+
+    /**
+     * Run an interpreter command through the sandbox's zygote
+     *
+     * @return the started program, or null if the command has to be executed directly
+     */
+    public SandboxProcess launch(PooledSandbox sandbox, String[] command, int cpuSeconds) {
+        CodeExecutionRequest.Language language = sandbox.getLanguage();
+        // The zygote only runs scripts; interpreter options such as a syntax check run directly
+        if (!supports(language) || command.length < 2 || !INTERPRETERS.get(language).equals(command[0])
+                || command[1].startsWith("-")) {
+            return null;
+        }
+
+        String languageTag = language.getValue();
+        try {
+            InterpreterZygote zygote = sandbox.getZygote();
+            if (zygote == null || !zygote.isAlive()) {
+                // Never started, or killed by an earlier run in this sandbox
+                meterRegistry.counter("code.execution.zygote.starts", "language", languageTag).increment();
+                zygote = start(sandbox);
+                sandbox.setZygote(zygote);
+            }
+            SandboxProcess process = zygote.run(Arrays.asList(command).subList(1, command.length), cpuSeconds);
+            meterRegistry.counter("code.execution.zygote.runs", "language", languageTag).increment();
+            return process;
+        } catch (Exception e) {
+            logger.warn("Zygote in {} is unusable, running the program directly: {}", sandbox, e.getMessage());
+            meterRegistry.counter("code.execution.zygote.fallbacks", "language", languageTag).increment();
+            stop(sandbox);
+            return null;
+        }
+    }
+
+    /**
+     * Whether the sandbox's zygote should be replaced before the sandbox is leased again
+     * True when it exited (a JVM worker does after a killed or misbehaving run) or has served
+     * its run budget
+     */
+    public boolean needsRestart(PooledSandbox sandbox) {
+        InterpreterZygote zygote = sandbox.getZygote();
+        return zygote != null && (!zygote.isAlive() || zygote.getRuns() >= maxRunsPerZygote);
+    }
+
+    /**
+     * Replace the zygote of a sandbox
+     */
+    public void restart(PooledSandbox sandbox) {
+        stop(sandbox);
+        meterRegistry.counter("code.execution.zygote.starts", "language", sandbox.getLanguage().getValue()).increment();
+        prestart(sandbox);
+    }
+
+    /**
+     * Stop the zygote of a sandbox that is being removed
+     */
+    public void stop(PooledSandbox sandbox) {
+        InterpreterZygote zygote = sandbox.getZygote();
+        if (zygote != null) {
+            sandbox.setZygote(null);
+            zygote.close();
+        }
+    }
+
+    private boolean supports(CodeExecutionRequest.Language language) {
+        return zygoteEnabled && SERVER_COMMANDS.containsKey(language);
+    }
+
+    private InterpreterZygote start(PooledSandbox sandbox) throws IOException {
+        SandboxProcess server = backendSelector.select().launch(
+            SandboxSpec.pooledRun(sandbox, SERVER_COMMANDS.get(sandbox.getLanguage()))
+        );
+        return new InterpreterZygote(server, sandbox.getContainerId(), executionThreads.relayExecutor());
+    }
+
+    private static String loadScript(String name) {
+        try (InputStream in = ZygoteManager.class.getResourceAsStream("/zygote/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing zygote script " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
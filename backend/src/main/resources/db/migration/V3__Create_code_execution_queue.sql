@@ -0,0 +1,27 @@
+-- V3__Create_code_execution_queue.sql
+-- Durable queue of code executions claimed by separate execution workers
+-- Lease times are compared across nodes, so they use the database clock and carry a time zone
+
+CREATE TABLE code_execution_queue (
+    id VARCHAR(36) PRIMARY KEY,
+    owner VARCHAR(50) NOT NULL,
+    language VARCHAR(20) NOT NULL,
+    request TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'QUEUED',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    worker_id VARCHAR(100),
+    lease_expires_at TIMESTAMP WITH TIME ZONE,
+    heartbeat_at TIMESTAMP WITH TIME ZONE,
+    result TEXT,
+    submitted_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    started_at TIMESTAMP WITH TIME ZONE,
+    completed_at TIMESTAMP WITH TIME ZONE
+);
+
+-- Workers claim the oldest queued job, or a running one whose worker stopped heartbeating
+CREATE INDEX idx_execution_queue_queued ON code_execution_queue(submitted_at) WHERE status = 'QUEUED';
+CREATE INDEX idx_execution_queue_lease ON code_execution_queue(lease_expires_at) WHERE status = 'RUNNING';
+
+-- Per-user admission limits and purging of delivered results
+CREATE INDEX idx_execution_queue_owner_status ON code_execution_queue(owner, status);
+CREATE INDEX idx_execution_queue_completed ON code_execution_queue(completed_at) WHERE status = 'COMPLETED';
@@ -0,0 +1,19 @@
+-- V4__Create_example_outputs.sql
+-- Outputs of the runnable code blocks in lesson content and of practice question starter code,
+-- run ahead of time so a student running an unmodified example is answered without executing it
+-- Rows belong to one version of a lesson's examples and are replaced when the lesson changes
+
+CREATE TABLE example_outputs (
+    id BIGSERIAL PRIMARY KEY,
+    lesson_id BIGINT NOT NULL REFERENCES lessons(id) ON DELETE CASCADE,
+    lesson_version VARCHAR(64) NOT NULL,
+    code_hash VARCHAR(64) NOT NULL,
+    language VARCHAR(20) NOT NULL,
+    -- Serialized execution result; NULL when the example's result cannot be reused
+    result TEXT,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE (lesson_id, code_hash)
+);
+
+-- Executions look examples up by the hash of their code
+CREATE INDEX idx_example_outputs_code_hash ON example_outputs(code_hash) WHERE result IS NOT NULL;
@@ -0,0 +1,5 @@
+-- V5__Add_code_execution_queue_kind.sql
+-- Compile-only validations are queued next to executions and carry a different result;
+-- rows that existed before are executions
+
+ALTER TABLE code_execution_queue ADD COLUMN kind VARCHAR(20) NOT NULL DEFAULT 'EXECUTION';
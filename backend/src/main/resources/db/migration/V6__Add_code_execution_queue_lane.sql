@@ -0,0 +1,9 @@
+-- V6__Add_code_execution_queue_lane.sql
+-- Scheduler lane each queued job runs in on the worker, so hints and background work keep
+-- their priority instead of competing with interactive runs
+
+ALTER TABLE code_execution_queue ADD COLUMN lane VARCHAR(20) NOT NULL DEFAULT 'INTERACTIVE';
+
+-- Validations and gradings already queued keep the lanes they had before queuing
+UPDATE code_execution_queue SET lane = 'ASSIST' WHERE kind = 'VALIDATION';
+UPDATE code_execution_queue SET lane = 'GRADING' WHERE kind = 'GRADING';
@@ -0,0 +1,213 @@
+// Node-compatible globals for the in-process JavaScript runner (see GraalJsRunner)
+//
+// Evaluated once in every pooled GraalJS context before it is handed a program. It replaces
+// console with one that formats values the way node's console.log does, and removes the
+// globals GraalJS adds that node does not have, so a program behaves as it would under node.
+//
+// Only the values beginner programs print are reproduced: primitives, and arrays and plain
+// objects that node prints on one line. Anything else (format specifiers, class instances,
+// Maps, functions, output node would wrap) marks the run as unsupported, and the backend
+// discards its output and runs the program in a container instead.
+//
+// The completion value is the runner's handle: { isUnsupported() }.
+(function () {
+    'use strict';
+
+    const nativeConsole = console;
+    const writeOut = text => nativeConsole.log(text);
+    const writeErr = text => nativeConsole.error(text);
+
+    // node's util.inspect defaults: breakLength 80, depth 2, compact 3
+    const BREAK_LENGTH = 80;
+    const MAX_DEPTH = 2;
+    const MAX_ARRAY_ENTRIES = 6;
+    const IDENTIFIER = /^[a-zA-Z_][a-zA-Z_0-9]*$/;
+    const NEEDS_ESCAPE = /[\x00-\x1f\x7f-\x9f\\\ud800-\udfff]/;
+
+    // Captured before the program runs, so redefining builtins cannot change how values print
+    const { getPrototypeOf, getOwnPropertyDescriptor, is } = Object;
+    const { ownKeys } = Reflect;
+    const { isArray } = Array;
+    const call = Function.prototype.call;
+    const hasOwn = call.bind(Object.prototype.hasOwnProperty);
+    const includes = call.bind(String.prototype.includes);
+    const test = call.bind(RegExp.prototype.test);
+    const toText = String;
+    const ArrayPrototype = Array.prototype;
+    const ObjectPrototype = Object.prototype;
+
+    const UNSUPPORTED = {};
+    let unsupported = false;
+
+    function giveUp() {
+        throw UNSUPPORTED;
+    }
+
+    function quote(text) {
+        if (test(NEEDS_ESCAPE, text)) {
+            giveUp();
+        }
+        if (!includes(text, "'")) {
+            return "'" + text + "'";
+        }
+        if (!includes(text, '"')) {
+            return '"' + text + '"';
+        }
+        if (!includes(text, '`') && !includes(text, '${')) {
+            return '`' + text + '`';
+        }
+        return giveUp();
+    }
+
+    function inspect(value, depth, indentation) {
+        switch (typeof value) {
+            case 'undefined':
+                return 'undefined';
+            case 'boolean':
+                return toText(value);
+            case 'number':
+                return is(value, -0) ? '-0' : toText(value);
+            case 'bigint':
+                return toText(value) + 'n';
+            case 'string':
+                return quote(value);
+            case 'object':
+                if (value === null) {
+                    return 'null';
+                }
+                if (depth > MAX_DEPTH) {
+                    // node prints [Object] or [Array] here
+                    return giveUp();
+                }
+                return isArray(value)
+                    ? inspectArray(value, depth, indentation)
+                    : inspectObject(value, depth, indentation);
+            default:
+                // Functions and symbols
+                return giveUp();
+        }
+    }
+
+    function inspectArray(array, depth, indentation) {
+        const length = array.length;
+        if (getPrototypeOf(array) !== ArrayPrototype || ownKeys(array).length !== length + 1
+                || length > MAX_ARRAY_ENTRIES) {
+            // Holes, extra properties, subclasses, or long arrays node groups into columns
+            giveUp();
+        }
+        const entries = [];
+        for (let i = 0; i < length; i++) {
+            if (!hasOwn(array, i)) {
+                giveUp();
+            }
+            entries[i] = inspect(plainValue(array, i), depth + 1, indentation + 2);
+        }
+        return join(entries, '[', ']', indentation);
+    }
+
+    function inspectObject(object, depth, indentation) {
+        if (getPrototypeOf(object) !== ObjectPrototype) {
+            giveUp();
+        }
+        const keys = ownKeys(object);
+        const entries = [];
+        for (let i = 0; i < keys.length; i++) {
+            const key = keys[i];
+            if (typeof key !== 'string') {
+                giveUp();
+            }
+            if (!getOwnPropertyDescriptor(object, key).enumerable) {
+                continue;
+            }
+            const name = test(IDENTIFIER, key) ? key : quote(key);
+            entries[entries.length] = name + ': ' + inspect(plainValue(object, key), depth + 1, indentation + 2);
+        }
+        return join(entries, '{', '}', indentation);
+    }
+
+    // Getters are printed as [Getter] by node, without being called
+    function plainValue(object, key) {
+        const descriptor = getOwnPropertyDescriptor(object, key);
+        return hasOwn(descriptor, 'value') ? descriptor.value : giveUp();
+    }
+
+    // node's reduceToSingleString: one line if it fits, otherwise node breaks it over several
+    function join(entries, open, close, indentation) {
+        if (entries.length === 0) {
+            return open + close;
+        }
+        let length = entries.length + (entries.length + indentation + open.length + 10);
+        let text = open + ' ';
+        for (let i = 0; i < entries.length; i++) {
+            length += entries[i].length;
+            text += (i > 0 ? ', ' : '') + entries[i];
+        }
+        if (length > BREAK_LENGTH) {
+            giveUp();
+        }
+        return text + ' ' + close;
+    }
+
+    function format(args) {
+        if (args.length > 1 && typeof args[0] === 'string' && includes(args[0], '%')) {
+            // Format specifiers
+            giveUp();
+        }
+        let text = '';
+        for (let i = 0; i < args.length; i++) {
+            text += (i > 0 ? ' ' : '') + (typeof args[i] === 'string' ? args[i] : inspect(args[i], 0, 0));
+        }
+        return text;
+    }
+
+    function printer(write) {
+        return function (...args) {
+            if (unsupported) {
+                return;
+            }
+            let text;
+            try {
+                text = format(args);
+            } catch (e) {
+                if (e !== UNSUPPORTED) {
+                    throw e;
+                }
+                unsupported = true;
+                return;
+            }
+            write(text);
+        };
+    }
+
+    function notSupported() {
+        unsupported = true;
+    }
+
+    const nodeConsole = {
+        log: printer(writeOut),
+        info: printer(writeOut),
+        debug: printer(writeOut),
+        error: printer(writeErr),
+        warn: printer(writeErr)
+    };
+    for (const name of ['assert', 'count', 'countReset', 'dir', 'dirxml', 'group', 'groupCollapsed', 'groupEnd',
+                        'table', 'time', 'timeEnd', 'timeLog', 'trace']) {
+        nodeConsole[name] = notSupported;
+    }
+
+    const global = globalThis;
+    Object.defineProperty(global, 'console', { value: nodeConsole, writable: true, configurable: true });
+    // GraalJS shell and interop globals that do not exist in node
+    for (const name of ['print', 'printErr', 'load', 'loadWithNewGlobal', 'quit', 'exit', 'read', 'readbuffer',
+                        'readline', 'Java', 'Polyglot', 'Graal', 'arguments']) {
+        if (hasOwn(global, name)) {
+            delete global[name];
+        }
+    }
+
+    return {
+        isUnsupported() {
+            return unsupported;
+        }
+    };
+})();
@@ -0,0 +1,20 @@
+# Syntax check for Python submissions (see CompilerDiagnostics)
+#
+# Compiles the file without running it and reports the first syntax error in the
+# file:line:column: error: message form the compiler output parser reads.
+#
+# Started as: python -c <this script> main.py
+
+import sys
+
+path = sys.argv[1]
+try:
+    with open(path, encoding='utf-8') as source:
+        compile(source.read(), path, 'exec', dont_inherit=True)
+except SyntaxError as e:
+    sys.stderr.write('%s:%d:%d: error: %s\n' % (path, e.lineno or 1, e.offset or 1, e.msg))
+    sys.exit(1)
+except ValueError as e:
+    # e.g. null bytes in the source
+    sys.stderr.write('error: %s\n' % e)
+    sys.exit(1)
@@ -0,0 +1,444 @@
+// Pre-warmed JVM worker for pooled Java sandboxes (see InterpreterZygote)
+//
+// Launched once per sandbox as a single-file source program:
+//   java -XX:TieredStopAtLevel=1 /tmp/JvmWorker.java sandboxed
+// Each run loads the student's compiled classes from the workspace in a fresh classloader,
+// with System.in/out/err redirected to the run, so JVM startup and JDK class loading are
+// paid once per worker instead of per run. A run that does not end on its own (kill, CPU
+// limit, threads left behind, OutOfMemoryError) takes the worker down with it, and the
+// backend starts a new one. Threads count as left behind wherever they live, so a run that
+// handed work to the common pool or to virtual threads retires the worker too.
+//
+// Frames in both directions: 1 byte type, 4 byte big-endian length, payload.
+//   in:  1 run (JSON {"argv": [...], "cpuSeconds": n}), 2 stdin bytes, 3 stdin EOF, 4 kill
+//   out: 1 stdout bytes, 2 stderr bytes, 3 exit (4 byte big-endian code, then 1 if the worker retires)
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class JvmWorker {
+
+    static final int RUN = 1, STDIN = 2, STDIN_EOF = 3, KILL = 4;
+    static final int STDOUT = 1, STDERR = 2, EXIT = 3;
+
+    static final int KILLED = 137;
+    static final int CPU_LIMIT_EXCEEDED = 128 + 24; // SIGXCPU, as the kernel would report it
+    static final long GRACE_MILLIS = 100;
+
+    private static final Pattern ARGV = Pattern.compile("\"argv\"\\s*:\\s*\\[(.*?)]");
+    private static final Pattern STRING = Pattern.compile("\"((?:\\\\.|[^\"\\\\])*)\"");
+    private static final Pattern CPU = Pattern.compile("\"cpuSeconds\"\\s*:\\s*(\\d+)");
+
+    private final DataOutputStream protocolOut =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+    private final URL classpath;
+    private final boolean sandboxed;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private volatile Job current;
+    private int jobIds;
+
+    JvmWorker(boolean sandboxed) throws IOException {
+        this.sandboxed = sandboxed;
+        this.classpath = Paths.get("").toAbsolutePath().toUri().toURL();
+    }
+
+    public static void main(String[] args) throws Exception {
+        JvmWorker worker = new JvmWorker(Arrays.asList(args).contains("sandboxed"));
+        System.setIn(InputStream.nullInputStream());
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        worker.serve(new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in))));
+    }
+
+    void serve(DataInputStream control) {
+        try {
+            while (true) {
+                int type = control.read();
+                if (type < 0) {
+                    break;
+                }
+                byte[] payload = new byte[control.readInt()];
+                control.readFully(payload);
+
+                Job job = current;
+                if (type == RUN) {
+                    if (job == null) {
+                        start(new String(payload, StandardCharsets.UTF_8));
+                    }
+                } else if (job != null) {
+                    // Stdin or kill for a run that already ended is dropped
+                    if (type == STDIN) {
+                        job.stdin.feed(payload);
+                    } else if (type == STDIN_EOF) {
+                        job.stdin.close();
+                    } else if (type == KILL) {
+                        job.terminate(KILLED);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // The backend went away
+        }
+        Runtime.getRuntime().halt(0);
+    }
+
+    void send(int type, byte[] payload, int offset, int length) {
+        synchronized (protocolOut) {
+            try {
+                protocolOut.writeByte(type);
+                protocolOut.writeInt(length);
+                protocolOut.write(payload, offset, length);
+                protocolOut.flush();
+            } catch (IOException e) {
+                Runtime.getRuntime().halt(0);
+            }
+        }
+    }
+
+    private void start(String spec) {
+        List<String> argv = new ArrayList<>();
+        Matcher array = ARGV.matcher(spec);
+        if (array.find()) {
+            Matcher string = STRING.matcher(array.group(1));
+            while (string.find()) {
+                argv.add(string.group(1).replaceAll("\\\\(.)", "$1"));
+            }
+        }
+        Matcher cpu = CPU.matcher(spec);
+        long cpuSeconds = cpu.find() ? Long.parseLong(cpu.group(1)) : 0;
+
+        Job job = new Job(++jobIds, argv, cpuSeconds);
+        current = job;
+        Thread supervisor = new Thread(job::supervise, "job-supervisor-" + job.id);
+        supervisor.setDaemon(true);
+        supervisor.start();
+    }
+
+    /**
+     * Kill anything of this user still running, so nothing survives into the next run;
+     * only inside a sandbox container, where every process belongs to the sandbox
+     */
+    private void sweep() {
+        if (!sandboxed || "root".equals(System.getProperty("user.name"))) {
+            return;
+        }
+        long self = ProcessHandle.current().pid();
+        ProcessHandle.allProcesses()
+            .filter(process -> process.pid() != self && process.pid() != 1)
+            .forEach(ProcessHandle::destroyForcibly);
+    }
+
+    /**
+     * One run of a student program
+     */
+    private class Job {
+
+        final int id;
+        final List<String> argv;
+        final long cpuNanos;
+        final JobInput stdin = new JobInput();
+        final ThreadGroup group;
+        final Set<Long> workerThreads = new HashSet<>();
+        volatile int exitCode;
+        volatile int forcedExitCode = -1;
+        volatile boolean dirty;
+        boolean escaped;
+
+        Job(int id, List<String> argv, long cpuSeconds) {
+            this.id = id;
+            this.argv = argv;
+            this.cpuNanos = TimeUnit.SECONDS.toNanos(cpuSeconds);
+            this.group = new ThreadGroup("job-" + id);
+        }
+
+        void supervise() {
+            Properties properties = (Properties) System.getProperties().clone();
+            Locale locale = Locale.getDefault();
+            TimeZone timeZone = TimeZone.getDefault();
+            PrintStream out = new PrintStream(new FramedOutput(STDOUT), true, StandardCharsets.UTF_8);
+            PrintStream err = new PrintStream(new FramedOutput(STDERR), true, StandardCharsets.UTF_8);
+            System.setIn(stdin);
+            System.setOut(out);
+            System.setErr(err);
+
+            try (URLClassLoader loader = new URLClassLoader(new URL[]{classpath}, ClassLoader.getPlatformClassLoader())) {
+                Thread main = new Thread(group, () -> runMain(loader), "main");
+                // Not a daemon like its supervisor, so threads started by the program are not either
+                main.setDaemon(false);
+                main.setContextClassLoader(loader);
+                for (long threadId : threads.getAllThreadIds()) {
+                    workerThreads.add(threadId);
+                }
+                main.start();
+
+                // Like the java launcher: the run ends when main and every non-daemon thread are done
+                while (forcedExitCode < 0 && hasLiveThreads(false)) {
+                    Thread.sleep(10);
+                    if (cpuNanos > 0 && cpuTime() > cpuNanos) {
+                        terminate(CPU_LIMIT_EXCEEDED);
+                    }
+                }
+                if (forcedExitCode < 0 && (hasLiveThreads(true) || escaped)) {
+                    // Daemon threads would keep running into the next run, and so would virtual
+                    // threads parked on carriers that outlive the run
+                    dirty = true;
+                }
+            } catch (IOException | InterruptedException e) {
+                dirty = true;
+            } finally {
+                out.flush();
+                err.flush();
+                System.setIn(InputStream.nullInputStream());
+                System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+                System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+                System.setProperties(properties);
+                Locale.setDefault(locale);
+                TimeZone.setDefault(timeZone);
+            }
+            finish();
+        }
+
+        void runMain(ClassLoader loader) {
+            try {
+                Class<?> mainClass = Class.forName(argv.get(0), true, loader);
+                Method main = mainClass.getMethod("main", String[].class);
+                if (!Modifier.isStatic(main.getModifiers())) {
+                    throw new NoSuchMethodException("main is not static");
+                }
+                main.invoke(null, (Object) argv.subList(1, argv.size()).toArray(new String[0]));
+            } catch (InvocationTargetException e) {
+                reportUncaught(e.getCause());
+            } catch (ClassNotFoundException | NoSuchMethodException e) {
+                System.err.println("Error: Could not find or load main class " + argv.get(0));
+                System.err.println("Caused by: " + e);
+                exitCode = 1;
+            } catch (Throwable e) {
+                reportUncaught(e);
+            }
+        }
+
+        void reportUncaught(Throwable failure) {
+            trimWorkerFrames(failure);
+            System.err.print("Exception in thread \"main\" ");
+            failure.printStackTrace();
+            exitCode = 1;
+            if (failure instanceof VirtualMachineError) {
+                // The heap or stack of the worker itself may be damaged
+                dirty = true;
+            }
+        }
+
+        /**
+         * Stop the run; its threads are interrupted and the worker is replaced afterwards
+         */
+        void terminate(int code) {
+            if (forcedExitCode >= 0) {
+                return;
+            }
+            forcedExitCode = code;
+            dirty = true;
+            group.interrupt();
+        }
+
+        private void finish() {
+            int code = forcedExitCode >= 0 ? forcedExitCode : exitCode;
+            if (forcedExitCode >= 0) {
+                // Let interrupted threads flush what they were printing
+                try {
+                    Thread.sleep(GRACE_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            sweep();
+            current = null;
+            byte[] payload = {
+                (byte) (code >>> 24), (byte) (code >>> 16), (byte) (code >>> 8), (byte) code, (byte) (dirty ? 1 : 0)
+            };
+            send(EXIT, payload, 0, payload.length);
+            if (dirty) {
+                Runtime.getRuntime().halt(0);
+            }
+        }
+
+        private boolean hasLiveThreads(boolean includeDaemons) {
+            for (ThreadInfo thread : runThreads()) {
+                if (includeDaemons || !thread.isDaemon()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private long cpuTime() {
+            long total = 0;
+            for (ThreadInfo thread : runThreads()) {
+                long time = threads.getThreadCpuTime(thread.getThreadId());
+                if (time > 0) {
+                    total += time;
+                }
+            }
+            return total;
+        }
+
+        /**
+         * Live platform threads the worker did not have when the run started. The job's group
+         * does not see all of them: common pool workers, the carriers of virtual threads and
+         * threads placed in another group live outside it. Seeing one of those marks the run
+         * as escaped, since work handed to them may outlive the thread that was seen
+         */
+        private List<ThreadInfo> runThreads() {
+            long[] started = Arrays.stream(threads.getAllThreadIds())
+                .filter(threadId -> !workerThreads.contains(threadId))
+                .toArray();
+            Set<Long> inGroup = new HashSet<>();
+            Thread[] members = new Thread[group.activeCount() + 8];
+            int count = group.enumerate(members, true);
+            for (int i = 0; i < count; i++) {
+                inGroup.add(members[i].threadId());
+            }
+            List<ThreadInfo> live = new ArrayList<>();
+            for (ThreadInfo thread : threads.getThreadInfo(started, 0)) {
+                if (thread != null) {
+                    live.add(thread);
+                    escaped |= !inGroup.contains(thread.getThreadId());
+                }
+            }
+            return live;
+        }
+    }
+
+    /**
+     * Drop the reflection and worker frames below the program's main, as the java launcher shows it
+     */
+    static void trimWorkerFrames(Throwable failure) {
+        StackTraceElement[] frames = failure.getStackTrace();
+        int end = frames.length;
+        while (end > 0 && isWorkerFrame(frames[end - 1])) {
+            end--;
+        }
+        if (end > 0 && end < frames.length) {
+            failure.setStackTrace(Arrays.copyOf(frames, end));
+        }
+    }
+
+    private static boolean isWorkerFrame(StackTraceElement frame) {
+        String className = frame.getClassName();
+        return className.startsWith("JvmWorker")
+            || className.startsWith("java.lang.reflect.")
+            || className.startsWith("jdk.internal.reflect.")
+            || className.equals("java.lang.Thread");
+    }
+
+    /**
+     * Output of the current run, sent as frames
+     */
+    private class FramedOutput extends OutputStream {
+
+        private final int type;
+
+        FramedOutput(int type) {
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (len > 0) {
+                send(type, b, off, len);
+            }
+        }
+    }
+
+    /**
+     * Stdin of the current run, fed from stdin frames
+     */
+    private static class JobInput extends InputStream {
+
+        private byte[] buffer = new byte[0];
+        private int position;
+        private boolean closed;
+
+        synchronized void feed(byte[] data) {
+            byte[] merged = Arrays.copyOf(Arrays.copyOfRange(buffer, position, buffer.length),
+                buffer.length - position + data.length);
+            System.arraycopy(data, 0, merged, buffer.length - position, data.length);
+            buffer = merged;
+            position = 0;
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+            notifyAll();
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (position == buffer.length && !closed) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new java.io.InterruptedIOException();
+                }
+            }
+            if (position == buffer.length) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.length - position);
+            System.arraycopy(buffer, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public synchronized int available() {
+            return buffer.length - position;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+# Fork server for pooled Python sandboxes (see InterpreterZygote)
+#
+# Runs inside the sandbox container with the interpreter and common stdlib modules already
+# loaded. Each run request forks a child in its own session that executes the program as
+# __main__, so interpreter startup and imports are paid once per sandbox instead of per run.
+#
+# Started as: python -c <this script> sandboxed
+#
+# Frames in both directions: 1 byte type, 4 byte big-endian length, payload.
+#   in:  1 run (JSON {"argv": [...], "cpuSeconds": n}), 2 stdin bytes, 3 stdin EOF, 4 kill
+#   out: 1 stdout bytes, 2 stderr bytes, 3 exit (4 byte big-endian code)
+
+import os
+import select
+import signal
+import struct
+import sys
+import time
+
+# Loaded before any fork so children start with them in memory
+import collections, functools, heapq, itertools, json, math, random, re, string  # noqa: E401,F401
+import bisect, datetime, decimal, fractions, statistics, textwrap, typing  # noqa: E401,F401
+import dataclasses, enum, io, operator, runpy, traceback, resource  # noqa: E401,F401
+
+RUN, STDIN, STDIN_EOF, KILL = 1, 2, 3, 4
+STDOUT, STDERR, EXIT = 1, 2, 3
+HEADER = struct.Struct(">BI")
+CHUNK = 65536
+LINGER_SECONDS = 1.0
+
+
+def make_undumpable():
+    # Children run as the same user; without this they could ptrace or write /proc/<pid>/mem
+    try:
+        import ctypes
+        ctypes.CDLL(None, use_errno=True).prctl(4, 0, 0, 0, 0)  # PR_SET_DUMPABLE
+    except Exception:
+        pass
+
+
+def read_exact(fd, n):
+    data = b""
+    while len(data) < n:
+        chunk = os.read(fd, n - len(data))
+        if not chunk:
+            return None
+        data += chunk
+    return data
+
+
+def read_frame():
+    header = read_exact(0, HEADER.size)
+    if header is None:
+        return None, None
+    kind, length = HEADER.unpack(header)
+    payload = read_exact(0, length) if length else b""
+    if payload is None:
+        return None, None
+    return kind, payload
+
+
+def send(kind, payload=b""):
+    data = HEADER.pack(kind, len(payload)) + payload
+    while data:
+        data = data[os.write(1, data):]
+
+
+def exit_code(status):
+    if os.WIFSIGNALED(status):
+        return 128 + os.WTERMSIG(status)
+    return os.WEXITSTATUS(status)
+
+
+def run_child(spec, stdin_r, stdout_w, stderr_w):
+    os.setsid()
+    os.dup2(stdin_r, 0)
+    os.dup2(stdout_w, 1)
+    os.dup2(stderr_w, 2)
+    os.closerange(3, os.sysconf("SC_OPEN_MAX"))
+    signal.signal(signal.SIGPIPE, signal.SIG_DFL)
+
+    cpu = int(spec.get("cpuSeconds") or 0)
+    if cpu > 0:
+        resource.setrlimit(resource.RLIMIT_CPU, (cpu, cpu))
+
+    argv = spec["argv"]
+    script = os.path.abspath(argv[0])
+    sys.argv = list(argv)
+    sys.path[0] = os.path.dirname(script)
+    code = 0
+    try:
+        runpy.run_path(script, run_name="__main__")
+    except SystemExit as e:
+        if e.code is None:
+            code = 0
+        elif isinstance(e.code, int):
+            code = e.code
+        else:
+            print(e.code, file=sys.stderr)
+            code = 1
+    except BaseException as e:
+        # Start the traceback at the program, as a direct run of the interpreter would
+        tb = e.__traceback__
+        while tb is not None and tb.tb_frame.f_code.co_filename != script:
+            tb = tb.tb_next
+        traceback.print_exception(type(e), e, tb)
+        code = 1
+    finally:
+        try:
+            sys.stdout.flush()
+            sys.stderr.flush()
+        except BaseException:
+            pass
+    os._exit(code & 0xFF)
+
+
+def supervise(pid, stdin_w, stdout_r, stderr_r):
+    outputs = {stdout_r: STDOUT, stderr_r: STDERR}
+    pending = b""
+    eof_requested = False
+    status = None
+    exited_at = None
+
+    while outputs or status is None:
+        if status is None:
+            done, raw = os.waitpid(pid, os.WNOHANG)
+            if done:
+                status = raw
+                exited_at = time.monotonic()
+                # Background processes left by the program lose their output pipes with it
+                try:
+                    os.killpg(pid, signal.SIGKILL)
+                except OSError:
+                    pass
+        elif time.monotonic() - exited_at > LINGER_SECONDS:
+            break
+
+        readers = list(outputs)
+        if status is None:
+            readers.append(0)
+        writers = [stdin_w] if stdin_w is not None and pending else []
+        # Once the output pipes close the program is about to exit; poll for it closely
+        readable, writable, _ = select.select(readers, writers, [], 0.05 if outputs else 0.002)
+
+        for fd in readable:
+            if fd == 0:
+                kind, payload = read_frame()
+                if kind is None:
+                    # The backend went away; nobody is left to report to
+                    os.killpg(pid, signal.SIGKILL)
+                    sys.exit(0)
+                if kind == STDIN:
+                    pending += payload
+                elif kind == STDIN_EOF:
+                    eof_requested = True
+                elif kind == KILL:
+                    try:
+                        os.killpg(pid, signal.SIGKILL)
+                    except OSError:
+                        pass
+                continue
+            data = os.read(fd, CHUNK)
+            if data:
+                send(outputs[fd], data)
+            else:
+                del outputs[fd]
+                os.close(fd)
+
+        if stdin_w is not None and stdin_w in writable:
+            try:
+                pending = pending[os.write(stdin_w, pending):]
+            except OSError:
+                # The program closed its stdin
+                pending = b""
+                eof_requested = True
+        if stdin_w is not None and eof_requested and not pending:
+            os.close(stdin_w)
+            stdin_w = None
+
+    for fd in outputs:
+        os.close(fd)
+    if stdin_w is not None:
+        os.close(stdin_w)
+    if status is None:
+        os.killpg(pid, signal.SIGKILL)
+        _, status = os.waitpid(pid, 0)
+    return exit_code(status)
+
+
+def sweep():
+    # Kill anything of this user still running, e.g. a daemon that left the program's session,
+    # so nothing survives into the next student's run; pid 1 and this process are spared.
+    # Only inside a sandbox container, where every process of the user belongs to the sandbox
+    if "sandboxed" not in sys.argv[1:] or os.getuid() == 0:
+        return
+    try:
+        os.kill(-1, signal.SIGKILL)
+    except OSError:
+        pass
+
+
+def main():
+    make_undumpable()
+    signal.signal(signal.SIGPIPE, signal.SIG_DFL)
+    while True:
+        kind, payload = read_frame()
+        if kind is None:
+            return
+        if kind != RUN:
+            # Stdin or kill for a run that already ended
+            continue
+
+        spec = json.loads(payload.decode("utf-8"))
+        stdin_r, stdin_w = os.pipe()
+        stdout_r, stdout_w = os.pipe()
+        stderr_r, stderr_w = os.pipe()
+        pid = os.fork()
+        if pid == 0:
+            run_child(spec, stdin_r, stdout_w, stderr_w)
+        os.close(stdin_r)
+        os.close(stdout_w)
+        os.close(stderr_w)
+        os.set_blocking(stdin_w, False)
+
+        code = supervise(pid, stdin_w, stdout_r, stderr_r)
+        sweep()
+        send(EXIT, struct.pack(">i", code))
+
+
+if __name__ == "__main__":
+    main()
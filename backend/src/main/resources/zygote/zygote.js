@@ -0,0 +1,178 @@
+// Zygote for pooled JavaScript sandboxes (see InterpreterZygote)
+//
+// Node cannot fork, so this process keeps one child interpreter booted ahead of time,
+// waiting on fd 3 for the program to run. A run request hands the program to the warm
+// child, which loads it as the main module, and the next child boots while the run's
+// output is being read. Startup is therefore paid between runs instead of during them,
+// and every program still gets a fresh process in its own session.
+//
+// Started as: node -e <this script> sandboxed
+//
+// Frames in both directions: 1 byte type, 4 byte big-endian length, payload.
+//   in:  1 run (JSON {"argv": [...], "cpuSeconds": n}), 2 stdin bytes, 3 stdin EOF, 4 kill
+//   out: 1 stdout bytes, 2 stderr bytes, 3 exit (4 byte big-endian code)
+// Node has no setrlimit, so cpuSeconds is ignored; the backend's timeout kills runaway programs
+'use strict';
+
+const childProcess = require('child_process');
+const fs = require('fs');
+const os = require('os');
+
+const RUN = 1, STDIN = 2, STDIN_EOF = 3, KILL = 4;
+const STDOUT = 1, STDERR = 2, EXIT = 3;
+const HEADER_BYTES = 5;
+const LINGER_MS = 1000;
+
+// Runs in the warm child; the program becomes its main module
+const CHILD = `(() => {
+    const fs = require('fs');
+    const path = require('path');
+    const spec = JSON.parse(fs.readFileSync(3, 'utf8'));
+    fs.closeSync(3);
+    process.argv = [process.execPath, path.resolve(spec.argv[0]), ...spec.argv.slice(1)];
+    require('module').runMain();
+})();`;
+
+let warm = spawnWarm();
+let current = null;
+let input = Buffer.alloc(0);
+
+function spawnWarm() {
+    const child = childProcess.spawn(process.execPath, ['-e', CHILD], {
+        stdio: ['pipe', 'pipe', 'pipe', 'pipe'],
+        detached: true
+    });
+    child.on('error', () => {});
+    child.stdin.on('error', () => {});
+    return child;
+}
+
+function send(kind, payload) {
+    const frame = Buffer.alloc(HEADER_BYTES + payload.length);
+    frame.writeUInt8(kind, 0);
+    frame.writeUInt32BE(payload.length, 1);
+    payload.copy(frame, HEADER_BYTES);
+    let offset = 0;
+    while (offset < frame.length) {
+        try {
+            offset += fs.writeSync(1, frame, offset);
+        } catch (e) {
+            if (e.code !== 'EAGAIN') {
+                throw e;
+            }
+        }
+    }
+}
+
+function killGroup(child) {
+    try {
+        process.kill(-child.pid, 'SIGKILL');
+    } catch (e) {
+        // Already gone
+    }
+}
+
+function sweep() {
+    // Kill anything of this user still running, e.g. a daemon that left the program's session,
+    // so nothing survives into the next student's run; pid 1 and this process are spared.
+    // Only inside a sandbox container, where every process of the user belongs to the sandbox
+    if (!process.argv.slice(1).includes('sandboxed') || process.getuid() === 0) {
+        return;
+    }
+    try {
+        process.kill(-1, 'SIGKILL');
+    } catch (e) {
+        // Nothing to kill
+    }
+}
+
+function startRun(spec) {
+    if (warm.exitCode !== null || warm.signalCode !== null) {
+        warm = spawnWarm();
+    }
+    const child = warm;
+    const run = { child, open: 2, exitCode: null, finished: false };
+    current = run;
+
+    child.stdout.on('data', data => send(STDOUT, data));
+    child.stderr.on('data', data => send(STDERR, data));
+    const onClose = () => {
+        run.open--;
+        if (run.open === 0 && run.exitCode !== null) {
+            finishRun(run);
+        }
+    };
+    child.stdout.on('close', onClose);
+    child.stderr.on('close', onClose);
+    child.on('exit', (code, signal) => {
+        run.exitCode = code !== null ? code : 128 + (os.constants.signals[signal] || 0);
+        // Background processes left by the program lose their output pipes with it
+        killGroup(child);
+        if (run.open === 0) {
+            finishRun(run);
+        } else {
+            setTimeout(() => finishRun(run), LINGER_MS);
+        }
+    });
+
+    child.stdio[3].end(JSON.stringify(spec));
+}
+
+function finishRun(run) {
+    if (run.finished) {
+        return;
+    }
+    run.finished = true;
+    run.child.stdout.destroy();
+    run.child.stderr.destroy();
+    current = null;
+
+    sweep();
+    const code = Buffer.alloc(4);
+    code.writeInt32BE(run.exitCode, 0);
+    send(EXIT, code);
+    warm = spawnWarm();
+}
+
+function handle(kind, payload) {
+    if (kind === RUN) {
+        if (current === null) {
+            startRun(JSON.parse(payload.toString('utf8')));
+        }
+        return;
+    }
+    // Stdin or kill for a run that already ended is dropped
+    if (current === null || current.exitCode !== null) {
+        return;
+    }
+    if (kind === STDIN) {
+        current.child.stdin.write(payload);
+    } else if (kind === STDIN_EOF) {
+        current.child.stdin.end();
+    } else if (kind === KILL) {
+        killGroup(current.child);
+    }
+}
+
+process.stdin.on('data', chunk => {
+    input = Buffer.concat([input, chunk]);
+    while (input.length >= HEADER_BYTES) {
+        const length = input.readUInt32BE(1);
+        if (input.length < HEADER_BYTES + length) {
+            break;
+        }
+        const kind = input.readUInt8(0);
+        const payload = input.subarray(HEADER_BYTES, HEADER_BYTES + length);
+        input = input.subarray(HEADER_BYTES + length);
+        handle(kind, payload);
+    }
+});
+
+process.stdin.on('end', () => {
+    // The backend went away; nobody is left to report to
+    if (current !== null) {
+        killGroup(current.child);
+    }
+    killGroup(warm);
+    process.exit(0);
+});
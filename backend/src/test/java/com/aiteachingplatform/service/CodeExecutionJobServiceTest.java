@@ -0,0 +1,340 @@
+package com.aiteachingplatform.service;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import com.aiteachingplatform.dto.CodeExecutionResponse;
+import com.aiteachingplatform.dto.CodeValidationResponse;
+import com.aiteachingplatform.exception.BusinessException;
+import com.aiteachingplatform.exception.ResourceNotFoundException;
+import com.aiteachingplatform.service.execution.CodeExecutionJob;
+import com.aiteachingplatform.service.execution.DistributedExecutionQueue;
+import com.aiteachingplatform.service.execution.ExampleOutputStore;
+import com.aiteachingplatform.service.execution.ExecutionLane;
+import com.aiteachingplatform.service.execution.ExecutionResultCache;
+import com.aiteachingplatform.service.execution.ExecutionScheduler;
+import com.aiteachingplatform.service.execution.OutputListener;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for asynchronous code execution jobs
+ */
+public class CodeExecutionJobServiceTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    private ExecutionScheduler scheduler;
+
+    private CodeExecutionJobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        CodeExecutionService executionService = new CodeExecutionService() {
+            @Override
+            public CodeExecutionResponse executeCode(CodeExecutionRequest request, OutputListener outputListener) {
+                executions.incrementAndGet();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return CodeExecutionResponse.success("Hello, World!", 5L);
+            }
+        };
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        scheduler = new ExecutionScheduler();
+        ReflectionTestUtils.setField(scheduler, "configuredMaxConcurrent", 2);
+        ReflectionTestUtils.setField(scheduler, "maxQueueLength", 10);
+        ReflectionTestUtils.setField(scheduler, "maxQueuedPerUser", 10);
+        ReflectionTestUtils.setField(scheduler, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.invokeMethod(scheduler, "initialize");
+
+        ExecutionResultCache resultCache = new ExecutionResultCache();
+        ReflectionTestUtils.setField(resultCache, "cacheEnabled", true);
+        ReflectionTestUtils.setField(resultCache, "ttlSeconds", 30L);
+        ReflectionTestUtils.setField(resultCache, "maxEntries", 10);
+        ReflectionTestUtils.setField(resultCache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.invokeMethod(resultCache, "initialize");
+
+        jobService = new CodeExecutionJobService();
+        ReflectionTestUtils.setField(jobService, "maxEntries", 3);
+        ReflectionTestUtils.setField(jobService, "ttlSeconds", 300L);
+        ReflectionTestUtils.setField(jobService, "codeExecutionService", executionService);
+        ReflectionTestUtils.setField(jobService, "executionScheduler", scheduler);
+        ReflectionTestUtils.setField(jobService, "resultCache", resultCache);
+        ReflectionTestUtils.setField(jobService, "executionQueue", new DistributedExecutionQueue());
+        ReflectionTestUtils.setField(jobService, "exampleOutputs", new ExampleOutputStore());
+        ReflectionTestUtils.setField(jobService, "meterRegistry", meterRegistry);
+        jobService.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        jobService.shutdown();
+        scheduler.shutdown();
+    }
+
+    @Test
+    void testSubmitReturnsBeforeExecutionCompletes() throws Exception {
+        CodeExecutionJob job = jobService.submit(request(), "student");
+
+        assertFalse(job.isCompleted());
+        assertNull(job.getResult());
+
+        release.countDown();
+        CodeExecutionResponse response = job.getCompletion().get(5, TimeUnit.SECONDS);
+
+        assertTrue(response.isSuccess());
+        assertEquals(CodeExecutionJob.Status.COMPLETED, job.getStatus());
+        assertSame(job, jobService.getJob(job.getId(), "student"));
+    }
+
+    @Test
+    void testJobsAreNotVisibleToOtherUsers() {
+        CodeExecutionJob job = jobService.submit(request(), "student");
+
+        assertThrows(ResourceNotFoundException.class, () -> jobService.getJob(job.getId(), "someone-else"));
+        assertThrows(ResourceNotFoundException.class, () -> jobService.getJob("missing", "student"));
+    }
+
+    @Test
+    void testSubmitIsRejectedWhenJobTableIsFull() {
+        jobService.submit(request(), "student");
+        jobService.submit(request(), "student");
+        jobService.submit(request(), "student");
+
+        assertThrows(BusinessException.class, () -> jobService.submit(request(), "student"));
+    }
+
+    @Test
+    void testIdenticalInFlightSubmissionsShareOneRun() throws Exception {
+        CodeExecutionJob first = jobService.submit(request(), "student");
+        CodeExecutionJob second = jobService.submit(request(), "other-student");
+
+        release.countDown();
+
+        assertTrue(first.getCompletion().get(5, TimeUnit.SECONDS).isSuccess());
+        assertTrue(second.getCompletion().get(5, TimeUnit.SECONDS).isSuccess());
+        assertNotEquals(first.getId(), second.getId());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void testCompletedResultIsReused() throws Exception {
+        release.countDown();
+        jobService.submit(request(), "student").getCompletion().get(5, TimeUnit.SECONDS);
+
+        CodeExecutionJob rerun = jobService.submit(request(), "student");
+
+        assertTrue(rerun.isCompleted());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void testReusedResultsAreCopies() throws Exception {
+        release.countDown();
+        CodeExecutionResponse first = jobService.submit(request(), "student").getCompletion().get(5, TimeUnit.SECONDS);
+        first.setLanguage("changed by the first caller");
+
+        CodeExecutionResponse second = jobService.submit(request(), "student").getResult();
+
+        assertNotSame(first, second);
+        assertNull(second.getLanguage());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void testCodeThatMayPrintSomethingElseRunsEveryTime() throws Exception {
+        CodeExecutionRequest random = new CodeExecutionRequest("import random\nprint(random.random())",
+                                                               CodeExecutionRequest.Language.PYTHON);
+        CodeExecutionJob first = jobService.submit(random, "student");
+        CodeExecutionJob second = jobService.submit(random, "other-student");
+        release.countDown();
+        first.getCompletion().get(5, TimeUnit.SECONDS);
+        second.getCompletion().get(5, TimeUnit.SECONDS);
+
+        jobService.submit(random, "student").getCompletion().get(5, TimeUnit.SECONDS);
+
+        assertEquals(3, executions.get());
+    }
+
+    @Test
+    void testDifferentStdinRunsAgain() throws Exception {
+        release.countDown();
+        jobService.submit(request(), "student").getCompletion().get(5, TimeUnit.SECONDS);
+
+        CodeExecutionRequest withInput = request();
+        withInput.setStdin("42");
+        jobService.submit(withInput, "student").getCompletion().get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void testLateSubscriberReceivesCompletion() throws Exception {
+        release.countDown();
+        CodeExecutionJob job = jobService.submit(request(), "student");
+        job.getCompletion().get(5, TimeUnit.SECONDS);
+
+        List<String> events = new CopyOnWriteArrayList<>();
+        jobService.subscribe(job.getId(), "student", new CodeExecutionJob.JobListener() {
+            @Override
+            public void onStatus(CodeExecutionJob observed) {
+                events.add("status");
+            }
+
+            @Override
+            public void onCompleted(CodeExecutionJob observed) {
+                events.add("completed");
+            }
+        });
+
+        assertEquals(List.of("completed"), events);
+    }
+
+    @Test
+    void testSubscribersRacingCompletionSeeTheResult() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            CodeExecutionJob job = new CodeExecutionJob("job-" + i, "student", request());
+            List<CodeExecutionResponse> delivered = new CopyOnWriteArrayList<>();
+            Thread subscriber = new Thread(() -> job.subscribe(new CodeExecutionJob.JobListener() {
+                @Override
+                public void onStatus(CodeExecutionJob observed) {
+                }
+
+                @Override
+                public void onCompleted(CodeExecutionJob observed) {
+                    delivered.add(observed.getResult());
+                }
+            }));
+
+            subscriber.start();
+            job.complete(CodeExecutionResponse.success("done", 5L));
+            subscriber.join(5000);
+
+            assertEquals(1, delivered.size());
+            assertNotNull(delivered.get(0));
+        }
+    }
+
+    @Test
+    void testQueuedJobCompletesWithTheWorkersResult() throws Exception {
+        List<Consumer<CodeExecutionResponse>> dispatched = new CopyOnWriteArrayList<>();
+        DistributedExecutionQueue queue = new DistributedExecutionQueue() {
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public void enqueue(CodeExecutionJob job, ExecutionLane lane, Consumer<CodeExecutionResponse> onResult) {
+                dispatched.add(onResult);
+            }
+        };
+        ReflectionTestUtils.setField(jobService, "executionQueue", queue);
+
+        CodeExecutionJob job = jobService.submit(request(), "student");
+        CodeExecutionJob follower = jobService.submit(request(), "other-student");
+
+        assertEquals(1, dispatched.size());
+        assertFalse(job.isCompleted());
+
+        dispatched.get(0).accept(CodeExecutionResponse.success("from a worker", 5L));
+
+        assertEquals("from a worker", job.getCompletion().get(5, TimeUnit.SECONDS).getOutput());
+        assertEquals("from a worker", follower.getCompletion().get(5, TimeUnit.SECONDS).getOutput());
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    void testQueuedJobKeepsItsLane() {
+        List<ExecutionLane> lanes = new CopyOnWriteArrayList<>();
+        DistributedExecutionQueue queue = new DistributedExecutionQueue() {
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public void enqueue(CodeExecutionJob job, ExecutionLane lane, Consumer<CodeExecutionResponse> onResult) {
+                lanes.add(lane);
+            }
+        };
+        ReflectionTestUtils.setField(jobService, "executionQueue", queue);
+
+        jobService.submit(request(), "student");
+        jobService.submit(new CodeExecutionRequest("print(2)", CodeExecutionRequest.Language.PYTHON), "student",
+                          ExecutionLane.ASSIST);
+
+        assertEquals(List.of(ExecutionLane.INTERACTIVE, ExecutionLane.ASSIST), lanes);
+    }
+
+    @Test
+    void testValidationGoesThroughTheQueueWhenItIsEnabled() throws Exception {
+        List<Consumer<CodeValidationResponse>> dispatched = new CopyOnWriteArrayList<>();
+        DistributedExecutionQueue queue = new DistributedExecutionQueue() {
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public void enqueueValidation(CodeExecutionRequest request, String owner,
+                                          Consumer<CodeValidationResponse> onResult) {
+                dispatched.add(onResult);
+            }
+        };
+        ReflectionTestUtils.setField(jobService, "executionQueue", queue);
+        ReflectionTestUtils.setField(jobService, "codeExecutionService", new CodeExecutionService() {
+            @Override
+            public CodeValidationResponse validateCode(CodeExecutionRequest request) {
+                throw new AssertionError("validated on the API node");
+            }
+        });
+
+        CompletableFuture<CodeValidationResponse> validation = jobService.validate(request(), "student");
+
+        assertEquals(1, dispatched.size());
+        assertFalse(validation.isDone());
+
+        dispatched.get(0).accept(CodeValidationResponse.valid());
+
+        assertTrue(validation.get(5, TimeUnit.SECONDS).isValid());
+    }
+
+    @Test
+    void testUnmodifiedExampleCompletesFromItsPrecomputedOutput() {
+        ReflectionTestUtils.setField(jobService, "exampleOutputs", new ExampleOutputStore() {
+            @Override
+            public CodeExecutionResponse find(CodeExecutionRequest request) {
+                return CodeExecutionResponse.success("Hello, World!\n", 40L);
+            }
+        });
+
+        CodeExecutionJob job = jobService.submit(request(), "student");
+
+        assertTrue(job.isCompleted());
+        assertEquals("Hello, World!\n", job.getResult().getOutput());
+        assertEquals(0, executions.get());
+    }
+
+    private CodeExecutionRequest request() {
+        return new CodeExecutionRequest("print('Hello, World!')", CodeExecutionRequest.Language.PYTHON);
+    }
+}
@@ -2,8 +2,11 @@ package com.aiteachingplatform.service;
 
 import com.aiteachingplatform.dto.CodeExecutionRequest;
 import com.aiteachingplatform.dto.CodeExecutionResponse;
+import com.aiteachingplatform.service.execution.DockerCliBackend;
+import com.aiteachingplatform.service.execution.ExecutionBackendSelector;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -18,6 +21,11 @@ public class CodeExecutionServiceTest {
     @BeforeEach
     void setUp() {
         codeExecutionService = new CodeExecutionService();
+        
+        ExecutionBackendSelector backendSelector = new ExecutionBackendSelector();
+        ReflectionTestUtils.setField(backendSelector, "dockerClient", "cli");
+        ReflectionTestUtils.setField(backendSelector, "cliBackend", new DockerCliBackend());
+        ReflectionTestUtils.setField(codeExecutionService, "backendSelector", backendSelector);
     }
     
     @Test
@@ -2,6 +2,8 @@ package com.aiteachingplatform.service;
 
 import com.aiteachingplatform.dto.CodeExecutionRequest;
 import com.aiteachingplatform.dto.CodeExecutionResponse;
+import com.aiteachingplatform.service.execution.DockerCliBackend;
+import com.aiteachingplatform.service.execution.ExecutionBackendSelector;
 import com.aiteachingplatform.util.PropertyTestBase;
 import net.java.quickcheck.Generator;
 import net.java.quickcheck.characteristic.AbstractCharacteristic;
@@ -9,6 +11,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Random;
 
@@ -29,6 +32,11 @@ public class InteractiveCodeExecutionProperty extends PropertyTestBase {
     @BeforeEach
     void setUp() {
         codeExecutionService = new CodeExecutionService();
+        
+        ExecutionBackendSelector backendSelector = new ExecutionBackendSelector();
+        ReflectionTestUtils.setField(backendSelector, "dockerClient", "cli");
+        ReflectionTestUtils.setField(backendSelector, "cliBackend", new DockerCliBackend());
+        ReflectionTestUtils.setField(codeExecutionService, "backendSelector", backendSelector);
     }
     
     /**
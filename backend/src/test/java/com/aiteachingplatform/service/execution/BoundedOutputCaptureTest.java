@@ -0,0 +1,95 @@
+package com.aiteachingplatform.service.execution;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for bounded stdout/stderr capture
+ */
+public class BoundedOutputCaptureTest {
+
+    @Test
+    void testRingBufferKeepsMostRecentOutput() throws Exception {
+        BoundedOutputCapture capture = new BoundedOutputCapture(10, 1000, null, () -> {});
+
+        capture.drain(input("0123456789abcdef"), OutputListener.STDOUT);
+
+        assertEquals("6789abcdef", capture.getText(OutputListener.STDOUT));
+        assertTrue(capture.isTruncated());
+        assertFalse(capture.isLimitExceeded());
+    }
+
+    @Test
+    void testSmallOutputIsCapturedCompletely() throws Exception {
+        BoundedOutputCapture capture = new BoundedOutputCapture(64, 1000, null, () -> {});
+
+        capture.drain(input("Hello, World!\n"), OutputListener.STDOUT);
+
+        assertEquals("Hello, World!\n", capture.getText(OutputListener.STDOUT));
+        assertEquals("", capture.getText(OutputListener.STDERR));
+        assertFalse(capture.isTruncated());
+    }
+
+    @Test
+    void testHardCapTriggersKillOnceAndDiscardsTheRest() throws Exception {
+        AtomicInteger kills = new AtomicInteger();
+        BoundedOutputCapture capture = new BoundedOutputCapture(100, 20, null, kills::incrementAndGet);
+
+        capture.drain(new ByteArrayInputStream(new byte[100_000]), OutputListener.STDOUT);
+        capture.drain(input("more"), OutputListener.STDERR);
+
+        assertEquals(1, kills.get());
+        assertTrue(capture.isLimitExceeded());
+        assertTrue(capture.isTruncated());
+        assertEquals(20, capture.getText(OutputListener.STDOUT).length());
+        assertEquals("", capture.getText(OutputListener.STDERR));
+        assertEquals(20, capture.getTotalBytes());
+    }
+
+    @Test
+    void testListenerNeverReceivesSplitCharacters() throws Exception {
+        List<String> chunks = new ArrayList<>();
+        BoundedOutputCapture capture = new BoundedOutputCapture(
+            1000, 1000, (stream, chunk) -> chunks.add(chunk), () -> {});
+
+        // Deliver one byte per read so the three-byte euro sign arrives in pieces
+        byte[] bytes = "a€b".getBytes(StandardCharsets.UTF_8);
+        capture.drain(new OneByteInputStream(bytes), OutputListener.STDOUT);
+
+        assertEquals(List.of("a", "€", "b"), chunks);
+        assertEquals("a€b", capture.getText(OutputListener.STDOUT));
+    }
+
+    @Test
+    void testWrappedTailDoesNotStartMidCharacter() throws Exception {
+        BoundedOutputCapture capture = new BoundedOutputCapture(4, 1000, null, () -> {});
+
+        capture.drain(input("xx€€"), OutputListener.STDOUT);
+
+        assertEquals("€", capture.getText(OutputListener.STDOUT));
+    }
+
+    private InputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static class OneByteInputStream extends ByteArrayInputStream {
+
+        OneByteInputStream(byte[] bytes) {
+            super(bytes);
+        }
+
+        @Override
+        public synchronized int read(byte[] buffer, int offset, int length) {
+            return super.read(buffer, offset, Math.min(1, length));
+        }
+    }
+}
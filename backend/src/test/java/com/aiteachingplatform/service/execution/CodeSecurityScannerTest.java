@@ -0,0 +1,106 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the token-level security scanner
+ */
+public class CodeSecurityScannerTest {
+
+    private final CodeSecurityScanner scanner = new CodeSecurityScanner();
+
+    @Test
+    void testDetectsJavaProcessAndExitCalls() {
+        assertEquals("Runtime", java("Runtime.getRuntime().exec(\"ls\");"));
+        assertEquals("ProcessBuilder", java("new ProcessBuilder(\"cat\").start();"));
+        assertEquals("System.exit", java("System\n    .exit(1);"));
+        assertEquals("java.io.File", java("java.io.File f = new java.io.File(\"/etc/passwd\");"));
+    }
+
+    @Test
+    void testIgnoresNamesInsideLiteralsAndComments() {
+        assertNull(java("// Process the input\nSystem.out.println(\"Runtime: \" + 3 + \" Process\");"));
+        assertNull(java("/* System.exit(0) */ String s = \"\"\"\n  new File(x)\n  \"\"\"; char c = '\"';"));
+        assertNull(python("# import os\nprint('eval is not used here')\nprint(\"\"\"exec\nos\"\"\")"));
+        assertNull(scanner.findViolation("const s = 'require'; // process\nlet r = /eval/g; x = a / b / c;",
+            CodeExecutionRequest.Language.JAVASCRIPT));
+        assertNull(scanner.findViolation("auto s = R\"x(system(\"ls\"))x\"; int n = 1'000;",
+            CodeExecutionRequest.Language.CPP));
+    }
+
+    @Test
+    void testMatchingIsCaseSensitive() {
+        assertNull(java("int processCount = 0; String runtime = \"\";"));
+        assertEquals("Process", java("Process p = null;"));
+    }
+
+    @Test
+    void testUnicodeEscapesCannotHideJavaCode() {
+        // The escape is a line break to javac, ending the comment before the call
+        assertEquals("System.exit", java("// harmless \\u000a System.exit(1);"));
+        // An escaped backslash is not the start of an escape
+        assertNull(java("String s = \"\\\\u000a System.exit(1)\";"));
+    }
+
+    @Test
+    void testCodeEmbeddedInLiteralsIsScanned() {
+        assertEquals("eval", python("print(f\"{eval('1')}\")"));
+        assertNull(python("print(f\"{{eval}}\")"));
+        assertEquals("process", scanner.findViolation("console.log(`${process.env.HOME}`);",
+            CodeExecutionRequest.Language.JAVASCRIPT));
+    }
+
+    @Test
+    void testRulesArePerLanguage() {
+        assertEquals("os", python("import os\nos.system('ls')"));
+        assertEquals("open(", python("open ('/etc/passwd')"));
+        assertNull(java("int os = 1; String open = \"\";"));
+        assertEquals("require", scanner.findViolation("const fs = require('fs');",
+            CodeExecutionRequest.Language.JAVASCRIPT));
+        assertEquals("system(", scanner.findViolation("int main() { system(\"ls\"); }",
+            CodeExecutionRequest.Language.CPP));
+        assertNull(scanner.findViolation("int main() { int system = 1; return system; }",
+            CodeExecutionRequest.Language.CPP));
+    }
+
+    @Test
+    void testCppIncludesMustBeRelativeHeaderNames() {
+        assertNull(cpp("#include <bits/stdc++.h>\n#include \"util.h\" // helpers\nint main() {}"));
+        assertEquals("#include </etc/passwd>", cpp("#include </etc/passwd>"));
+        assertEquals("#include \"../../ccache/x.h\"", cpp("  #  include \"../../ccache/x.h\""));
+        assertEquals("#include SECRET", cpp("#define SECRET </etc/shadow>\n#include SECRET"));
+        // A line splice cannot split the directive past the check
+        assertEquals("#include </proc/self/environ>", cpp("#inc\\\nlude </proc/self/environ>"));
+    }
+
+    @Test
+    void testCppIncludesHiddenByCommentsOrDigraphsAreFound() {
+        assertEquals("#include \"/etc/passwd\"", cpp("#/**/include \"/etc/passwd\""));
+        assertEquals("#include \"/etc/passwd\"", cpp("%:include \"/etc/passwd\""));
+        assertEquals("#include \"/etc/passwd\"", cpp("%: /* x */ include /* y */ \"/etc/passwd\""));
+        assertEquals("#include \"/etc/passwd\"", cpp("int x; /*\n*/ #include \"/etc/passwd\""));
+        assertEquals("#include \"/etc/passwd\"", cpp("??=include \"/etc/passwd\""));
+        assertEquals("#include \"/etc/passwd\"", cpp("#embed \"/etc/passwd\""));
+        // Comment openers inside literals and numbers do not hide the next lines
+        assertEquals("#include \"/etc/passwd\"",
+            cpp("auto s = R\"x(\" /* )x\";\n#include \"/etc/passwd\"\nauto t = \"*/\";"));
+        assertEquals("#include \"/etc/passwd\"", cpp("int x = 1'2'/*';\n#include \"/etc/passwd\"\nint y; // */"));
+        assertEquals("#include \"/etc/passwd\"", cpp("auto s = \"\\\" /*\";\n#include \"/etc/passwd\"\n// */"));
+        assertNull(cpp("/*\n#include \"/etc/passwd\"\n*/\n// #include </etc/shadow>\nint main() {}"));
+    }
+
+    private String java(String code) {
+        return scanner.findViolation(code, CodeExecutionRequest.Language.JAVA);
+    }
+
+    private String python(String code) {
+        return scanner.findViolation(code, CodeExecutionRequest.Language.PYTHON);
+    }
+
+    private String cpp(String code) {
+        return scanner.findViolation(code, CodeExecutionRequest.Language.CPP);
+    }
+}
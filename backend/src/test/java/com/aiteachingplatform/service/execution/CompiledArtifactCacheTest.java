@@ -0,0 +1,152 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import com.aiteachingplatform.dto.CodeExecutionResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the content-addressed compiled artifact cache
+ */
+public class CompiledArtifactCacheTest {
+    
+    private static final CodeExecutionRequest.Language CPP = CodeExecutionRequest.Language.CPP;
+    
+    @TempDir
+    Path cacheDir;
+    
+    private CompiledArtifactCache cache;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        cache = new CompiledArtifactCache();
+        ReflectionTestUtils.setField(cache, "cacheEnabled", true);
+        ReflectionTestUtils.setField(cache, "cacheDir", cacheDir.toString());
+        ReflectionTestUtils.setField(cache, "maxSizeMB", 1L);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        cache.initialize();
+    }
+    
+    @Test
+    void testKeyDependsOnSourceAndFlags() {
+        String key = cache.keyFor(CPP, "int main() {}", List.of("g++", "-O2"));
+        
+        assertEquals(64, key.length());
+        assertEquals(key, cache.keyFor(CPP, "int main() {}", List.of("g++", "-O2")));
+        assertNotEquals(key, cache.keyFor(CPP, "int main() {}", List.of("g++", "-O0")));
+        assertNotEquals(key, cache.keyFor(CPP, "int main() { }", List.of("g++", "-O2")));
+        assertNotEquals(key, cache.keyFor(CodeExecutionRequest.Language.JAVA, "int main() {}", List.of("g++", "-O2")));
+    }
+    
+    @Test
+    void testSecondLookupSkipsCompilation() throws Exception {
+        AtomicInteger compilations = new AtomicInteger();
+        String key = cache.keyFor(CPP, "int main() {}", List.of("g++"));
+        
+        CompileOutcome first = cache.getOrCompile(CPP, key, () -> {
+            compilations.incrementAndGet();
+            return CompileOutcome.success(Map.of("main", new byte[]{1, 2, 3}), Collections.singleton("main"));
+        });
+        CompileOutcome second = cache.getOrCompile(CPP, key, () -> {
+            compilations.incrementAndGet();
+            return CompileOutcome.success(Map.of("main", new byte[]{9}), Collections.emptySet());
+        });
+        
+        assertTrue(first.isSuccess());
+        assertEquals(1, compilations.get());
+        assertArrayEquals(new byte[]{1, 2, 3}, second.getArtifacts().get("main"));
+        assertTrue(second.getExecutables().contains("main"));
+        assertEquals(0.5, cache.getHitRatio(), 0.0001);
+    }
+    
+    @Test
+    void testFailedCompilationIsNotCached() throws Exception {
+        AtomicInteger compilations = new AtomicInteger();
+        String key = cache.keyFor(CPP, "int main() {", List.of("g++"));
+        
+        for (int i = 0; i < 2; i++) {
+            CompileOutcome outcome = cache.getOrCompile(CPP, key, () -> {
+                compilations.incrementAndGet();
+                return CompileOutcome.failure(CodeExecutionResponse.compilationError("expected '}'"));
+            });
+            assertFalse(outcome.isSuccess());
+        }
+        
+        assertEquals(2, compilations.get());
+    }
+    
+    @Test
+    void testConcurrentIdenticalSubmissionsCompileOnce() throws Exception {
+        AtomicInteger compilations = new AtomicInteger();
+        CountDownLatch compiling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        String key = cache.keyFor(CPP, "int main() { return 0; }", List.of("g++"));
+        
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<CompileOutcome> first = executor.submit(() -> cache.getOrCompile(CPP, key, () -> {
+                compilations.incrementAndGet();
+                compiling.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return CompileOutcome.success(Map.of("main", new byte[]{7}), Collections.emptySet());
+            }));
+            
+            assertTrue(compiling.await(5, TimeUnit.SECONDS));
+            Future<CompileOutcome> second = executor.submit(() -> cache.getOrCompile(CPP, key, () -> {
+                compilations.incrementAndGet();
+                return CompileOutcome.success(Map.of("main", new byte[]{8}), Collections.emptySet());
+            }));
+            release.countDown();
+            
+            assertArrayEquals(new byte[]{7}, first.get(5, TimeUnit.SECONDS).getArtifacts().get("main"));
+            assertArrayEquals(new byte[]{7}, second.get(5, TimeUnit.SECONDS).getArtifacts().get("main"));
+            assertEquals(1, compilations.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    void testLeastRecentlyUsedEntryIsEvictedOverBudget() throws Exception {
+        byte[] sixHundredKb = new byte[600 * 1024];
+        String oldKey = cache.keyFor(CPP, "old", List.of("g++"));
+        String newKey = cache.keyFor(CPP, "new", List.of("g++"));
+        AtomicInteger compilations = new AtomicInteger();
+        
+        cache.getOrCompile(CPP, oldKey, () -> {
+            compilations.incrementAndGet();
+            return CompileOutcome.success(Map.of("main", sixHundredKb), Collections.emptySet());
+        });
+        cache.getOrCompile(CPP, newKey, () -> {
+            compilations.incrementAndGet();
+            return CompileOutcome.success(Map.of("main", sixHundredKb), Collections.emptySet());
+        });
+        cache.getOrCompile(CPP, oldKey, () -> {
+            compilations.incrementAndGet();
+            return CompileOutcome.success(Map.of("main", sixHundredKb), Collections.emptySet());
+        });
+        
+        // The 1 MB budget only fits one entry, so the old entry had to be compiled again
+        assertEquals(3, compilations.get());
+    }
+}
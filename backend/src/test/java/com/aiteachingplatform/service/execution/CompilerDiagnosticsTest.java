@@ -0,0 +1,102 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import com.aiteachingplatform.dto.CompilationDiagnostic;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for parsing compiler and syntax checker output
+ */
+public class CompilerDiagnosticsTest {
+
+    @Test
+    void testGccErrorsWarningsAndNotes() {
+        String output = "main.cpp: In function 'int main()':\n"
+            + "main.cpp:3:3: error: expected ',' or ';' before 'return'\n"
+            + "    3 |   return y;\n"
+            + "      |   ^~~~~~\n"
+            + "/workspace/main.cpp:5:9: warning: unused variable 'z' [-Wunused-variable]\n"
+            + "main.cpp:1:1: note: declared here\n";
+
+        List<CompilationDiagnostic> diagnostics = CompilerDiagnostics.parse(output, "main.cpp");
+
+        assertEquals(3, diagnostics.size());
+        assertDiagnostic(diagnostics.get(0), 3, 3, "expected ',' or ';' before 'return'", CompilationDiagnostic.Severity.ERROR);
+        assertDiagnostic(diagnostics.get(1), 5, 9, "unused variable 'z' [-Wunused-variable]", CompilationDiagnostic.Severity.WARNING);
+        assertEquals(CompilationDiagnostic.Severity.INFO, diagnostics.get(2).getSeverity());
+    }
+
+    @Test
+    void testJavacColumnIsTakenFromTheCaret() {
+        String output = "Main.java:3: error: ';' expected\n"
+            + "    int x = 1\n"
+            + "             ^\n"
+            + "1 error\n";
+
+        List<CompilationDiagnostic> diagnostics = CompilerDiagnostics.parse(output, "Main.java");
+
+        assertEquals(1, diagnostics.size());
+        assertDiagnostic(diagnostics.get(0), 3, 14, "';' expected", CompilationDiagnostic.Severity.ERROR);
+    }
+
+    @Test
+    void testNodeCheckReport() {
+        String output = "/workspace/main.js:2\n"
+            + "let x = ;\n"
+            + "        ^\n"
+            + "\n"
+            + "SyntaxError: Unexpected token ';'\n"
+            + "    at internalCompileFunction (node:internal/vm:76:18)\n";
+
+        List<CompilationDiagnostic> diagnostics = CompilerDiagnostics.parse(output, "main.js");
+
+        assertEquals(1, diagnostics.size());
+        assertDiagnostic(diagnostics.get(0), 2, 9, "Unexpected token ';'", CompilationDiagnostic.Severity.ERROR);
+    }
+
+    @Test
+    void testPythonCheckerOutput() {
+        List<CompilationDiagnostic> diagnostics = CompilerDiagnostics.parse(
+            "main.py:1:7: error: invalid syntax\n", "main.py"
+        );
+
+        assertEquals(1, diagnostics.size());
+        assertDiagnostic(diagnostics.get(0), 1, 7, "invalid syntax", CompilationDiagnostic.Severity.ERROR);
+    }
+
+    @Test
+    void testUnrecognizedOutputBecomesOneErrorWithoutPosition() {
+        String output = "/usr/bin/ld: main.o: undefined reference to `foo()'\n"
+            + "collect2: error: ld returned 1 exit status\n";
+
+        List<CompilationDiagnostic> diagnostics = CompilerDiagnostics.parse(output, "main.cpp");
+
+        assertEquals(1, diagnostics.size());
+        assertNull(diagnostics.get(0).getLine());
+        assertEquals(output.trim(), diagnostics.get(0).getMessage());
+        assertTrue(CompilerDiagnostics.parse("  ", "main.cpp").isEmpty());
+    }
+
+    @Test
+    void testOnlyInterpretedLanguagesHaveASyntaxCheck() {
+        assertArrayEquals(new String[]{"node", "--check", "main.js"},
+            CompilerDiagnostics.syntaxCheckCommand(CodeExecutionRequest.Language.JAVASCRIPT));
+        String[] python = CompilerDiagnostics.syntaxCheckCommand(CodeExecutionRequest.Language.PYTHON);
+        assertEquals("-c", python[1]);
+        assertEquals("main.py", python[3]);
+        assertNull(CompilerDiagnostics.syntaxCheckCommand(CodeExecutionRequest.Language.CPP));
+        assertNull(CompilerDiagnostics.syntaxCheckCommand(CodeExecutionRequest.Language.JAVA));
+    }
+
+    private static void assertDiagnostic(CompilationDiagnostic diagnostic, int line, int column, String message,
+                                         CompilationDiagnostic.Severity severity) {
+        assertEquals(line, diagnostic.getLine());
+        assertEquals(column, diagnostic.getColumn());
+        assertEquals(message, diagnostic.getMessage());
+        assertEquals(severity, diagnostic.getSeverity());
+    }
+}
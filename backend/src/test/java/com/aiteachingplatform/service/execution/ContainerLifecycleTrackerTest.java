@@ -0,0 +1,151 @@
+package com.aiteachingplatform.service.execution;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for naming, labelling and reaping run containers
+ */
+public class ContainerLifecycleTrackerTest {
+
+    private final List<ContainerSummary> containers = new ArrayList<>();
+    private final List<String> removed = new CopyOnWriteArrayList<>();
+
+    private MeterRegistry meterRegistry;
+    private ExecutionThreads executionThreads;
+    private ContainerLifecycleTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+
+        DockerCliBackend cliBackend = new DockerCliBackend() {
+            @Override
+            public boolean isAvailable() {
+                return true;
+            }
+
+            @Override
+            public List<ContainerSummary> listContainers(String label) {
+                return containers;
+            }
+
+            @Override
+            public void removeSandbox(String containerId) {
+                removed.add(containerId);
+            }
+        };
+        ExecutionBackendSelector backendSelector = new ExecutionBackendSelector();
+        ReflectionTestUtils.setField(backendSelector, "backendType", "docker");
+        ReflectionTestUtils.setField(backendSelector, "dockerClient", "cli");
+        ReflectionTestUtils.setField(backendSelector, "cliBackend", cliBackend);
+
+        executionThreads = new ExecutionThreads();
+        ReflectionTestUtils.setField(executionThreads, "tickMs", 10L);
+        ReflectionTestUtils.setField(executionThreads, "wheelSize", 64);
+        ReflectionTestUtils.setField(executionThreads, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.invokeMethod(executionThreads, "initialize");
+
+        tracker = new ContainerLifecycleTracker();
+        ReflectionTestUtils.setField(tracker, "reaperEnabled", false);
+        ReflectionTestUtils.setField(tracker, "graceSeconds", 10L);
+        ReflectionTestUtils.setField(tracker, "cpuLimit", 0.5);
+        ReflectionTestUtils.setField(tracker, "backendSelector", backendSelector);
+        ReflectionTestUtils.setField(tracker, "executionThreads", executionThreads);
+        ReflectionTestUtils.setField(tracker, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.invokeMethod(tracker, "initialize");
+    }
+
+    @AfterEach
+    void tearDown() {
+        tracker.shutdown();
+        executionThreads.shutdown();
+    }
+
+    @Test
+    void testRunContainersAreNamedAndLabelledWithTheirDeadline() {
+        long before = System.currentTimeMillis();
+        ContainerLifecycleTracker.TrackedContainer first = tracker.track(10);
+        ContainerLifecycleTracker.TrackedContainer second = tracker.track(10);
+
+        assertTrue(first.getName().startsWith("code-exec-" + tracker.getNodeId() + "-"));
+        assertNotEquals(first.getName(), second.getName());
+        assertTrue(first.getName().matches("[a-zA-Z0-9][a-zA-Z0-9_.-]*"));
+
+        Map<String, String> labels = first.getLabels();
+        assertEquals(first.getName(), labels.get(ContainerLifecycleTracker.RUN_LABEL));
+        assertEquals(tracker.getNodeId(), labels.get(ContainerLifecycleTracker.NODE_LABEL));
+        long deadline = Long.parseLong(labels.get(ContainerLifecycleTracker.DEADLINE_LABEL));
+        assertTrue(deadline >= before + 10_000 && deadline <= System.currentTimeMillis() + 10_000);
+    }
+
+    @Test
+    void testTimedOutContainersAreRemovedByName() throws Exception {
+        ContainerLifecycleTracker.TrackedContainer finished = tracker.track(10);
+        ContainerLifecycleTracker.TrackedContainer timedOut = tracker.track(10);
+
+        tracker.finished(finished, false);
+        tracker.finished(timedOut, true);
+        // Reporting twice must not remove twice
+        tracker.finished(timedOut, true);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (removed.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        assertEquals(List.of(timedOut.getName()), removed);
+        assertEquals(1.0, meterRegistry.get("code.execution.containers.reaped")
+            .tag("reason", ContainerLifecycleTracker.REASON_TIMEOUT).counter().count());
+    }
+
+    @Test
+    void testReaperRemovesOnlyContainersPastDeadlineAndGrace() {
+        long now = System.currentTimeMillis();
+        containers.add(container("runaway", true, now - 60_000));
+        containers.add(container("exited", false, now - 60_000));
+        containers.add(container("within-grace", true, now - 5_000));
+        containers.add(container("running", true, now + 5_000));
+        containers.add(new ContainerSummary("unlabelled", true, Map.of(ContainerLifecycleTracker.RUN_LABEL, "x")));
+
+        tracker.reap();
+
+        assertEquals(List.of("runaway", "exited"), removed);
+        assertEquals(2.0, meterRegistry.get("code.execution.containers.reaped")
+            .tag("reason", ContainerLifecycleTracker.REASON_EXPIRED).counter().count());
+        // Only the running container held CPU: half a core for about a minute
+        double reclaimed = meterRegistry.get("code.execution.containers.reclaimed.cpu")
+            .tag("reason", ContainerLifecycleTracker.REASON_EXPIRED).counter().count();
+        assertTrue(reclaimed >= 30.0 && reclaimed < 31.0, "reclaimed " + reclaimed);
+    }
+
+    @Test
+    void testCliLabelListIsParsed() {
+        assertEquals(
+            Map.of(ContainerLifecycleTracker.RUN_LABEL, "code-exec-a-1", ContainerLifecycleTracker.DEADLINE_LABEL, "42"),
+            DockerCliBackend.parseLabels(
+                ContainerLifecycleTracker.RUN_LABEL + "=code-exec-a-1," + ContainerLifecycleTracker.DEADLINE_LABEL + "=42"
+            )
+        );
+        assertTrue(DockerCliBackend.parseLabels("").isEmpty());
+    }
+
+    private static ContainerSummary container(String id, boolean running, long deadlineMillis) {
+        return new ContainerSummary(id, running, Map.of(
+            ContainerLifecycleTracker.RUN_LABEL, id,
+            ContainerLifecycleTracker.DEADLINE_LABEL, Long.toString(deadlineMillis)
+        ));
+    }
+}
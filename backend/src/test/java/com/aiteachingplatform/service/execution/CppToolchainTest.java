@@ -0,0 +1,96 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.model.Lesson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for C++ compile commands and the compiler cache mount
+ */
+public class CppToolchainTest {
+
+    private ExecutionBackendSelector backendSelector;
+    private CppToolchain toolchain;
+
+    @BeforeEach
+    void setUp() {
+        backendSelector = new ExecutionBackendSelector();
+        ReflectionTestUtils.setField(backendSelector, "backendType", "docker");
+        ReflectionTestUtils.setField(backendSelector, "dockerClient", "cli");
+        ReflectionTestUtils.setField(backendSelector, "cliBackend", new DockerCliBackend() {
+            @Override
+            public boolean isAvailable() {
+                return true;
+            }
+        });
+
+        toolchain = new CppToolchain();
+        ReflectionTestUtils.setField(toolchain, "toolchainEnabled", false);
+        ReflectionTestUtils.setField(toolchain, "ccacheVolume", "code-execution-ccache");
+        ReflectionTestUtils.setField(toolchain, "ccacheMaxSize", "2G");
+        ReflectionTestUtils.setField(toolchain, "beginnerFlags", "-std=gnu++17 -O0 -Wall -Wextra");
+        ReflectionTestUtils.setField(toolchain, "intermediateFlags", "-std=gnu++17 -O1 -Wall");
+        ReflectionTestUtils.setField(toolchain, "advancedFlags", " -std=gnu++17  -O2 ");
+        ReflectionTestUtils.setField(toolchain, "backendSelector", backendSelector);
+    }
+
+    @Test
+    void testFlagsFollowDifficulty() {
+        assertEquals(List.of("-std=gnu++17", "-O0", "-Wall", "-Wextra"), toolchain.flagsFor(Lesson.Difficulty.BEGINNER));
+        assertEquals(List.of("-std=gnu++17", "-O1", "-Wall"), toolchain.flagsFor(Lesson.Difficulty.INTERMEDIATE));
+        assertEquals(List.of("-std=gnu++17", "-O2"), toolchain.flagsFor(Lesson.Difficulty.ADVANCED));
+        // Code run outside a lesson compiles like beginner code
+        assertEquals(toolchain.flagsFor(Lesson.Difficulty.BEGINNER), toolchain.flagsFor(null));
+    }
+
+    @Test
+    void testPlainCompileWithoutToolchain() {
+        assertFalse(toolchain.isEnabled());
+        assertArrayEquals(
+            new String[] {"g++", "-std=gnu++17", "-O2", "-o", "main", "main.cpp"},
+            toolchain.compileCommand(Lesson.Difficulty.ADVANCED, "main.cpp")
+        );
+    }
+
+    @Test
+    void testToolchainCompileUsesCcacheAndPrecompiledHeaders() {
+        ReflectionTestUtils.setField(toolchain, "toolchainEnabled", true);
+
+        assertTrue(toolchain.isEnabled());
+        assertArrayEquals(
+            new String[] {"ccache", "g++", "-std=gnu++17", "-O1", "-Wall", "-I/opt/pch", "-fpch-preprocess",
+                          "-o", "main", "main.cpp"},
+            toolchain.compileCommand(Lesson.Difficulty.INTERMEDIATE, "main.cpp")
+        );
+
+        // Local runs have no toolchain image
+        ReflectionTestUtils.setField(backendSelector, "backendType", "local");
+        ReflectionTestUtils.setField(backendSelector, "localBackend", new LocalProcessBackend());
+        assertFalse(toolchain.isEnabled());
+        assertEquals("g++", toolchain.compileCommand(Lesson.Difficulty.INTERMEDIATE, "main.cpp")[0]);
+    }
+
+    @Test
+    void testCompilerCacheIsMountedOnTheCompileContainer() {
+        SandboxSpec spec = SandboxSpec.coldRun("cpp-toolchain", Path.of("/tmp/ws"), new String[] {"g++", "main.cpp"},
+                                               "code-exec-a-1", Map.of());
+
+        SandboxSpec cached = toolchain.withCompilerCache(spec);
+
+        assertEquals(Map.of("code-execution-ccache", "/ccache"), cached.getVolumes());
+        assertEquals("/ccache", cached.getEnvironment().get("CCACHE_DIR"));
+        assertEquals("2G", cached.getEnvironment().get("CCACHE_MAXSIZE"));
+        assertEquals(spec.getCommand(), cached.getCommand());
+        assertEquals(spec.getContainerName(), cached.getContainerName());
+        // The original spec is left alone
+        assertTrue(spec.getVolumes().isEmpty());
+        assertTrue(spec.getEnvironment().isEmpty());
+    }
+}
@@ -0,0 +1,72 @@
+package com.aiteachingplatform.service.execution;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the shared execution deadline wheel
+ */
+public class DeadlineTimerWheelTest {
+
+    // A small wheel so deadlines wrap around it several times
+    private final DeadlineTimerWheel wheel = new DeadlineTimerWheel("test-deadlines", 5, TimeUnit.MILLISECONDS, 8, Runnable::run);
+
+    @BeforeEach
+    void setUp() {
+        wheel.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        wheel.shutdown();
+    }
+
+    @Test
+    void testDeadlineFiresAfterItsDelay() throws Exception {
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        DeadlineTimerWheel.Deadline deadline = wheel.schedule(120, TimeUnit.MILLISECONDS, fired::countDown);
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 115);
+        assertTrue(deadline.isExpired());
+        assertFalse(deadline.cancel());
+        assertEquals(0, wheel.getPending());
+    }
+
+    @Test
+    void testCancelledDeadlineNeverFires() throws Exception {
+        AtomicInteger fired = new AtomicInteger();
+        CountDownLatch later = new CountDownLatch(1);
+
+        DeadlineTimerWheel.Deadline deadline = wheel.schedule(50, TimeUnit.MILLISECONDS, fired::incrementAndGet);
+        wheel.schedule(150, TimeUnit.MILLISECONDS, later::countDown);
+        assertEquals(2, wheel.getPending());
+
+        assertTrue(deadline.cancel());
+        assertTrue(later.await(2, TimeUnit.SECONDS));
+        assertEquals(0, fired.get());
+        assertFalse(deadline.isExpired());
+        assertEquals(0, wheel.getPending());
+    }
+
+    @Test
+    void testManyDeadlinesAllFire() throws Exception {
+        CountDownLatch fired = new CountDownLatch(200);
+
+        for (int i = 0; i < 200; i++) {
+            wheel.schedule(i % 40, TimeUnit.MILLISECONDS, fired::countDown);
+        }
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertEquals(0, wheel.getPending());
+    }
+}
@@ -0,0 +1,63 @@
+package com.aiteachingplatform.service.execution;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for splitting Docker's multiplexed attach stream
+ */
+public class DockerStreamDemultiplexerTest {
+
+    @Test
+    void testFramesAreRoutedToTheirStreams() throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(frame(DockerStreamDemultiplexer.STREAM_STDOUT, "hello "));
+        stream.write(frame(DockerStreamDemultiplexer.STREAM_STDERR, "warning\n"));
+        stream.write(frame(DockerStreamDemultiplexer.STREAM_STDOUT, "world\n"));
+
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+        new DockerStreamDemultiplexer(new ByteArrayInputStream(stream.toByteArray()), stdout, stderr).pump();
+
+        assertEquals("hello world\n", stdout.toString(StandardCharsets.UTF_8));
+        assertEquals("warning\n", stderr.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testFramesLargerThanTheCopyBuffer() throws Exception {
+        String payload = "x".repeat(100_000);
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+
+        new DockerStreamDemultiplexer(
+            new ByteArrayInputStream(frame(DockerStreamDemultiplexer.STREAM_STDOUT, payload)),
+            stdout, new ByteArrayOutputStream()
+        ).pump();
+
+        assertEquals(payload, stdout.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testTruncatedFrameFails() {
+        byte[] frame = frame(DockerStreamDemultiplexer.STREAM_STDOUT, "cut short");
+        byte[] truncated = new byte[frame.length - 3];
+        System.arraycopy(frame, 0, truncated, 0, truncated.length);
+
+        assertThrows(EOFException.class, () -> new DockerStreamDemultiplexer(
+            new ByteArrayInputStream(truncated), new ByteArrayOutputStream(), new ByteArrayOutputStream()
+        ).pump());
+    }
+
+    private static byte[] frame(int streamType, String payload) {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(8 + bytes.length)
+            .put((byte) streamType).put(new byte[3]).putInt(bytes.length).put(bytes)
+            .array();
+    }
+}
@@ -0,0 +1,174 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import com.aiteachingplatform.dto.CodeExecutionResponse;
+import com.aiteachingplatform.model.Lesson;
+import com.aiteachingplatform.model.PracticeQuestion;
+import com.aiteachingplatform.service.CodeExecutionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for extracting lesson examples and precomputing their outputs
+ */
+public class ExampleOutputPrecomputerTest {
+
+    private static final String HELLO = "public class Main {\n    public static void main(String[] args) {\n"
+        + "        System.out.println(\"Hello\");\n    }\n}\n";
+
+    private final List<String> executed = new ArrayList<>();
+    private final Map<String, CodeExecutionResponse> saved = new LinkedHashMap<>();
+    private final List<String> retainedVersions = new ArrayList<>();
+    private ExecutionScheduler scheduler;
+    private ExampleOutputPrecomputer precomputer;
+
+    @BeforeEach
+    void setUp() {
+        AtomicInteger clock = new AtomicInteger();
+        CodeExecutionService executionService = new CodeExecutionService() {
+            @Override
+            public CodeExecutionResponse executeCode(CodeExecutionRequest request) {
+                executed.add(request.getCode());
+                if (request.getCode().contains("new int[0]")) {
+                    return CodeExecutionResponse.success(clock.incrementAndGet() + "\n", 5L);
+                }
+                if (request.getCode().contains("Docker")) {
+                    return CodeExecutionResponse.systemError("Docker is not available");
+                }
+                return CodeExecutionResponse.success("Hello\n", 5L);
+            }
+        };
+
+        ExampleOutputStore store = new ExampleOutputStore() {
+            @Override
+            public boolean contains(Long lessonId, LessonExample example) {
+                return saved.containsKey(example.getHash());
+            }
+
+            @Override
+            public void save(Long lessonId, String lessonVersion, LessonExample example, CodeExecutionResponse response) {
+                saved.put(example.getHash(), response);
+            }
+
+            @Override
+            public void retainVersion(Long lessonId, String lessonVersion) {
+                retainedVersions.add(lessonVersion);
+            }
+        };
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        scheduler = new ExecutionScheduler();
+        ReflectionTestUtils.setField(scheduler, "configuredMaxConcurrent", 1);
+        ReflectionTestUtils.setField(scheduler, "maxQueueLength", 5);
+        ReflectionTestUtils.setField(scheduler, "maxQueuedPerUser", 1);
+        ReflectionTestUtils.setField(scheduler, "meterRegistry", meterRegistry);
+        scheduler.initialize();
+
+        precomputer = new ExampleOutputPrecomputer();
+        ReflectionTestUtils.setField(precomputer, "codeExecutionService", executionService);
+        ReflectionTestUtils.setField(precomputer, "executionScheduler", scheduler);
+        ReflectionTestUtils.setField(precomputer, "store", store);
+        ReflectionTestUtils.setField(precomputer, "meterRegistry", meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void testRunnableCodeBlocksAndStarterCodeAreExtracted() {
+        Lesson lesson = lesson("Intro:\n```java\n" + HELLO + "```\nMarkup:\n```html\n<p>Hi</p>\n```\n"
+                               + "Again:\n```java\n" + HELLO + "```\n");
+
+        List<LessonExample> examples = LessonExample.extract(lesson, List.of(
+            practiceQuestion("public class Main {\n    // Write your code here\n}"), practiceQuestion(null)
+        ));
+
+        assertEquals(2, examples.size());
+        assertEquals(CodeExecutionRequest.Language.JAVA, examples.get(0).getLanguage());
+        assertEquals(HELLO, examples.get(0).getCode());
+        // Starter code is in the language of the lesson's code blocks
+        assertEquals(CodeExecutionRequest.Language.JAVA, examples.get(1).getLanguage());
+        assertEquals(Lesson.Difficulty.INTERMEDIATE, examples.get(1).toRequest().getDifficulty());
+    }
+
+    @Test
+    void testStarterCodeIsSkippedWhenTheLessonMixesLanguages() {
+        Lesson lesson = lesson("```java\n" + HELLO + "```\n```javascript\nconsole.log('Hello');\n```\n");
+
+        List<LessonExample> examples = LessonExample.extract(lesson, List.of(practiceQuestion("let x = 1;")));
+
+        assertEquals(2, examples.size());
+        assertEquals(CodeExecutionRequest.Language.JAVASCRIPT, examples.get(1).getLanguage());
+    }
+
+    @Test
+    void testHashIgnoresLineEndingsAndOnlyCppDifficulty() {
+        String hash = LessonExample.hashOf(CodeExecutionRequest.Language.JAVA, Lesson.Difficulty.BEGINNER, HELLO);
+
+        assertEquals(hash, LessonExample.hashOf(CodeExecutionRequest.Language.JAVA, null,
+                                                HELLO.replace("\n", "\r\n").trim() + "\n\n  "));
+        assertNotEquals(hash, LessonExample.hashOf(CodeExecutionRequest.Language.JAVA, null, "  " + HELLO));
+        assertNotEquals(hash, LessonExample.hashOf(CodeExecutionRequest.Language.PYTHON, null, HELLO));
+        assertEquals(LessonExample.hashOf(CodeExecutionRequest.Language.CPP, null, "int main() {}"),
+                     LessonExample.hashOf(CodeExecutionRequest.Language.CPP, Lesson.Difficulty.BEGINNER, "int main() {}"));
+        assertNotEquals(LessonExample.hashOf(CodeExecutionRequest.Language.CPP, null, "int main() {}"),
+                        LessonExample.hashOf(CodeExecutionRequest.Language.CPP, Lesson.Difficulty.ADVANCED, "int main() {}"));
+    }
+
+    @Test
+    void testOnlyOutcomesBothRunsAgreeOnAreReused() {
+        String timed = "public class Main { public static void main(String[] a) { System.out.println(System.nanoTime()); } }";
+        // Prints an identity hash, which the scanner does not catch
+        String flaky = "public class Main { public static void main(String[] a) { System.out.println(new int[0]); } }";
+        String broken = "// Docker\npublic class Main {}";
+        Lesson lesson = lesson("```java\n" + HELLO + "```\n```java\n" + timed + "\n```\n```java\n" + flaky
+                               + "\n```\n```java\n" + broken + "\n```\n");
+
+        precomputer.precompute(lesson, List.of());
+
+        List<LessonExample> examples = LessonExample.extract(lesson, List.of());
+        assertEquals("Hello\n", saved.get(examples.get(0).getHash()).getOutput());
+        // Reads the clock, so it is recorded as not reusable without running it
+        assertTrue(saved.containsKey(examples.get(1).getHash()));
+        assertNull(saved.get(examples.get(1).getHash()));
+        assertFalse(executed.contains(timed + "\n"));
+        // Stored as run, but its output changes between runs
+        assertTrue(saved.containsKey(examples.get(2).getHash()));
+        assertNull(saved.get(examples.get(2).getHash()));
+        // A system error says nothing about the code and is retried
+        assertFalse(saved.containsKey(examples.get(3).getHash()));
+        assertEquals(5, executed.size());
+
+        executed.clear();
+        precomputer.precompute(lesson, List.of());
+
+        assertEquals(List.of(broken + "\n"), executed);
+        assertEquals(List.of(LessonExample.versionOf(examples), LessonExample.versionOf(examples)), retainedVersions);
+    }
+
+    private static Lesson lesson(String content) {
+        Lesson lesson = new Lesson("Example", "Java", 1, content);
+        lesson.setId(7L);
+        lesson.setDifficulty(Lesson.Difficulty.INTERMEDIATE);
+        return lesson;
+    }
+
+    private static PracticeQuestion practiceQuestion(String starterCode) {
+        PracticeQuestion question = new PracticeQuestion();
+        question.setStarterCode(starterCode);
+        return question;
+    }
+}
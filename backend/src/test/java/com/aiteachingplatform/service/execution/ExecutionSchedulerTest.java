@@ -0,0 +1,221 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.exception.ExecutionQueueFullException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the fair-share, lane-weighted execution scheduler
+ */
+public class ExecutionSchedulerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutionScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = newScheduler(1, 5, new MockEnvironment());
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void testUsersTakeTurnsWhenQueued() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(5);
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        scheduler.submit("alice", () -> {
+            await(release);
+            record(order, done, "alice-1");
+        });
+        scheduler.submit("alice", () -> record(order, done, "alice-2"));
+        scheduler.submit("alice", () -> record(order, done, "alice-3"));
+        scheduler.submit("alice", () -> record(order, done, "alice-4"));
+        scheduler.submit("bob", () -> record(order, done, "bob-1"));
+
+        assertEquals(1, scheduler.getRunning());
+        assertEquals(4, scheduler.getQueueDepth());
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        // Bob does not wait behind all of Alice's backlog
+        assertEquals(List.of("alice-1", "alice-2", "bob-1", "alice-3", "alice-4"), order);
+    }
+
+    @Test
+    void testPerUserQueueLimitRejectsWithRetryAfter() {
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            scheduler.submit("alice", () -> await(release));
+            for (int i = 0; i < 3; i++) {
+                scheduler.submit("alice", () -> {});
+            }
+
+            ExecutionQueueFullException rejected = assertThrows(ExecutionQueueFullException.class,
+                () -> scheduler.submit("alice", () -> {}));
+            assertTrue(rejected.getRetryAfterSeconds() >= 1);
+
+            // Other users can still queue
+            scheduler.submit("bob", () -> {});
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testGlobalQueueLimitRejects() {
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            scheduler.submit("user-0", () -> await(release));
+            for (int i = 1; i <= 5; i++) {
+                scheduler.submit("user-" + i, () -> {});
+            }
+
+            assertThrows(ExecutionQueueFullException.class, () -> scheduler.submit("user-6", () -> {}));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testLanesTakeFreedSlotsByWeight() throws Exception {
+        scheduler.shutdown();
+        scheduler = newScheduler(1, 20, new MockEnvironment());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(6);
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        scheduler.submit("alice", () -> await(release));
+        scheduler.submit(ExecutionLane.BACKGROUND, "examples", () -> record(order, done, "background"));
+        scheduler.submit(ExecutionLane.GRADING, "bob", () -> record(order, done, "grading"));
+        for (int i = 1; i <= 4; i++) {
+            String name = "interactive-" + i;
+            scheduler.submit("user-" + i, () -> record(order, done, name));
+        }
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        // Interactive runs go first, but grading still gets its share of the slot
+        assertEquals(List.of("interactive-1", "interactive-2", "grading", "interactive-3", "interactive-4",
+                             "background"), order);
+    }
+
+    @Test
+    void testBusyLanesLeaveTheInteractiveReservationFree() {
+        scheduler.shutdown();
+        scheduler = newScheduler(4, 20, new MockEnvironment());
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < 4; i++) {
+                scheduler.submit(ExecutionLane.GRADING, "grader-" + i, () -> await(release));
+            }
+            scheduler.submit(ExecutionLane.BACKGROUND, "examples", () -> await(release));
+            scheduler.submit(ExecutionLane.BACKGROUND, "regrade", () -> await(release));
+
+            // A quarter of the slots stays free for interactive runs, and background work
+            // holds at most a quarter
+            assertEquals(3, scheduler.getRunning(ExecutionLane.GRADING));
+            assertEquals(0, scheduler.getRunning(ExecutionLane.BACKGROUND));
+            assertEquals(3, scheduler.getQueueDepth());
+
+            scheduler.submit("alice", () -> await(release));
+
+            assertEquals(1, scheduler.getRunning(ExecutionLane.INTERACTIVE));
+            assertEquals(0, scheduler.getQueueDepth(ExecutionLane.INTERACTIVE));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testLaneQueueLimitRejectsOnlyThatLane() {
+        scheduler.shutdown();
+        scheduler = newScheduler(1, 20,
+            new MockEnvironment().withProperty("code.execution.lanes.background.max-queue-length", "2"));
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            scheduler.submit("alice", () -> await(release));
+            scheduler.submit(ExecutionLane.BACKGROUND, "examples", () -> {});
+            scheduler.submit(ExecutionLane.BACKGROUND, "regrade", () -> {});
+
+            assertThrows(ExecutionQueueFullException.class,
+                () -> scheduler.submit(ExecutionLane.BACKGROUND, "reports", () -> {}));
+            assertEquals(1, meterRegistry.counter("code.execution.scheduler.rejected",
+                                                  "reason", "lane", "lane", "background").count());
+
+            scheduler.submit("bob", () -> {});
+            scheduler.submit(ExecutionLane.GRADING, "bob", () -> {});
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testSlowRunsCountAsMissesOfTheirLaneObjective() throws Exception {
+        scheduler.shutdown();
+        scheduler = newScheduler(1, 5,
+            new MockEnvironment().withProperty("code.execution.lanes.interactive.slo-ms", "1"));
+        CountDownLatch done = new CountDownLatch(2);
+
+        scheduler.submit("alice", () -> {
+            sleep(20);
+            done.countDown();
+        });
+        scheduler.submit(ExecutionLane.GRADING, "alice", done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        // The interactive run was recorded before its slot went to the grading run
+        assertEquals(1, meterRegistry.counter("code.execution.lanes.slo.misses", "lane", "interactive").count());
+        assertEquals(0, meterRegistry.counter("code.execution.lanes.slo.misses", "lane", "grading").count());
+    }
+
+    private ExecutionScheduler newScheduler(int maxConcurrent, int maxQueueLength, MockEnvironment environment) {
+        meterRegistry = new SimpleMeterRegistry();
+        ExecutionScheduler newScheduler = new ExecutionScheduler();
+        ReflectionTestUtils.setField(newScheduler, "configuredMaxConcurrent", maxConcurrent);
+        ReflectionTestUtils.setField(newScheduler, "maxQueueLength", maxQueueLength);
+        ReflectionTestUtils.setField(newScheduler, "maxQueuedPerUser", 3);
+        ReflectionTestUtils.setField(newScheduler, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(newScheduler, "environment", environment);
+        newScheduler.initialize();
+        return newScheduler;
+    }
+
+    private void record(List<String> order, CountDownLatch done, String name) {
+        order.add(name);
+        done.countDown();
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
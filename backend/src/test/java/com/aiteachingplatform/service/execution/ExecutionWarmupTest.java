@@ -0,0 +1,122 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import com.aiteachingplatform.dto.CodeExecutionResponse;
+import com.aiteachingplatform.service.CodeExecutionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the startup warm-up and the readiness it reports
+ */
+public class ExecutionWarmupTest {
+
+    private final Set<CodeExecutionRequest.Language> failing = ConcurrentHashMap.newKeySet();
+
+    private ExecutionWarmup warmup;
+    private ExecutionReadinessHealthIndicator healthIndicator;
+
+    @BeforeEach
+    void setUp() {
+        ExecutionBackendSelector backendSelector = new ExecutionBackendSelector();
+        ReflectionTestUtils.setField(backendSelector, "backendType", "local");
+        ReflectionTestUtils.setField(backendSelector, "localBackend", new LocalProcessBackend() {
+            @Override
+            public boolean isAvailable() {
+                return true;
+            }
+        });
+
+        // Canaries print the expected output unless their language is marked as failing
+        CodeExecutionService codeExecutionService = new CodeExecutionService() {
+            @Override
+            public CodeExecutionResponse executeCode(CodeExecutionRequest request) {
+                assertTrue(request.getTimeoutSeconds() >= 30);
+                return failing.contains(request.getLanguage())
+                    ? CodeExecutionResponse.compilationError("main.cpp:1:1: error: broken toolchain")
+                    : CodeExecutionResponse.success(ExecutionWarmup.CANARY_OUTPUT + "\n", 5);
+            }
+        };
+
+        warmup = new ExecutionWarmup();
+        ReflectionTestUtils.setField(warmup, "executionEnabled", true);
+        ReflectionTestUtils.setField(warmup, "warmupEnabled", true);
+        ReflectionTestUtils.setField(warmup, "queueWorker", true);
+        ReflectionTestUtils.setField(warmup, "pullTimeoutSeconds", 60L);
+        ReflectionTestUtils.setField(warmup, "canaryTimeoutSeconds", 60);
+        ReflectionTestUtils.setField(warmup, "sandboxImages", new SandboxImages());
+        ReflectionTestUtils.setField(warmup, "backendSelector", backendSelector);
+        ReflectionTestUtils.setField(warmup, "sandboxPool", new SandboxContainerPool());
+        ReflectionTestUtils.setField(warmup, "codeExecutionService", codeExecutionService);
+        ReflectionTestUtils.setField(warmup, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(warmup, "initialize");
+
+        healthIndicator = new ExecutionReadinessHealthIndicator();
+        ReflectionTestUtils.setField(healthIndicator, "warmup", warmup);
+    }
+
+    @AfterEach
+    void tearDown() {
+        warmup.shutdown();
+    }
+
+    @Test
+    void testOutOfServiceUntilEveryLanguageIsWarm() {
+        assertEquals(Status.OUT_OF_SERVICE, healthIndicator.health().getStatus());
+
+        for (CodeExecutionRequest.Language language : CodeExecutionRequest.Language.values()) {
+            assertTrue(warmup.warmUp(language));
+        }
+
+        assertTrue(warmup.isReady());
+        assertEquals(Status.UP, healthIndicator.health().getStatus());
+    }
+
+    @Test
+    void testFailedCanaryIsReportedPerLanguage() {
+        failing.add(CodeExecutionRequest.Language.CPP);
+
+        for (CodeExecutionRequest.Language language : CodeExecutionRequest.Language.values()) {
+            warmup.warmUp(language);
+        }
+
+        assertFalse(warmup.isReady());
+        assertEquals(ExecutionWarmup.Stage.FAILED, warmup.getReadiness().get(CodeExecutionRequest.Language.CPP).getStage());
+        assertTrue(warmup.getReadiness().get(CodeExecutionRequest.Language.CPP).getDetail().contains("COMPILATION_ERROR"));
+        assertEquals(ExecutionWarmup.Stage.READY, warmup.getReadiness().get(CodeExecutionRequest.Language.PYTHON).getStage());
+
+        Health health = healthIndicator.health();
+        assertEquals(Status.OUT_OF_SERVICE, health.getStatus());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> languages = (Map<String, Object>) health.getDetails().get("languages");
+        assertEquals(CodeExecutionRequest.Language.values().length, languages.size());
+
+        // A retry picks the language up once its canary passes
+        failing.clear();
+        assertTrue(warmup.warmUp(CodeExecutionRequest.Language.CPP));
+        assertTrue(warmup.isReady());
+    }
+
+    @Test
+    void testApiOnlyNodesAreReadyWithoutWarmingUp() {
+        ReflectionTestUtils.setField(warmup, "queueEnabled", true);
+        ReflectionTestUtils.setField(warmup, "queueWorker", false);
+
+        warmup.start();
+
+        assertFalse(warmup.isRequired());
+        assertTrue(warmup.isReady());
+        assertEquals(Status.UP, healthIndicator.health().getStatus());
+    }
+}
@@ -0,0 +1,111 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for running JavaScript in pooled GraalJS contexts
+ */
+public class GraalJsRunnerTest {
+
+    private MeterRegistry meterRegistry;
+    private GraalJsRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        runner = new GraalJsRunner();
+        ReflectionTestUtils.setField(runner, "enabled", true);
+        ReflectionTestUtils.setField(runner, "poolSize", 2);
+        ReflectionTestUtils.setField(runner, "maxSourceBytes", 16384);
+        ReflectionTestUtils.setField(runner, "statementLimit", 100_000L);
+        ReflectionTestUtils.setField(runner, "cpuBudgetMs", 10_000L);
+        ReflectionTestUtils.setField(runner, "maxAllocationMb", 1024L);
+        ReflectionTestUtils.setField(runner, "watchdogIntervalMs", 10L);
+        ReflectionTestUtils.setField(runner, "maxOutputBytes", 1024L);
+        ReflectionTestUtils.setField(runner, "outputBufferBytes", 1024);
+        ReflectionTestUtils.setField(runner, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.invokeMethod(runner, "initialize");
+    }
+
+    @AfterEach
+    void tearDown() {
+        runner.shutdown();
+    }
+
+    @Test
+    void testPrintsLikeNode() {
+        CodeExecutionResponse response = runner.run(
+            "const xs = [1, 2];\nconsole.log('sum', xs[0] + xs[1]);\nconsole.log(xs, { name: 'Ada' }, null);", 10, null
+        );
+
+        assertEquals(CodeExecutionResponse.ExecutionStatus.SUCCESS, response.getStatus());
+        assertEquals("sum 3\n[ 1, 2 ] { name: 'Ada' } null\n", response.getOutput());
+        assertEquals(1.0, meterRegistry.get("code.execution.graaljs.runs").tag("outcome", "success").counter().count());
+    }
+
+    @Test
+    void testProgramsGetNoHostAccessAndAFreshContext() {
+        CodeExecutionResponse first = runner.run("var leaked = 1;\nconsole.log(typeof Java, typeof Polyglot, typeof print);", 10, null);
+        CodeExecutionResponse second = runner.run("console.log(typeof leaked);", 10, null);
+
+        assertEquals("undefined undefined undefined\n", first.getOutput());
+        assertEquals("undefined\n", second.getOutput());
+    }
+
+    @Test
+    void testUncaughtErrorsAreRuntimeErrors() {
+        // The caret marks where the error was created
+        CodeExecutionResponse response = runner.run("console.error('before');\nthrow new Error('boom');", 10, null);
+
+        assertEquals(CodeExecutionResponse.ExecutionStatus.RUNTIME_ERROR, response.getStatus());
+        assertTrue(response.getError().startsWith("before\nmain.js:2\nthrow new Error('boom');\n      ^\n"),
+                   response.getError());
+        assertTrue(response.getError().contains("Error: boom"), response.getError());
+    }
+
+    @Test
+    void testProgramsNodeWouldPrintDifferentlyFallBack() {
+        assertNull(runner.run("console.log(new Map([[1, 2]]));", 10, null));
+        assertNull(runner.run("console.log('%d apples', 3);", 10, null));
+        assertNull(runner.run("setTimeout(() => console.log('later'), 0);", 10, null));
+        assertEquals(1.0, meterRegistry.get("code.execution.graaljs.fallbacks")
+            .tag("reason", GraalJsRunner.FALLBACK_NODE).counter().count());
+        assertEquals(2.0, meterRegistry.get("code.execution.graaljs.fallbacks")
+            .tag("reason", GraalJsRunner.FALLBACK_CONSOLE).counter().count());
+    }
+
+    @Test
+    void testHeavyProgramsFallBackAtTheStatementLimit() {
+        assertNull(runner.run("let n = 0;\nwhile (true) { n++; }", 10, null));
+        assertEquals(1.0, meterRegistry.get("code.execution.graaljs.fallbacks")
+            .tag("reason", GraalJsRunner.FALLBACK_STATEMENTS).counter().count());
+    }
+
+    @Test
+    void testRunawayProgramsAreStopped() {
+        ReflectionTestUtils.setField(runner, "statementLimit", Long.MAX_VALUE);
+        runner.shutdown();
+        ReflectionTestUtils.invokeMethod(runner, "initialize");
+
+        CodeExecutionResponse timedOut = runner.run("while (true) {}", 1, null);
+        CodeExecutionResponse flooded = runner.run("while (true) { console.log('spam'); }", 10, null);
+
+        assertEquals(CodeExecutionResponse.ExecutionStatus.TIMEOUT, timedOut.getStatus());
+        assertEquals(CodeExecutionResponse.ExecutionStatus.OUTPUT_LIMIT_EXCEEDED, flooded.getStatus());
+    }
+
+    @Test
+    void testNodeOnlyCodeIsDetectedFromTokens() {
+        assertTrue(GraalJsRunner.needsNode("const b = Buffer.from('x');"));
+        assertTrue(GraalJsRunner.needsNode("async function main() {}"));
+        assertFalse(GraalJsRunner.needsNode("// setTimeout is not used\nconsole.log('Promise');"));
+    }
+}
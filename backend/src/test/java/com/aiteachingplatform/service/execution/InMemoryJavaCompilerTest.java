@@ -0,0 +1,59 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CompilationDiagnostic;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.lang.model.SourceVersion;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for in-process Java compilation
+ */
+public class InMemoryJavaCompilerTest {
+    
+    private InMemoryJavaCompiler compiler;
+    
+    @BeforeEach
+    void setUp() {
+        compiler = new InMemoryJavaCompiler();
+        ReflectionTestUtils.setField(compiler, "targetRelease", SourceVersion.latestSupported().ordinal());
+        ReflectionTestUtils.setField(compiler, "compileThreads", 1);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        compiler.shutdown();
+    }
+    
+    @Test
+    void testValidCodeProducesClassFiles() {
+        JavaCompilationResult result = compiler.compile("Main",
+            "public class Main { static class Helper {} public static void main(String[] args) { System.out.println(\"Hello\"); } }", 10);
+        
+        assertTrue(result.isSuccess());
+        assertTrue(result.getClassFiles().containsKey("Main"));
+        assertTrue(result.getClassFiles().containsKey("Main$Helper"));
+    }
+    
+    @Test
+    void testCompilationErrorReportsLineAndColumn() {
+        JavaCompilationResult result = compiler.compile("Main",
+            "public class Main {\n    public static void main(String[] args) {\n        System.out.println(\"Hello\")\n    }\n}", 10);
+        
+        assertFalse(result.isSuccess());
+        assertTrue(result.getClassFiles().isEmpty());
+        
+        CompilationDiagnostic error = result.getDiagnostics().stream()
+            .filter(diagnostic -> diagnostic.getSeverity() == CompilationDiagnostic.Severity.ERROR)
+            .findFirst()
+            .orElseThrow();
+        assertEquals(3, error.getLine());
+        assertNotNull(error.getColumn());
+        assertTrue(error.getMessage().contains("expected"));
+        assertTrue(result.formatErrors("Main.java").startsWith("Main.java:3:"));
+    }
+}
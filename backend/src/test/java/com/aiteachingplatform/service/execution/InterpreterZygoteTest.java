@@ -0,0 +1,139 @@
+package com.aiteachingplatform.service.execution;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Unit tests for the Python fork server, run as a local process
+ */
+@EnabledOnOs(OS.LINUX)
+public class InterpreterZygoteTest {
+
+    @TempDir
+    Path workspace;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private InterpreterZygote zygote;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        assumeTrue(isAvailable("python3"), "python3 is not installed");
+
+        LocalProcessBackend backend = new LocalProcessBackend();
+        ReflectionTestUtils.setField(backend, "timeoutSeconds", 30);
+        ReflectionTestUtils.setField(backend, "addressSpaceMB", 4096L);
+        ReflectionTestUtils.setField(backend, "maxFileMB", 16L);
+        ReflectionTestUtils.setField(backend, "maxProcesses", 1024);
+
+        String script;
+        try (InputStream in = getClass().getResourceAsStream("/zygote/forkserver.py")) {
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        SandboxProcess server = backend.launch(SandboxSpec.coldRun(
+            "unused", workspace, new String[]{"python3", "-c", script}, "zygote-test"
+        ));
+        zygote = new InterpreterZygote(server, "test", executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (zygote != null) {
+            zygote.close();
+        }
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testRunsProgramsWithStdinOutputAndExitCode() throws Exception {
+        Files.writeString(workspace.resolve("main.py"),
+            "import sys\nname = input()\nprint('hello', name)\nprint('warn', file=sys.stderr)\nsys.exit(3)\n");
+
+        Result result = run("world\n", 10);
+
+        assertEquals(3, result.exitCode);
+        assertEquals("hello world\n", result.stdout);
+        assertEquals("warn\n", result.stderr);
+    }
+
+    @Test
+    void testTracebackStartsAtTheProgram() throws Exception {
+        Files.writeString(workspace.resolve("main.py"), "def f():\n    raise ValueError('boom')\nf()\n");
+
+        Result result = run(null, 10);
+
+        assertEquals(1, result.exitCode);
+        assertTrue(result.stderr.startsWith("Traceback (most recent call last):\n  File \""
+            + workspace.resolve("main.py") + "\", line 3"), result.stderr);
+        assertTrue(result.stderr.endsWith("ValueError: boom\n"));
+    }
+
+    @Test
+    void testKilledProgramDoesNotAffectTheNextRun() throws Exception {
+        Files.writeString(workspace.resolve("main.py"), "while True:\n    pass\n");
+        SandboxProcess looping = zygote.run(List.of("main.py"), 30);
+        looping.getStdin().close();
+        assertFalse(looping.waitFor(500, TimeUnit.MILLISECONDS));
+
+        looping.destroy();
+
+        assertTrue(looping.waitFor(5, TimeUnit.SECONDS));
+        assertEquals(137, looping.exitValue());
+        assertTrue(zygote.isAlive());
+
+        Files.writeString(workspace.resolve("main.py"), "print(__name__)\n");
+        Result result = run(null, 10);
+        assertEquals(0, result.exitCode);
+        assertEquals("__main__\n", result.stdout);
+    }
+
+    private Result run(String stdin, int timeoutSeconds) throws Exception {
+        SandboxProcess process = zygote.run(List.of("main.py"), timeoutSeconds);
+        if (stdin != null) {
+            process.getStdin().write(stdin.getBytes(StandardCharsets.UTF_8));
+        }
+        process.getStdin().close();
+
+        Future<byte[]> stdout = executor.submit(() -> process.getStdout().readAllBytes());
+        Future<byte[]> stderr = executor.submit(() -> process.getStderr().readAllBytes());
+        assertTrue(process.waitFor(timeoutSeconds, TimeUnit.SECONDS));
+
+        Result result = new Result();
+        result.exitCode = process.exitValue();
+        result.stdout = new String(stdout.get(5, TimeUnit.SECONDS), StandardCharsets.UTF_8);
+        result.stderr = new String(stderr.get(5, TimeUnit.SECONDS), StandardCharsets.UTF_8);
+        return result;
+    }
+
+    private static boolean isAvailable(String command) {
+        try {
+            return new ProcessBuilder(command, "--version").start().waitFor(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static class Result {
+        int exitCode;
+        String stdout;
+        String stderr;
+    }
+}
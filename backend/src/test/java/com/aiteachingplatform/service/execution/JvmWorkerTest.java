@@ -0,0 +1,210 @@
+package com.aiteachingplatform.service.execution;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.lang.model.SourceVersion;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the JVM worker, run as a local process
+ */
+@EnabledOnOs(OS.LINUX)
+public class JvmWorkerTest {
+
+    @TempDir
+    Path workspace;
+
+    @TempDir
+    Path workerDir;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final InMemoryJavaCompiler compiler = new InMemoryJavaCompiler();
+
+    private InterpreterZygote worker;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(compiler, "targetRelease", SourceVersion.latestSupported().ordinal());
+        ReflectionTestUtils.setField(compiler, "compileThreads", 1);
+
+        LocalProcessBackend backend = new LocalProcessBackend();
+        ReflectionTestUtils.setField(backend, "timeoutSeconds", 30);
+        ReflectionTestUtils.setField(backend, "addressSpaceMB", 4096L);
+        ReflectionTestUtils.setField(backend, "maxFileMB", 16L);
+        ReflectionTestUtils.setField(backend, "maxProcesses", 1024);
+
+        Path source = workerDir.resolve("JvmWorker.java");
+        try (InputStream in = getClass().getResourceAsStream("/zygote/JvmWorker.java")) {
+            Files.copy(in, source);
+        }
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        String[] command = {java, "-Xmx256m", "-XX:+UseSerialGC", source.toString()};
+        SandboxProcess server = backend.launch(SandboxSpec.coldRun("unused", workspace, command, "jvm-worker-test"));
+        worker = new InterpreterZygote(server, "test", executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (worker != null) {
+            worker.close();
+        }
+        compiler.shutdown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testEachRunGetsFreshClassesAndItsOwnStreams() throws Exception {
+        compile("import java.util.Scanner;\n"
+            + "public class Main {\n"
+            + "    static int runs;\n"
+            + "    public static void main(String[] args) {\n"
+            + "        runs++;\n"
+            + "        System.out.println(new Scanner(System.in).nextLine() + \" \" + runs);\n"
+            + "        System.err.println(\"warn\");\n"
+            + "    }\n"
+            + "}\n");
+
+        Result first = run("first\n");
+        Result second = run("second\n");
+
+        assertEquals(0, first.exitCode);
+        assertEquals("first 1\n", first.stdout);
+        assertEquals("warn\n", first.stderr);
+        assertEquals("second 1\n", second.stdout);
+        assertEquals(2, worker.getRuns());
+        assertTrue(worker.isAlive());
+    }
+
+    @Test
+    void testUncaughtExceptionIsReportedLikeTheJavaLauncher() throws Exception {
+        compile("public class Main {\n"
+            + "    public static void main(String[] args) {\n"
+            + "        throw new IllegalStateException(\"boom\");\n"
+            + "    }\n"
+            + "}\n");
+
+        Result result = run(null);
+
+        assertEquals(1, result.exitCode);
+        assertEquals("Exception in thread \"main\" java.lang.IllegalStateException: boom\n"
+            + "\tat Main.main(Main.java:3)\n", result.stderr);
+        assertTrue(worker.isAlive());
+    }
+
+    @Test
+    void testKilledRunRetiresTheWorker() throws Exception {
+        compile("public class Main {\n"
+            + "    public static void main(String[] args) {\n"
+            + "        while (true) {\n"
+            + "        }\n"
+            + "    }\n"
+            + "}\n");
+        SandboxProcess looping = worker.run(List.of("Main"), 30);
+        looping.getStdin().close();
+        assertFalse(looping.waitFor(500, TimeUnit.MILLISECONDS));
+
+        looping.destroy();
+
+        assertTrue(looping.waitFor(5, TimeUnit.SECONDS));
+        assertEquals(137, looping.exitValue());
+        assertFalse(worker.isAlive());
+    }
+
+    @Test
+    void testJoinedThreadsKeepTheWorker() throws Exception {
+        compile("public class Main {\n"
+            + "    public static void main(String[] args) throws Exception {\n"
+            + "        Thread helper = new Thread(() -> System.out.println(\"helper\"));\n"
+            + "        helper.start();\n"
+            + "        helper.join();\n"
+            + "    }\n"
+            + "}\n");
+
+        Result result = run(null);
+
+        assertEquals("helper\n", result.stdout);
+        assertTrue(worker.isAlive());
+    }
+
+    @Test
+    void testParkedVirtualThreadRetiresTheWorker() throws Exception {
+        compile("public class Main {\n"
+            + "    public static void main(String[] args) {\n"
+            + "        Thread.startVirtualThread(() -> {\n"
+            + "            while (true) {\n"
+            + "                java.util.concurrent.locks.LockSupport.park();\n"
+            + "            }\n"
+            + "        });\n"
+            + "    }\n"
+            + "}\n");
+
+        Result result = run(null);
+
+        assertEquals(0, result.exitCode);
+        assertFalse(worker.isAlive());
+    }
+
+    @Test
+    void testCommonPoolWorkRetiresTheWorker() throws Exception {
+        compile("public class Main {\n"
+            + "    public static void main(String[] args) {\n"
+            + "        System.out.println(java.util.concurrent.ForkJoinPool.commonPool().submit(() -> 42).join());\n"
+            + "    }\n"
+            + "}\n");
+
+        Result result = run(null);
+
+        assertEquals("42\n", result.stdout);
+        assertFalse(worker.isAlive());
+    }
+
+    private void compile(String source) throws Exception {
+        JavaCompilationResult result = compiler.compile("Main", source, 30);
+        assertTrue(result.isSuccess());
+        for (Map.Entry<String, byte[]> classFile : result.getClassFiles().entrySet()) {
+            Files.write(workspace.resolve(classFile.getKey() + ".class"), classFile.getValue());
+        }
+    }
+
+    private Result run(String stdin) throws Exception {
+        SandboxProcess process = worker.run(List.of("Main"), 10);
+        if (stdin != null) {
+            process.getStdin().write(stdin.getBytes(StandardCharsets.UTF_8));
+        }
+        process.getStdin().close();
+
+        Future<byte[]> stdout = executor.submit(() -> process.getStdout().readAllBytes());
+        Future<byte[]> stderr = executor.submit(() -> process.getStderr().readAllBytes());
+        assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+
+        Result result = new Result();
+        result.exitCode = process.exitValue();
+        result.stdout = new String(stdout.get(5, TimeUnit.SECONDS), StandardCharsets.UTF_8);
+        result.stderr = new String(stderr.get(5, TimeUnit.SECONDS), StandardCharsets.UTF_8);
+        return result;
+    }
+
+    private static class Result {
+        int exitCode;
+        String stdout;
+        String stderr;
+    }
+}
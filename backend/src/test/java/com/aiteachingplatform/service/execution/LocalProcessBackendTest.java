@@ -0,0 +1,83 @@
+package com.aiteachingplatform.service.execution;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the local process execution backend
+ */
+@EnabledOnOs(OS.LINUX)
+public class LocalProcessBackendTest {
+
+    @TempDir
+    Path workspace;
+
+    private LocalProcessBackend backend;
+
+    @BeforeEach
+    void setUp() {
+        backend = new LocalProcessBackend();
+        ReflectionTestUtils.setField(backend, "timeoutSeconds", 5);
+        ReflectionTestUtils.setField(backend, "addressSpaceMB", 4096L);
+        ReflectionTestUtils.setField(backend, "maxFileMB", 1L);
+        ReflectionTestUtils.setField(backend, "maxProcesses", 1024);
+    }
+
+    @Test
+    void testRunsProgramWithStdinAndExitCode() throws Exception {
+        SandboxProcess process = launch("read line; echo \"got $line\"; echo \"$TMPDIR\" >&2; exit 3");
+        process.getStdin().write("hello\n".getBytes(StandardCharsets.UTF_8));
+        process.getStdin().close();
+
+        assertTrue(process.waitFor(10, TimeUnit.SECONDS));
+        assertEquals(3, process.exitValue());
+        assertEquals("got hello\n", new String(process.getStdout().readAllBytes(), StandardCharsets.UTF_8));
+        assertEquals(workspace.resolve(LocalProcessBackend.PRIVATE_TMP_DIR) + "\n",
+            new String(process.getStderr().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testFileSizeLimitIsApplied() throws Exception {
+        SandboxProcess process = launch("head -c 2000000 /dev/zero > big.out");
+        process.getStdin().close();
+
+        assertTrue(process.waitFor(10, TimeUnit.SECONDS));
+        assertNotEquals(0, process.exitValue());
+        assertTrue(Files.size(workspace.resolve("big.out")) <= 1024 * 1024);
+    }
+
+    @Test
+    void testDestroyKillsTheWholeProcessGroup() throws Exception {
+        SandboxProcess process = launch("(sleep 300) & echo $! > child.pid; sleep 300");
+        process.getStdin().close();
+
+        Path pidFile = workspace.resolve("child.pid");
+        for (int i = 0; i < 100 && (!Files.exists(pidFile) || Files.size(pidFile) == 0); i++) {
+            Thread.sleep(20);
+        }
+        long childPid = Long.parseLong(Files.readString(pidFile).trim());
+
+        process.destroy();
+
+        assertTrue(process.waitFor(5, TimeUnit.SECONDS));
+        ProcessHandle child = ProcessHandle.of(childPid).orElse(null);
+        if (child != null) {
+            child.onExit().get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private SandboxProcess launch(String script) throws Exception {
+        return backend.launch(SandboxSpec.coldRun("unused", workspace, new String[]{"sh", "-c", script}, "local-test"));
+    }
+}
@@ -0,0 +1,49 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the screen for code whose output can change between runs
+ */
+public class NondeterminismScannerTest {
+
+    private final NondeterminismScanner scanner = new NondeterminismScanner();
+
+    @Test
+    void testFindsRandomnessClocksAndThreads() {
+        assertEquals("Math.random", scanner.findSource("System.out.println(Math.random());",
+            CodeExecutionRequest.Language.JAVA));
+        assertEquals("System.nanoTime", scanner.findSource("long t = System\n    .nanoTime();",
+            CodeExecutionRequest.Language.JAVA));
+        assertEquals("random", scanner.findSource("import random\nprint(random.randint(1, 6))",
+            CodeExecutionRequest.Language.PYTHON));
+        assertEquals("Date", scanner.findSource("console.log(Date.now());", CodeExecutionRequest.Language.JAVASCRIPT));
+        assertEquals("chrono", scanner.findSource("#include <chrono>\nint main() {}", CodeExecutionRequest.Language.CPP));
+        assertEquals("Thread", scanner.findSource("new Thread(() -> {}).start();", CodeExecutionRequest.Language.JAVA));
+    }
+
+    @Test
+    void testPythonSetDisplaysAreNondeterministic() {
+        assertFalse(scanner.isDeterministic("print({\"a\", \"b\"})", CodeExecutionRequest.Language.PYTHON));
+        assertFalse(scanner.isDeterministic("words = {w.upper() for w in ['x', 'y']}\nprint(words)",
+            CodeExecutionRequest.Language.PYTHON));
+        assertFalse(scanner.isDeterministic("d = {'k': {'a', 'b'}}", CodeExecutionRequest.Language.PYTHON));
+        assertTrue(scanner.isDeterministic("d = {'a': [1, 2], **other}\ne = {}\nf = {k: v for k, v in d.items()}",
+            CodeExecutionRequest.Language.PYTHON));
+        assertTrue(scanner.isDeterministic("print(f\"{name} scored {score:>3}\")", CodeExecutionRequest.Language.PYTHON));
+    }
+
+    @Test
+    void testPlainProgramsAreDeterministic() {
+        assertTrue(scanner.isDeterministic("for i in range(3):\n    print(i * i)  # not random",
+            CodeExecutionRequest.Language.PYTHON));
+        assertTrue(scanner.isDeterministic("console.log('The time is ' + 'now');",
+            CodeExecutionRequest.Language.JAVASCRIPT));
+        assertTrue(scanner.isDeterministic("#include <iostream>\nint main() { std::cout << 42; }",
+            CodeExecutionRequest.Language.CPP));
+        assertFalse(scanner.isDeterministic(null, CodeExecutionRequest.Language.JAVA));
+    }
+}
@@ -0,0 +1,107 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import com.aiteachingplatform.dto.ResourceUsage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for per-run resource accounting, against a fake cgroup tree
+ */
+public class ResourceAccountingTest {
+
+    private static final String CONTAINER_ID = "0123456789ab";
+
+    @TempDir
+    Path cgroupRoot;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ResourceAccounting accounting;
+
+    private Path cgroup;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        accounting = new ResourceAccounting();
+        ReflectionTestUtils.setField(accounting, "accountingEnabled", true);
+        ReflectionTestUtils.setField(accounting, "cgroupRoot", cgroupRoot.toString());
+        ReflectionTestUtils.setField(accounting, "memorySampleMs", 5L);
+        ReflectionTestUtils.setField(accounting, "meterRegistry", meterRegistry);
+
+        cgroup = Files.createDirectories(cgroupRoot.resolve("system.slice/docker-" + CONTAINER_ID + ".scope"));
+        writeCpu(1_000_000, 500_000);
+        Files.writeString(cgroup.resolve("memory.current"), "1048576\n");
+    }
+
+    @AfterEach
+    void tearDown() {
+        accounting.shutdown();
+    }
+
+    @Test
+    void testPooledRunReportsTheChangeInItsSandboxCgroup() throws Exception {
+        ResourceAccounting.Measurement measurement = accounting.begin(sandbox());
+        Files.writeString(cgroup.resolve("memory.current"), "8388608\n");
+        Thread.sleep(50);
+        Files.writeString(cgroup.resolve("memory.current"), "2097152\n");
+        writeCpu(1_250_000, 530_000);
+
+        ResourceUsage usage = new ResourceUsage();
+        measurement.finish(usage);
+
+        assertEquals(250L, usage.getCpuUserMs());
+        assertEquals(30L, usage.getCpuSystemMs());
+        assertEquals(8388608L, usage.getPeakMemoryBytes());
+    }
+
+    @Test
+    void testColdRunHasNoCgroupFigures() {
+        ResourceUsage usage = new ResourceUsage();
+        try (ResourceAccounting.Measurement measurement = accounting.begin(null)) {
+            measurement.finish(usage);
+        }
+
+        assertNull(usage.getCpuUserMs());
+        assertNull(usage.getPeakMemoryBytes());
+    }
+
+    @Test
+    void testUsageIsRecordedPerLanguage() {
+        ResourceUsage usage = new ResourceUsage();
+        usage.setCpuUserMs(120L);
+        usage.setCpuSystemMs(10L);
+        usage.setPeakMemoryBytes(4096L);
+        usage.setStdoutBytes(100);
+        usage.setStderrBytes(20);
+        usage.setSandboxStartupMs(15);
+
+        accounting.record("python", usage);
+
+        assertEquals(120.0, meterRegistry.get("code.execution.resources.cpu.user").tag("language", "python")
+            .timer().totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(4096.0, meterRegistry.get("code.execution.resources.memory.peak").summary().totalAmount());
+        assertEquals(120.0, meterRegistry.get("code.execution.resources.output").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("code.execution.resources.startup").timer().count());
+    }
+
+    private PooledSandbox sandbox() {
+        return new PooledSandbox(CONTAINER_ID, CodeExecutionRequest.Language.PYTHON, cgroupRoot, true);
+    }
+
+    private void writeCpu(long userUsec, long systemUsec) throws Exception {
+        Files.writeString(cgroup.resolve("cpu.stat"), "usage_usec " + (userUsec + systemUsec) + "\n"
+            + "user_usec " + userUsec + "\n"
+            + "system_usec " + systemUsec + "\n");
+    }
+}
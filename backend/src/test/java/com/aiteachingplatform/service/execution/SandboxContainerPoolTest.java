@@ -0,0 +1,121 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the sandbox container pool, on a backend whose containers start slowly
+ */
+public class SandboxContainerPoolTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicInteger started = new AtomicInteger();
+
+    private final AtomicInteger failingStarts = new AtomicInteger();
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private SandboxContainerPool pool;
+
+    @BeforeEach
+    void setUp() {
+        ExecutionBackendSelector backendSelector = new ExecutionBackendSelector();
+        ReflectionTestUtils.setField(backendSelector, "backendType", "local");
+        ReflectionTestUtils.setField(backendSelector, "localBackend", new LocalProcessBackend() {
+            @Override
+            public boolean isAvailable() {
+                return true;
+            }
+
+            @Override
+            public boolean supportsPooling() {
+                return true;
+            }
+
+            @Override
+            public String startSandbox(SandboxSpec spec) throws IOException {
+                if (failingStarts.getAndDecrement() > 0) {
+                    throw new IOException("daemon unavailable");
+                }
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "sandbox-" + started.incrementAndGet();
+            }
+
+            @Override
+            public void removeSandbox(String containerId) {
+            }
+        });
+
+        pool = new SandboxContainerPool();
+        ReflectionTestUtils.setField(pool, "poolEnabled", true);
+        ReflectionTestUtils.setField(pool, "sizePerLanguage", 0);
+        ReflectionTestUtils.setField(pool, "maxSizePerLanguage", 2);
+        ReflectionTestUtils.setField(pool, "maxUsesPerSandbox", 50);
+        ReflectionTestUtils.setField(pool, "leaseTimeoutMs", 0L);
+        ReflectionTestUtils.setField(pool, "tempDir", tempDir.toString());
+        ReflectionTestUtils.setField(pool, "sandboxImages", new SandboxImages());
+        ReflectionTestUtils.setField(pool, "backendSelector", backendSelector);
+        ReflectionTestUtils.setField(pool, "zygoteManager", new ZygoteManager());
+        ReflectionTestUtils.setField(pool, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(pool, "initialize");
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        pool.shutdown();
+    }
+
+    @Test
+    void testConcurrentMissesDoNotStartMoreThanTheLimit() throws Exception {
+        List<Future<PooledSandbox>> leases = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            leases.add(executor.submit(() -> pool.lease(CodeExecutionRequest.Language.PYTHON)));
+        }
+
+        int leased = 0;
+        for (Future<PooledSandbox> lease : leases) {
+            if (lease.get(5, TimeUnit.SECONDS) != null) {
+                leased++;
+            }
+        }
+
+        assertEquals(2, leased);
+        assertEquals(2, started.get());
+    }
+
+    @Test
+    void testFailedStartGivesBackItsSlot() {
+        failingStarts.set(2);
+
+        assertNull(pool.lease(CodeExecutionRequest.Language.PYTHON));
+        assertNull(pool.lease(CodeExecutionRequest.Language.PYTHON));
+
+        assertNotNull(pool.lease(CodeExecutionRequest.Language.PYTHON));
+        assertNotNull(pool.lease(CodeExecutionRequest.Language.PYTHON));
+        assertNull(pool.lease(CodeExecutionRequest.Language.PYTHON));
+    }
+}
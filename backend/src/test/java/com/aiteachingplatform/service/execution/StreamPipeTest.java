@@ -0,0 +1,61 @@
+package com.aiteachingplatform.service.execution;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the pipe between sandbox stream relays and output capture
+ */
+public class StreamPipeTest {
+
+    @Test
+    void testWriterLargerThanTheBufferReachesTheReader() throws Exception {
+        StreamPipe pipe = new StreamPipe(16);
+        byte[] payload = new byte[10_000];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            try (OutputStream sink = pipe.sink()) {
+                sink.write(payload);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        byte[] received = pipe.source().readAllBytes();
+
+        writer.get(2, TimeUnit.SECONDS);
+        assertArrayEquals(payload, received);
+    }
+
+    @Test
+    void testReaderSeesEndOfStreamOnceTheSinkCloses() throws Exception {
+        StreamPipe pipe = new StreamPipe(64);
+        pipe.sink().write("tail".getBytes());
+        pipe.sink().close();
+
+        InputStream source = pipe.source();
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        source.transferTo(received);
+
+        assertEquals("tail", received.toString());
+        assertEquals(-1, source.read());
+    }
+
+    @Test
+    void testWritingAfterTheReaderClosedFails() throws Exception {
+        StreamPipe pipe = new StreamPipe(4);
+        pipe.source().close();
+
+        assertThrows(IOException.class, () -> pipe.sink().write(new byte[8]));
+    }
+}
@@ -0,0 +1,44 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for turning submissions into source files
+ */
+public class SubmissionFilesTest {
+
+    @TempDir
+    Path workspace;
+
+    @Test
+    void testJavaClassIsRenamedToMain() {
+        String source = SubmissionFiles.prepareSource(
+            "public class Solution {\n    static class Helper {}\n}", CodeExecutionRequest.Language.JAVA);
+
+        assertEquals("public class Main {\n    static class Helper {}\n}", source);
+    }
+
+    @Test
+    void testSourcesThatAlreadyDeclareMainAreUnchanged() {
+        String java = "class Helper {}\npublic class Main {}";
+        String python = "class Solution:\n    pass\n";
+
+        assertSame(java, SubmissionFiles.prepareSource(java, CodeExecutionRequest.Language.JAVA));
+        assertSame(python, SubmissionFiles.prepareSource(python, CodeExecutionRequest.Language.PYTHON));
+    }
+
+    @Test
+    void testSourceIsWrittenUnderTheLanguageFileName() throws Exception {
+        Path file = SubmissionFiles.write(workspace, "print('h\u00e9llo')\n", CodeExecutionRequest.Language.PYTHON);
+
+        assertEquals(workspace.resolve("main.py"), file);
+        assertEquals("print('h\u00e9llo')\n", Files.readString(file));
+    }
+}
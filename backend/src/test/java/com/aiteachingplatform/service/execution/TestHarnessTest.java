@@ -0,0 +1,106 @@
+package com.aiteachingplatform.service.execution;
+
+import com.aiteachingplatform.dto.TestCaseResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the batched test case harness
+ */
+public class TestHarnessTest {
+
+    @TempDir
+    Path workspace;
+
+    @Test
+    void testNormalizeIgnoresTrailingWhitespaceAndBlankLines() {
+        assertEquals("3\n4", TestHarness.normalize("3  \n4\t\r\n\n\n"));
+        assertEquals("", TestHarness.normalize(null));
+        assertEquals("  leading", TestHarness.normalize("  leading"));
+    }
+
+    @Test
+    void testStatusMapping() {
+        assertEquals(TestCaseResult.Status.PASSED, TestHarness.statusFor(0, true));
+        assertEquals(TestCaseResult.Status.WRONG_ANSWER, TestHarness.statusFor(0, false));
+        assertEquals(TestCaseResult.Status.TIMEOUT, TestHarness.statusFor(124, false));
+        assertEquals(TestCaseResult.Status.OUTPUT_LIMIT_EXCEEDED, TestHarness.statusFor(153, false));
+        assertEquals(TestCaseResult.Status.RUNTIME_ERROR, TestHarness.statusFor(1, false));
+    }
+
+    @Test
+    void testUnreachedCasesAreSkipped() throws Exception {
+        List<TestCase> testCases = List.of(new TestCase("1", "1"), new TestCase("2", "2"), new TestCase("3", "3"));
+
+        List<TestCaseResult> results = TestHarness.readResults(workspace, testCases, 1024, 1024, true);
+
+        assertEquals(TestCaseResult.Status.TIMEOUT, results.get(0).getStatus());
+        assertEquals(TestCaseResult.Status.SKIPPED, results.get(1).getStatus());
+        assertEquals(TestCaseResult.Status.SKIPPED, results.get(2).getStatus());
+    }
+
+    @Test
+    @EnabledOnOs(OS.LINUX)
+    void testHarnessRunsAllCasesInOneInvocation() throws Exception {
+        List<TestCase> testCases = List.of(
+            new TestCase("hello", "hello"),
+            new TestCase("world", "something else"),
+            new TestCase("again", "again\n\n")
+        );
+
+        List<TestCaseResult> results = runHarness(testCases, false);
+
+        assertEquals(TestCaseResult.Status.PASSED, results.get(0).getStatus());
+        assertEquals(TestCaseResult.Status.WRONG_ANSWER, results.get(1).getStatus());
+        assertEquals("world\n", results.get(1).getActualOutput());
+        assertEquals(TestCaseResult.Status.PASSED, results.get(2).getStatus());
+    }
+
+    @Test
+    @EnabledOnOs(OS.LINUX)
+    void testStopOnFirstFailureSkipsRemainingCases() throws Exception {
+        List<TestCase> testCases = List.of(
+            new TestCase("a", "wrong"),
+            new TestCase("b", "b")
+        );
+
+        List<TestCaseResult> results = runHarness(testCases, true);
+
+        assertEquals(TestCaseResult.Status.WRONG_ANSWER, results.get(0).getStatus());
+        assertEquals(TestCaseResult.Status.SKIPPED, results.get(1).getStatus());
+    }
+
+    @Test
+    @EnabledOnOs(OS.LINUX)
+    void testHarnessNormalizesOutputLikeNormalize() throws Exception {
+        List<TestCase> testCases = List.of(
+            new TestCase("crlf \t\r\nline\r\n", "crlf\nline"),
+            new TestCase("unix\nline\n", "unix \r\nline\r\n\r\n"),
+            new TestCase("tab\tinside\n", "tab inside")
+        );
+
+        List<TestCaseResult> results = runHarness(testCases, false);
+
+        assertEquals(TestCaseResult.Status.PASSED, results.get(0).getStatus());
+        assertEquals(TestCaseResult.Status.PASSED, results.get(1).getStatus());
+        assertEquals(TestCaseResult.Status.WRONG_ANSWER, results.get(2).getStatus());
+    }
+
+    private List<TestCaseResult> runHarness(List<TestCase> testCases, boolean stopOnFirstFailure) throws Exception {
+        // cat echoes each case's input, standing in for a compiled program
+        TestHarness.write(workspace, testCases, new String[]{"cat"}, 5, 4096, stopOnFirstFailure);
+
+        Process process = new ProcessBuilder(TestHarness.COMMAND).directory(workspace.toFile()).start();
+        assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+
+        return TestHarness.readResults(workspace, testCases, 4096, 4096, false);
+    }
+}
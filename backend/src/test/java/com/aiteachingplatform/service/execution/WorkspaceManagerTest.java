@@ -0,0 +1,109 @@
+package com.aiteachingplatform.service.execution;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for recycled execution workspaces
+ */
+public class WorkspaceManagerTest {
+
+    @TempDir
+    Path root;
+
+    @TempDir
+    Path outside;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private WorkspaceManager manager;
+
+    @AfterEach
+    void tearDown() {
+        if (manager != null) {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    void testLeasedWorkspaceIsEmptyAndWritable() throws Exception {
+        start(2);
+
+        Path workspace = manager.lease();
+
+        assertEquals(root, workspace.getParent());
+        assertTrue(workspace.getFileName().toString().startsWith(WorkspaceManager.WORKSPACE_PREFIX));
+        try (var entries = Files.list(workspace)) {
+            assertEquals(0, entries.count());
+        }
+        Files.writeString(workspace.resolve("Main.java"), "class Main {}");
+        assertEquals(1.0, meterRegistry.get("code.execution.workspace.lease").tag("source", "recycled")
+            .timer().count());
+    }
+
+    @Test
+    void testReleasedWorkspaceIsWipedAndRecycled() throws Exception {
+        start(0);
+        Path workspace = manager.lease();
+        Files.createDirectories(workspace.resolve("out/classes"));
+        Files.writeString(workspace.resolve("out/classes/Main.class"), "bytes");
+        Path target = Files.writeString(outside.resolve("keep.txt"), "keep");
+        Files.createSymbolicLink(workspace.resolve("link"), outside);
+
+        manager.release(workspace);
+        waitFor(() -> meterRegistry.find("code.execution.workspace.wipe").timer() != null);
+
+        assertEquals(workspace, manager.lease());
+        try (var entries = Files.list(workspace)) {
+            assertEquals(0, entries.count());
+        }
+        // Links are removed, never followed
+        assertTrue(Files.exists(target));
+    }
+
+    @Test
+    void testStaleWorkspacesAreReapedAtStartup() throws Exception {
+        Path stale = Files.createDirectories(root.resolve(WorkspaceManager.WORKSPACE_PREFIX + "node-1_1700000000"));
+        Files.writeString(stale.resolve("main.py"), "print(1)");
+        Path unrelated = Files.createDirectories(root.resolve("artifact-cache"));
+        // Another node sharing the directory may be running code in its workspaces right now
+        Path otherNode = Files.createDirectories(root.resolve(WorkspaceManager.WORKSPACE_PREFIX + "node-2_1700000000"));
+        Path otherNodePrefixed = Files.createDirectories(root.resolve(WorkspaceManager.WORKSPACE_PREFIX + "node-10_1"));
+
+        start(1);
+        waitFor(() -> !Files.exists(stale));
+
+        assertTrue(Files.exists(unrelated));
+        assertTrue(Files.exists(otherNode));
+        assertTrue(Files.exists(otherNodePrefixed));
+        waitFor(() -> meterRegistry.find("code.execution.workspace.reaped").counter() != null);
+        assertEquals(1.0, meterRegistry.get("code.execution.workspace.reaped").counter().count());
+    }
+
+    private void start(int preCreated) throws Exception {
+        manager = new WorkspaceManager();
+        ReflectionTestUtils.setField(manager, "workspaceDir", root.toString());
+        ReflectionTestUtils.setField(manager, "tempDir", root.toString());
+        ReflectionTestUtils.setField(manager, "preCreated", preCreated);
+        ReflectionTestUtils.setField(manager, "maxIdle", 4);
+        ReflectionTestUtils.setField(manager, "nodeId", "node-1");
+        ReflectionTestUtils.setField(manager, "meterRegistry", meterRegistry);
+        manager.initialize();
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 250 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(20);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
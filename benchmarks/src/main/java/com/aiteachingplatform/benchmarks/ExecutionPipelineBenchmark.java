@@ -0,0 +1,156 @@
+package com.aiteachingplatform.benchmarks;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import com.aiteachingplatform.dto.CodeExecutionResponse;
+import com.aiteachingplatform.repository.ExampleOutputRepository;
+import com.aiteachingplatform.service.CodeExecutionService;
+import com.aiteachingplatform.service.LoggingService;
+import com.aiteachingplatform.service.execution.CompiledArtifactCache;
+import com.aiteachingplatform.service.execution.ContainerLifecycleTracker;
+import com.aiteachingplatform.service.execution.CppToolchain;
+import com.aiteachingplatform.service.execution.DockerCliBackend;
+import com.aiteachingplatform.service.execution.DockerEngineApiBackend;
+import com.aiteachingplatform.service.execution.ExampleOutputStore;
+import com.aiteachingplatform.service.execution.ExecutionBackendSelector;
+import com.aiteachingplatform.service.execution.ExecutionThreads;
+import com.aiteachingplatform.service.execution.GraalJsRunner;
+import com.aiteachingplatform.service.execution.InMemoryJavaCompiler;
+import com.aiteachingplatform.service.execution.LocalProcessBackend;
+import com.aiteachingplatform.service.execution.ResourceAccounting;
+import com.aiteachingplatform.service.execution.SandboxContainerPool;
+import com.aiteachingplatform.service.execution.SandboxImages;
+import com.aiteachingplatform.service.execution.WorkspaceManager;
+import com.aiteachingplatform.service.execution.ZygoteManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end throughput of CodeExecutionService on the local process backend
+ * Covers everything but Docker: security scan, source preparation, compilation (Java
+ * in-process, through the artifact cache), workspace lease and wipe, process launch,
+ * output capture and accounting. The interpreters must be on the PATH as python, node
+ * and java (21 or newer, the compile target). Raise the thread count with -t to measure
+ * the pipeline under contention
+ *
+ * Run with: java -jar target/benchmarks.jar ExecutionPipelineBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecutionPipelineBenchmark {
+
+    private static final Map<CodeExecutionRequest.Language, String> PROGRAMS = Map.of(
+        CodeExecutionRequest.Language.PYTHON,
+        "name = input()\nprint('Hello, ' + name)\n",
+        CodeExecutionRequest.Language.JAVASCRIPT,
+        // require is rejected by the security scan, so this program does not read stdin
+        "const name = 'benchmark';\nconsole.log('Hello, ' + name);\n",
+        CodeExecutionRequest.Language.JAVA,
+        "import java.util.Scanner;\n"
+            + "public class Main {\n"
+            + "    public static void main(String[] args) {\n"
+            + "        System.out.println(\"Hello, \" + new Scanner(System.in).nextLine());\n"
+            + "    }\n"
+            + "}\n"
+    );
+
+    @Param({"PYTHON", "JAVASCRIPT", "JAVA"})
+    private CodeExecutionRequest.Language language;
+
+    private AnnotationConfigApplicationContext context;
+
+    private CodeExecutionService service;
+
+    private CodeExecutionRequest request;
+
+    private Path cacheDir;
+
+    @Setup
+    public void setUp() throws Exception {
+        cacheDir = Files.createTempDirectory("benchmark-artifact-cache");
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("code.execution.backend", "local");
+        properties.put("code.execution.pool.enabled", "false");
+        properties.put("code.execution.cache.dir", cacheDir.toString());
+        properties.put("code.execution.examples.enabled", "false");
+
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        // A lambda, since ObjectMapper::new also matches the BeanDefinitionCustomizer overload
+        context.registerBean(ObjectMapper.class, () -> new ObjectMapper());
+        // No database: precomputed lesson outputs are disabled, so the store never queries it
+        context.registerBean(ExampleOutputRepository.class, () -> (ExampleOutputRepository) Proxy.newProxyInstance(
+            ExampleOutputRepository.class.getClassLoader(), new Class<?>[] {ExampleOutputRepository.class},
+            (proxy, method, args) -> {
+                // The container hashes and compares its beans
+                switch (method.getName()) {
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return "ExampleOutputRepository (no database)";
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            }));
+        context.register(
+            CodeExecutionService.class, LoggingService.class, SandboxContainerPool.class, SandboxImages.class,
+            ExecutionBackendSelector.class, DockerEngineApiBackend.class, DockerCliBackend.class,
+            LocalProcessBackend.class, InMemoryJavaCompiler.class, CompiledArtifactCache.class,
+            WorkspaceManager.class, ZygoteManager.class, ResourceAccounting.class, ExecutionThreads.class,
+            ContainerLifecycleTracker.class, CppToolchain.class, GraalJsRunner.class, ExampleOutputStore.class
+        );
+        context.refresh();
+        service = context.getBean(CodeExecutionService.class);
+
+        request = new CodeExecutionRequest();
+        request.setCode(PROGRAMS.get(language));
+        request.setLanguage(language);
+        request.setStdin("benchmark");
+
+        CodeExecutionResponse response = service.executeCode(request);
+        if (!response.isSuccess()) {
+            throw new IllegalStateException("Benchmark program failed: " + response.getError());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        context.close();
+        WorkspaceManager.wipe(cacheDir);
+        Files.deleteIfExists(cacheDir);
+    }
+
+    @Benchmark
+    public CodeExecutionResponse executeCode() {
+        return service.executeCode(request);
+    }
+}
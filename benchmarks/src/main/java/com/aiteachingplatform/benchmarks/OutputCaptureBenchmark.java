@@ -0,0 +1,66 @@
+package com.aiteachingplatform.benchmarks;
+
+import com.aiteachingplatform.service.execution.BoundedOutputCapture;
+import com.aiteachingplatform.service.execution.OutputListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of capturing a program's output, with and without a streaming listener
+ * Uses the service's defaults: 64 KB ring buffers and a 1 MB cap, so the largest size
+ * exercises the wrapped buffer right up to the limit
+ *
+ * Run with: java -jar target/benchmarks.jar OutputCaptureBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OutputCaptureBenchmark {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final long MAX_OUTPUT_BYTES = 1024 * 1024;
+
+    @Param({"1024", "65536", "1048576"})
+    private int outputBytes;
+
+    @Param({"false", "true"})
+    private boolean streaming;
+
+    private byte[] output;
+
+    @Setup
+    public void setUp() {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; lines.length() < outputBytes; i++) {
+            lines.append("line ").append(i).append(": \u00e9 values so far\n");
+        }
+        output = lines.substring(0, outputBytes).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String capture(Blackhole blackhole) throws IOException {
+        OutputListener listener = streaming ? (stream, text) -> blackhole.consume(text) : null;
+        BoundedOutputCapture capture = new BoundedOutputCapture(BUFFER_BYTES, MAX_OUTPUT_BYTES, listener, () -> { });
+        capture.drain(new ByteArrayInputStream(output), OutputListener.STDOUT);
+        capture.drain(new ByteArrayInputStream(new byte[0]), OutputListener.STDERR);
+        return capture.getText(OutputListener.STDOUT);
+    }
+}
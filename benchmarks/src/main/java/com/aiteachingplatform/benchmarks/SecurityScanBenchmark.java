@@ -0,0 +1,116 @@
+package com.aiteachingplatform.benchmarks;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import com.aiteachingplatform.service.execution.CodeSecurityScanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Throughput of the pre-execution security screen
+ * Compares the token scanner with the regex array it replaced on clean submissions,
+ * which is the common case and the worst one for both: every rule has to be ruled out
+ * over the whole source
+ *
+ * Run with: java -jar target/benchmarks.jar SecurityScanBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SecurityScanBenchmark {
+
+    /** The patterns CodeExecutionService checked one after another before the token scanner */
+    private static final Pattern[] LEGACY_PATTERNS = {
+        Pattern.compile("\\bRuntime\\b", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\bProcess\\b", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\bSystem\\.exit\\b", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\bfile\\s*\\(", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\bopen\\s*\\(", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\b__import__\\b", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\beval\\b", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\bexec\\b", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\bos\\.", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\bsubprocess\\b", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\bsocket\\b", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\bhttp\\b", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\burllib\\b", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("\\brequests\\b", Pattern.CASE_INSENSITIVE)
+    };
+
+    private static final String JAVA_UNIT =
+        "    // Sum the even values of the array\n"
+        + "    static int sumEven(int[] values) {\n"
+        + "        int total = 0;\n"
+        + "        for (int value : values) {\n"
+        + "            if (value % 2 == 0) {\n"
+        + "                total += value;\n"
+        + "            }\n"
+        + "        }\n"
+        + "        System.out.println(\"Sum of even values: \" + total);\n"
+        + "        return total;\n"
+        + "    }\n\n";
+
+    private static final String PYTHON_UNIT =
+        "# Sum the even values of the list\n"
+        + "def sum_even(values):\n"
+        + "    total = 0\n"
+        + "    for value in values:\n"
+        + "        if value % 2 == 0:\n"
+        + "            total += value\n"
+        + "    print(f\"Sum of even values: {total}\")\n"
+        + "    return total\n\n";
+
+    /** Submissions are capped at 10000 characters */
+    @Param({"400", "10000"})
+    private int length;
+
+    @Param({"JAVA", "PYTHON"})
+    private CodeExecutionRequest.Language language;
+
+    private String code;
+
+    private CodeSecurityScanner scanner;
+
+    @Setup
+    public void setUp() {
+        String unit = language == CodeExecutionRequest.Language.PYTHON ? PYTHON_UNIT : JAVA_UNIT;
+        StringBuilder source = new StringBuilder();
+        while (source.length() + unit.length() <= length) {
+            source.append(unit);
+        }
+        if (source.length() == 0) {
+            source.append(unit);
+        }
+        code = source.toString();
+        scanner = new CodeSecurityScanner();
+    }
+
+    @Benchmark
+    public String legacyPatterns() {
+        for (Pattern pattern : LEGACY_PATTERNS) {
+            if (pattern.matcher(code).find()) {
+                return pattern.pattern();
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public String tokenScanner() {
+        return scanner.findViolation(code, language);
+    }
+}
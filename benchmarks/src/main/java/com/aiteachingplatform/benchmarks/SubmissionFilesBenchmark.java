@@ -0,0 +1,88 @@
+package com.aiteachingplatform.benchmarks;
+
+import com.aiteachingplatform.dto.CodeExecutionRequest;
+import com.aiteachingplatform.service.execution.SubmissionFiles;
+import com.aiteachingplatform.service.execution.WorkspaceManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of turning a submission into its source file: the Java class rewrite and
+ * the write into the workspace
+ * The rewrite is compared with the per-call String.replaceFirst it replaced
+ *
+ * Run with: java -jar target/benchmarks.jar SubmissionFilesBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SubmissionFilesBenchmark {
+
+    private static final String BODY =
+        " {\n"
+        + "    public static void main(String[] args) {\n"
+        + "        int total = 0;\n"
+        + "        for (int i = 0; i < 10; i++) {\n"
+        + "            total += i;\n"
+        + "        }\n"
+        + "        System.out.println(total);\n"
+        + "    }\n"
+        + "}\n";
+
+    /** Solution needs the rewrite, Main is left alone after the contains check */
+    @Param({"Solution", "Main"})
+    private String className;
+
+    private String code;
+
+    private Path workspace;
+
+    @Setup
+    public void setUp() throws IOException {
+        code = "import java.util.*;\n\npublic class " + className + BODY;
+        workspace = Files.createTempDirectory("submission-benchmark");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        WorkspaceManager.wipe(workspace);
+        Files.deleteIfExists(workspace);
+    }
+
+    @Benchmark
+    public String legacyReplaceFirst() {
+        if (!code.contains("class Main")) {
+            return code.replaceFirst("class\\s+\\w+", "class Main");
+        }
+        return code;
+    }
+
+    @Benchmark
+    public String prepareSource() {
+        return SubmissionFiles.prepareSource(code, CodeExecutionRequest.Language.JAVA);
+    }
+
+    @Benchmark
+    public Path prepareAndWrite() throws IOException {
+        String source = SubmissionFiles.prepareSource(code, CodeExecutionRequest.Language.JAVA);
+        return SubmissionFiles.write(workspace, source, CodeExecutionRequest.Language.JAVA);
+    }
+}
@@ -0,0 +1,76 @@
+package com.aiteachingplatform.benchmarks;
+
+import com.aiteachingplatform.service.execution.WorkspaceManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of wiping a workspace after a run
+ * The workspace is refilled before every invocation with a source file and a number of
+ * class files; 4 is a typical Java submission, 64 one with many nested classes
+ *
+ * Run with: java -jar target/benchmarks.jar WorkspaceCleanupBenchmark -p root=/dev/shm
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorkspaceCleanupBenchmark {
+
+    private static final byte[] CLASS_FILE = new byte[2048];
+
+    @Param({"4", "64"})
+    private int files;
+
+    /** Directory the workspace is created in; empty for the JVM temp directory */
+    @Param({""})
+    private String root;
+
+    private Path workspace;
+
+    @Setup(Level.Trial)
+    public void createWorkspace() throws IOException {
+        workspace = root.isEmpty()
+            ? Files.createTempDirectory("exec_")
+            : Files.createTempDirectory(Paths.get(root), "exec_");
+    }
+
+    @Setup(Level.Invocation)
+    public void fillWorkspace() throws IOException {
+        Files.writeString(workspace.resolve("Main.java"), "public class Main {}");
+        Path classes = Files.createDirectories(workspace.resolve("out"));
+        for (int i = 0; i < files; i++) {
+            Files.write(classes.resolve("Main$" + i + ".class"), CLASS_FILE);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWorkspace() throws IOException {
+        WorkspaceManager.wipe(workspace);
+        Files.deleteIfExists(workspace);
+    }
+
+    @Benchmark
+    public void wipe() throws IOException {
+        WorkspaceManager.wipe(workspace);
+    }
+}
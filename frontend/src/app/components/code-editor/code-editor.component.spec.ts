@@ -3,7 +3,7 @@ import { HttpClientTestingModule } from '@angular/common/http/testing';
 import { MatSnackBarModule } from '@angular/material/snack-bar';
 import { NoopAnimationsModule } from '@angular/platform-browser/animations';
 import { CodeEditorComponent } from './code-editor.component';
-import { CodeExecutionService } from '../../services/code-execution.service';
+import { CodeExecutionService, ValidationResponse } from '../../services/code-execution.service';
 import { of, throwError } from 'rxjs';
 import { NGX_MONACO_EDITOR_CONFIG } from 'ngx-monaco-editor-v2';
 
@@ -138,7 +138,13 @@ describe('CodeEditorComponent', () => {
   });
 
   it('should validate code', () => {
-    const mockResponse = { message: 'Code validation passed' };
+    const mockResponse: ValidationResponse = {
+      valid: true,
+      status: 'VALID',
+      message: 'Code validation passed',
+      diagnostics: [],
+      validationTimeMs: 12
+    };
     codeExecutionService.validateCode.and.returnValue(of(mockResponse));
     
     component.code = 'public class Test {}';
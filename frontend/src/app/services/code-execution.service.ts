@@ -18,19 +18,54 @@ export interface CodeExecutionResponse {
   output?: string;
   error?: string;
   compilationError?: string;
-  status: 'SUCCESS' | 'COMPILATION_ERROR' | 'RUNTIME_ERROR' | 'TIMEOUT' | 'MEMORY_LIMIT_EXCEEDED' | 'SECURITY_VIOLATION' | 'SYSTEM_ERROR';
+  status: 'SUCCESS' | 'COMPILATION_ERROR' | 'RUNTIME_ERROR' | 'TIMEOUT' | 'MEMORY_LIMIT_EXCEEDED' | 'OUTPUT_LIMIT_EXCEEDED' | 'SECURITY_VIOLATION' | 'SYSTEM_ERROR';
+  outputTruncated?: boolean;
   executionTimeMs: number;
   memoryUsageMB: number;
   executedAt: string;
   language?: string;
 }
 
+export interface TestCaseResult {
+  index: number;
+  status: 'PASSED' | 'WRONG_ANSWER' | 'RUNTIME_ERROR' | 'TIMEOUT' | 'OUTPUT_LIMIT_EXCEEDED' | 'SKIPPED';
+  passed: boolean;
+  input?: string;
+  expectedOutput?: string;
+  actualOutput?: string;
+  error?: string;
+  executionTimeMs: number;
+}
+
+export interface TestRunResponse {
+  success: boolean;
+  status: CodeExecutionResponse['status'];
+  compilationError?: string;
+  error?: string;
+  passedCount: number;
+  totalCount: number;
+  executionTimeMs: number;
+  results: TestCaseResult[];
+}
+
 export interface HintResponse {
   hint: string;
 }
 
+export interface CompilationDiagnostic {
+  line?: number;
+  column?: number;
+  message: string;
+  severity: 'ERROR' | 'WARNING' | 'INFO';
+}
+
 export interface ValidationResponse {
+  valid: boolean;
+  status: 'VALID' | 'INVALID' | 'TIMEOUT' | 'SECURITY_VIOLATION' | 'SYSTEM_ERROR';
   message: string;
+  diagnostics: CompilationDiagnostic[];
+  validationTimeMs: number;
+  language?: string;
 }
 
 @Injectable({
@@ -80,6 +115,22 @@ export class CodeExecutionService {
       );
   }
 
+  /**
+   * Grade code against a practice question's test cases
+   */
+  gradePracticeQuestion(questionId: number, request: CodeExecutionRequest, stopOnFirstFailure = false): Observable<TestRunResponse> {
+    const headers = new HttpHeaders({
+      'Content-Type': 'application/json'
+    });
+
+    return this.http.post<TestRunResponse>(
+      `${this.apiUrl}/questions/${questionId}/grade`, request, { headers, params: { stopOnFirstFailure } }
+    ).pipe(
+      timeout(this.EXECUTION_TIMEOUT * 2),
+      catchError(this.handleError)
+    );
+  }
+
   /**
    * Validate code without executing it
    * Performs security checks and basic syntax validation
@@ -143,6 +194,8 @@ export class CodeExecutionService {
         return 'Your code took too long to execute. Check for infinite loops or optimize your algorithm.';
       case 'MEMORY_LIMIT_EXCEEDED':
         return 'Your code used too much memory. Consider using more efficient data structures.';
+      case 'OUTPUT_LIMIT_EXCEEDED':
+        return 'Your code printed too much output. Check for loops that print without stopping.';
       case 'SECURITY_VIOLATION':
         return 'Your code contains potentially unsafe operations. Please use only basic programming constructs.';
       case 'SYSTEM_ERROR':